@@ -0,0 +1,83 @@
+package org.demo.Benchmarks;
+
+import org.demo.Models.Cita;
+import org.demo.Models.Medico;
+import org.demo.Models.Paciente;
+import org.demo.Models.TipoDocumento;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Getters de texto de {@link Cita} que pide la tabla por cada celda visible.
+ * Los casos "EnCache" miden la lectura repetida de una fila ya mostrada; los casos
+ * "TrasCambio" cambian el dato antes de leer, es decir, el costo de formatear de nuevo.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CitaFormatoBenchmark {
+
+    private Cita cita;
+    private LocalDate[] fechas;
+    private LocalTime[] horas;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void crear() {
+        Medico medico = new Medico("Ana Torres", TipoDocumento.CC, "70000001", "3001", "Calle 1",
+                "ana@clinica.com", "Cardiología", "C-101");
+        Paciente paciente = new Paciente("Luis Gómez", TipoDocumento.CC, "10000001", "3101", "Carrera 1",
+                "luis@correo.com", "01/01/1990", "Ninguna");
+        cita = new Cita(medico, paciente, LocalDate.of(2030, 1, 7), LocalTime.of(9, 30), 30, 50_000, "Control", null);
+
+        fechas = new LocalDate[64];
+        horas = new LocalTime[64];
+        for (int i = 0; i < 64; i++) {
+            fechas[i] = LocalDate.of(2030, 1, 1).plusDays(i);
+            horas[i] = LocalTime.of(8, 0).plusMinutes(5L * i);
+        }
+    }
+
+    @Benchmark
+    public String fechaFormateadaEnCache() {
+        return cita.getFechaFormateada();
+    }
+
+    @Benchmark
+    public String horaFormateadaEnCache() {
+        return cita.getHoraFormateada();
+    }
+
+    @Benchmark
+    public String codigoEnCache() {
+        return cita.getCodigo();
+    }
+
+    @Benchmark
+    public String fechaFormateadaTrasCambio() {
+        cita.setFecha(fechas[cursor++ & 63]);
+        return cita.getFechaFormateada();
+    }
+
+    @Benchmark
+    public String horaFormateadaTrasCambio() {
+        cita.setHora(horas[cursor++ & 63]);
+        return cita.getHoraFormateada();
+    }
+}
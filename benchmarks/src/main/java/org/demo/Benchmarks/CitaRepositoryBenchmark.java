@@ -0,0 +1,63 @@
+package org.demo.Benchmarks;
+
+import org.demo.Models.Cita;
+import org.demo.Models.CupoLibre;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caminos frecuentes de {@code CitaRepository} al agendar.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx24g")
+public class CitaRepositoryBenchmark {
+
+    @Benchmark
+    public boolean existeCitaEnHorario(DatosCitas datos) {
+        int i = datos.siguiente();
+        return datos.citaRepository.existeCitaEnHorario(datos.muestraMedico[i], datos.muestraFecha[i],
+                datos.muestraHora[i], DatosCitas.DURACION, null);
+    }
+
+    /**
+     * Alta de una cita nueva; se elimina enseguida para que la agenda no crezca entre iteraciones.
+     */
+    @Benchmark
+    public Cita guardarYEliminarCita(DatosCitas datos) {
+        int i = datos.siguiente();
+        Cita cita = new Cita(datos.muestraMedico[i], datos.pacientes[i % datos.pacientes.length],
+                datos.muestraFecha[i], datos.muestraHora[i], DatosCitas.DURACION, 50_000, "Control", null);
+        datos.citaRepository.guardarCita(cita);
+        datos.citaRepository.eliminarCita(cita);
+        return cita;
+    }
+
+    /**
+     * Cambio de duración de una cita existente: reindexa disponibilidad, orden por fecha y lista.
+     */
+    @Benchmark
+    public Cita actualizarCita(DatosCitas datos) {
+        Cita cita = datos.muestraCita[datos.siguiente()];
+        cita.setDuracionMinutos(cita.getDuracionMinutos() == DatosCitas.DURACION ? 25 : DatosCitas.DURACION);
+        datos.citaRepository.actualizarCita(cita);
+        return cita;
+    }
+
+    @Benchmark
+    public List<CupoLibre> buscarCuposLibres(DatosCitas datos) {
+        int i = datos.siguiente();
+        return datos.medicoRepository.buscarCuposLibres(datos.muestraMedico[i].getEspecialidad(),
+                datos.muestraFecha[i].atTime(datos.muestraHora[i]), DatosCitas.DURACION, 10);
+    }
+}
@@ -0,0 +1,123 @@
+package org.demo.Benchmarks;
+
+import org.demo.Models.Cita;
+import org.demo.Models.Medico;
+import org.demo.Models.Paciente;
+import org.demo.Models.TipoDocumento;
+import org.demo.Repositories.CitaRepository;
+import org.demo.Repositories.MedicoRepository;
+import org.demo.Repositories.PacienteRepository;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Agenda cargada en los repositorios para los benchmarks de citas y médicos.
+ * Los repositorios son únicos por JVM y JMH usa una JVM nueva por cada valor de
+ * {@code citas}, así que cada medición parte de una agenda recién cargada.
+ *
+ * <p>Cada médico atiende de 08:00 a 16:00 en turnos de 30 minutos y se agregan tantos
+ * médicos como hagan falta para no pasar de un año de agenda. Las consultas usan muestras
+ * aleatorias precalculadas (con semilla fija) para que el costo de elegirlas no se mida.</p>
+ */
+@State(Scope.Benchmark)
+public class DatosCitas {
+
+    static final String[] ESPECIALIDADES = {
+            "Cardiología", "Pediatría", "Neurología", "Dermatología",
+            "Ortopedia", "Oftalmología", "Ginecología", "Medicina General"
+    };
+    static final LocalDate PRIMER_DIA = LocalDate.of(2030, 1, 7);
+    static final int TURNOS_POR_DIA = 16;
+    static final int DURACION = 30;
+
+    private static final int PACIENTES = 1000;
+    private static final int MUESTRAS = 4096;
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int citas;
+
+    CitaRepository citaRepository;
+    MedicoRepository medicoRepository;
+
+    int dias;
+    Medico[] medicos;
+    Paciente[] pacientes;
+
+    // Consultas de horario al azar (médico, día, hora) y citas existentes al azar
+    Medico[] muestraMedico = new Medico[MUESTRAS];
+    LocalDate[] muestraFecha = new LocalDate[MUESTRAS];
+    LocalTime[] muestraHora = new LocalTime[MUESTRAS];
+    Cita[] muestraCita = new Cita[MUESTRAS];
+
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void cargar() {
+        citaRepository = CitaRepository.getInstancia();
+        medicoRepository = MedicoRepository.getInstancia();
+        PacienteRepository pacienteRepository = PacienteRepository.getInstancia();
+
+        int cantidadMedicos = Math.max(10, (int) Math.ceil(citas / (TURNOS_POR_DIA * 365.0)));
+        dias = (int) Math.ceil(citas / (double) (cantidadMedicos * TURNOS_POR_DIA));
+
+        List<Medico> loteMedicos = new ArrayList<>(cantidadMedicos);
+        for (int i = 0; i < cantidadMedicos; i++) {
+            loteMedicos.add(new Medico("Médico " + i, TipoDocumento.CC, String.valueOf(70_000_000 + i),
+                    "300" + i, "Calle " + i, "medico" + i + "@clinica.com",
+                    ESPECIALIDADES[i % ESPECIALIDADES.length], "C-" + (i % 200)));
+        }
+        medicoRepository.guardarMedicos(loteMedicos, (m, motivo) -> { });
+        medicos = loteMedicos.toArray(new Medico[0]);
+
+        List<Paciente> lotePacientes = new ArrayList<>(PACIENTES);
+        for (int i = 0; i < PACIENTES; i++) {
+            lotePacientes.add(new Paciente("Paciente " + i, TipoDocumento.CC, String.valueOf(10_000_000 + i),
+                    "310" + i, "Carrera " + i, "paciente" + i + "@correo.com", "01/01/1990", "Ninguna"));
+        }
+        pacienteRepository.guardarPacientes(lotePacientes, (p, motivo) -> { });
+        pacientes = lotePacientes.toArray(new Paciente[0]);
+
+        Random azar = new Random(42);
+        for (int i = 0; i < citas; i++) {
+            int turno = i / cantidadMedicos;
+            LocalDate fecha = PRIMER_DIA.plusDays(turno / TURNOS_POR_DIA);
+            LocalTime hora = LocalTime.of(8, 0).plusMinutes((long) (turno % TURNOS_POR_DIA) * DURACION);
+            Cita cita = new Cita(medicos[i % cantidadMedicos], pacientes[i % PACIENTES], fecha, hora,
+                    DURACION, 50_000, "Control", null);
+            citaRepository.guardarCita(cita);
+
+            // Muestreo de reservorio: cada cita tiene la misma probabilidad de quedar
+            if (i < MUESTRAS) {
+                muestraCita[i] = cita;
+            } else {
+                int j = azar.nextInt(i + 1);
+                if (j < MUESTRAS) muestraCita[j] = cita;
+            }
+        }
+        for (int i = citas; i < MUESTRAS; i++) {
+            muestraCita[i] = muestraCita[azar.nextInt(Math.max(1, citas))];
+        }
+
+        for (int i = 0; i < MUESTRAS; i++) {
+            muestraMedico[i] = medicos[azar.nextInt(medicos.length)];
+            muestraFecha[i] = PRIMER_DIA.plusDays(azar.nextInt(dias));
+            muestraHora[i] = LocalTime.of(8, 0).plusMinutes(5L * azar.nextInt(96));
+        }
+    }
+
+    /**
+     * Índice de la próxima muestra; recorre las muestras en círculo.
+     */
+    int siguiente() {
+        return cursor++ & (MUESTRAS - 1);
+    }
+}
@@ -0,0 +1,36 @@
+package org.demo.Benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Punto de entrada del jar de benchmarks.
+ * Acepta las mismas opciones que JMH (por ejemplo {@code -p citas=1000 CitaRepository})
+ * y siempre agrega el perfilador de GC, así cada resultado trae su tasa de asignación
+ * ({@code gc.alloc.rate.norm}, bytes por operación).
+ */
+public final class EjecutarBenchmarks {
+
+    private EjecutarBenchmarks() {}
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions linea = new CommandLineOptions(args);
+        if (linea.shouldHelp()) {
+            linea.showHelp();
+            return;
+        }
+        if (linea.shouldList()) {
+            new Runner(linea).list();
+            return;
+        }
+
+        Options opciones = new OptionsBuilder()
+                .parent(linea)
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(opciones).run();
+    }
+}
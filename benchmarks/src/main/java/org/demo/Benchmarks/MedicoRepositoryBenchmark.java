@@ -0,0 +1,31 @@
+package org.demo.Benchmarks;
+
+import org.demo.Models.Medico;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Médicos disponibles en un horario: la copia que el formulario calcula fuera del hilo de JavaFX.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx24g")
+public class MedicoRepositoryBenchmark {
+
+    @Benchmark
+    public List<Medico> listarMedicosDisponibles(DatosCitas datos) {
+        int i = datos.siguiente();
+        return datos.medicoRepository.listarMedicosDisponibles(datos.muestraFecha[i], datos.muestraHora[i],
+                DatosCitas.DURACION);
+    }
+}
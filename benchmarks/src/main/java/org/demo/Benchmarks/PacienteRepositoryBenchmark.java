@@ -0,0 +1,109 @@
+package org.demo.Benchmarks;
+
+import org.demo.Models.Paciente;
+import org.demo.Models.TipoDocumento;
+import org.demo.Repositories.PacienteRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Búsquedas de {@code PacienteRepository}: por documento, correo, ID y prefijo del nombre.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx24g")
+public class PacienteRepositoryBenchmark {
+
+    private static final String[] NOMBRES = {"Andrés", "José", "María", "Lucía", "Juan", "Camila", "Sofía", "Ramón"};
+    private static final String[] APELLIDOS = {"Ramírez", "Gómez", "Pérez", "Rodríguez", "Martínez", "Ramos", "Núñez", "López"};
+    private static final int MUESTRAS = 4096;
+
+    @State(Scope.Benchmark)
+    public static class Datos {
+        @Param({"1000", "100000", "1000000"})
+        public int pacientes;
+
+        PacienteRepository repositorio;
+        String[] documentos = new String[MUESTRAS];
+        String[] correos = new String[MUESTRAS];
+        long[] ids = new long[MUESTRAS];
+        String[] prefijos = new String[MUESTRAS];
+        private int cursor;
+
+        @Setup(Level.Trial)
+        public void cargar() {
+            repositorio = PacienteRepository.getInstancia();
+            Random azar = new Random(42);
+
+            List<Paciente> lote = new ArrayList<>(10_000);
+            List<Paciente> muestra = new ArrayList<>(MUESTRAS);
+            for (int i = 0; i < pacientes; i++) {
+                String nombre = NOMBRES[azar.nextInt(NOMBRES.length)] + " "
+                        + APELLIDOS[azar.nextInt(APELLIDOS.length)] + " " + APELLIDOS[azar.nextInt(APELLIDOS.length)];
+                Paciente p = new Paciente(nombre, TipoDocumento.CC, String.valueOf(10_000_000 + i), "310" + i,
+                        "Carrera " + i, "paciente" + i + "@correo.com", "01/01/1990", "Ninguna");
+                lote.add(p);
+                if (muestra.size() < MUESTRAS) muestra.add(p);
+                if (lote.size() == 10_000) {
+                    repositorio.guardarPacientes(lote, (x, motivo) -> { });
+                    lote.clear();
+                }
+            }
+            repositorio.guardarPacientes(lote, (x, motivo) -> { });
+
+            for (int i = 0; i < MUESTRAS; i++) {
+                Paciente p = muestra.get(azar.nextInt(muestra.size()));
+                documentos[i] = p.getNumDocumento();
+                correos[i] = p.getCorreo();
+                ids[i] = p.getId();
+                String apellido = APELLIDOS[azar.nextInt(APELLIDOS.length)];
+                prefijos[i] = apellido.substring(0, 3 + azar.nextInt(apellido.length() - 3));
+            }
+        }
+
+        int siguiente() {
+            return cursor++ & (MUESTRAS - 1);
+        }
+    }
+
+    @Benchmark
+    public Optional<Paciente> buscarPorDocumento(Datos datos) {
+        return datos.repositorio.buscarPorDocumento(datos.documentos[datos.siguiente()]);
+    }
+
+    @Benchmark
+    public boolean existePacienteConCorreo(Datos datos) {
+        return datos.repositorio.existePacienteConCorreo(datos.correos[datos.siguiente()]);
+    }
+
+    @Benchmark
+    public Optional<Paciente> buscarPacientePorId(Datos datos) {
+        return datos.repositorio.buscarPacientePorId(datos.ids[datos.siguiente()]);
+    }
+
+    /**
+     * Lo que pide el selector de pacientes en cada tecla: las primeras 50 coincidencias.
+     */
+    @Benchmark
+    public List<Paciente> buscarPacientesPorPrefijo(Datos datos) {
+        return datos.repositorio.buscarPacientes(datos.prefijos[datos.siguiente()], 50);
+    }
+}
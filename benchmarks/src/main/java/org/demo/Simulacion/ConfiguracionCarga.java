@@ -0,0 +1,103 @@
+package org.demo.Simulacion;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Parámetros de una simulación, leídos de la línea de comandos como {@code --clave valor}.
+ * Las claves que no se indican conservan su valor por defecto.
+ */
+public final class ConfiguracionCarga {
+
+    int pacientes = 50_000;
+    int medicos = 200;
+    int dias = 30;
+    int hilos = 8;
+    int tasa = 2_000;
+    int segundos = 60;
+    int calentamiento = 10;
+    double sesgoMedicos = 1.1;
+    double picoManana = 3.0;
+    double cancelaciones = 0.10;
+    double consultas = 0.30;
+    long semilla = 42;
+
+    static final String USO = String.join(System.lineSeparator(),
+            "Uso: java -cp target/benchmarks.jar org.demo.Simulacion.SimuladorCarga [opciones]",
+            "  --pacientes N       pacientes sintéticos (50000)",
+            "  --medicos N         médicos sintéticos (200)",
+            "  --dias N            días de agenda a partir del próximo lunes (30)",
+            "  --hilos N           hilos que envían operaciones (8)",
+            "  --tasa N            operaciones por segundo entre todos los hilos (2000)",
+            "  --segundos N        duración de la medición (60)",
+            "  --calentamiento N   segundos previos que no se miden (10)",
+            "  --sesgo-medicos X   exponente Zipf de la demanda por médico; 0 es uniforme (1.1)",
+            "  --pico-manana X     cuántas veces más se piden los turnos antes de las 11:00 (3.0)",
+            "  --cancelaciones X   fracción de operaciones que cancelan una cita propia (0.10)",
+            "  --consultas X       fracción de consultas: disponibles y búsqueda de pacientes (0.30)",
+            "  --semilla N         semilla de los datos y de las operaciones (42)");
+
+    static ConfiguracionCarga leer(String[] args) {
+        ConfiguracionCarga c = new ConfiguracionCarga();
+        for (int i = 0; i < args.length; i++) {
+            String clave = args[i];
+            if (!clave.startsWith("--") || i + 1 >= args.length) {
+                throw new IllegalArgumentException("Opción incompleta: " + clave);
+            }
+            String valor = args[++i];
+            try {
+                switch (clave) {
+                    case "--pacientes" -> c.pacientes = positivo(clave, Integer.parseInt(valor));
+                    case "--medicos" -> c.medicos = positivo(clave, Integer.parseInt(valor));
+                    case "--dias" -> c.dias = positivo(clave, Integer.parseInt(valor));
+                    case "--hilos" -> c.hilos = positivo(clave, Integer.parseInt(valor));
+                    case "--tasa" -> c.tasa = positivo(clave, Integer.parseInt(valor));
+                    case "--segundos" -> c.segundos = positivo(clave, Integer.parseInt(valor));
+                    case "--calentamiento" -> c.calentamiento = Math.max(0, Integer.parseInt(valor));
+                    case "--sesgo-medicos" -> c.sesgoMedicos = Math.max(0, Double.parseDouble(valor));
+                    case "--pico-manana" -> c.picoManana = Math.max(0, Double.parseDouble(valor));
+                    case "--cancelaciones" -> c.cancelaciones = fraccion(clave, Double.parseDouble(valor));
+                    case "--consultas" -> c.consultas = fraccion(clave, Double.parseDouble(valor));
+                    case "--semilla" -> c.semilla = Long.parseLong(valor);
+                    default -> throw new IllegalArgumentException("Opción desconocida: " + clave);
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Valor no numérico para " + clave + ": " + valor);
+            }
+        }
+        if (c.cancelaciones + c.consultas > 1) {
+            throw new IllegalArgumentException("--cancelaciones y --consultas suman más de 1");
+        }
+        return c;
+    }
+
+    /**
+     * Valores efectivos, en el orden del uso, para encabezar el informe.
+     */
+    Map<String, Object> resumen() {
+        Map<String, Object> r = new LinkedHashMap<>();
+        r.put("pacientes", pacientes);
+        r.put("medicos", medicos);
+        r.put("dias", dias);
+        r.put("hilos", hilos);
+        r.put("tasa", tasa);
+        r.put("segundos", segundos);
+        r.put("calentamiento", calentamiento);
+        r.put("sesgo-medicos", sesgoMedicos);
+        r.put("pico-manana", picoManana);
+        r.put("cancelaciones", cancelaciones);
+        r.put("consultas", consultas);
+        r.put("semilla", semilla);
+        return r;
+    }
+
+    private static int positivo(String clave, int valor) {
+        if (valor <= 0) throw new IllegalArgumentException(clave + " debe ser mayor que cero");
+        return valor;
+    }
+
+    private static double fraccion(String clave, double valor) {
+        if (valor < 0 || valor > 1) throw new IllegalArgumentException(clave + " debe estar entre 0 y 1");
+        return valor;
+    }
+}
@@ -0,0 +1,182 @@
+package org.demo.Simulacion;
+
+import org.demo.Models.Medico;
+import org.demo.Models.Paciente;
+import org.demo.Models.TipoDocumento;
+import org.demo.Repositories.MedicoRepository;
+import org.demo.Repositories.PacienteRepository;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Pacientes y médicos sintéticos cargados en los repositorios, y las distribuciones
+ * con las que la simulación elige a quién, qué día y a qué hora pedir una cita.
+ *
+ * <p>La demanda por médico sigue una ley de Zipf: con sesgo 1 el médico más pedido recibe
+ * el doble que el segundo y diez veces más que el décimo. El orden de popularidad se baraja
+ * para que no coincida con el orden de alta. Los turnos de la mañana (antes de las 11:00)
+ * pesan {@code picoManana} veces más que los de la tarde.</p>
+ */
+final class PoblacionSintetica {
+
+    static final String[] ESPECIALIDADES = {
+            "Medicina General", "Pediatría", "Cardiología", "Dermatología",
+            "Ginecología", "Ortopedia", "Neurología", "Oftalmología"
+    };
+    private static final String[] NOMBRES = {
+            "Andrés", "José", "María", "Lucía", "Juan", "Camila", "Sofía", "Ramón",
+            "Valentina", "Santiago", "Isabela", "Mateo", "Daniela", "Sebastián", "Mariana", "Nicolás"
+    };
+    private static final String[] APELLIDOS = {
+            "Ramírez", "Gómez", "Pérez", "Rodríguez", "Martínez", "Ramos", "Núñez", "López",
+            "García", "Hernández", "Torres", "Díaz", "Castro", "Vargas", "Ortiz", "Muñoz"
+    };
+    // Duraciones posibles; 30 minutos es la más frecuente
+    private static final int[] DURACIONES = {20, 30, 30, 30, 45};
+    private static final int PASO_MINUTOS = 15;
+    private static final LocalTime APERTURA = LocalTime.of(8, 0);
+    private static final LocalTime PICO_HASTA = LocalTime.of(11, 0);
+    private static final LocalTime CIERRE = LocalTime.of(16, 0);
+
+    final Medico[] medicos;
+    final Paciente[] pacientes;
+    final LocalDate primerDia;
+    final int dias;
+
+    private final Muestreo demandaMedicos;
+    private final Muestreo demandaHoras;
+    private final LocalTime[] horas;
+
+    private PoblacionSintetica(Medico[] medicos, Paciente[] pacientes, int dias, double sesgo, double picoManana) {
+        this.medicos = medicos;
+        this.pacientes = pacientes;
+        this.dias = dias;
+        this.primerDia = LocalDate.now().with(TemporalAdjusters.next(DayOfWeek.MONDAY));
+
+        double[] pesosMedicos = new double[medicos.length];
+        for (int i = 0; i < pesosMedicos.length; i++) {
+            pesosMedicos[i] = 1 / Math.pow(i + 1, sesgo);
+        }
+        demandaMedicos = new Muestreo(pesosMedicos);
+
+        List<LocalTime> turnos = new ArrayList<>();
+        for (LocalTime h = APERTURA; h.isBefore(CIERRE); h = h.plusMinutes(PASO_MINUTOS)) {
+            turnos.add(h);
+        }
+        horas = turnos.toArray(new LocalTime[0]);
+        double[] pesosHoras = new double[horas.length];
+        for (int i = 0; i < horas.length; i++) {
+            pesosHoras[i] = horas[i].isBefore(PICO_HASTA) ? picoManana : 1;
+        }
+        demandaHoras = new Muestreo(pesosHoras);
+    }
+
+    /**
+     * Crea la población y la guarda en los repositorios por lotes.
+     */
+    static PoblacionSintetica cargar(ConfiguracionCarga config) {
+        Random azar = new Random(config.semilla);
+
+        List<Medico> loteMedicos = new ArrayList<>(config.medicos);
+        for (int i = 0; i < config.medicos; i++) {
+            loteMedicos.add(new Medico(nombre(azar), TipoDocumento.CC, String.valueOf(70_000_000 + i),
+                    "300" + i, "Calle " + (i % 120) + " # " + i, "medico" + i + "@clinica.com",
+                    ESPECIALIDADES[i % ESPECIALIDADES.length], "C-" + (100 + i % 60)));
+        }
+        MedicoRepository.getInstancia().guardarMedicos(loteMedicos, PoblacionSintetica::rechazado);
+        // El orden de popularidad no sigue al de alta ni al de especialidad
+        Collections.shuffle(loteMedicos, azar);
+
+        List<Paciente> lotePacientes = new ArrayList<>(10_000);
+        List<Paciente> todos = new ArrayList<>(config.pacientes);
+        for (int i = 0; i < config.pacientes; i++) {
+            lotePacientes.add(new Paciente(nombre(azar), TipoDocumento.CC, String.valueOf(10_000_000 + i),
+                    "310" + i, "Carrera " + (i % 200) + " # " + i, "paciente" + i + "@correo.com",
+                    String.format("%02d/%02d/%d", 1 + azar.nextInt(28), 1 + azar.nextInt(12), 1940 + azar.nextInt(80)),
+                    "Ninguna"));
+            if (lotePacientes.size() == 10_000 || i == config.pacientes - 1) {
+                PacienteRepository.getInstancia().guardarPacientes(lotePacientes, PoblacionSintetica::rechazado);
+                todos.addAll(lotePacientes);
+                lotePacientes.clear();
+            }
+        }
+
+        return new PoblacionSintetica(loteMedicos.toArray(new Medico[0]), todos.toArray(new Paciente[0]),
+                config.dias, config.sesgoMedicos, config.picoManana);
+    }
+
+    Medico medico(Random azar) {
+        return medicos[demandaMedicos.elegir(azar)];
+    }
+
+    Paciente paciente(Random azar) {
+        return pacientes[azar.nextInt(pacientes.length)];
+    }
+
+    /**
+     * Un día hábil (lunes a viernes) dentro del período simulado.
+     */
+    LocalDate dia(Random azar) {
+        LocalDate fecha = primerDia.plusDays(azar.nextInt(dias));
+        DayOfWeek d = fecha.getDayOfWeek();
+        if (d == DayOfWeek.SATURDAY) return fecha.minusDays(1);
+        if (d == DayOfWeek.SUNDAY) return fecha.plusDays(1);
+        return fecha;
+    }
+
+    LocalTime hora(Random azar) {
+        return horas[demandaHoras.elegir(azar)];
+    }
+
+    int duracion(Random azar) {
+        return DURACIONES[azar.nextInt(DURACIONES.length)];
+    }
+
+    /**
+     * Texto parcial como el que escribe un usuario en el selector de pacientes.
+     */
+    String busqueda(Random azar) {
+        String apellido = APELLIDOS[azar.nextInt(APELLIDOS.length)];
+        return apellido.substring(0, 3 + azar.nextInt(apellido.length() - 2));
+    }
+
+    private static String nombre(Random azar) {
+        return NOMBRES[azar.nextInt(NOMBRES.length)] + " " + APELLIDOS[azar.nextInt(APELLIDOS.length)]
+                + " " + APELLIDOS[azar.nextInt(APELLIDOS.length)];
+    }
+
+    private static void rechazado(Object entidad, String motivo) {
+        throw new IllegalStateException("La población sintética no se pudo cargar: " + motivo);
+    }
+
+    /**
+     * Elige un índice con probabilidad proporcional a su peso (búsqueda binaria sobre los
+     * pesos acumulados).
+     */
+    private static final class Muestreo {
+        private final double[] acumulados;
+
+        private Muestreo(double[] pesos) {
+            acumulados = new double[pesos.length];
+            double total = 0;
+            for (int i = 0; i < pesos.length; i++) {
+                total += pesos[i];
+                acumulados[i] = total;
+            }
+        }
+
+        private int elegir(Random azar) {
+            double r = azar.nextDouble() * acumulados[acumulados.length - 1];
+            int i = Arrays.binarySearch(acumulados, r);
+            return Math.min(i >= 0 ? i : -i - 1, acumulados.length - 1);
+        }
+    }
+}
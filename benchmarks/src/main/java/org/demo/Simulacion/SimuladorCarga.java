@@ -0,0 +1,202 @@
+package org.demo.Simulacion;
+
+import org.demo.Models.Cita;
+import org.demo.Repositories.CitaRepository;
+import org.demo.Repositories.MedicoRepository;
+import org.demo.Repositories.PacienteRepository;
+import org.demo.Utils.HistogramaLatencias;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Simulación sin interfaz de una temporada de citas contra los repositorios.
+ *
+ * <p>Carga una población sintética y luego varios hilos envían operaciones a una tasa fija
+ * (reservas, cancelaciones y consultas) durante un tiempo dado. Cada hilo tiene su propio
+ * calendario: la operación {@code k} debe empezar en {@code inicio + k * periodo}, y la
+ * latencia se mide desde ese instante programado y no desde que el hilo logró enviarla.
+ * Así, si los repositorios se atrasan, la espera acumulada aparece en los percentiles en
+ * lugar de esconderse bajo una tasa más baja.</p>
+ *
+ * <p>Las reservas usan {@link CitaRepository#reservarCita}; las que chocan con otra cita
+ * del médico se cuentan como conflictos. Se cancelan solo citas reservadas por el mismo hilo.
+ * No se abre la persistencia: todo ocurre en memoria.</p>
+ */
+public final class SimuladorCarga {
+
+    private final ConfiguracionCarga config;
+    private final PoblacionSintetica poblacion;
+    private final CitaRepository citaRepository = CitaRepository.getInstancia();
+
+    private final Map<TipoOperacion, HistogramaLatencias> latencias = new EnumMap<>(TipoOperacion.class);
+    private final LongAdder conflictos = new LongAdder();
+    private final LongAdder sinCitasParaCancelar = new LongAdder();
+    private final LongAdder errores = new LongAdder();
+
+    private SimuladorCarga(ConfiguracionCarga config, PoblacionSintetica poblacion) {
+        this.config = config;
+        this.poblacion = poblacion;
+        for (TipoOperacion tipo : TipoOperacion.values()) {
+            latencias.put(tipo, new HistogramaLatencias());
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        ConfiguracionCarga config;
+        try {
+            config = ConfiguracionCarga.leer(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(ConfiguracionCarga.USO);
+            System.exit(2);
+            return;
+        }
+
+        long carga = System.nanoTime();
+        PoblacionSintetica poblacion = PoblacionSintetica.cargar(config);
+        System.out.printf("Población cargada en %d ms: %,d pacientes, %,d médicos, agenda desde %s%n",
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - carga),
+                poblacion.pacientes.length, poblacion.medicos.length, poblacion.primerDia);
+
+        SimuladorCarga simulador = new SimuladorCarga(config, poblacion);
+        if (config.calentamiento > 0) {
+            System.out.printf("Calentamiento de %d s...%n", config.calentamiento);
+            simulador.ejecutar(config.calentamiento, 0);
+            simulador.reiniciarMediciones();
+        }
+        System.out.printf("Midiendo %d s a %,d operaciones/s con %d hilos...%n",
+                config.segundos, config.tasa, config.hilos);
+        long duracion = simulador.ejecutar(config.segundos, 1);
+        simulador.informar(System.out, duracion);
+    }
+
+    /**
+     * Corre una fase con todos los hilos y espera a que terminen.
+     *
+     * @param fase se suma a la semilla, para que el calentamiento y la medición no repitan operaciones.
+     * @return duración real de la fase en nanosegundos.
+     */
+    private long ejecutar(int segundos, int fase) throws InterruptedException {
+        long periodo = Math.max(1, TimeUnit.SECONDS.toNanos(config.hilos) / config.tasa);
+        long inicio = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(20);
+        long fin = inicio + TimeUnit.SECONDS.toNanos(segundos);
+        CountDownLatch terminados = new CountDownLatch(config.hilos);
+
+        for (int h = 0; h < config.hilos; h++) {
+            // Los hilos se desfasan dentro del período para repartir los envíos
+            long desfase = periodo * h / config.hilos;
+            Random azar = new Random(config.semilla * 31 + fase * 1_000 + h);
+            Thread hilo = new Thread(() -> {
+                try {
+                    enviar(azar, inicio + desfase, periodo, fin);
+                } finally {
+                    terminados.countDown();
+                }
+            }, "simulacion-" + h);
+            hilo.setDaemon(true);
+            hilo.start();
+        }
+        terminados.await();
+        return System.nanoTime() - inicio;
+    }
+
+    private void enviar(Random azar, long primero, long periodo, long fin) {
+        List<Cita> propias = new ArrayList<>();
+        for (long programado = primero; programado < fin; programado += periodo) {
+            long espera = programado - System.nanoTime();
+            if (espera > 0) LockSupport.parkNanos(espera);
+
+            TipoOperacion tipo = elegirOperacion(azar, propias);
+            try {
+                operar(tipo, azar, propias);
+            } catch (RuntimeException e) {
+                errores.increment();
+            }
+            latencias.get(tipo).registrar(System.nanoTime() - programado);
+        }
+    }
+
+    private TipoOperacion elegirOperacion(Random azar, List<Cita> propias) {
+        double r = azar.nextDouble();
+        if (r < config.cancelaciones) {
+            if (!propias.isEmpty()) return TipoOperacion.CANCELAR;
+            sinCitasParaCancelar.increment();
+            return TipoOperacion.RESERVAR;
+        }
+        r -= config.cancelaciones;
+        if (r < config.consultas) {
+            return r < config.consultas / 2 ? TipoOperacion.CONSULTAR_DISPONIBLES : TipoOperacion.BUSCAR_PACIENTE;
+        }
+        return TipoOperacion.RESERVAR;
+    }
+
+    private void operar(TipoOperacion tipo, Random azar, List<Cita> propias) {
+        switch (tipo) {
+            case RESERVAR -> {
+                Cita cita = new Cita(poblacion.medico(azar), poblacion.paciente(azar), poblacion.dia(azar),
+                        poblacion.hora(azar), poblacion.duracion(azar), 50_000 + 5_000 * azar.nextInt(10),
+                        "Consulta", null);
+                if (citaRepository.reservarCita(cita)) {
+                    propias.add(cita);
+                } else {
+                    conflictos.increment();
+                }
+            }
+            case CANCELAR -> {
+                // Se quita una cita propia al azar; la última ocupa su lugar
+                int i = azar.nextInt(propias.size());
+                Cita cita = propias.get(i);
+                propias.set(i, propias.get(propias.size() - 1));
+                propias.remove(propias.size() - 1);
+                citaRepository.eliminarCita(cita);
+            }
+            case CONSULTAR_DISPONIBLES -> MedicoRepository.getInstancia()
+                    .listarMedicosDisponibles(poblacion.dia(azar), poblacion.hora(azar), poblacion.duracion(azar));
+            case BUSCAR_PACIENTE -> PacienteRepository.getInstancia().buscarPacientes(poblacion.busqueda(azar), 50);
+        }
+    }
+
+    private void reiniciarMediciones() {
+        latencias.values().forEach(HistogramaLatencias::reiniciar);
+        conflictos.reset();
+        sinCitasParaCancelar.reset();
+        errores.reset();
+    }
+
+    private void informar(PrintStream salida, long duracion) {
+        double segundos = duracion / 1e9;
+        long total = latencias.values().stream().mapToLong(HistogramaLatencias::getCantidad).sum();
+
+        salida.println();
+        salida.println("Configuración: " + config.resumen());
+        salida.printf("Operaciones: %,d en %.1f s = %,.0f op/s (objetivo %,d op/s)%n",
+                total, segundos, total / segundos, config.tasa);
+        salida.printf("Citas en el repositorio al terminar: %,d%n", citaRepository.contarCitas());
+        salida.println();
+        salida.printf("%-22s %10s %10s %10s %10s %10s %10s %10s%n",
+                "Operación", "cantidad", "op/s", "p50 µs", "p99 µs", "p99.9 µs", "máx µs", "prom µs");
+        for (TipoOperacion tipo : TipoOperacion.values()) {
+            HistogramaLatencias h = latencias.get(tipo);
+            salida.printf("%-22s %,10d %,10.0f %10.1f %10.1f %10.1f %10.1f %10.1f%n",
+                    tipo.getDescripcion(), h.getCantidad(), h.getCantidad() / segundos,
+                    h.percentil(0.50) / 1e3, h.percentil(0.99) / 1e3, h.percentil(0.999) / 1e3,
+                    h.getMaximo() / 1e3, h.getPromedio() / 1e3);
+        }
+
+        long reservas = latencias.get(TipoOperacion.RESERVAR).getCantidad();
+        salida.println();
+        salida.printf("Reservas rechazadas por conflicto de horario: %,d (%.1f %% de las reservas)%n",
+                conflictos.sum(), reservas == 0 ? 0 : 100.0 * conflictos.sum() / reservas);
+        salida.printf("Cancelaciones cambiadas por reservas (el hilo no tenía citas): %,d%n", sinCitasParaCancelar.sum());
+        salida.printf("Operaciones con error: %,d%n", errores.sum());
+    }
+}
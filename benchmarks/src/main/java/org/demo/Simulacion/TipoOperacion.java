@@ -0,0 +1,21 @@
+package org.demo.Simulacion;
+
+/**
+ * Operaciones que envía la simulación, cada una con su propio histograma de latencias.
+ */
+enum TipoOperacion {
+    RESERVAR("Reservar cita"),
+    CANCELAR("Cancelar cita"),
+    CONSULTAR_DISPONIBLES("Médicos disponibles"),
+    BUSCAR_PACIENTE("Buscar paciente");
+
+    private final String descripcion;
+
+    TipoOperacion(String descripcion) {
+        this.descripcion = descripcion;
+    }
+
+    String getDescripcion() {
+        return descripcion;
+    }
+}
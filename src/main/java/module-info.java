@@ -6,8 +6,10 @@ module org.demo {
     opens org.demo to javafx.fxml;
     opens org.demo.Controllers to javafx.fxml;
     opens org.demo.Models to javafx.fxml;
+    opens org.demo.Utils to javafx.fxml;
 
     exports org.demo;
     exports org.demo.Controllers;
     exports org.demo.Models;
+    exports org.demo.Utils;
 }
\ No newline at end of file
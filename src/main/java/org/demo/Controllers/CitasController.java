@@ -1,18 +1,31 @@
 package org.demo.Controllers;
 
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
-import javafx.scene.control.cell.PropertyValueFactory;
 
 import org.demo.Models.Cita;
+import org.demo.Models.CupoLibre;
+import org.demo.Models.EstadoCita;
 import org.demo.Models.Medico;
 import org.demo.Models.Paciente;
 import org.demo.Repositories.CitaRepository;
+import org.demo.Repositories.FiltroCitas;
 import org.demo.Repositories.MedicoRepository;
+import org.demo.Repositories.OyenteRepositorio;
 import org.demo.Repositories.PacienteRepository;
+import org.demo.Utils.CampoAutocompletar;
+import org.demo.Utils.Columnas;
+import org.demo.Utils.ConsultaDiferida;
+import org.demo.Utils.ListaPaginada;
 
+import java.lang.ref.WeakReference;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
 
 import static org.demo.Utils.AlertHelper.mostrarAlerta;
@@ -33,7 +46,7 @@ public class CitasController {
     private TextField txtBuscarDocumento;
 
     @FXML
-    private ComboBox<Paciente> cmbPacientes;
+    private CampoAutocompletar<Paciente> txtPaciente;
     @FXML
     private ComboBox<Medico> cmbMedicos;
 
@@ -47,13 +60,17 @@ public class CitasController {
     @FXML
     private TextField txtHora;
     @FXML
+    private TextField txtDuracion;
+    @FXML
     private TextField txtPrecio;
+    @FXML
+    private ComboBox<EstadoCita> cmbEstado;
 
     // --- TABLA ---
     @FXML
     private TableView<Cita> tblCitas;
     @FXML
-    private TableColumn<Cita, Integer> colId;
+    private TableColumn<Cita, String> colId;
     @FXML
     private TableColumn<Cita, String> colFecha;
     @FXML
@@ -68,6 +85,13 @@ public class CitasController {
     private TableColumn<Cita, Double> colPrecio;
     @FXML
     private TableColumn<Cita, String> colMotivo;
+    @FXML
+    private TextField txtFiltroCitas;
+
+    // Filas de la tabla pedidas por páginas al repositorio
+    private static final int FILAS_POR_PAGINA = 100;
+    private ListaPaginada<Cita> citasPaginadas;
+    private FiltroCitas filtroCitas = null;
 
     // --- REPOSITORIOS ---
     private CitaRepository citaRepository;
@@ -75,10 +99,16 @@ public class CitasController {
     private PacienteRepository pacienteRepository;
 
     // idCita para edición de citas
-    private String idCita = null;
+    private Long idCita = null;
 
     private boolean bloqueado = false;
 
+    // Médicos que se ofrecen en el combo; la lista es siempre la misma y solo cambia su contenido
+    private final ObservableList<Medico> medicosDisponibles = FXCollections.observableArrayList();
+    private ConsultaDiferida<List<Medico>> consultaDisponibles;
+    private static final long ESPERA_DISPONIBILIDAD_MS = 150;
+    private static final int CUPOS_SUGERIDOS = 10;
+
 
     @FXML
     public void initialize() {
@@ -87,16 +117,19 @@ public class CitasController {
         pacienteRepository = PacienteRepository.getInstancia();
 
         // Configurar tabla
-        colId.setCellValueFactory(new PropertyValueFactory<>("id"));
-        colFecha.setCellValueFactory(new PropertyValueFactory<>("fechaFormateada"));
-        colHora.setCellValueFactory(new PropertyValueFactory<>("horaFormateada"));
-        colPaciente.setCellValueFactory(new PropertyValueFactory<>("pacienteNombre"));
-        colMedico.setCellValueFactory(new PropertyValueFactory<>("medicoNombre"));
-        colConsultorio.setCellValueFactory(new PropertyValueFactory<>("consultorio"));
-        colPrecio.setCellValueFactory(new PropertyValueFactory<>("precio"));
-        colMotivo.setCellValueFactory(new PropertyValueFactory<>("motivo"));
+        Columnas.mostrar(colId, Cita::getCodigo);
+        Columnas.mostrar(colFecha, Cita::getFechaFormateada);
+        Columnas.mostrar(colHora, Cita::getHoraFormateada);
+        Columnas.mostrar(colPaciente, Cita::getPacienteNombre);
+        Columnas.mostrar(colMedico, Cita::getMedicoNombre);
+        Columnas.mostrar(colConsultorio, Cita::getConsultorio);
+        Columnas.mostrar(colPrecio, Cita::getPrecio);
+        Columnas.mostrar(colMotivo, Cita::getMotivo);
+
+        configurarTablaPaginada();
 
-        tblCitas.setItems(citaRepository.getCitas());
+        cmbEstado.getItems().setAll(EstadoCita.values());
+        cmbEstado.setValue(EstadoCita.PROGRAMADA);
 
         tblCitas.getSelectionModel().selectedItemProperty().addListener((obs, oldV, nueva) -> {
             if (nueva != null) {
@@ -104,13 +137,19 @@ public class CitasController {
             }
         });
 
-        // Pacientes
-        cmbPacientes.setItems(pacienteRepository.getPacientes());
-        cmbPacientes.valueProperty().addListener((obs, oldV, newV) -> cargarDatosPaciente(newV));
+        // Pacientes: solo se traen las coincidencias de lo que se escribe (documento o nombre)
+        txtPaciente.setBuscador(pacienteRepository::buscarPacientes);
+        txtPaciente.setConvertidor(p -> p.getNombre() + " - " + p.getNumDocumento());
+        txtPaciente.valueProperty().addListener((obs, oldV, newV) -> cargarDatosPaciente(newV));
+
+        cmbMedicos.setItems(medicosDisponibles);
+        consultaDisponibles = new ConsultaDiferida<>(ESPERA_DISPONIBILIDAD_MS, this::mostrarMedicosDisponibles);
 
         // Listeners para recargar médicos cuando cambie fecha u hora, el controlador recalcula qué médicos están disponibles.
+        // Mientras se escribe solo se programa la consulta; corre cuando se deja de escribir.
         dtFecha.valueProperty().addListener((obs, oldV, newV) -> cargarMedicosDisponibles());
         txtHora.textProperty().addListener((obs, oldV, newV) -> cargarMedicosDisponibles());
+        txtDuracion.textProperty().addListener((obs, oldV, newV) -> cargarMedicosDisponibles());
 
         //siempre carga los medicos disponibles
         cargarMedicosDisponibles();
@@ -142,7 +181,52 @@ public class CitasController {
         // Llenar formulario
         cargarDatosPaciente(paciente);
 
-        cmbPacientes.setValue(paciente);
+        txtPaciente.setValue(paciente);
+    }
+
+    // ==========================================================
+    //  BUSCAR CUPO LIBRE
+    // ==========================================================
+
+    /**
+     * Ofrece los próximos horarios libres del médico elegido (o de todos si no hay uno)
+     * desde la fecha del formulario, y al elegir uno llena fecha, hora y médico.
+     */
+    @FXML
+    private void onBuscarCupo() {
+        LocalDateTime ahora = LocalDateTime.now();
+        LocalDate fecha = dtFecha.getValue();
+        LocalDateTime desde = fecha == null || !fecha.isAfter(ahora.toLocalDate()) ? ahora : fecha.atStartOfDay();
+        int duracion = leerDuracion();
+
+        Medico medico = cmbMedicos.getValue();
+        List<CupoLibre> cupos = medico != null
+                ? medicoRepository.buscarCuposLibresDeMedico(medico, desde, duracion, CUPOS_SUGERIDOS)
+                : medicoRepository.buscarCuposLibres(null, desde, duracion, CUPOS_SUGERIDOS);
+
+        if (cupos.isEmpty()) {
+            mostrarAlerta("No hay horarios libres en los próximos " + CitaRepository.DIAS_BUSQUEDA_CUPOS + " días");
+            return;
+        }
+
+        ChoiceDialog<CupoLibre> dialogo = new ChoiceDialog<>(cupos.get(0), cupos);
+        dialogo.setTitle("Próximo cupo");
+        dialogo.setHeaderText(medico != null ? "Horarios libres de " + medico.getNombre() : "Horarios libres");
+        dialogo.setContentText("Horario:");
+        dialogo.showAndWait().ifPresent(this::usarCupo);
+    }
+
+    private void usarCupo(CupoLibre cupo) {
+        bloqueado = true;
+        dtFecha.setValue(cupo.getFecha());
+        txtHora.setText(cupo.getHora().toString());
+        bloqueado = false;
+
+        // El médico del cupo está libre a esa hora; se consulta de una vez para poder elegirlo
+        consultaDisponibles.cancelar();
+        medicosDisponibles.setAll(medicoRepository.listarMedicosDisponibles(
+                cupo.getFecha(), cupo.getHora(), cupo.getDuracionMinutos()));
+        cmbMedicos.setValue(cupo.getMedico());
     }
 
     // ==========================================================
@@ -157,6 +241,11 @@ public class CitasController {
             return;
         }
 
+        if (citaRepository.esHistorica(citaSeleccionada.getId())) {
+            mostrarAlerta("La cita está archivada y no se puede eliminar");
+            return;
+        }
+
         Alert confirm = new Alert(Alert.AlertType.CONFIRMATION);
         confirm.setTitle("Confirmar Eliminación");
         confirm.setHeaderText("¿Desea eliminar esta cita?");
@@ -183,12 +272,18 @@ public class CitasController {
             return;
         }
 
+        if (citaRepository.esHistorica(citaSeleccionada.getId())) {
+            mostrarAlerta("La cita está archivada y no se puede modificar");
+            return;
+        }
+
         if (validarCampos()) return;
 
-        Paciente paciente = cmbPacientes.getValue();
+        Paciente paciente = txtPaciente.getValue();
         Medico medico = cmbMedicos.getValue();
         LocalDate fecha = dtFecha.getValue();
         LocalTime hora = LocalTime.parse(txtHora.getText());
+        int duracion = leerDuracion();
 
         double precio;
         try {
@@ -199,23 +294,30 @@ public class CitasController {
         }
 
         // Validar conflicto de horario (permitiendo ignorar esta cita)
-        if (citaRepository.existeCitaEnHorario(medico, fecha, hora, String.valueOf(idCita))) {
-            mostrarAlerta("El médico ya tiene una cita en ese horario.");
-            return;
-        }
+        if (hayConflicto(medico, fecha, hora, duracion)) return;
 
-        // *** Actualizar valores ***
-        citaSeleccionada.setPaciente(paciente);
-        citaSeleccionada.setMedico(medico);
-        citaSeleccionada.setFecha(fecha);
-        citaSeleccionada.setHora(hora);
-        citaSeleccionada.setMotivo(txtMotivo.getText());
-        citaSeleccionada.setObservaciones(txtObservaciones.getText());
-        citaSeleccionada.setPrecio(precio);
+        // La cita de la tabla no se modifica: el repositorio reemplaza la guardada por esta
+        Cita actualizada = new Cita(
+                citaSeleccionada.getId(),
+                medico,
+                paciente,
+                fecha,
+                hora,
+                duracion,
+                Math.round(precio * 100),
+                cmbEstado.getValue(),
+                txtMotivo.getText(),
+                txtObservaciones.getText()
+        );
 
-        citaRepository.actualizarCita(citaSeleccionada);
+        // Otro usuario pudo tomar el horario, eliminar o archivar la cita entre la verificación y el cambio
+        if (!citaRepository.actualizarCita(actualizada)) {
+            mostrarAlerta("No se pudo actualizar: el horario ya está ocupado o la cita fue eliminada o archivada.");
+            cargarCitas();
+            return;
+        }
 
-        tblCitas.refresh();
+        cargarCitas();
         limpiarCampos();
 
         mostrarAlerta("Éxito", "Cita actualizada correctamente", Alert.AlertType.INFORMATION);
@@ -223,7 +325,87 @@ public class CitasController {
 
 
     private void cargarCitas() {
-        tblCitas.setItems(citaRepository.getCitas());
+        citasPaginadas.refrescar();
+    }
+
+    /**
+     * La tabla muestra las citas ordenadas por fecha y hora y solo trae las páginas visibles.
+     * El orden lo da el repositorio, así que las columnas no se ordenan por clic.
+     */
+    private void configurarTablaPaginada() {
+        citasPaginadas = new ListaPaginada<>(new ListaPaginada.Fuente<>() {
+            @Override
+            public int contar() {
+                return citaRepository.contarCitas(filtroCitas);
+            }
+
+            @Override
+            public List<Cita> leerDespuesDe(Cita referencia, int saltar, int cantidad) {
+                return citaRepository.listarPaginaDespuesDe(referencia, saltar, cantidad, filtroCitas);
+            }
+
+            @Override
+            public List<Cita> leerAntesDe(Cita referencia, int saltar, int cantidad) {
+                return citaRepository.listarPaginaAntesDe(referencia, saltar, cantidad, filtroCitas);
+            }
+        }, FILAS_POR_PAGINA, 4);
+
+        tblCitas.getColumns().forEach(c -> c.setSortable(false));
+        tblCitas.setItems(citasPaginadas);
+
+        txtFiltroCitas.textProperty().addListener((obs, oldV, newV) -> {
+            String texto = newV.trim().toLowerCase(Locale.ROOT);
+            filtroCitas = texto.isEmpty() ? null : new FiltroCitas() {
+                @Override
+                public boolean aceptaMedico(Medico medico) {
+                    return contiene(medico.getNombre(), texto);
+                }
+
+                @Override
+                public boolean aceptaPaciente(Paciente paciente) {
+                    return contiene(paciente.getNombre(), texto) || contiene(paciente.getNumDocumento(), texto);
+                }
+            };
+            citasPaginadas.reiniciar();
+        });
+
+        // Cualquier cambio en las citas se refleja con un solo refresco.
+        // El oyente no retiene la lista: cuando la vista se descarta, se quita solo.
+        WeakReference<ListaPaginada<Cita>> referencia = new WeakReference<>(citasPaginadas);
+        citaRepository.agregarOyente(new OyenteRepositorio<>() {
+            @Override
+            public void alAgregar(Cita cita) {
+                avisar();
+            }
+
+            @Override
+            public void alActualizar(Cita cita) {
+                avisar();
+            }
+
+            @Override
+            public void alEliminar(Cita cita) {
+                avisar();
+            }
+
+            @Override
+            public void alArchivar(Cita cita) {
+                avisar();
+            }
+
+            private void avisar() {
+                ListaPaginada<Cita> lista = referencia.get();
+                if (lista == null) {
+                    citaRepository.quitarOyente(this);
+                } else {
+                    lista.invalidar();
+                }
+            }
+        });
+    }
+
+    private static boolean contiene(String valor, String texto) {
+        return valor != null && valor.toLowerCase(Locale.ROOT).contains(texto);
     }
 
     // ==========================================================
@@ -231,26 +413,59 @@ public class CitasController {
     // ==========================================================
     private void cargarMedicosDisponibles() {
         if (bloqueado) return;
+
+        // Los controles se leen aquí; la consulta corre en otro hilo con estos valores
         LocalDate fecha = dtFecha.getValue();
+        String textoHora = txtHora.getText();
+        int duracion = leerDuracion();
+
+        consultaDisponibles.pedir(() -> {
+            LocalTime hora;
+            try {
+                hora = LocalTime.parse(textoHora);
+            } catch (Exception e) {
+                // Hora inválida  (mostrar TODOS los médicos)
+                hora = null;
+            }
+            // Sin fecha u hora el repositorio devuelve todos
+            return medicoRepository.listarMedicosDisponibles(fecha, hora, duracion);
+        });
+    }
+
+    private void mostrarMedicosDisponibles(List<Medico> disponibles) {
+        Medico elegido = cmbMedicos.getValue();
+        medicosDisponibles.setAll(disponibles);
+        if (elegido != null && disponibles.contains(elegido)) cmbMedicos.setValue(elegido);
+    }
 
-        LocalTime hora;
+    /**
+     * Duración escrita en el formulario; vacía o inválida equivale a la predeterminada.
+     */
+    private int leerDuracion() {
         try {
-            hora = LocalTime.parse(txtHora.getText());
-        } catch (Exception e) {
-            // Hora inválida  (mostrar TODOS los médicos)
-            cmbMedicos.setItems(medicoRepository.getMedicos());
-            return;
+            int duracion = Integer.parseInt(txtDuracion.getText().trim());
+            return duracion > 0 ? duracion : Cita.DURACION_PREDETERMINADA;
+        } catch (NumberFormatException e) {
+            return Cita.DURACION_PREDETERMINADA;
         }
+    }
 
-        if (fecha == null) {
-            // Fecha sin seleccionar - mostrar todos
-            cmbMedicos.setItems(medicoRepository.getMedicos());
-            return;
+    /**
+     * Verifica si el horario se cruza con otra cita del médico y, si es así,
+     * muestra con qué citas choca.
+     */
+    private boolean hayConflicto(Medico medico, LocalDate fecha, LocalTime hora, int duracion) {
+        List<Cita> solapadas = citaRepository.buscarCitasSolapadas(medico, fecha, hora, duracion, idCita);
+        if (solapadas.isEmpty()) return false;
+
+        StringBuilder mensaje = new StringBuilder("El médico ya tiene una cita en ese horario:");
+        for (Cita c : solapadas) {
+            mensaje.append("\n").append(c.getHoraFormateada())
+                    .append(" - ").append(c.getHoraFinFormateada())
+                    .append("  ").append(c.getPacienteNombre());
         }
-
-        cmbMedicos.setItems(
-                medicoRepository.getMedicosDisponibles(fecha, hora)
-        );
+        mostrarAlerta(mensaje.toString());
+        return true;
     }
 
     // ==========================================================
@@ -266,10 +481,11 @@ public class CitasController {
             return;
         }
 
-        Paciente paciente = cmbPacientes.getValue();
+        Paciente paciente = txtPaciente.getValue();
         Medico medico = cmbMedicos.getValue();
         LocalDate fecha = dtFecha.getValue();
         LocalTime hora = LocalTime.parse(txtHora.getText());
+        int duracion = leerDuracion();
 
         double precio;
         try {
@@ -280,24 +496,26 @@ public class CitasController {
         }
 
         // Verificar conflicto de horario en el repositorio
-        boolean conflicto = citaRepository.existeCitaEnHorario(medico, fecha, hora, String.valueOf(idCita));
-
-        if (conflicto) {
-            mostrarAlerta("El médico ya tiene una cita en ese horario.");
-            return;
-        }
+        if (hayConflicto(medico, fecha, hora, duracion)) return;
 
         Cita nueva = new Cita(
                 medico,
                 paciente,
                 fecha,
                 hora,
+                duracion,
                 precio,
                 txtMotivo.getText(),
                 txtObservaciones.getText()
         );
 
-        citaRepository.guardarCita(nueva);
+        nueva.setEstado(cmbEstado.getValue());
+
+        // Otro usuario pudo tomar el horario entre la verificación y el registro
+        if (!citaRepository.reservarCita(nueva)) {
+            mostrarAlerta("El médico ya tiene una cita en ese horario.");
+            return;
+        }
 
         cargarMedicosDisponibles();
         tblCitas.refresh();
@@ -329,7 +547,7 @@ public class CitasController {
         txtDocumentoPaciente.clear();
         txtTelefonoPaciente.clear();
 
-        cmbPacientes.setValue(null);
+        txtPaciente.setValue(null);
         cmbMedicos.setValue(null);
 
         txtMotivo.clear();
@@ -337,7 +555,9 @@ public class CitasController {
 
         dtFecha.setValue(null);
         txtHora.clear();
+        txtDuracion.clear();
         txtPrecio.clear();
+        cmbEstado.setValue(EstadoCita.PROGRAMADA);
 
         idCita = null; // Reiniciar cuando se limpia
     }
@@ -347,7 +567,7 @@ public class CitasController {
     // ==========================================================
     private boolean validarCampos() {
 
-        if (cmbPacientes.getValue() == null) {
+        if (txtPaciente.getValue() == null) {
             mostrarAlerta("Debe seleccionar un paciente");
             return true;
         }
@@ -378,20 +598,23 @@ public class CitasController {
     private void cargarDatosCita(Cita c) {
         bloqueado = true; //
 
-        idCita = String.valueOf(c.getId());
+        idCita = c.getId();
 
-        cmbPacientes.setValue(c.getPaciente());
+        txtPaciente.setValue(c.getPaciente());
         cargarDatosPaciente(c.getPaciente());
 
         dtFecha.setValue(c.getFecha());
         txtHora.setText(c.getHoraFormateada());
+        txtDuracion.setText(String.valueOf(c.getDuracionMinutos()));
 
         // Cargar lista completa de médicos (para incluir al que ya estaba asignado)
-        cmbMedicos.setItems(medicoRepository.getMedicos());
+        consultaDisponibles.cancelar();
+        medicosDisponibles.setAll(medicoRepository.listarMedicosDisponibles(null, null, 0));
         cmbMedicos.setValue(c.getMedico());
 
         txtMotivo.setText(c.getMotivo());
         txtPrecio.setText(String.valueOf(c.getPrecio()));
+        cmbEstado.setValue(c.getEstado());
         txtObservaciones.setText(c.getObservaciones());
 
         bloqueado = false; //
@@ -427,6 +650,13 @@ public class CitasController {
             }
         });
 
+        // --- DURACIÓN EN MINUTOS (HASTA 3 DÍGITOS) ---
+        txtDuracion.textProperty().addListener((obs, oldVal, newVal) -> {
+            if (!newVal.matches("\\d{0,3}")) {
+                txtDuracion.setText(oldVal);
+            }
+        });
+
         // --- SOLO NÚMEROS Y DECIMALES PARA PRECIO ---
         txtPrecio.textProperty().addListener((obs, oldVal, newVal) -> {
 
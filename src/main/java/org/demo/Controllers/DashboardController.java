@@ -2,18 +2,22 @@ package org.demo.Controllers;
 
 import javafx.beans.binding.Bindings;
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.control.Label;
 import javafx.scene.layout.AnchorPane;
 import javafx.scene.layout.StackPane;
+import javafx.scene.layout.VBox;
+import org.demo.Estadisticas.MotorEstadisticas;
 import org.demo.Repositories.CitaRepository;
 import org.demo.Repositories.MedicoRepository;
 import org.demo.Repositories.PacienteRepository;
+import org.demo.Utils.CacheVistas;
+import org.demo.Utils.HiloFx;
 //import org.demo.Repositories.ProductoRepository;
 //import org.demo.Repositories.VentaRepository;
 
-import java.io.IOException;
+import java.time.LocalDate;
+import java.util.List;
 
 /**
  * Controlador principal del panel de administración.
@@ -23,68 +27,119 @@ import java.io.IOException;
  */
 public class DashboardController {
 
+    private static final String VISTA_CITAS = "/org/demo/Cita.fxml";
+    private static final String VISTA_MEDICOS = "/org/demo/Medicos.fxml";
+    private static final String VISTA_PACIENTES = "/org/demo/Pacientes.fxml";
+    private static final String VISTA_DIAGNOSTICO = "/org/demo/Diagnostico.fxml";
+
     @FXML private StackPane contenedorCentro;
     @FXML private AnchorPane vistaInicio;
+    @FXML private VBox menu;
+    @FXML private Label lblEstado;
 
     @FXML private Label lblMedicos;
     @FXML private Label lblCitas;
     @FXML private Label lblPacientes;
 
+    @FXML private Label lblIngresos;
+    @FXML private Label lblIngresosHoy;
+    @FXML private Label lblInasistencias;
+
+    // Cada vista del menú se construye una vez y se reutiliza
+    private final CacheVistas vistas = new CacheVistas(this::conectar);
+
     /**
      * Inicializa el dashboard.
      * Establece enlaces automáticos entre las etiquetas de conteo y
-     * las listas observables de los repositorios correspondientes.
+     * las listas observables de los repositorios correspondientes, y muestra
+     * los indicadores del motor de estadísticas cada vez que cambian.
      */
     @FXML
     public void initialize(){
         lblPacientes.textProperty().bind(
                 Bindings.size(PacienteRepository.getInstancia().getPacientes()).asString()
         );
+        // Las citas archivadas no están en la lista observable, pero se cuentan
+        CitaRepository citas = CitaRepository.getInstancia();
         lblCitas.textProperty().bind(
-                Bindings.size(CitaRepository.getInstancia().getCitas()).asString()
+                Bindings.createStringBinding(() -> String.valueOf(citas.contarCitas()), citas.getCitas())
         );
         lblMedicos.textProperty().bind(
                 Bindings.size(MedicoRepository.getInstancia().getMedicos()).asString()
         );
+
+        MotorEstadisticas.getInstancia().agregarOyente(this::mostrarIndicadores);
+        mostrarIndicadores();
     }
 
     /**
-     * Carga dinámicamente una vista en el contenedor central del dashboard.
-     * Reemplaza el contenido actual y ajusta los anclajes para adaptar la vista al área disponible.
-     *
-     * @param fxmlRuta ruta del archivo FXML que se desea cargar.
+     * Copia los indicadores ya calculados a las etiquetas; no recorre ninguna cita.
      */
-    private void cargarVistaEnCentro(String fxmlRuta) {
-        try {
-            FXMLLoader loader = new FXMLLoader(getClass().getResource(fxmlRuta));
-            Parent vista = loader.load();
+    private void mostrarIndicadores() {
+        MotorEstadisticas estadisticas = MotorEstadisticas.getInstancia();
+        lblIngresos.setText(formatearDinero(estadisticas.getIngresosCentavos()));
+        lblIngresosHoy.setText(formatearDinero(estadisticas.getIngresosDiaCentavos(LocalDate.now())));
+        lblInasistencias.setText(String.format("%.1f%%", estadisticas.getTasaInasistencia() * 100));
+    }
 
-            Object controller = loader.getController();
+    /**
+     * Mientras se cargan los datos el menú queda deshabilitado: los conteos se ven crecer,
+     * pero no se puede modificar nada hasta que los cambios se registren en disco.
+     */
+    public void setCargando(boolean cargando) {
+        HiloFx.ejecutar(() -> menu.setDisable(cargando));
+    }
 
-            try {
-                controller.getClass()
-                        .getMethod("setDashboardController", DashboardController.class)
-                        .invoke(controller, this);
-            }  catch (Exception ignored) {}
+    /**
+     * Texto de la barra inferior; se puede llamar desde cualquier hilo.
+     */
+    public void mostrarEstado(String texto) {
+        HiloFx.ejecutar(() -> lblEstado.setText(texto));
+    }
 
+    private static String formatearDinero(long centavos) {
+        return String.format("$%,.2f", centavos / 100.0);
+    }
 
-            // Limpiar el StackPane y agregar la nueva vista
-            contenedorCentro.getChildren().clear();
-            contenedorCentro.getChildren().add(vista);
+    /**
+     * Muestra una vista en el contenedor central del dashboard.
+     * La vista se construye la primera vez y luego se reutiliza el mismo nodo y controlador;
+     * los anclajes se ajustan para adaptarla al área disponible.
+     *
+     * @param fxmlRuta ruta del archivo FXML que se desea mostrar.
+     */
+    private void cargarVistaEnCentro(String fxmlRuta) {
+        CacheVistas.Vista vista = vistas.obtener(fxmlRuta);
+        Parent nodo = vista.getNodo();
 
-            // Ajustar anclajes si es AnchorPane
-            if (vista != null) {
-                AnchorPane.setTopAnchor(vista, 0.0);
-                AnchorPane.setBottomAnchor(vista, 0.0);
-                AnchorPane.setLeftAnchor(vista, 0.0);
-                AnchorPane.setRightAnchor(vista, 0.0);
-            }
+        AnchorPane.setTopAnchor(nodo, 0.0);
+        AnchorPane.setBottomAnchor(nodo, 0.0);
+        AnchorPane.setLeftAnchor(nodo, 0.0);
+        AnchorPane.setRightAnchor(nodo, 0.0);
+        contenedorCentro.getChildren().setAll(nodo);
+
+        if (vista.getControlador() instanceof VistaDashboard controlador) {
+            controlador.alMostrar();
+        }
+    }
 
-        } catch (IOException e) {
-            throw new RuntimeException("Error al cargar la vista: " + e.getMessage(), e);
+    /**
+     * Se llama una vez por cada vista creada.
+     */
+    private void conectar(Object controlador) {
+        if (controlador instanceof VistaDashboard vista) {
+            vista.setDashboardController(this);
         }
     }
 
+    /**
+     * Construye las vistas del menú sin mostrarlas, una por turno del hilo de JavaFX,
+     * para que el primer cambio de vista no tenga que leer el FXML.
+     */
+    public void precargarVistas() {
+        vistas.precargar(List.of(VISTA_CITAS, VISTA_MEDICOS, VISTA_PACIENTES));
+    }
+
     /**
      * Muestra la vista inicial del dashboard.
      * Limpia el contenedor central y vuelve a establecer la vista de inicio.
@@ -102,7 +157,7 @@ public class DashboardController {
      */
     @FXML
     private void onVerCitas(){
-        cargarVistaEnCentro("/org/demo/Cita.fxml");
+        cargarVistaEnCentro(VISTA_CITAS);
     }
 
     /**
@@ -110,13 +165,20 @@ public class DashboardController {
      */
     @FXML
     private void onVerMedicos(){
-        cargarVistaEnCentro("/org/demo/Medicos.fxml");
+        cargarVistaEnCentro(VISTA_MEDICOS);
     }
 
     /**
      * Carga la vista de gestión de ventas en el panel central.
      */
     @FXML private void onVerPacientes(){
-        cargarVistaEnCentro("/org/demo/Pacientes.fxml");
+        cargarVistaEnCentro(VISTA_PACIENTES);
+    }
+
+    /**
+     * Carga el panel de diagnóstico (métricas de los repositorios) en el panel central.
+     */
+    @FXML private void onVerDiagnostico(){
+        cargarVistaEnCentro(VISTA_DIAGNOSTICO);
     }
 }
@@ -0,0 +1,182 @@
+package org.demo.Controllers;
+
+import javafx.concurrent.Task;
+import javafx.fxml.FXML;
+import javafx.scene.control.Alert;
+import javafx.scene.control.Button;
+import javafx.scene.control.CheckBox;
+import javafx.scene.control.Label;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import javafx.stage.FileChooser;
+import org.demo.Metricas.FotoMetrica;
+import org.demo.Metricas.RegistroMetricas;
+import org.demo.Persistencia.Respaldo;
+import org.demo.Utils.Columnas;
+
+import java.io.File;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.function.Consumer;
+import java.util.function.DoubleConsumer;
+
+import static org.demo.Utils.AlertHelper.mostrarAlerta;
+
+/**
+ * Panel de diagnóstico: llamadas y latencias de cada método público de los repositorios.
+ * Muestra una foto de las métricas tomada al abrir el panel o al pulsar "Actualizar".
+ * Desde aquí también se exporta e importa el respaldo completo de los datos.
+ */
+public class DiagnosticoController implements VistaDashboard {
+
+    private static final DateTimeFormatter FORMATO_ARCHIVO = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    private static final DateTimeFormatter FORMATO_HORA = DateTimeFormatter.ofPattern("HH:mm:ss");
+
+    @FXML private TableView<FotoMetrica> tblMetricas;
+    @FXML private TableColumn<FotoMetrica, String> colOperacion;
+    @FXML private TableColumn<FotoMetrica, Long> colLlamadas;
+    @FXML private TableColumn<FotoMetrica, String> colP50;
+    @FXML private TableColumn<FotoMetrica, String> colP99;
+    @FXML private TableColumn<FotoMetrica, String> colP999;
+    @FXML private TableColumn<FotoMetrica, String> colMaximo;
+    @FXML private TableColumn<FotoMetrica, String> colPromedio;
+    @FXML private CheckBox chkActivo;
+    @FXML private Label lblCapturado;
+    @FXML private Button btnExportarRespaldo;
+    @FXML private Button btnImportarRespaldo;
+    @FXML private Label lblRespaldo;
+
+    private final RegistroMetricas registro = RegistroMetricas.getInstancia();
+
+    @FXML
+    public void initialize() {
+        Columnas.mostrar(colOperacion, FotoMetrica::getOperacion);
+        Columnas.mostrar(colLlamadas, FotoMetrica::getLlamadas);
+        Columnas.mostrar(colP50, f -> microsegundos(f.getP50()));
+        Columnas.mostrar(colP99, f -> microsegundos(f.getP99()));
+        Columnas.mostrar(colP999, f -> microsegundos(f.getP999()));
+        Columnas.mostrar(colMaximo, f -> microsegundos(f.getMaximo()));
+        Columnas.mostrar(colPromedio, f -> microsegundos(f.getPromedio()));
+
+        chkActivo.setSelected(registro.isActivo());
+        chkActivo.selectedProperty().addListener((obs, antes, ahora) -> registro.setActivo(ahora));
+    }
+
+    /**
+     * Cada vez que se abre el panel se toma una foto nueva.
+     */
+    @Override
+    public void alMostrar() {
+        onActualizar();
+    }
+
+    @FXML
+    private void onActualizar() {
+        tblMetricas.getItems().setAll(registro.tomarFotos());
+        lblCapturado.setText("Capturado a las " + LocalDateTime.now().format(FORMATO_HORA));
+    }
+
+    @FXML
+    private void onReiniciar() {
+        registro.reiniciar();
+        onActualizar();
+    }
+
+    @FXML
+    private void onExportar() {
+        FileChooser selector = new FileChooser();
+        selector.setTitle("Exportar métricas");
+        selector.getExtensionFilters().add(new FileChooser.ExtensionFilter("Archivos CSV", "*.csv"));
+        selector.setInitialFileName("metricas-" + LocalDateTime.now().format(FORMATO_ARCHIVO) + ".csv");
+        File archivo = selector.showSaveDialog(tblMetricas.getScene().getWindow());
+        if (archivo == null) return;
+
+        try {
+            registro.exportar(archivo.toPath());
+            mostrarAlerta("Métricas exportadas", "Se guardaron en " + archivo.getAbsolutePath(), Alert.AlertType.INFORMATION);
+        } catch (RuntimeException e) {
+            mostrarAlerta(e.getMessage(), Alert.AlertType.ERROR);
+        }
+    }
+
+    // RESPALDO
+    @FXML
+    private void onExportarRespaldo() {
+        FileChooser selector = selectorRespaldo("Exportar respaldo");
+        selector.setInitialFileName("respaldo-" + LocalDateTime.now().format(FORMATO_ARCHIVO) + ".cres");
+        File archivo = selector.showSaveDialog(tblMetricas.getScene().getWindow());
+        if (archivo == null) return;
+
+        ejecutarRespaldo("exportar-respaldo", "Exportando", avance -> Respaldo.exportar(archivo.toPath(), avance), r ->
+                mostrarAlerta("Respaldo exportado", String.format("%,d pacientes, %,d médicos y %,d citas (%,d KB) en %s",
+                        r.getPacientes(), r.getMedicos(), r.getCitas(), r.getBytes() / 1024, archivo.getAbsolutePath()),
+                        Alert.AlertType.INFORMATION));
+    }
+
+    @FXML
+    private void onImportarRespaldo() {
+        File archivo = selectorRespaldo("Importar respaldo").showOpenDialog(tblMetricas.getScene().getWindow());
+        if (archivo == null) return;
+
+        ejecutarRespaldo("importar-respaldo", "Importando", avance -> Respaldo.importar(archivo.toPath(), avance), r -> {
+            String mensaje = String.format("%,d pacientes, %,d médicos y %,d citas importados.",
+                    r.getPacientes(), r.getMedicos(), r.getCitas());
+            if (r.getExistentes() > 0) mensaje += String.format("%n%,d personas ya estaban registradas.", r.getExistentes());
+            if (r.getOmitidos() > 0) mensaje += String.format("%n%,d registros omitidos (datos repetidos o citas que se cruzan).", r.getOmitidos());
+            mostrarAlerta("Importación terminada", mensaje, Alert.AlertType.INFORMATION);
+        });
+    }
+
+    private interface OperacionRespaldo {
+        Respaldo.Resultado ejecutar(DoubleConsumer avance) throws Exception;
+    }
+
+    /**
+     * Corre la operación fuera del hilo de JavaFX mostrando el avance; los botones
+     * quedan deshabilitados mientras tanto.
+     */
+    private void ejecutarRespaldo(String nombreHilo, String accion, OperacionRespaldo operacion,
+                                  Consumer<Respaldo.Resultado> alTerminar) {
+        Task<Respaldo.Resultado> tarea = new Task<>() {
+            @Override
+            protected Respaldo.Resultado call() throws Exception {
+                return operacion.ejecutar(f -> updateMessage(String.format("%s... %.0f%%", accion, f * 100)));
+            }
+        };
+
+        btnExportarRespaldo.setDisable(true);
+        btnImportarRespaldo.setDisable(true);
+        lblRespaldo.textProperty().bind(tarea.messageProperty());
+
+        tarea.setOnSucceeded(e -> {
+            terminarRespaldo();
+            alTerminar.accept(tarea.getValue());
+        });
+        tarea.setOnFailed(e -> {
+            terminarRespaldo();
+            mostrarAlerta("No se pudo completar el respaldo: " + tarea.getException().getMessage());
+        });
+
+        Thread hilo = new Thread(tarea, nombreHilo);
+        hilo.setDaemon(true);
+        hilo.start();
+    }
+
+    private void terminarRespaldo() {
+        lblRespaldo.textProperty().unbind();
+        lblRespaldo.setText("");
+        btnExportarRespaldo.setDisable(false);
+        btnImportarRespaldo.setDisable(false);
+    }
+
+    private static FileChooser selectorRespaldo(String titulo) {
+        FileChooser selector = new FileChooser();
+        selector.setTitle(titulo);
+        selector.getExtensionFilters().add(new FileChooser.ExtensionFilter("Respaldos", "*.cres"));
+        return selector;
+    }
+
+    private static String microsegundos(double nanos) {
+        return String.format("%,.1f µs", nanos / 1_000);
+    }
+}
@@ -1,11 +1,17 @@
 package org.demo.Controllers;
 
+import javafx.concurrent.Task;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
-import javafx.scene.control.cell.PropertyValueFactory;
+import javafx.stage.FileChooser;
 import org.demo.Models.Medico;
 import org.demo.Models.TipoDocumento;
+import org.demo.Persistencia.ImportadorCsv;
+import org.demo.Repositories.CitaRepository;
 import org.demo.Repositories.MedicoRepository;
+import org.demo.Utils.Columnas;
+
+import java.io.File;
 
 import static org.demo.Utils.AlertHelper.mostrarAlerta;
 
@@ -23,6 +29,9 @@ public class MedicosController {
 
     @FXML private TableView<Medico> tblMedicos;
 
+    @FXML private Button btnImportarCsv;
+    @FXML private Label lblImportacion;
+
     @FXML private TableColumn<Medico, String> colNombre;
     @FXML private TableColumn<Medico, String> colTipoDocumento;
     @FXML private TableColumn<Medico, String> colDocumento;
@@ -43,14 +52,14 @@ public class MedicosController {
         cbTipoDocumento.getItems().setAll(TipoDocumento.values());
 
         // Configuración de columnas
-        colNombre.setCellValueFactory(new PropertyValueFactory<>("nombre"));
-        colTipoDocumento.setCellValueFactory(new PropertyValueFactory<>("tipoDocumentoFormateado"));
-        colDocumento.setCellValueFactory(new PropertyValueFactory<>("numDocumento"));
-        colTelefono.setCellValueFactory(new PropertyValueFactory<>("telefono"));
-        colDireccion.setCellValueFactory(new PropertyValueFactory<>("direccion"));
-        colCorreo.setCellValueFactory(new PropertyValueFactory<>("correo"));
-        colEspecialidad.setCellValueFactory(new PropertyValueFactory<>("especialidad"));
-        colConsultorio.setCellValueFactory(new PropertyValueFactory<>("consultorio"));
+        Columnas.mostrar(colNombre, Medico::getNombre);
+        Columnas.mostrar(colTipoDocumento, Medico::getTipoDocumentoFormateado);
+        Columnas.mostrar(colDocumento, Medico::getNumDocumento);
+        Columnas.mostrar(colTelefono, Medico::getTelefono);
+        Columnas.mostrar(colDireccion, Medico::getDireccion);
+        Columnas.mostrar(colCorreo, Medico::getCorreo);
+        Columnas.mostrar(colEspecialidad, Medico::getEspecialidad);
+        Columnas.mostrar(colConsultorio, Medico::getConsultorio);
 
         cargarMedicos();
 
@@ -114,11 +123,16 @@ public class MedicosController {
         Alert conf = new Alert(Alert.AlertType.CONFIRMATION);
         conf.setTitle("Confirmar eliminación");
         conf.setHeaderText("¿Eliminar médico?");
-        conf.setContentText("Médico: " + medicoSeleccionado.getNombre());
+        int citas = CitaRepository.getInstancia().contarCitasDeMedico(medicoSeleccionado.getId());
+        conf.setContentText("Médico: " + medicoSeleccionado.getNombre()
+                + (citas > 0 ? "\nTambién se eliminarán sus " + citas + " citas." : ""));
 
         conf.showAndWait().ifPresent(res -> {
             if (res == ButtonType.OK) {
-                medicoRepository.eliminarMedico(medicoSeleccionado);
+                if (!medicoRepository.eliminarMedico(medicoSeleccionado)) {
+                    mostrarAlerta("El médico tiene citas archivadas y no se puede eliminar");
+                    return;
+                }
                 cargarMedicos();
                 mostrarAlerta("Éxito", "Médico eliminado correctamente", Alert.AlertType.INFORMATION);
             }
@@ -152,6 +166,51 @@ public class MedicosController {
         mostrarAlerta("Éxito", "Médico actualizado correctamente", Alert.AlertType.INFORMATION);
     }
 
+    // IMPORTAR
+    @FXML
+    private void onImportarCsv() {
+        FileChooser selector = new FileChooser();
+        selector.setTitle("Importar médicos desde CSV");
+        selector.getExtensionFilters().add(new FileChooser.ExtensionFilter("Archivos CSV", "*.csv"));
+        File archivo = selector.showOpenDialog(tblMedicos.getScene().getWindow());
+        if (archivo == null) return;
+
+        // La lectura corre fuera del hilo de JavaFX; la tabla recibe un evento por lote
+        Task<ImportadorCsv.Resultado> tarea = new Task<>() {
+            @Override
+            protected ImportadorCsv.Resultado call() throws Exception {
+                return ImportadorCsv.importarMedicos(archivo.toPath(), p -> updateMessage(String.format(
+                        "%.0f%% - %d importados, %d rechazados", p.getFraccion() * 100, p.getAceptados(), p.getRechazados())));
+            }
+        };
+
+        btnImportarCsv.setDisable(true);
+        lblImportacion.textProperty().bind(tarea.messageProperty());
+
+        tarea.setOnSucceeded(e -> {
+            terminarImportacion();
+            ImportadorCsv.Resultado r = tarea.getValue();
+            String mensaje = r.getAceptados() + " médicos importados.";
+            if (r.getRechazados() > 0) {
+                mensaje += "\n" + r.getRechazados() + " filas rechazadas, ver " + r.getArchivoRechazos();
+            }
+            mostrarAlerta("Importación terminada", mensaje, Alert.AlertType.INFORMATION);
+        });
+        tarea.setOnFailed(e -> {
+            terminarImportacion();
+            mostrarAlerta("No se pudo importar el archivo: " + tarea.getException().getMessage());
+        });
+
+        Thread hiloImportacion = new Thread(tarea, "importar-medicos");
+        hiloImportacion.setDaemon(true);
+        hiloImportacion.start();
+    }
+
+    private void terminarImportacion() {
+        lblImportacion.textProperty().unbind();
+        btnImportarCsv.setDisable(false);
+    }
+
     @FXML
     private void onLimpiarCampos() {
         limpiarCampos();
@@ -1,11 +1,17 @@
 package org.demo.Controllers;
 
+import javafx.concurrent.Task;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
-import javafx.scene.control.cell.PropertyValueFactory;
+import javafx.stage.FileChooser;
 import org.demo.Models.Paciente;
 import org.demo.Models.TipoDocumento;
+import org.demo.Persistencia.ImportadorCsv;
+import org.demo.Repositories.CitaRepository;
 import org.demo.Repositories.PacienteRepository;
+import org.demo.Utils.Columnas;
+
+import java.io.File;
 
 import static org.demo.Utils.AlertHelper.mostrarAlerta;
 
@@ -23,6 +29,9 @@ public class PacientesController {
 
     @FXML private TableView<Paciente> tblPacientes;
 
+    @FXML private Button btnImportarCsv;
+    @FXML private Label lblImportacion;
+
     @FXML private TableColumn<Paciente, String> colNombre;
     @FXML private TableColumn<Paciente, TipoDocumento> colTipoDoc;
     @FXML private TableColumn<Paciente, String> colDocumento;
@@ -42,14 +51,14 @@ public class PacientesController {
         cmbTipoDoc.getItems().setAll(TipoDocumento.values());
 
         // Configurar columnas
-        colNombre.setCellValueFactory(new PropertyValueFactory<>("nombre"));
-        colTipoDoc.setCellValueFactory(new PropertyValueFactory<>("tipoDocumentoFormateado"));
-        colDocumento.setCellValueFactory(new PropertyValueFactory<>("numDocumento"));
-        colTelefono.setCellValueFactory(new PropertyValueFactory<>("telefono"));
-        colDireccion.setCellValueFactory(new PropertyValueFactory<>("direccion"));
-        colCorreo.setCellValueFactory(new PropertyValueFactory<>("correo"));
-        colFechaNacimiento.setCellValueFactory(new PropertyValueFactory<>("fechaNacimiento"));
-        colEnfermedad.setCellValueFactory(new PropertyValueFactory<>("enfermedad"));
+        Columnas.mostrar(colNombre, Paciente::getNombre);
+        Columnas.mostrar(colTipoDoc, Paciente::getTipoDocumento);
+        Columnas.mostrar(colDocumento, Paciente::getNumDocumento);
+        Columnas.mostrar(colTelefono, Paciente::getTelefono);
+        Columnas.mostrar(colDireccion, Paciente::getDireccion);
+        Columnas.mostrar(colCorreo, Paciente::getCorreo);
+        Columnas.mostrar(colFechaNacimiento, Paciente::getFechaNacimiento);
+        Columnas.mostrar(colEnfermedad, Paciente::getEnfermedad);
 
         cargarPacientes();
 
@@ -121,11 +130,16 @@ public class PacientesController {
         Alert confirm = new Alert(Alert.AlertType.CONFIRMATION);
         confirm.setTitle("Confirmar Eliminación");
         confirm.setHeaderText("¿Desea eliminar este paciente?");
-        confirm.setContentText(sel.getNombre() + " - " + sel.getNumDocumento());
+        int citas = CitaRepository.getInstancia().contarCitasDePaciente(sel.getId());
+        confirm.setContentText(sel.getNombre() + " - " + sel.getNumDocumento()
+                + (citas > 0 ? "\nTambién se eliminarán sus " + citas + " citas." : ""));
 
         confirm.showAndWait().ifPresent(res -> {
             if (res == ButtonType.OK) {
-                pacienteRepository.eliminarPaciente(sel);
+                if (!pacienteRepository.eliminarPaciente(sel)) {
+                    mostrarAlerta("El paciente tiene citas archivadas y no se puede eliminar");
+                    return;
+                }
                 cargarPacientes();
                 mostrarAlerta("Éxito", "Paciente eliminado", Alert.AlertType.INFORMATION);
             }
@@ -162,6 +176,51 @@ public class PacientesController {
         mostrarAlerta("Éxito", "Paciente actualizado correctamente", Alert.AlertType.INFORMATION);
     }
 
+    // IMPORTAR
+    @FXML
+    private void onImportarCsv() {
+        FileChooser selector = new FileChooser();
+        selector.setTitle("Importar pacientes desde CSV");
+        selector.getExtensionFilters().add(new FileChooser.ExtensionFilter("Archivos CSV", "*.csv"));
+        File archivo = selector.showOpenDialog(tblPacientes.getScene().getWindow());
+        if (archivo == null) return;
+
+        // La lectura corre fuera del hilo de JavaFX; la tabla recibe un evento por lote
+        Task<ImportadorCsv.Resultado> tarea = new Task<>() {
+            @Override
+            protected ImportadorCsv.Resultado call() throws Exception {
+                return ImportadorCsv.importarPacientes(archivo.toPath(), p -> updateMessage(String.format(
+                        "%.0f%% - %d importados, %d rechazados", p.getFraccion() * 100, p.getAceptados(), p.getRechazados())));
+            }
+        };
+
+        btnImportarCsv.setDisable(true);
+        lblImportacion.textProperty().bind(tarea.messageProperty());
+
+        tarea.setOnSucceeded(e -> {
+            terminarImportacion();
+            ImportadorCsv.Resultado r = tarea.getValue();
+            String mensaje = r.getAceptados() + " pacientes importados.";
+            if (r.getRechazados() > 0) {
+                mensaje += "\n" + r.getRechazados() + " filas rechazadas, ver " + r.getArchivoRechazos();
+            }
+            mostrarAlerta("Importación terminada", mensaje, Alert.AlertType.INFORMATION);
+        });
+        tarea.setOnFailed(e -> {
+            terminarImportacion();
+            mostrarAlerta("No se pudo importar el archivo: " + tarea.getException().getMessage());
+        });
+
+        Thread hiloImportacion = new Thread(tarea, "importar-pacientes");
+        hiloImportacion.setDaemon(true);
+        hiloImportacion.start();
+    }
+
+    private void terminarImportacion() {
+        lblImportacion.textProperty().unbind();
+        btnImportarCsv.setDisable(false);
+    }
+
     @FXML
     private void onLimpiarCampos() {
         limpiarCampos();
@@ -0,0 +1,21 @@
+package org.demo.Controllers;
+
+/**
+ * Controlador de una vista que el dashboard muestra en su área central.
+ * Las vistas se construyen una vez y se reutilizan; estos métodos avisan al controlador
+ * cuándo se crea y cada vez que vuelve a mostrarse.
+ */
+public interface VistaDashboard {
+
+    /**
+     * Se llama una sola vez, justo después de construir la vista.
+     */
+    default void setDashboardController(DashboardController dashboard) {
+    }
+
+    /**
+     * Se llama cada vez que la vista pasa a ocupar el área central.
+     */
+    default void alMostrar() {
+    }
+}
@@ -0,0 +1,378 @@
+package org.demo.Estadisticas;
+
+import org.demo.Models.Cita;
+import org.demo.Models.EstadoCita;
+import org.demo.Models.Medico;
+import org.demo.Repositories.CitaRepository;
+import org.demo.Repositories.MedicoRepository;
+import org.demo.Repositories.OyenteRepositorio;
+import org.demo.Repositories.SegmentoCitas;
+import org.demo.Utils.HiloFx;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Mantiene al día los indicadores del tablero sin volver a recorrer las citas.
+ * Escucha los cambios de {@link CitaRepository} y por cada alta, cambio o eliminación
+ * resta lo que aportaba la cita antes y suma lo que aporta ahora, así que cada consulta
+ * es una lectura de un acumulador.
+ *
+ * <p>Los montos se suman en centavos ({@code long}) para que los totales sean exactos.
+ * Los ingresos no cuentan las citas a las que el paciente no asistió; el uso de un consultorio
+ * son los minutos reservados sobre {@link #MINUTOS_JORNADA} por cada día con citas; la tasa de
+ * inasistencia se calcula sobre las citas ya cerradas (atendidas o con inasistencia).</p>
+ *
+ * <p>Al archivarse, una cita deja de sumar como cita en memoria y su segmento se suma
+ * una vez, fila por fila, con la especialidad y el consultorio que tenía el médico al
+ * archivarla; como ya no cambia, no se guarda su aporte.</p>
+ */
+public final class MotorEstadisticas {
+
+    /** Minutos de atención de un consultorio en un día; base para calcular su uso. */
+    public static final int MINUTOS_JORNADA = 8 * 60;
+
+    // Lo que cada cita sumó la última vez, para poder restarlo cuando cambie
+    private final Map<Long, Aporte> porCita = new ConcurrentHashMap<>();
+
+    private final LongAdder ingresosCentavos = new LongAdder();
+    private final Map<Long, Long> ingresosPorMedico = new ConcurrentHashMap<>();
+    private final Map<String, Long> ingresosPorEspecialidad = new ConcurrentHashMap<>();
+    private final Map<LocalDate, Long> ingresosPorDia = new ConcurrentHashMap<>();
+
+    private final Map<String, Long> minutosPorConsultorio = new ConcurrentHashMap<>();
+    private final Map<ConsultorioDia, Long> minutosPorConsultorioDia = new ConcurrentHashMap<>();
+    private final Map<String, Long> diasPorConsultorio = new ConcurrentHashMap<>();
+
+    private final LongAdder atendidas = new LongAdder();
+    private final LongAdder inasistencias = new LongAdder();
+    private final Map<Long, Long> cerradasPorMedico = new ConcurrentHashMap<>();
+    private final Map<Long, Long> inasistenciasPorMedico = new ConcurrentHashMap<>();
+
+    private final List<Runnable> oyentes = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean avisoPendiente = new AtomicBoolean(false);
+    private final AtomicBoolean iniciado = new AtomicBoolean(false);
+
+    // Segmentos del histórico ya sumados, por identidad
+    private final Set<SegmentoCitas> segmentosSumados = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    private MotorEstadisticas() {
+    }
+
+    private static final class Contenedor {
+        private static final MotorEstadisticas INSTANCIA = new MotorEstadisticas();
+    }
+
+    public static MotorEstadisticas getInstancia() {
+        return Contenedor.INSTANCIA;
+    }
+
+    /**
+     * Se suscribe a los repositorios y suma las citas que ya existen.
+     * Se llama una vez al arrancar, antes de restaurar los datos: las citas restauradas llegan
+     * por {@code alAgregar} y los segmentos del histórico por el aviso de {@code cargarHistorico}.
+     * Lo que ya estuviera cargado se suma aquí sin contarlo dos veces. Las llamadas siguientes
+     * no hacen nada.
+     */
+    public void iniciar() {
+        if (!iniciado.compareAndSet(false, true)) return;
+
+        CitaRepository citas = CitaRepository.getInstancia();
+        citas.agregarOyente(new OyenteRepositorio<>() {
+            @Override
+            public void alAgregar(Cita cita) {
+                registrar(cita);
+            }
+
+            @Override
+            public void alActualizar(Cita cita) {
+                registrar(cita);
+            }
+
+            @Override
+            public void alEliminar(Cita cita) {
+                quitar(cita.getId());
+            }
+
+            @Override
+            public void alArchivar(Cita cita) {
+                // Se vuelve a sumar desde el segmento cuando este se agrega al histórico
+                quitar(cita.getId());
+            }
+        });
+        citas.agregarOyenteHistorico(this::sumarSegmento);
+        citas.getHistorico().forEach(this::sumarSegmento);
+
+        MedicoRepository.getInstancia().agregarOyente(new OyenteRepositorio<>() {
+            @Override
+            public void alActualizar(Medico medico) {
+                reasignarMedico(medico);
+            }
+        });
+
+        for (Cita cita : citas.listarCitas()) {
+            porCita.computeIfAbsent(cita.getId(), id -> {
+                Aporte aporte = new Aporte(cita);
+                aplicar(aporte, 1);
+                return aporte;
+            });
+        }
+        avisar();
+    }
+
+    /**
+     * Avisa en el hilo de JavaFX cuando cambian los indicadores.
+     * Varios cambios seguidos producen un solo aviso.
+     */
+    public void agregarOyente(Runnable oyente) {
+        oyentes.add(oyente);
+    }
+
+    public void quitarOyente(Runnable oyente) {
+        oyentes.remove(oyente);
+    }
+
+    // ------------------------------------------------------------ CONSULTAS
+
+    public long getIngresosCentavos() {
+        return ingresosCentavos.sum();
+    }
+
+    public long getIngresosMedicoCentavos(long medicoId) {
+        return ingresosPorMedico.getOrDefault(medicoId, 0L);
+    }
+
+    public long getIngresosEspecialidadCentavos(String especialidad) {
+        return ingresosPorEspecialidad.getOrDefault(clave(especialidad), 0L);
+    }
+
+    public long getIngresosDiaCentavos(LocalDate dia) {
+        return ingresosPorDia.getOrDefault(dia, 0L);
+    }
+
+    /**
+     * Fracción de la jornada reservada en el consultorio ese día (puede pasar de 1 si se sobreagenda).
+     */
+    public double getUsoConsultorio(String consultorio, LocalDate dia) {
+        return minutosPorConsultorioDia.getOrDefault(new ConsultorioDia(clave(consultorio), dia), 0L)
+                / (double) MINUTOS_JORNADA;
+    }
+
+    /**
+     * Uso promedio del consultorio en los días en que tuvo citas.
+     */
+    public double getUsoConsultorio(String consultorio) {
+        String c = clave(consultorio);
+        long dias = diasPorConsultorio.getOrDefault(c, 0L);
+        if (dias == 0) return 0;
+        return minutosPorConsultorio.getOrDefault(c, 0L) / (double) (dias * MINUTOS_JORNADA);
+    }
+
+    /**
+     * Inasistencias sobre citas cerradas; 0 si todavía no hay ninguna cerrada.
+     */
+    public double getTasaInasistencia() {
+        long faltas = inasistencias.sum();
+        long cerradas = faltas + atendidas.sum();
+        return cerradas == 0 ? 0 : (double) faltas / cerradas;
+    }
+
+    public double getTasaInasistencia(long medicoId) {
+        long cerradas = cerradasPorMedico.getOrDefault(medicoId, 0L);
+        return cerradas == 0 ? 0 : (double) inasistenciasPorMedico.getOrDefault(medicoId, 0L) / cerradas;
+    }
+
+    /** Vista de solo lectura, siempre al día. */
+    public Map<Long, Long> getIngresosPorMedico() {
+        return Collections.unmodifiableMap(ingresosPorMedico);
+    }
+
+    /** Vista de solo lectura, siempre al día. */
+    public Map<String, Long> getIngresosPorEspecialidad() {
+        return Collections.unmodifiableMap(ingresosPorEspecialidad);
+    }
+
+    /** Vista de solo lectura, siempre al día. */
+    public Map<LocalDate, Long> getIngresosPorDia() {
+        return Collections.unmodifiableMap(ingresosPorDia);
+    }
+
+    // ------------------------------------------------------------ ACTUALIZACIÓN
+
+    // Los oyentes del repositorio llegan con el candado de la cita tomado, así que
+    // dos cambios de la misma cita no se cruzan; compute lo garantiza también aquí
+    private void registrar(Cita cita) {
+        Aporte nuevo = new Aporte(cita);
+        porCita.compute(cita.getId(), (id, anterior) -> {
+            if (anterior != null) aplicar(anterior, -1);
+            aplicar(nuevo, 1);
+            return nuevo;
+        });
+        avisar();
+    }
+
+    private void quitar(long idCita) {
+        porCita.computeIfPresent(idCita, (id, anterior) -> {
+            aplicar(anterior, -1);
+            return null;
+        });
+        avisar();
+    }
+
+    private void sumarSegmento(SegmentoCitas segmento) {
+        synchronized (segmentosSumados) {
+            if (!segmentosSumados.add(segmento)) return;
+        }
+        segmento.recorrer(fila -> aplicar(new Aporte(segmento, fila), 1));
+        avisar();
+    }
+
+    /**
+     * Si el médico cambió de especialidad o consultorio, sus citas pasan a sumar en los nuevos.
+     * Recorre los aportes, pero los médicos se editan muy rara vez.
+     */
+    private void reasignarMedico(Medico medico) {
+        String especialidad = clave(medico.getEspecialidad());
+        String consultorio = clave(medico.getConsultorio());
+        boolean cambio = false;
+
+        for (Map.Entry<Long, Aporte> entrada : porCita.entrySet()) {
+            Aporte aporte = entrada.getValue();
+            if (aporte.medicoId != medico.getId()) continue;
+            if (aporte.especialidad.equals(especialidad) && aporte.consultorio.equals(consultorio)) continue;
+
+            porCita.computeIfPresent(entrada.getKey(), (id, anterior) -> {
+                Aporte nuevo = anterior.conMedico(especialidad, consultorio);
+                aplicar(anterior, -1);
+                aplicar(nuevo, 1);
+                return nuevo;
+            });
+            cambio = true;
+        }
+        if (cambio) avisar();
+    }
+
+    private void aplicar(Aporte a, int signo) {
+        if (a.estado != EstadoCita.NO_ASISTIO) {
+            long centavos = signo * a.centavos;
+            ingresosCentavos.add(centavos);
+            sumar(ingresosPorMedico, a.medicoId, centavos);
+            sumar(ingresosPorEspecialidad, a.especialidad, centavos);
+            sumar(ingresosPorDia, a.dia, centavos);
+        }
+
+        long minutos = signo * a.minutos;
+        sumar(minutosPorConsultorio, a.consultorio, minutos);
+        minutosPorConsultorioDia.compute(new ConsultorioDia(a.consultorio, a.dia), (clave, actual) -> {
+            long nuevo = (actual == null ? 0 : actual) + minutos;
+            if (actual == null && nuevo != 0) sumar(diasPorConsultorio, a.consultorio, 1);
+            if (actual != null && nuevo == 0) sumar(diasPorConsultorio, a.consultorio, -1);
+            return nuevo == 0 ? null : nuevo;
+        });
+
+        if (a.estado == EstadoCita.ATENDIDA) {
+            atendidas.add(signo);
+            sumar(cerradasPorMedico, a.medicoId, signo);
+        } else if (a.estado == EstadoCita.NO_ASISTIO) {
+            inasistencias.add(signo);
+            sumar(cerradasPorMedico, a.medicoId, signo);
+            sumar(inasistenciasPorMedico, a.medicoId, signo);
+        }
+    }
+
+    // Las entradas que vuelven a cero se eliminan para no acumular claves vacías
+    private static <K> void sumar(Map<K, Long> mapa, K clave, long delta) {
+        if (delta == 0) return;
+        mapa.merge(clave, delta, (actual, d) -> {
+            long nuevo = actual + d;
+            return nuevo == 0 ? null : nuevo;
+        });
+    }
+
+    private void avisar() {
+        if (oyentes.isEmpty() || !avisoPendiente.compareAndSet(false, true)) return;
+        HiloFx.despues(() -> {
+            avisoPendiente.set(false);
+            oyentes.forEach(Runnable::run);
+        });
+    }
+
+    private static String clave(String texto) {
+        return Objects.requireNonNullElse(texto, "");
+    }
+
+    // ------------------------------------------------------------ AUXILIARES
+
+    /**
+     * Datos de una cita que intervienen en los indicadores, copiados al momento del cambio
+     * porque la misma instancia de {@link Cita} se modifica al editarla.
+     */
+    private static final class Aporte {
+        private final long medicoId;
+        private final String especialidad;
+        private final String consultorio;
+        private final LocalDate dia;
+        private final long centavos;
+        private final int minutos;
+        private final EstadoCita estado;
+
+        private Aporte(Cita cita) {
+            this(cita.getMedico().getId(), clave(cita.getMedico().getEspecialidad()),
+                    clave(cita.getMedico().getConsultorio()), cita.getFecha(), cita.getPrecioCentavos(),
+                    cita.getDuracionMinutos(), cita.getEstado());
+        }
+
+        private Aporte(SegmentoCitas segmento, int fila) {
+            this(segmento.getMedicoId(fila), clave(segmento.getEspecialidad(fila)),
+                    clave(segmento.getConsultorio(fila)), LocalDate.ofEpochDay(segmento.getDia(fila)),
+                    segmento.getPrecioCentavos(fila), segmento.getDuracionMinutos(fila), segmento.getEstado(fila));
+        }
+
+        private Aporte(long medicoId, String especialidad, String consultorio, LocalDate dia,
+                       long centavos, int minutos, EstadoCita estado) {
+            this.medicoId = medicoId;
+            this.especialidad = especialidad;
+            this.consultorio = consultorio;
+            this.dia = dia;
+            this.centavos = centavos;
+            this.minutos = minutos;
+            this.estado = estado;
+        }
+
+        private Aporte conMedico(String especialidad, String consultorio) {
+            return new Aporte(medicoId, especialidad, consultorio, dia, centavos, minutos, estado);
+        }
+    }
+
+    private static final class ConsultorioDia {
+        private final String consultorio;
+        private final LocalDate dia;
+
+        private ConsultorioDia(String consultorio, LocalDate dia) {
+            this.consultorio = consultorio;
+            this.dia = dia;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof ConsultorioDia)) return false;
+            ConsultorioDia otra = (ConsultorioDia) o;
+            return consultorio.equals(otra.consultorio) && dia.equals(otra.dia);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * consultorio.hashCode() + dia.hashCode();
+        }
+    }
+}
@@ -1,20 +1,97 @@
 package org.demo;
 
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Scene;
+import javafx.scene.control.Alert;
 import javafx.stage.Stage;
+import org.demo.Controllers.DashboardController;
+import org.demo.Estadisticas.MotorEstadisticas;
+import org.demo.Metricas.RegistroMetricas;
+import org.demo.Persistencia.Persistencia;
+import org.demo.Utils.AlertHelper;
+import org.demo.Utils.HiloFx;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
 
 public class Launcher extends Application {
+
+    // Los tiempos de arranque se cuentan desde que se creó el proceso
+    private final Instant inicioProceso = ProcessHandle.current().info().startInstant().orElse(Instant.now());
+    private long primerCuadroMs = -1;
+
     @Override
     public void start(Stage stage) throws IOException {
+        // A partir de aquí los repositorios publican sus cambios en el hilo de JavaFX
+        HiloFx.marcarToolkitIniciado();
+
+        // El motor se suscribe antes de la carga: los indicadores crecen junto con los conteos
+        MotorEstadisticas.getInstancia().iniciar();
+
         FXMLLoader fxmlLoader = new FXMLLoader(Launcher.class.getResource("Dashboard.fxml"));
         Scene scene = new Scene(fxmlLoader.load(), 1200, 720);
+        DashboardController dashboard = fxmlLoader.getController();
+        dashboard.setCargando(true);
+        medirPrimerCuadro(scene);
+
         stage.setMaximized(true);
         stage.setTitle("Sistema de Gestión de Citas Médicas");
         stage.setScene(scene);
         stage.show();
+
+        // Los datos se restauran en segundo plano; el menú se habilita cuando terminan
+        long inicioCarga = System.nanoTime();
+        Persistencia.getInstancia()
+                .abrirEnSegundoPlano(Persistencia.directorioPredeterminado(), dashboard::mostrarEstado)
+                .whenComplete((sinValor, error) -> HiloFx.ejecutar(() -> {
+                    if (error != null) {
+                        AlertHelper.mostrarAlerta("No se pudieron cargar los datos: " + error.getMessage(),
+                                Alert.AlertType.ERROR);
+                        Platform.exit();
+                        return;
+                    }
+                    dashboard.setCargando(false);
+                    long interactivoMs = registrarTiempo("Arranque.interactivo");
+                    dashboard.mostrarEstado(String.format("Datos cargados en %,d ms · primer cuadro a los %,d ms · interactivo a los %,d ms",
+                            (System.nanoTime() - inicioCarga) / 1_000_000, primerCuadroMs, interactivoMs));
+
+                    // Con -Dvistas.precargar=false las vistas se construyen recién al abrirlas
+                    if (Boolean.parseBoolean(System.getProperty("vistas.precargar", "true"))) {
+                        dashboard.precargarVistas();
+                    }
+                }));
+    }
+
+    /**
+     * Registra el tiempo hasta la primera vez que la escena se dibuja, una sola vez.
+     */
+    private void medirPrimerCuadro(Scene scene) {
+        Runnable[] oyente = new Runnable[1];
+        oyente[0] = () -> {
+            if (primerCuadroMs >= 0) return;
+            primerCuadroMs = registrarTiempo("Arranque.primerCuadro");
+            // No se quita dentro del mismo pulso, mientras la escena recorre sus oyentes
+            Platform.runLater(() -> scene.removePostLayoutPulseListener(oyente[0]));
+        };
+        scene.addPostLayoutPulseListener(oyente[0]);
+    }
+
+    /**
+     * Tiempo desde el inicio del proceso; queda en el panel de diagnóstico.
+     *
+     * @return el tiempo en milisegundos.
+     */
+    private long registrarTiempo(String metrica) {
+        Duration transcurrido = Duration.between(inicioProceso, Instant.now());
+        RegistroMetricas.getInstancia().operacion(metrica).registrar(transcurrido.toNanos());
+        return transcurrido.toMillis();
+    }
+
+    @Override
+    public void stop() {
+        Persistencia.getInstancia().cerrar();
     }
 }
@@ -0,0 +1,53 @@
+package org.demo.Metricas;
+
+/**
+ * Valores de una {@link MetricaOperacion} en un momento dado. Las latencias están en nanosegundos.
+ */
+public final class FotoMetrica {
+
+    private final String operacion;
+    private final long llamadas;
+    private final long p50;
+    private final long p99;
+    private final long p999;
+    private final long maximo;
+    private final double promedio;
+
+    FotoMetrica(String operacion, long llamadas, long p50, long p99, long p999, long maximo, double promedio) {
+        this.operacion = operacion;
+        this.llamadas = llamadas;
+        this.p50 = p50;
+        this.p99 = p99;
+        this.p999 = p999;
+        this.maximo = maximo;
+        this.promedio = promedio;
+    }
+
+    public String getOperacion() {
+        return operacion;
+    }
+
+    public long getLlamadas() {
+        return llamadas;
+    }
+
+    public long getP50() {
+        return p50;
+    }
+
+    public long getP99() {
+        return p99;
+    }
+
+    public long getP999() {
+        return p999;
+    }
+
+    public long getMaximo() {
+        return maximo;
+    }
+
+    public double getPromedio() {
+        return promedio;
+    }
+}
@@ -0,0 +1,95 @@
+package org.demo.Metricas;
+
+import org.demo.Utils.HistogramaLatencias;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Llamadas y latencias de una operación. Se usa alrededor del cuerpo del método:
+ * <pre>{@code
+ * long inicio = metrica.iniciar();
+ * try {
+ *     ...
+ * } finally {
+ *     metrica.terminar(inicio);
+ * }
+ * }</pre>
+ * No asigna memoria por llamada; con el registro desactivado solo lee un campo volátil.
+ * Para cuerpos de una sola expresión están {@link #medir} y {@link #ejecutar}.
+ */
+public final class MetricaOperacion {
+
+    private final String nombre;
+    private final RegistroMetricas registro;
+    private final LongAdder llamadas = new LongAdder();
+    private final HistogramaLatencias latencias = new HistogramaLatencias();
+
+    MetricaOperacion(String nombre, RegistroMetricas registro) {
+        this.nombre = nombre;
+        this.registro = registro;
+    }
+
+    /**
+     * Marca de tiempo de inicio, o 0 si el registro está desactivado.
+     */
+    public long iniciar() {
+        return registro.isActivo() ? System.nanoTime() : 0;
+    }
+
+    public void terminar(long inicio) {
+        if (inicio == 0) return;
+        llamadas.increment();
+        latencias.registrar(System.nanoTime() - inicio);
+    }
+
+    /**
+     * Mide la acción y devuelve su resultado.
+     */
+    public <T> T medir(Supplier<T> accion) {
+        long inicio = iniciar();
+        try {
+            return accion.get();
+        } finally {
+            terminar(inicio);
+        }
+    }
+
+    /**
+     * Mide una acción sin resultado.
+     */
+    public void ejecutar(Runnable accion) {
+        long inicio = iniciar();
+        try {
+            accion.run();
+        } finally {
+            terminar(inicio);
+        }
+    }
+
+    /**
+     * Registra una duración medida por fuera, por ejemplo una sola vez al arrancar.
+     */
+    public void registrar(long nanos) {
+        if (!registro.isActivo()) return;
+        llamadas.increment();
+        latencias.registrar(nanos);
+    }
+
+    public String getNombre() {
+        return nombre;
+    }
+
+    /**
+     * Valores actuales; los percentiles se calculan en este momento.
+     */
+    public FotoMetrica tomarFoto() {
+        return new FotoMetrica(nombre, llamadas.sum(), latencias.percentil(0.50), latencias.percentil(0.99),
+                latencias.percentil(0.999), latencias.getMaximo(), latencias.getPromedio());
+    }
+
+    void reiniciar() {
+        llamadas.reset();
+        latencias.reiniciar();
+    }
+}
@@ -0,0 +1,94 @@
+package org.demo.Metricas;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registro de las métricas de operación de la aplicación (una por cada operación medida de los
+ * repositorios). Las métricas se crean una vez, al construir quien las usa, y luego solo
+ * se actualizan contadores; consultar o exportar no detiene a nadie.
+ */
+public final class RegistroMetricas {
+
+    private static final DateTimeFormatter FORMATO_MOMENTO = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+
+    private final ConcurrentHashMap<String, MetricaOperacion> metricas = new ConcurrentHashMap<>();
+    private volatile boolean activo = true;
+
+    private RegistroMetricas() {
+    }
+
+    private static final class Contenedor {
+        private static final RegistroMetricas INSTANCIA = new RegistroMetricas();
+    }
+
+    public static RegistroMetricas getInstancia() {
+        return Contenedor.INSTANCIA;
+    }
+
+    /**
+     * Métrica con el nombre dado; se crea la primera vez que se pide.
+     */
+    public MetricaOperacion operacion(String nombre) {
+        return metricas.computeIfAbsent(nombre, n -> new MetricaOperacion(n, this));
+    }
+
+    public boolean isActivo() {
+        return activo;
+    }
+
+    /**
+     * Activa o desactiva la medición; los valores ya registrados se conservan.
+     */
+    public void setActivo(boolean activo) {
+        this.activo = activo;
+    }
+
+    /**
+     * Valores actuales de todas las métricas, ordenados por nombre.
+     */
+    public List<FotoMetrica> tomarFotos() {
+        List<FotoMetrica> fotos = new ArrayList<>(metricas.size());
+        for (MetricaOperacion m : metricas.values()) {
+            fotos.add(m.tomarFoto());
+        }
+        fotos.sort(Comparator.comparing(FotoMetrica::getOperacion));
+        return fotos;
+    }
+
+    /**
+     * Vuelve a cero todas las métricas.
+     */
+    public void reiniciar() {
+        metricas.values().forEach(MetricaOperacion::reiniciar);
+    }
+
+    /**
+     * Escribe los valores actuales en un archivo CSV (latencias en nanosegundos),
+     * con la fecha de la captura en cada fila para poder juntar varias exportaciones.
+     */
+    public void exportar(Path archivo) {
+        String momento = LocalDateTime.now().withNano(0).format(FORMATO_MOMENTO);
+        try (BufferedWriter salida = Files.newBufferedWriter(archivo, StandardCharsets.UTF_8)) {
+            salida.write("capturado,operacion,llamadas,p50_ns,p99_ns,p999_ns,max_ns,promedio_ns");
+            salida.newLine();
+            for (FotoMetrica f : tomarFotos()) {
+                salida.write(String.format(Locale.ROOT, "%s,%s,%d,%d,%d,%d,%d,%.0f", momento, f.getOperacion(),
+                        f.getLlamadas(), f.getP50(), f.getP99(), f.getP999(), f.getMaximo(), f.getPromedio()));
+                salida.newLine();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("No se pudieron exportar las métricas: " + e.getMessage(), e);
+        }
+    }
+}
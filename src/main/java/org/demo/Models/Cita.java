@@ -1,10 +1,12 @@
 package org.demo.Models;
 
+import org.demo.Utils.GeneradorIds;
+import org.demo.Utils.ReservaTextos;
+
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
-import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Representa una venta realizada en el sistema.
@@ -13,32 +15,82 @@ import java.util.concurrent.ThreadLocalRandom;
  */
 public class Cita {
 
-    private String id;
+    /** Duración en minutos que se asume cuando no se indica una. */
+    public static final int DURACION_PREDETERMINADA = 30;
+
+    private static final DateTimeFormatter FORMATO_FECHA = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+    private static final DateTimeFormatter FORMATO_HORA = DateTimeFormatter.ofPattern("HH:mm");
+
+    private long id;
     private Medico medico;
     private Paciente paciente;
     private LocalDate fecha;
     private LocalTime hora;
-    private double precio;
-    private String motivo;
+    private int duracionMinutos;
+    private long precioCentavos;
+    private String motivo; // compartido entre citas con el mismo motivo
     private String observaciones;
+    private EstadoCita estado = EstadoCita.PROGRAMADA;
+
+    // Textos para la tabla; se calculan al pedirlos y se descartan si cambia el dato
+    private String codigo;
+    private String fechaFormateada;
+    private String horaFormateada;
+    private String horaFinFormateada;
 
     public Cita(Medico medico, Paciente paciente, LocalDate fecha, LocalTime hora, double precio, String motivo, String observaciones) {
+        this(medico, paciente, fecha, hora, DURACION_PREDETERMINADA, precio, motivo, observaciones);
+    }
+
+    public Cita(Medico medico, Paciente paciente, LocalDate fecha, LocalTime hora, int duracionMinutos, double precio, String motivo, String observaciones) {
+        this.medico = medico;
+        this.paciente = paciente;
+        this.fecha = fecha;
+        this.hora = hora;
+        this.duracionMinutos = duracionMinutos;
+        this.precioCentavos = Math.round(precio * 100);
+        this.id = GeneradorIds.CITAS.siguiente();
+        this.motivo = ReservaTextos.canonico(motivo);
+        this.observaciones = observaciones;
+    }
+
+    /**
+     * Reconstruye una cita ya registrada con su ID, sin pedir uno nuevo al generador.
+     */
+    public Cita(long id, Medico medico, Paciente paciente, LocalDate fecha, LocalTime hora, int duracionMinutos,
+                long precioCentavos, EstadoCita estado, String motivo, String observaciones) {
+        this.id = id;
         this.medico = medico;
         this.paciente = paciente;
         this.fecha = fecha;
         this.hora = hora;
-        this.precio = precio;
-        this.id = generarIdCita();
-        this.motivo = motivo;
+        this.duracionMinutos = duracionMinutos;
+        this.precioCentavos = precioCentavos;
+        this.estado = estado;
+        this.motivo = ReservaTextos.canonico(motivo);
         this.observaciones = observaciones;
     }
 
-    public String getId() { return id; }
+    public long getId() { return id; }
+    public void setId(long id) { this.id = id; this.codigo = null; }
+
+    /** Forma corta del ID para mostrar en pantalla. */
+    public String getCodigo() {
+        String texto = codigo;
+        if (texto == null) codigo = texto = GeneradorIds.CITAS.formatear(id);
+        return texto;
+    }
+
     public Medico getMedico() { return medico; }
     public Paciente getPaciente() { return paciente; }
     public LocalDate getFecha() { return fecha; }
     public LocalTime getHora() { return hora; }
-    public double getPrecio() { return precio; }
+    public int getDuracionMinutos() { return duracionMinutos; }
+    public LocalTime getHoraFin() { return hora.plusMinutes(duracionMinutos); }
+    public double getPrecio() { return precioCentavos / 100.0; }
+    /** Precio exacto en centavos; los totales se suman con este valor. */
+    public long getPrecioCentavos() { return precioCentavos; }
+    public EstadoCita getEstado() { return estado; }
     public String getMotivo(){return motivo;}
 
     public String getObservaciones() {
@@ -51,10 +103,13 @@ public class Cita {
 
     public void setMedico(Medico medico) { this.medico = medico; }
     public void setPaciente(Paciente paciente) { this.paciente = paciente; }
-    public void setFecha(LocalDate fecha) { this.fecha = fecha; }
-    public void setHora(LocalTime hora) { this.hora = hora; }
-    public void setPrecio(double precio) { this.precio = precio; }
-    public void setMotivo(String motivo){this.motivo = motivo; }
+    public void setFecha(LocalDate fecha) { this.fecha = fecha; this.fechaFormateada = null; }
+    public void setHora(LocalTime hora) { this.hora = hora; this.horaFormateada = null; this.horaFinFormateada = null; }
+    public void setDuracionMinutos(int duracionMinutos) { this.duracionMinutos = duracionMinutos; this.horaFinFormateada = null; }
+    public void setPrecio(double precio) { this.precioCentavos = Math.round(precio * 100); }
+    public void setPrecioCentavos(long precioCentavos) { this.precioCentavos = precioCentavos; }
+    public void setEstado(EstadoCita estado) { this.estado = estado; }
+    public void setMotivo(String motivo){this.motivo = ReservaTextos.canonico(motivo); }
 
     public String getMedicoNombre() {
         return medico.getNombre();
@@ -66,28 +121,35 @@ public class Cita {
 
     public String getConsultorio(){return medico.getConsultorio();}
 
-    private static String generarIdCita() {
-        return "CITA-" + System.currentTimeMillis() + "-" +
-                ThreadLocalRandom.current().nextInt(1000, 9999);
-    }
-
     public String getFechaFormateada() {
-        return fecha.format(DateTimeFormatter.ofPattern("dd/MM/yyyy"));
+        String texto = fechaFormateada;
+        if (texto == null) fechaFormateada = texto = FORMATO_FECHA.format(fecha);
+        return texto;
     }
 
     public String getHoraFormateada() {
-        return hora.format(DateTimeFormatter.ofPattern("HH:mm"));
+        String texto = horaFormateada;
+        if (texto == null) horaFormateada = texto = FORMATO_HORA.format(hora);
+        return texto;
+    }
+
+    public String getHoraFinFormateada() {
+        String texto = horaFinFormateada;
+        if (texto == null) horaFinFormateada = texto = FORMATO_HORA.format(getHoraFin());
+        return texto;
     }
 
     @Override
     public String toString() {
         return "Cita{" +
-                "id='" + id + '\'' +
+                "id=" + getCodigo() +
                 ", medico=" + medico +
                 ", paciente=" + paciente +
                 ", fecha=" + fecha +
                 ", hora=" + hora +
-                ", precio=" + precio +
+                ", duracionMinutos=" + duracionMinutos +
+                ", precio=" + getPrecio() +
+                ", estado=" + estado +
                 '}';
     }
 }
\ No newline at end of file
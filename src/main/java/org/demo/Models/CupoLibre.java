@@ -0,0 +1,36 @@
+package org.demo.Models;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Horario libre de un médico en el que cabe una cita de la duración pedida.
+ */
+public class CupoLibre {
+
+    private static final DateTimeFormatter FORMATO = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+
+    private final Medico medico;
+    private final LocalDate fecha;
+    private final LocalTime hora;
+    private final int duracionMinutos;
+
+    public CupoLibre(Medico medico, LocalDate fecha, LocalTime hora, int duracionMinutos) {
+        this.medico = medico;
+        this.fecha = fecha;
+        this.hora = hora;
+        this.duracionMinutos = duracionMinutos;
+    }
+
+    public Medico getMedico() { return medico; }
+    public LocalDate getFecha() { return fecha; }
+    public LocalTime getHora() { return hora; }
+    public int getDuracionMinutos() { return duracionMinutos; }
+
+    @Override
+    public String toString() {
+        return FORMATO.format(fecha.atTime(hora)) + " - " + medico.getNombre()
+                + " (" + medico.getEspecialidad() + ", " + medico.getConsultorio() + ")";
+    }
+}
@@ -0,0 +1,22 @@
+package org.demo.Models;
+
+public enum EstadoCita {
+    PROGRAMADA("Programada"),
+    ATENDIDA("Atendida"),
+    NO_ASISTIO("No asistió");
+
+    private final String descripcion;
+
+    EstadoCita(String descripcion){
+        this.descripcion = descripcion;
+    }
+
+    public String getDescripcion(){
+        return this.descripcion;
+    }
+
+    @Override
+    public String toString() {
+        return descripcion;
+    }
+}
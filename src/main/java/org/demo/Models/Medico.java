@@ -1,6 +1,9 @@
 package org.demo.Models;
 
+import org.demo.Utils.ReservaTextos;
+
 public class Medico extends Persona{
+    // Especialidad, consultorio y horario se repiten entre médicos: se guardan compartidos
     private String especialidad;
     private String consultorio;
     private String horario;
@@ -8,8 +11,18 @@ public class Medico extends Persona{
 
     public Medico(String nombre, TipoDocumento tipoDocumento, String documento, String telefono, String direccion, String correo, String especialidad, String consultorio){
         super(nombre, tipoDocumento, documento, telefono, direccion, correo);
-        this.consultorio = consultorio;
-        this.especialidad = especialidad;
+        this.consultorio = ReservaTextos.canonico(consultorio);
+        this.especialidad = ReservaTextos.canonico(especialidad);
+    }
+
+    /**
+     * Reconstruye un médico ya registrado con su ID, sin pedir uno nuevo al generador.
+     */
+    public Medico(long id, String nombre, TipoDocumento tipoDocumento, String documento, String telefono, String direccion, String correo, String especialidad, String consultorio, String horario){
+        super(id, nombre, tipoDocumento, documento, telefono, direccion, correo);
+        this.consultorio = ReservaTextos.canonico(consultorio);
+        this.especialidad = ReservaTextos.canonico(especialidad);
+        this.horario = ReservaTextos.canonico(horario);
     }
 
     public String getHorario() {
@@ -17,7 +30,7 @@ public class Medico extends Persona{
     }
 
     public void setHorario(String horario) {
-        this.horario = horario;
+        this.horario = ReservaTextos.canonico(horario);
     }
 
     public String getConsultorio() {
@@ -25,7 +38,7 @@ public class Medico extends Persona{
     }
 
     public void setConsultorio(String consultorio) {
-        this.consultorio = consultorio;
+        this.consultorio = ReservaTextos.canonico(consultorio);
     }
 
     public String getEspecialidad() {
@@ -33,7 +46,7 @@ public class Medico extends Persona{
     }
 
     public void setEspecialidad(String especialidad) {
-        this.especialidad = especialidad;
+        this.especialidad = ReservaTextos.canonico(especialidad);
     }
 
     @Override
@@ -1,5 +1,7 @@
 package org.demo.Models;
 
+import org.demo.Utils.ReservaTextos;
+
 public class Paciente extends Persona{
     private String fechaNacimiento;
     private String enfermedad;
@@ -7,7 +9,16 @@ public class Paciente extends Persona{
     public Paciente(String nombre, TipoDocumento tipoDocumento, String documento, String telefono, String direccion, String correo, String fechaNacimiento, String enfermedad) {
         super(nombre, tipoDocumento, documento, telefono, direccion, correo);
         this.fechaNacimiento = fechaNacimiento;
-        this.enfermedad = enfermedad;
+        this.enfermedad = ReservaTextos.canonico(enfermedad);
+    }
+
+    /**
+     * Reconstruye un paciente ya registrado con su ID, sin pedir uno nuevo al generador.
+     */
+    public Paciente(long id, String nombre, TipoDocumento tipoDocumento, String documento, String telefono, String direccion, String correo, String fechaNacimiento, String enfermedad) {
+        super(id, nombre, tipoDocumento, documento, telefono, direccion, correo);
+        this.fechaNacimiento = fechaNacimiento;
+        this.enfermedad = ReservaTextos.canonico(enfermedad);
     }
 
     public String getFechaNacimiento() {
@@ -19,7 +30,7 @@ public class Paciente extends Persona{
     }
 
     public void setEnfermedad(String enfermedad) {
-        this.enfermedad = enfermedad;
+        this.enfermedad = ReservaTextos.canonico(enfermedad);
     }
 
     public void setFechaNacimiento(String fechaNacimiento) {
@@ -1,8 +1,14 @@
 package org.demo.Models;
 
+import org.demo.Utils.GeneradorIds;
+import org.demo.Utils.ReservaTextos;
+
+/**
+ * Datos comunes de pacientes y médicos. La dirección se guarda como texto compartido
+ * ({@link ReservaTextos}), porque casi todos los registros repiten la misma ciudad.
+ */
 public abstract class Persona {
-    private static int contador = 1;
-    private int id;
+    private long id;
     private String nombre;
     private TipoDocumento tipoDocumento;
     private String numDocumento;
@@ -11,10 +17,17 @@ public abstract class Persona {
     private String correo;
 
     public Persona(String nombre, TipoDocumento documento, String numDocumento, String telefono, String direccion, String correo) {
-        this.id = contador++;
+        this(GeneradorIds.PERSONAS.siguiente(), nombre, documento, numDocumento, telefono, direccion, correo);
+    }
+
+    /**
+     * Reconstruye una persona ya registrada con su ID, sin pedir uno nuevo al generador.
+     */
+    public Persona(long id, String nombre, TipoDocumento documento, String numDocumento, String telefono, String direccion, String correo) {
+        this.id = id;
         this.tipoDocumento = documento;
         this.numDocumento = numDocumento;
-        this.direccion = direccion;
+        this.direccion = ReservaTextos.canonico(direccion);
         this.telefono = telefono;
         this.nombre = nombre;
         this.correo = correo;
@@ -35,7 +48,7 @@ public abstract class Persona {
     }
 
     public void setDireccion(String direccion) {
-        this.direccion = direccion;
+        this.direccion = ReservaTextos.canonico(direccion);
     }
 
     public String getTelefono() {
@@ -62,20 +75,19 @@ public abstract class Persona {
         this.correo = correo;
     }
 
-    public int getId() {
+    public long getId() {
         return id;
     }
 
-    public void setId(int id) {
+    public void setId(long id) {
         this.id = id;
     }
 
-    public static int getContador() {
-        return contador;
-    }
-
-    public static void setContador(int contador) {
-        Persona.contador = contador;
+    /**
+     * Forma corta del ID para mostrar en pantalla.
+     */
+    public String getCodigo() {
+        return GeneradorIds.PERSONAS.formatear(id);
     }
 
     public TipoDocumento getTipoDocumento() {
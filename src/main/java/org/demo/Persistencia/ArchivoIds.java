@@ -0,0 +1,88 @@
+package org.demo.Persistencia;
+
+import org.demo.Utils.GeneradorIds;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Guarda las marcas de los generadores de IDs (hasta dónde se reservó cada uno).
+ * El archivo se reescribe completo en un temporal, se fuerza a disco y se renombra;
+ * si al leerlo el CRC no coincide se trata como ausente.
+ */
+final class ArchivoIds implements GeneradorIds.Marca {
+
+    private static final int MAGICO = 0x43494453; // "CIDS"
+    private static final String NOMBRE = "ids.dat";
+    private static final int TAMANO = 4 + 8 + 8 + 8;
+
+    private final Path archivo;
+    private long marcaCitas;
+    private long marcaPersonas;
+
+    private ArchivoIds(Path archivo, long marcaCitas, long marcaPersonas) {
+        this.archivo = archivo;
+        this.marcaCitas = marcaCitas;
+        this.marcaPersonas = marcaPersonas;
+    }
+
+    /**
+     * Lee las marcas guardadas en el directorio; si no hay archivo válido ambas son 0.
+     */
+    static ArchivoIds abrir(Path directorio) throws IOException {
+        Path archivo = directorio.resolve(NOMBRE);
+        if (!Files.exists(archivo)) return new ArchivoIds(archivo, 0, 0);
+
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(archivo));
+        if (buffer.remaining() != TAMANO || buffer.getInt() != MAGICO) return new ArchivoIds(archivo, 0, 0);
+
+        long citas = buffer.getLong();
+        long personas = buffer.getLong();
+        long crc = buffer.getLong();
+        if (crc != crc(citas, personas)) return new ArchivoIds(archivo, 0, 0);
+        return new ArchivoIds(archivo, citas, personas);
+    }
+
+    long getMarcaCitas() {
+        return marcaCitas;
+    }
+
+    long getMarcaPersonas() {
+        return marcaPersonas;
+    }
+
+    @Override
+    public synchronized void guardar(GeneradorIds generador, long limite) {
+        long citas = generador == GeneradorIds.CITAS ? limite : marcaCitas;
+        long personas = generador == GeneradorIds.PERSONAS ? limite : marcaPersonas;
+
+        ByteBuffer buffer = ByteBuffer.allocate(TAMANO);
+        buffer.putInt(MAGICO).putLong(citas).putLong(personas).putLong(crc(citas, personas));
+        buffer.flip();
+
+        Path temporal = archivo.resolveSibling(NOMBRE + ".tmp");
+        try (FileChannel canal = FileChannel.open(temporal,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (buffer.hasRemaining()) canal.write(buffer);
+            canal.force(true);
+            Files.move(temporal, archivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo reservar un bloque de IDs", e);
+        }
+        marcaCitas = citas;
+        marcaPersonas = personas;
+    }
+
+    private static long crc(long citas, long personas) {
+        CRC32 crc = new CRC32();
+        crc.update(ByteBuffer.allocate(16).putLong(citas).putLong(personas).array());
+        return crc.getValue();
+    }
+}
@@ -0,0 +1,173 @@
+package org.demo.Persistencia;
+
+import org.demo.Models.Cita;
+import org.demo.Models.EstadoCita;
+import org.demo.Models.Medico;
+import org.demo.Models.Paciente;
+import org.demo.Models.TipoDocumento;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.function.LongFunction;
+
+/**
+ * Codificación binaria compacta de pacientes, médicos y citas.
+ * La usan el log de transacciones y las instantáneas. Las citas guardan
+ * solo los IDs del médico y del paciente, que se resuelven al leer.
+ */
+final class CodecEntidades {
+
+    private CodecEntidades() {}
+
+    // ------------------------------------------------------------ PACIENTES
+
+    static void escribirPaciente(DataOutput out, Paciente p) throws IOException {
+        out.writeLong(p.getId());
+        escribirTexto(out, p.getNombre());
+        escribirTipoDocumento(out, p.getTipoDocumento());
+        escribirTexto(out, p.getNumDocumento());
+        escribirTexto(out, p.getTelefono());
+        escribirTexto(out, p.getDireccion());
+        escribirTexto(out, p.getCorreo());
+        escribirTexto(out, p.getFechaNacimiento());
+        escribirTexto(out, p.getEnfermedad());
+    }
+
+    static Paciente leerPaciente(DataInput in) throws IOException {
+        return new Paciente(
+                in.readLong(),
+                leerTexto(in),
+                leerTipoDocumento(in),
+                leerTexto(in),
+                leerTexto(in),
+                leerTexto(in),
+                leerTexto(in),
+                leerTexto(in),
+                leerTexto(in)
+        );
+    }
+
+    // ------------------------------------------------------------ MÉDICOS
+
+    static void escribirMedico(DataOutput out, Medico m) throws IOException {
+        out.writeLong(m.getId());
+        escribirTexto(out, m.getNombre());
+        escribirTipoDocumento(out, m.getTipoDocumento());
+        escribirTexto(out, m.getNumDocumento());
+        escribirTexto(out, m.getTelefono());
+        escribirTexto(out, m.getDireccion());
+        escribirTexto(out, m.getCorreo());
+        escribirTexto(out, m.getEspecialidad());
+        escribirTexto(out, m.getConsultorio());
+        escribirTexto(out, m.getHorario());
+    }
+
+    static Medico leerMedico(DataInput in) throws IOException {
+        return new Medico(
+                in.readLong(),
+                leerTexto(in),
+                leerTipoDocumento(in),
+                leerTexto(in),
+                leerTexto(in),
+                leerTexto(in),
+                leerTexto(in),
+                leerTexto(in),
+                leerTexto(in),
+                leerTexto(in)
+        );
+    }
+
+    // ------------------------------------------------------------ CITAS
+
+    static void escribirCita(DataOutput out, Cita c) throws IOException {
+        out.writeLong(c.getId());
+        out.writeLong(c.getMedico().getId());
+        out.writeLong(c.getPaciente().getId());
+        out.writeInt((int) c.getFecha().toEpochDay());
+        out.writeInt(c.getHora().toSecondOfDay());
+        out.writeShort(c.getDuracionMinutos());
+        out.writeLong(c.getPrecioCentavos());
+        out.writeByte(c.getEstado().ordinal());
+        escribirTexto(out, c.getMotivo());
+        escribirTexto(out, c.getObservaciones());
+    }
+
+    /**
+     * Lee una cita resolviendo médico y paciente por su ID.
+     *
+     * @return la cita, o null si el médico o el paciente ya no existen.
+     */
+    static Cita leerCita(DataInput in, LongFunction<Medico> medicos, LongFunction<Paciente> pacientes) throws IOException {
+        return leerCitaSinResolver(in).resolver(medicos, pacientes);
+    }
+
+    /**
+     * Lee una cita sin buscar todavía a su médico ni a su paciente, para poder leerla
+     * mientras las personas se siguen cargando.
+     */
+    static CitaLeida leerCitaSinResolver(DataInput in) throws IOException {
+        CitaLeida c = new CitaLeida();
+        c.id = in.readLong();
+        c.medicoId = in.readLong();
+        c.pacienteId = in.readLong();
+        c.dia = in.readInt();
+        c.segundo = in.readInt();
+        c.duracion = in.readShort();
+        c.centavos = in.readLong();
+        c.estado = in.readByte();
+        c.motivo = leerTexto(in);
+        c.observaciones = leerTexto(in);
+        return c;
+    }
+
+    /**
+     * Campos de una cita tal como están en disco, con médico y paciente por ID.
+     */
+    static final class CitaLeida {
+        private long id;
+        private long medicoId;
+        private long pacienteId;
+        private int dia;
+        private int segundo;
+        private short duracion;
+        private long centavos;
+        private byte estado;
+        private String motivo;
+        private String observaciones;
+
+        /**
+         * @return la cita, o null si el médico o el paciente ya no existen.
+         */
+        Cita resolver(LongFunction<Medico> medicos, LongFunction<Paciente> pacientes) {
+            Medico medico = medicos.apply(medicoId);
+            Paciente paciente = pacientes.apply(pacienteId);
+            if (medico == null || paciente == null) return null;
+
+            return new Cita(id, medico, paciente, LocalDate.ofEpochDay(dia), LocalTime.ofSecondOfDay(segundo),
+                    duracion, centavos, EstadoCita.values()[estado], motivo, observaciones);
+        }
+    }
+
+    // ------------------------------------------------------------ CAMPOS
+
+    static void escribirTexto(DataOutput out, String texto) throws IOException {
+        out.writeBoolean(texto != null);
+        if (texto != null) out.writeUTF(texto);
+    }
+
+    static String leerTexto(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void escribirTipoDocumento(DataOutput out, TipoDocumento tipo) throws IOException {
+        out.writeByte(tipo == null ? -1 : tipo.ordinal());
+    }
+
+    private static TipoDocumento leerTipoDocumento(DataInput in) throws IOException {
+        byte ordinal = in.readByte();
+        return ordinal < 0 ? null : TipoDocumento.values()[ordinal];
+    }
+}
@@ -0,0 +1,346 @@
+package org.demo.Persistencia;
+
+import org.demo.Models.Medico;
+import org.demo.Models.Paciente;
+import org.demo.Models.TipoDocumento;
+import org.demo.Repositories.MedicoRepository;
+import org.demo.Repositories.PacienteRepository;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * Importa pacientes y médicos desde archivos CSV.
+ * El archivo se lee por líneas con un búfer fijo y las filas válidas se guardan por lotes
+ * ({@link PacienteRepository#guardarPacientes}, {@link MedicoRepository#guardarMedicos}),
+ * así la tabla recibe un solo evento por lote. Las filas rechazadas se escriben en
+ * {@code <archivo>.rechazados.csv} con su número de línea y el motivo, de modo que la
+ * memoria usada no depende del tamaño del archivo.
+ *
+ * <p>Columnas de pacientes: nombre, tipo de documento, documento, teléfono, dirección,
+ * correo, fecha de nacimiento, enfermedad.
+ * Columnas de médicos: nombre, tipo de documento, documento, teléfono, dirección, correo,
+ * especialidad, consultorio y, opcionalmente, horario.
+ * La primera línea se omite si es un encabezado.</p>
+ */
+public final class ImportadorCsv {
+
+    public static final int TAM_LOTE = 1000;
+    private static final int TAM_BUFFER = 64 * 1024;
+
+    // Las mismas reglas que usan los formularios
+    private static final Pattern DOCUMENTO = Pattern.compile("\\d{5,}");
+    private static final Pattern CORREO = Pattern.compile("^[A-Za-z0-9+_.-]+@(.+)$");
+
+    private static final Map<String, TipoDocumento> TIPOS_DOCUMENTO = new HashMap<>();
+
+    static {
+        for (TipoDocumento tipo : TipoDocumento.values()) {
+            TIPOS_DOCUMENTO.put(normalizar(tipo.name()), tipo);
+            TIPOS_DOCUMENTO.put(normalizar(tipo.getTipoDocumento()), tipo);
+        }
+    }
+
+    private ImportadorCsv() {}
+
+    /**
+     * Avance de una importación: bytes leídos del total y filas aceptadas y rechazadas hasta ahora.
+     */
+    public static final class Progreso {
+        private final long bytesLeidos;
+        private final long bytesTotales;
+        private final int aceptados;
+        private final int rechazados;
+
+        private Progreso(long bytesLeidos, long bytesTotales, int aceptados, int rechazados) {
+            this.bytesLeidos = bytesLeidos;
+            this.bytesTotales = bytesTotales;
+            this.aceptados = aceptados;
+            this.rechazados = rechazados;
+        }
+
+        public double getFraccion() {
+            return bytesTotales == 0 ? 1.0 : Math.min(1.0, (double) bytesLeidos / bytesTotales);
+        }
+
+        public int getAceptados() {
+            return aceptados;
+        }
+
+        public int getRechazados() {
+            return rechazados;
+        }
+    }
+
+    /**
+     * Resultado final de una importación.
+     */
+    public static final class Resultado {
+        private final int aceptados;
+        private final int rechazados;
+        private final Path archivoRechazos;
+
+        private Resultado(int aceptados, int rechazados, Path archivoRechazos) {
+            this.aceptados = aceptados;
+            this.rechazados = rechazados;
+            this.archivoRechazos = archivoRechazos;
+        }
+
+        public int getAceptados() {
+            return aceptados;
+        }
+
+        public int getRechazados() {
+            return rechazados;
+        }
+
+        /**
+         * Archivo con las filas rechazadas, o null si no hubo ninguna.
+         */
+        public Path getArchivoRechazos() {
+            return archivoRechazos;
+        }
+    }
+
+    // ------------------------------------------------------------ PACIENTES
+
+    public static Resultado importarPacientes(Path archivo, Consumer<Progreso> progreso) throws IOException {
+        PacienteRepository repositorio = PacienteRepository.getInstancia();
+        return importar(archivo, progreso, 8, campos -> new Paciente(
+                campos.get(0), tipoDocumento(campos.get(1)), campos.get(2), campos.get(3),
+                campos.get(4), campos.get(5), campos.get(6), campos.get(7)
+        ), repositorio::guardarPacientes);
+    }
+
+    // ------------------------------------------------------------ MÉDICOS
+
+    public static Resultado importarMedicos(Path archivo, Consumer<Progreso> progreso) throws IOException {
+        MedicoRepository repositorio = MedicoRepository.getInstancia();
+        return importar(archivo, progreso, 8, campos -> {
+            Medico m = new Medico(
+                    campos.get(0), tipoDocumento(campos.get(1)), campos.get(2), campos.get(3),
+                    campos.get(4), campos.get(5), campos.get(6), campos.get(7)
+            );
+            if (campos.size() > 8 && !campos.get(8).isEmpty()) m.setHorario(campos.get(8));
+            return m;
+        }, repositorio::guardarMedicos);
+    }
+
+    // ------------------------------------------------------------ LECTURA
+
+    private interface Constructor<T> {
+        T construir(List<String> campos);
+    }
+
+    private interface GuardarLote<T> {
+        int guardar(List<T> lote, BiConsumer<T, String> alRechazar);
+    }
+
+    private static <T> Resultado importar(Path archivo, Consumer<Progreso> progreso, int columnas,
+                                          Constructor<T> constructor, GuardarLote<T> guardarLote) throws IOException {
+        long total = Files.size(archivo);
+        Path archivoRechazos = archivo.resolveSibling(archivo.getFileName() + ".rechazados.csv");
+        Rechazos rechazos = new Rechazos(archivoRechazos);
+
+        int aceptados = 0;
+        List<T> lote = new ArrayList<>(TAM_LOTE);
+        // Línea de origen de cada entidad del lote, para informar los rechazos del repositorio
+        Map<T, Fila> filas = new IdentityHashMap<>(TAM_LOTE * 2);
+
+        try (ContadorBytes contador = new ContadorBytes(Files.newInputStream(archivo));
+             BufferedReader lector = new BufferedReader(new InputStreamReader(contador, StandardCharsets.UTF_8), TAM_BUFFER);
+             rechazos) {
+
+            String linea;
+            long numero = 0;
+            while ((linea = lector.readLine()) != null) {
+                numero++;
+                if (numero == 1 && linea.startsWith("\uFEFF")) linea = linea.substring(1);
+                if (linea.isBlank() || (numero == 1 && esEncabezado(linea))) continue;
+
+                List<String> campos = separar(linea);
+                String error = validar(campos, columnas);
+                if (error != null) {
+                    rechazos.escribir(numero, linea, error);
+                    continue;
+                }
+
+                T entidad = constructor.construir(campos);
+                lote.add(entidad);
+                filas.put(entidad, new Fila(numero, linea));
+
+                if (lote.size() == TAM_LOTE) {
+                    aceptados += guardar(lote, filas, guardarLote, rechazos);
+                    progreso.accept(new Progreso(contador.leidos, total, aceptados, rechazos.cantidad));
+                }
+            }
+            aceptados += guardar(lote, filas, guardarLote, rechazos);
+            progreso.accept(new Progreso(total, total, aceptados, rechazos.cantidad));
+        }
+
+        if (rechazos.cantidad == 0) {
+            Files.deleteIfExists(archivoRechazos);
+            return new Resultado(aceptados, 0, null);
+        }
+        return new Resultado(aceptados, rechazos.cantidad, archivoRechazos);
+    }
+
+    private static <T> int guardar(List<T> lote, Map<T, Fila> filas, GuardarLote<T> guardarLote,
+                                   Rechazos rechazos) throws IOException {
+        if (lote.isEmpty()) return 0;
+
+        IOException[] error = {null};
+        int guardados = guardarLote.guardar(lote, (entidad, motivo) -> {
+            try {
+                Fila fila = filas.get(entidad);
+                rechazos.escribir(fila.numero, fila.texto, motivo);
+            } catch (IOException e) {
+                error[0] = e;
+            }
+        });
+        lote.clear();
+        filas.clear();
+        if (error[0] != null) throw error[0];
+        return guardados;
+    }
+
+    private static boolean esEncabezado(String linea) {
+        return normalizar(linea).startsWith("nombre");
+    }
+
+    /**
+     * Valida formato; la unicidad de documento y correo la comprueba el repositorio con sus índices.
+     */
+    private static String validar(List<String> campos, int columnas) {
+        if (campos.size() < columnas) return "Faltan columnas (se esperaban " + columnas + ")";
+        if (campos.get(0).isEmpty()) return "El nombre es obligatorio";
+        if (tipoDocumento(campos.get(1)) == null) return "Tipo de documento desconocido: " + campos.get(1);
+        if (!DOCUMENTO.matcher(campos.get(2)).matches()) return "Documento inválido (mínimo 5 números)";
+        if (!CORREO.matcher(campos.get(5)).matches()) return "Correo inválido";
+        return null;
+    }
+
+    private static TipoDocumento tipoDocumento(String texto) {
+        return TIPOS_DOCUMENTO.get(normalizar(texto));
+    }
+
+    private static String normalizar(String texto) {
+        String sinTildes = Normalizer.normalize(texto.trim(), Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+        return sinTildes.toLowerCase(Locale.ROOT).replace(" ", "");
+    }
+
+    /**
+     * Separa una línea CSV; admite comillas dobles y comillas escapadas ("").
+     */
+    static List<String> separar(String linea) {
+        List<String> campos = new ArrayList<>(10);
+        StringBuilder actual = new StringBuilder();
+        boolean entreComillas = false;
+
+        for (int i = 0; i < linea.length(); i++) {
+            char c = linea.charAt(i);
+            if (entreComillas) {
+                if (c == '"' && i + 1 < linea.length() && linea.charAt(i + 1) == '"') {
+                    actual.append('"');
+                    i++;
+                } else if (c == '"') {
+                    entreComillas = false;
+                } else {
+                    actual.append(c);
+                }
+            } else if (c == '"') {
+                entreComillas = true;
+            } else if (c == ',') {
+                campos.add(actual.toString().trim());
+                actual.setLength(0);
+            } else {
+                actual.append(c);
+            }
+        }
+        campos.add(actual.toString().trim());
+        return campos;
+    }
+
+    // ------------------------------------------------------------ AUXILIARES
+
+    private static final class Fila {
+        private final long numero;
+        private final String texto;
+
+        private Fila(long numero, String texto) {
+            this.numero = numero;
+            this.texto = texto;
+        }
+    }
+
+    /**
+     * Escribe las filas rechazadas a medida que aparecen; el archivo se crea con la primera.
+     */
+    private static final class Rechazos implements AutoCloseable {
+        private final Path archivo;
+        private BufferedWriter escritor;
+        private int cantidad;
+
+        private Rechazos(Path archivo) {
+            this.archivo = archivo;
+        }
+
+        void escribir(long linea, String contenido, String motivo) throws IOException {
+            if (escritor == null) {
+                escritor = Files.newBufferedWriter(archivo, StandardCharsets.UTF_8);
+                escritor.write("linea,motivo,contenido");
+                escritor.newLine();
+            }
+            escritor.write(linea + ",\"" + motivo.replace("\"", "\"\"") + "\",\"" + contenido.replace("\"", "\"\"") + "\"");
+            escritor.newLine();
+            cantidad++;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (escritor != null) escritor.close();
+        }
+    }
+
+    /**
+     * Cuenta los bytes leídos para informar el avance.
+     */
+    private static final class ContadorBytes extends FilterInputStream {
+        private long leidos;
+
+        private ContadorBytes(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) leidos++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) leidos += n;
+            return n;
+        }
+    }
+}
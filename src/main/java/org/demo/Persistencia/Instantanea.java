@@ -0,0 +1,181 @@
+package org.demo.Persistencia;
+
+import org.demo.Models.Cita;
+import org.demo.Models.Medico;
+import org.demo.Models.Paciente;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.LongFunction;
+import java.util.stream.Stream;
+
+/**
+ * Instantáneas del estado de los repositorios.
+ * Cada instantánea es un directorio {@code instantanea-<lsn>} con un archivo por entidad.
+ * Se escribe primero en un directorio temporal y se renombra al terminar, así una
+ * instantánea a medio escribir nunca se toma como válida.
+ * La copia es difusa: puede incluir cambios posteriores al LSN, pero volver a aplicar
+ * esos registros del log deja el mismo estado.
+ */
+final class Instantanea {
+
+    private static final int MAGICO = 0x43534E50; // "CSNP"
+    private static final int VERSION = 3;
+    private static final String PREFIJO = "instantanea-";
+    private static final String TEMPORAL = ".tmp";
+
+    private static final String PACIENTES = "pacientes.bin";
+    private static final String MEDICOS = "medicos.bin";
+    private static final String CITAS = "citas.bin";
+
+    private Instantanea() {}
+
+    private interface Escritor<T> {
+        void escribir(DataOutputStream out, T entidad) throws IOException;
+    }
+
+    private interface Lector<T> {
+        T leer(DataInputStream in) throws IOException;
+    }
+
+    /**
+     * Escribe una instantánea que cubre el log hasta el LSN indicado.
+     */
+    static void escribir(Path directorio, long lsn, Collection<Paciente> pacientes,
+                         Collection<Medico> medicos, Collection<Cita> citas) throws IOException {
+        Path destino = directorio.resolve(PREFIJO + lsn);
+        Path temporal = directorio.resolve(PREFIJO + lsn + TEMPORAL);
+        eliminarDirectorio(temporal);
+        Files.createDirectories(temporal);
+
+        escribirArchivo(temporal.resolve(PACIENTES), pacientes, CodecEntidades::escribirPaciente);
+        escribirArchivo(temporal.resolve(MEDICOS), medicos, CodecEntidades::escribirMedico);
+        escribirArchivo(temporal.resolve(CITAS), citas, CodecEntidades::escribirCita);
+
+        eliminarDirectorio(destino);
+        Files.move(temporal, destino, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Directorio de la instantánea completa más reciente, si hay alguna.
+     */
+    static Optional<Path> buscarUltima(Path directorio) throws IOException {
+        return instantaneas(directorio).stream().max(Comparator.comparingLong(Instantanea::lsnDe));
+    }
+
+    /**
+     * LSN hasta el que llega una instantánea.
+     */
+    static long lsnDe(Path instantanea) {
+        return Long.parseLong(instantanea.getFileName().toString().substring(PREFIJO.length()));
+    }
+
+    static void leerPacientes(Path instantanea, Consumer<Paciente> destino) throws IOException {
+        leerArchivo(instantanea.resolve(PACIENTES), CodecEntidades::leerPaciente, destino);
+    }
+
+    static void leerMedicos(Path instantanea, Consumer<Medico> destino) throws IOException {
+        leerArchivo(instantanea.resolve(MEDICOS), CodecEntidades::leerMedico, destino);
+    }
+
+    /**
+     * Lee las citas resolviendo médico y paciente con las funciones dadas;
+     * las que apuntan a personas inexistentes se descartan.
+     */
+    static void leerCitas(Path instantanea, LongFunction<Medico> medicos, LongFunction<Paciente> pacientes,
+                          Consumer<Cita> destino) throws IOException {
+        leerArchivo(instantanea.resolve(CITAS), in -> CodecEntidades.leerCita(in, medicos, pacientes), destino);
+    }
+
+    /**
+     * Lee las citas sin resolver médico ni paciente; ver {@link CodecEntidades.CitaLeida#resolver}.
+     */
+    static void leerCitasSinResolver(Path instantanea, Consumer<CodecEntidades.CitaLeida> destino) throws IOException {
+        leerArchivo(instantanea.resolve(CITAS), CodecEntidades::leerCitaSinResolver, destino);
+    }
+
+    /**
+     * Borra las instantáneas anteriores a la indicada y los temporales que hayan quedado.
+     */
+    static void eliminarAnteriores(Path directorio, long lsn) throws IOException {
+        for (Path instantanea : instantaneas(directorio)) {
+            if (lsnDe(instantanea) < lsn) eliminarDirectorio(instantanea);
+        }
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(directorio, PREFIJO + "*" + TEMPORAL)) {
+            // Las instantáneas se escriben de a una: cualquier temporal que quede es de un intento fallido
+            for (Path temporal : ds) {
+                eliminarDirectorio(temporal);
+            }
+        }
+    }
+
+    // ------------------------------------------------------------ ARCHIVOS
+
+    private static <T> void escribirArchivo(Path archivo, Collection<T> entidades, Escritor<T> escritor) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(archivo)))) {
+            out.writeInt(MAGICO);
+            out.writeInt(VERSION);
+            out.writeInt(entidades.size());
+            for (T entidad : entidades) {
+                escritor.escribir(out, entidad);
+            }
+        }
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.WRITE)) {
+            canal.force(true);
+        }
+    }
+
+    private static <T> void leerArchivo(Path archivo, Lector<T> lector, Consumer<T> destino) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(archivo)))) {
+            if (in.readInt() != MAGICO || in.readInt() != VERSION) {
+                throw new IOException("Formato de instantánea desconocido: " + archivo);
+            }
+            int cantidad = in.readInt();
+            for (int i = 0; i < cantidad; i++) {
+                T entidad = lector.leer(in);
+                if (entidad != null) destino.accept(entidad);
+            }
+        }
+    }
+
+    private static List<Path> instantaneas(Path directorio) throws IOException {
+        List<Path> encontradas = new ArrayList<>();
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(directorio, PREFIJO + "*")) {
+            for (Path p : ds) {
+                if (Files.isDirectory(p) && !p.getFileName().toString().endsWith(TEMPORAL)) encontradas.add(p);
+            }
+        }
+        return encontradas;
+    }
+
+    private static void eliminarDirectorio(Path directorio) throws IOException {
+        if (!Files.exists(directorio)) return;
+        try (Stream<Path> archivos = Files.walk(directorio)) {
+            archivos.sorted(Comparator.reverseOrder()).forEach(p -> {
+                try {
+                    Files.deleteIfExists(p);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+}
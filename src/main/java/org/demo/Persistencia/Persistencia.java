@@ -0,0 +1,534 @@
+package org.demo.Persistencia;
+
+import org.demo.Models.Cita;
+import org.demo.Models.Medico;
+import org.demo.Models.Paciente;
+import org.demo.Repositories.CitaRepository;
+import org.demo.Repositories.MedicoRepository;
+import org.demo.Repositories.OyenteRepositorio;
+import org.demo.Repositories.PacienteRepository;
+import org.demo.Repositories.SegmentoCitas;
+import org.demo.Utils.GeneradorIds;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Guarda en disco los cambios de los tres repositorios.
+ * Cada alta, actualización o eliminación se encola en el log de transacciones sin
+ * esperar al disco; el hilo del log confirma los cambios por lotes con un solo fsync.
+ * Cada cierto tiempo o cantidad de registros se toma una instantánea y se borra el log
+ * que ya quedó cubierto. Al arrancar se carga la última instantánea y se reaplica el log.
+ * Una vez al día las citas de hace más de {@link #DIAS_ACTIVOS} días pasan al histórico:
+ * segmentos por columnas en {@code historico/} que se mapean en memoria sin ocupar el heap.
+ */
+public final class Persistencia {
+
+    private static final long REGISTROS_POR_INSTANTANEA = 10_000;
+    private static final long MINUTOS_ENTRE_INSTANTANEAS = 5;
+    private static final String HISTORICO = "historico";
+    private static final String EXTENSION_SEGMENTO = ".col";
+    /** Días hacia atrás que las citas siguen en memoria antes de pasar al histórico. */
+    public static final int DIAS_ACTIVOS = 30;
+    // Si el corte no avanzó, un segmento nuevo solo vale la pena con muchas citas rezagadas
+    private static final int MINIMO_REZAGADAS = 1_000;
+    private static final long MINUTOS_ANTES_DE_ARCHIVAR = 2;
+    private static final int LOTE_RESTAURACION = 10_000;
+    private static final int HILOS_RESTAURACION = 3;
+
+    private final PacienteRepository pacienteRepository = PacienteRepository.getInstancia();
+    private final MedicoRepository medicoRepository = MedicoRepository.getInstancia();
+    private final CitaRepository citaRepository = CitaRepository.getInstancia();
+
+    private Path directorio;
+    private volatile RegistroTransacciones registro;
+    private ScheduledExecutorService programador;
+
+    private final AtomicLong registrosDesdeInstantanea = new AtomicLong();
+    private final AtomicBoolean instantaneaPendiente = new AtomicBoolean(false);
+
+    private Persistencia() {
+    }
+
+    private static final class Contenedor {
+        private static final Persistencia INSTANCIA = new Persistencia();
+    }
+
+    /**
+     * Devuelve la instancia única.
+     */
+    public static Persistencia getInstancia() {
+        return Contenedor.INSTANCIA;
+    }
+
+    /**
+     * Directorio de datos: la propiedad {@code citas.datos} o {@code ~/.citas-medicas}.
+     */
+    public static Path directorioPredeterminado() {
+        return Paths.get(System.getProperty("citas.datos",
+                Paths.get(System.getProperty("user.home"), ".citas-medicas").toString()));
+    }
+
+    /**
+     * Restaura los repositorios desde el directorio y empieza a registrar cambios.
+     * Si el directorio no tiene datos se cargan los datos de ejemplo.
+     * Espera a que termine {@link #abrirEnSegundoPlano}.
+     */
+    public void abrir(Path directorio) throws IOException {
+        try {
+            abrirEnSegundoPlano(directorio, etapa -> {}).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException io) throw io;
+            throw e;
+        }
+    }
+
+    /**
+     * Restaura los repositorios en un hilo propio y devuelve enseguida.
+     * Pacientes, médicos y citas de la instantánea se leen en paralelo; las citas se
+     * enlazan con sus personas cuando estas ya están cargadas, y se publican por lotes,
+     * así la interfaz ve crecer los conteos mientras tanto. Después se reaplica el log.
+     * Hasta que el resultado se complete no se registran cambios: quien llama no debe
+     * permitir modificaciones antes.
+     *
+     * @param alAvanzar recibe la descripción de cada etapa, desde el hilo de carga.
+     */
+    public CompletableFuture<Void> abrirEnSegundoPlano(Path directorio, Consumer<String> alAvanzar) {
+        CompletableFuture<Void> resultado = new CompletableFuture<>();
+        Thread hilo = new Thread(() -> {
+            try {
+                restaurar(directorio, alAvanzar);
+                resultado.complete(null);
+            } catch (Throwable e) {
+                resultado.completeExceptionally(e);
+            }
+        }, "arranque");
+        hilo.setDaemon(true);
+        hilo.start();
+        return resultado;
+    }
+
+    private synchronized void restaurar(Path directorio, Consumer<String> alAvanzar) throws IOException {
+        if (registro != null) return;
+        this.directorio = directorio;
+        Files.createDirectories(directorio);
+
+        // Los IDs continúan desde lo reservado antes del último cierre
+        ArchivoIds ids = ArchivoIds.abrir(directorio);
+        GeneradorIds.CITAS.avanzarHasta(ids.getMarcaCitas());
+        GeneradorIds.PERSONAS.avanzarHasta(ids.getMarcaPersonas());
+
+        // 0. Citas archivadas: se mapean antes de todo para no volver a cargarlas en memoria
+        Path historico = directorio.resolve(HISTORICO);
+        Files.createDirectories(historico);
+        citaRepository.usarAlmacenHistorico(nuevo -> guardarSegmento(historico, nuevo));
+        List<SegmentoCitas> segmentos = abrirSegmentos(historico);
+        citaRepository.cargarHistorico(segmentos);
+        boolean hayDatos = !segmentos.isEmpty();
+
+        // 1. Última instantánea completa
+        long desdeLsn = 0;
+        Optional<Path> instantanea = Instantanea.buscarUltima(directorio);
+        if (instantanea.isPresent()) {
+            alAvanzar.accept("Leyendo pacientes, médicos y citas...");
+            restaurarInstantanea(instantanea.get());
+            desdeLsn = Instantanea.lsnDe(instantanea.get());
+            hayDatos = true;
+        }
+
+        // 2. Cambios registrados después de la instantánea
+        alAvanzar.accept("Aplicando cambios recientes...");
+        long ultimoLsn = RegistroTransacciones.leer(directorio, desdeLsn, this::aplicar);
+        hayDatos |= ultimoLsn > desdeLsn;
+        ajustarGeneradores();
+        GeneradorIds.usarMarca(ids);
+
+        // 3. Desde aquí cada cambio queda registrado
+        registro = new RegistroTransacciones(directorio, ultimoLsn + 1);
+        suscribirOyentes();
+
+        programador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread hilo = new Thread(r, "instantaneas");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        programador.scheduleWithFixedDelay(() -> {
+            if (registrosDesdeInstantanea.get() > 0) tomarInstantaneaSegura();
+        }, MINUTOS_ENTRE_INSTANTANEAS, MINUTOS_ENTRE_INSTANTANEAS, TimeUnit.MINUTES);
+        programador.scheduleWithFixedDelay(this::archivarSeguro,
+                MINUTOS_ANTES_DE_ARCHIVAR, TimeUnit.DAYS.toMinutes(1), TimeUnit.MINUTES);
+
+        if (!hayDatos) {
+            alAvanzar.accept("Cargando datos de ejemplo...");
+            pacienteRepository.cargarDatosEjemplo();
+            medicoRepository.cargarDatosEjemplo();
+            citaRepository.cargarDatosEjemplo();
+        }
+    }
+
+    /**
+     * Se completa cuando todos los cambios hechos hasta ahora están en disco.
+     */
+    public CompletableFuture<Long> sincronizar() {
+        RegistroTransacciones actual = registro;
+        return actual == null ? CompletableFuture.completedFuture(0L) : actual.sincronizar();
+    }
+
+    /**
+     * Toma una instantánea final y cierra el log.
+     */
+    public synchronized void cerrar() {
+        if (registro == null) return;
+        programador.shutdownNow();
+        try {
+            programador.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        tomarInstantaneaSegura();
+        registro.close();
+        registro = null;
+    }
+
+    /**
+     * Pasa al histórico las citas anteriores al primer día del mes de hace {@link #DIAS_ACTIVOS} días
+     * y toma una instantánea que ya no las incluye.
+     *
+     * @return la cantidad de citas archivadas.
+     */
+    public synchronized int archivar() throws IOException {
+        if (registro == null) return 0;
+        LocalDate corte = LocalDate.now().minusDays(DIAS_ACTIVOS).withDayOfMonth(1);
+
+        // Cada mes produce un segmento; las citas que llegan tarde se juntan hasta que sean muchas
+        LocalDate ultimoCorte = LocalDate.MIN;
+        for (SegmentoCitas s : citaRepository.getHistorico()) {
+            if (s.getCorte().isAfter(ultimoCorte)) ultimoCorte = s.getCorte();
+        }
+        int minimo = corte.isAfter(ultimoCorte) ? 1 : MINIMO_REZAGADAS;
+
+        int archivadas = citaRepository.archivarAnterioresA(corte, minimo);
+        if (archivadas > 0) tomarInstantanea();
+        return archivadas;
+    }
+
+    private void archivarSeguro() {
+        try {
+            archivar();
+        } catch (IOException | RuntimeException e) {
+            System.err.println("No se pudieron archivar las citas: " + e.getMessage());
+        }
+    }
+
+    // El segmento queda en disco antes de que sus citas salgan de memoria y de la próxima instantánea
+    private static SegmentoCitas guardarSegmento(Path historico, SegmentoCitas nuevo) {
+        Path archivo = historico.resolve("segmento-" + nuevo.getCorte() + "-" + nuevo.getMenorId() + EXTENSION_SEGMENTO);
+        try {
+            nuevo.escribir(archivo);
+            return SegmentoCitas.abrir(archivo);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static List<SegmentoCitas> abrirSegmentos(Path historico) throws IOException {
+        List<SegmentoCitas> segmentos = new ArrayList<>();
+        try (Stream<Path> archivos = Files.list(historico)) {
+            for (Path archivo : (Iterable<Path>) archivos::iterator) {
+                if (archivo.getFileName().toString().endsWith(EXTENSION_SEGMENTO)) {
+                    segmentos.add(SegmentoCitas.abrir(archivo));
+                }
+            }
+        }
+        segmentos.sort(Comparator.comparing(SegmentoCitas::getCorte).thenComparingLong(SegmentoCitas::getMenorId));
+        return segmentos;
+    }
+
+    // ------------------------------------------------------------ INSTANTÁNEAS
+
+    private void tomarInstantanea() throws IOException {
+        // Lo anterior a la rotación queda en segmentos cerrados que la instantánea cubre
+        long lsn = registro.rotar().join();
+        registrosDesdeInstantanea.set(0);
+
+        Instantanea.escribir(directorio, lsn,
+                pacienteRepository.listarPacientes(),
+                medicoRepository.listarMedicos(),
+                citaRepository.listarCitas());
+
+        Instantanea.eliminarAnteriores(directorio, lsn);
+        RegistroTransacciones.eliminarSegmentosHasta(directorio, lsn);
+    }
+
+    private void tomarInstantaneaSegura() {
+        try {
+            synchronized (this) {
+                if (registro != null) tomarInstantanea();
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.println("No se pudo guardar la instantánea: " + e.getMessage());
+        } finally {
+            instantaneaPendiente.set(false);
+        }
+    }
+
+    // ------------------------------------------------------------ REGISTRO DE CAMBIOS
+
+    private interface Cuerpo {
+        void escribir(DataOutputStream out) throws IOException;
+    }
+
+    private void registrar(TipoRegistro tipo, Cuerpo cuerpo) {
+        RegistroTransacciones actual = registro;
+        if (actual == null) return;
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            cuerpo.escribir(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        actual.agregar(tipo, bytes.toByteArray());
+
+        if (registrosDesdeInstantanea.incrementAndGet() >= REGISTROS_POR_INSTANTANEA
+                && !programador.isShutdown()
+                && instantaneaPendiente.compareAndSet(false, true)) {
+            programador.execute(this::tomarInstantaneaSegura);
+        }
+    }
+
+    private void suscribirOyentes() {
+        pacienteRepository.agregarOyente(new OyenteRepositorio<>() {
+            @Override
+            public void alAgregar(Paciente p) {
+                registrar(TipoRegistro.PACIENTE_GUARDADO, out -> CodecEntidades.escribirPaciente(out, p));
+            }
+
+            @Override
+            public void alActualizar(Paciente p) {
+                alAgregar(p);
+            }
+
+            @Override
+            public void alEliminar(Paciente p) {
+                registrar(TipoRegistro.PACIENTE_ELIMINADO, out -> out.writeLong(p.getId()));
+            }
+        });
+
+        medicoRepository.agregarOyente(new OyenteRepositorio<>() {
+            @Override
+            public void alAgregar(Medico m) {
+                registrar(TipoRegistro.MEDICO_GUARDADO, out -> CodecEntidades.escribirMedico(out, m));
+            }
+
+            @Override
+            public void alActualizar(Medico m) {
+                alAgregar(m);
+            }
+
+            @Override
+            public void alEliminar(Medico m) {
+                registrar(TipoRegistro.MEDICO_ELIMINADO, out -> out.writeLong(m.getId()));
+            }
+        });
+
+        citaRepository.agregarOyente(new OyenteRepositorio<>() {
+            @Override
+            public void alAgregar(Cita c) {
+                registrar(TipoRegistro.CITA_GUARDADA, out -> CodecEntidades.escribirCita(out, c));
+            }
+
+            @Override
+            public void alActualizar(Cita c) {
+                alAgregar(c);
+            }
+
+            @Override
+            public void alEliminar(Cita c) {
+                registrar(TipoRegistro.CITA_ELIMINADA, out -> out.writeLong(c.getId()));
+            }
+        });
+    }
+
+    // ------------------------------------------------------------ RESTAURACIÓN
+
+    private interface Lectura<T> {
+        void leer(Consumer<T> destino) throws IOException;
+    }
+
+    private interface Tarea {
+        void ejecutar() throws IOException;
+    }
+
+    /**
+     * Carga la instantánea con varios hilos. Pacientes y médicos se guardan mientras se leen;
+     * las citas se leen a la vez pero sin resolver, y se enlazan y guardan en paralelo
+     * cuando las personas ya están en sus repositorios.
+     */
+    private void restaurarInstantanea(Path ruta) throws IOException {
+        ExecutorService hilos = Executors.newFixedThreadPool(HILOS_RESTAURACION, r -> {
+            Thread hilo = new Thread(r, "restauracion");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        try {
+            List<CodecEntidades.CitaLeida> leidas = new ArrayList<>();
+            esperar(
+                    enHilo(hilos, () -> Persistencia.<Paciente>leerEnLotes(d -> Instantanea.leerPacientes(ruta, d),
+                            lote -> pacienteRepository.guardarPacientes(lote, (p, motivo) -> noRestaurado("Paciente", p.getId(), motivo)))),
+                    enHilo(hilos, () -> Persistencia.<Medico>leerEnLotes(d -> Instantanea.leerMedicos(ruta, d),
+                            lote -> medicoRepository.guardarMedicos(lote, (m, motivo) -> noRestaurado("Médico", m.getId(), motivo)))),
+                    enHilo(hilos, () -> Instantanea.leerCitasSinResolver(ruta, leidas::add)));
+
+            List<CompletableFuture<Void>> partes = new ArrayList<>();
+            for (int desde = 0; desde < leidas.size(); desde += LOTE_RESTAURACION) {
+                List<CodecEntidades.CitaLeida> parte = leidas.subList(desde, Math.min(desde + LOTE_RESTAURACION, leidas.size()));
+                partes.add(enHilo(hilos, () -> restaurarCitas(parte)));
+            }
+            esperar(partes.toArray(CompletableFuture<?>[]::new));
+        } finally {
+            hilos.shutdown();
+        }
+    }
+
+    private void restaurarCitas(List<CodecEntidades.CitaLeida> leidas) {
+        List<Cita> lote = new ArrayList<>(leidas.size());
+        for (CodecEntidades.CitaLeida leida : leidas) {
+            Cita cita = leida.resolver(this::medicoPorId, this::pacientePorId);
+            if (cita != null) lote.add(cita);
+        }
+        citaRepository.guardarCitas(lote);
+    }
+
+    /**
+     * Entrega lo leído en listas de hasta {@link #LOTE_RESTAURACION} elementos; la lista se reutiliza.
+     */
+    private static <T> void leerEnLotes(Lectura<T> lectura, Consumer<List<T>> destino) throws IOException {
+        List<T> lote = new ArrayList<>(LOTE_RESTAURACION);
+        lectura.leer(entidad -> {
+            lote.add(entidad);
+            if (lote.size() == LOTE_RESTAURACION) {
+                destino.accept(lote);
+                lote.clear();
+            }
+        });
+        if (!lote.isEmpty()) destino.accept(lote);
+    }
+
+    private static CompletableFuture<Void> enHilo(ExecutorService hilos, Tarea tarea) {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                tarea.ejecutar();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, hilos);
+    }
+
+    private static void esperar(CompletableFuture<?>... tareas) throws IOException {
+        try {
+            CompletableFuture.allOf(tareas).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException io) throw io.getCause();
+            throw e;
+        }
+    }
+
+    private static void noRestaurado(String entidad, long id, String motivo) {
+        System.err.println(entidad + " " + id + " no restaurado: " + motivo);
+    }
+
+    private void aplicar(RegistroTransacciones.Registro registro) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(registro.cuerpo));
+        switch (registro.tipo) {
+            case PACIENTE_GUARDADO -> restaurarPaciente(CodecEntidades.leerPaciente(in));
+            case PACIENTE_ELIMINADO -> pacienteRepository.buscarPacientePorId(in.readLong()).ifPresent(p -> {
+                if (!pacienteRepository.eliminarPaciente(p)) noRestaurado("Eliminación del paciente", p.getId(), "tiene citas archivadas");
+            });
+            case MEDICO_GUARDADO -> restaurarMedico(CodecEntidades.leerMedico(in));
+            case MEDICO_ELIMINADO -> medicoRepository.buscarMedicoPorId(in.readLong()).ifPresent(m -> {
+                if (!medicoRepository.eliminarMedico(m)) noRestaurado("Eliminación del médico", m.getId(), "tiene citas archivadas");
+            });
+            case CITA_GUARDADA -> {
+                Cita cita = CodecEntidades.leerCita(in, this::medicoPorId, this::pacientePorId);
+                if (cita != null) restaurarCita(cita);
+            }
+            case CITA_ELIMINADA -> citaRepository.buscarCitaPorId(in.readLong())
+                    .ifPresent(citaRepository::eliminarCita);
+        }
+    }
+
+    // Los registros guardan el estado completo: si la entidad ya existe se actualiza
+    private void restaurarPaciente(Paciente paciente) {
+        try {
+            if (pacienteRepository.buscarPacientePorId(paciente.getId()).isPresent()) {
+                pacienteRepository.actualizarPaciente(paciente);
+            } else {
+                pacienteRepository.guardarPaciente(paciente);
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Paciente " + paciente.getId() + " no restaurado: " + e.getMessage());
+        }
+    }
+
+    private void restaurarMedico(Medico medico) {
+        try {
+            if (medicoRepository.buscarMedicoPorId(medico.getId()).isPresent()) {
+                medicoRepository.actualizarMedico(medico);
+            } else {
+                medicoRepository.guardarMedico(medico);
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Médico " + medico.getId() + " no restaurado: " + e.getMessage());
+        }
+    }
+
+    private void restaurarCita(Cita cita) {
+        citaRepository.guardarCita(cita);
+    }
+
+    private Medico medicoPorId(long id) {
+        return medicoRepository.buscarMedicoPorId(id).orElse(null);
+    }
+
+    private Paciente pacientePorId(long id) {
+        return pacienteRepository.buscarPacientePorId(id).orElse(null);
+    }
+
+    /**
+     * Los IDs restaurados no salen del generador: se deja por encima del mayor.
+     */
+    private void ajustarGeneradores() {
+        long mayorPersona = 0;
+        for (Paciente p : pacienteRepository.listarPacientes()) mayorPersona = Math.max(mayorPersona, p.getId());
+        for (Medico m : medicoRepository.listarMedicos()) mayorPersona = Math.max(mayorPersona, m.getId());
+        GeneradorIds.PERSONAS.avanzarHasta(mayorPersona + 1);
+
+        long mayorCita = 0;
+        for (Cita c : citaRepository.listarCitas()) mayorCita = Math.max(mayorCita, c.getId());
+        for (SegmentoCitas s : citaRepository.getHistorico()) mayorCita = Math.max(mayorCita, s.getMayorId());
+        GeneradorIds.CITAS.avanzarHasta(mayorCita + 1);
+    }
+}
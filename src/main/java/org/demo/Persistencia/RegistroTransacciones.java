@@ -0,0 +1,387 @@
+package org.demo.Persistencia;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.zip.CRC32;
+
+/**
+ * Log de escritura anticipada (WAL) con confirmación en grupo.
+ * Los repositorios encolan registros sin esperar; un único hilo escritor toma
+ * todo lo que haya en la cola, lo escribe de una vez y hace un solo fsync para el lote.
+ * Cada registro lleva longitud, CRC32 y un número de secuencia (LSN), así que al leer
+ * se detecta y descarta una cola del archivo escrita a medias por un corte.
+ * El log se divide en segmentos; cada instantánea rota el segmento para poder borrar los anteriores.
+ *
+ * <p>Si una escritura falla, todo el lote falla y el log sigue en un segmento nuevo, porque el
+ * actual pudo quedar con un registro a medias. Si ni siquiera se puede abrir el segmento nuevo,
+ * el log queda fallido y todo lo que se encole después falla de inmediato.</p>
+ */
+final class RegistroTransacciones implements AutoCloseable {
+
+    private static final int MAGICO = 0x4357414C; // "CWAL"
+    private static final int VERSION = 3;
+    private static final String PREFIJO = "wal-";
+    private static final String SUFIJO = ".log";
+    private static final int MAX_LOTE = 4096;
+    private static final int CABECERA_REGISTRO = 4 + 4 + 8 + 1; // longitud, crc, lsn, tipo
+
+    private final Path directorio;
+    private final BlockingQueue<Pendiente> cola = new LinkedBlockingQueue<>();
+    private final Thread escritor;
+
+    // Solo los usa el hilo escritor
+    private FileChannel segmento;
+    private long siguienteLsn;
+    private long registrosEnSegmento;
+
+    private volatile boolean cerrado = false;
+    private volatile IOException falla;
+
+    /**
+     * Abre un segmento nuevo que empieza en el LSN indicado y arranca el hilo escritor.
+     */
+    RegistroTransacciones(Path directorio, long siguienteLsn) throws IOException {
+        this.directorio = directorio;
+        this.siguienteLsn = siguienteLsn;
+        this.segmento = abrirSegmento(siguienteLsn);
+
+        escritor = new Thread(this::escribirLotes, "registro-transacciones");
+        escritor.setDaemon(true);
+        escritor.start();
+    }
+
+    /**
+     * Encola un registro. El futuro se completa con su LSN cuando ya está en disco.
+     */
+    CompletableFuture<Long> agregar(TipoRegistro tipo, byte[] cuerpo) {
+        return encolar(new Pendiente(Accion.REGISTRO, tipo, cuerpo));
+    }
+
+    /**
+     * El futuro se completa cuando todo lo encolado antes de esta llamada ya está en disco.
+     */
+    CompletableFuture<Long> sincronizar() {
+        return encolar(new Pendiente(Accion.SINCRONIZAR, null, null));
+    }
+
+    /**
+     * Cierra el segmento actual y abre otro. El futuro devuelve el último LSN
+     * del segmento cerrado: todo lo posterior queda en segmentos nuevos.
+     */
+    CompletableFuture<Long> rotar() {
+        return encolar(new Pendiente(Accion.ROTAR, null, null));
+    }
+
+    @Override
+    public void close() {
+        if (cerrado) return;
+        cerrado = true;
+        try {
+            // Aunque el log haya fallado, el hilo escritor atiende el cierre y suelta el archivo
+            cola.add(new Pendiente(Accion.CERRAR, null, null));
+            escritor.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<Pendiente> restantes = new ArrayList<>();
+        cola.drainTo(restantes);
+        fallar(restantes, cerradoError());
+    }
+
+    private CompletableFuture<Long> encolar(Pendiente pendiente) {
+        if (cerrado) {
+            return CompletableFuture.failedFuture(cerradoError());
+        }
+        IOException error = falla;
+        if (error != null) {
+            return CompletableFuture.failedFuture(new UncheckedIOException("El registro de transacciones falló", error));
+        }
+        cola.add(pendiente);
+        return pendiente.futuro;
+    }
+
+    // ------------------------------------------------------------ HILO ESCRITOR
+
+    private void escribirLotes() {
+        List<Pendiente> lote = new ArrayList<>();
+        List<Pendiente> escritos = new ArrayList<>();
+        while (true) {
+            try {
+                lote.clear();
+                lote.add(cola.take());
+                cola.drainTo(lote, MAX_LOTE - 1);
+
+                if (falla != null) {
+                    // Lo que se encoló justo antes de marcar la falla también debe terminar
+                    fallar(lote, falla);
+                    if (contieneCierre(lote)) {
+                        cerrarSegmento();
+                        return;
+                    }
+                    continue;
+                }
+
+                for (Pendiente p : lote) {
+                    if (p.accion == Accion.REGISTRO) {
+                        p.lsn = siguienteLsn++;
+                        escritos.add(p);
+                        continue;
+                    }
+
+                    // Las marcas de control se atienden con todo lo anterior ya en disco
+                    confirmar(escritos);
+                    long ultimo = siguienteLsn - 1;
+                    if (p.accion == Accion.ROTAR && registrosEnSegmento > 0) {
+                        segmento.close();
+                        segmento = abrirSegmento(siguienteLsn);
+                    } else if (p.accion == Accion.CERRAR) {
+                        segmento.close();
+                        p.futuro.complete(ultimo);
+                        fallar(lote, cerradoError());
+                        return;
+                    }
+                    p.futuro.complete(ultimo);
+                }
+                confirmar(escritos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Error al escribir el registro de transacciones: " + e.getMessage());
+                // Los ya confirmados no cambian; fallan los registros y las marcas que seguían
+                fallar(lote, e);
+                escritos.clear();
+                if (contieneCierre(lote)) {
+                    cerrarSegmento();
+                    return;
+                }
+                reabrirTrasFalla();
+            }
+        }
+    }
+
+    /**
+     * El segmento actual pudo quedar con un registro a medias: se deja así (la lectura se detiene
+     * en él) y se sigue en uno nuevo que empieza en el siguiente LSN.
+     */
+    private void reabrirTrasFalla() {
+        cerrarSegmento();
+        try {
+            segmento = abrirSegmento(siguienteLsn);
+        } catch (IOException e) {
+            System.err.println("El registro de transacciones queda fuera de servicio: " + e.getMessage());
+            segmento = null;
+            falla = e;
+        }
+    }
+
+    private void cerrarSegmento() {
+        if (segmento == null) return;
+        try {
+            segmento.close();
+        } catch (IOException e) {
+            // El archivo ya no se usa; si no cierra bien no hay nada más que hacer
+        }
+    }
+
+    private static void fallar(List<Pendiente> lote, Throwable error) {
+        for (Pendiente p : lote) p.futuro.completeExceptionally(error);
+    }
+
+    private static IllegalStateException cerradoError() {
+        return new IllegalStateException("El registro de transacciones está cerrado");
+    }
+
+    private static boolean contieneCierre(List<Pendiente> lote) {
+        for (Pendiente p : lote) {
+            if (p.accion == Accion.CERRAR) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Escribe los registros pendientes en un solo bloque y hace un único fsync.
+     */
+    private void confirmar(List<Pendiente> escritos) throws IOException {
+        if (escritos.isEmpty()) return;
+
+        int total = 0;
+        for (Pendiente p : escritos) total += CABECERA_REGISTRO + p.cuerpo.length;
+
+        ByteBuffer buffer = ByteBuffer.allocate(total);
+        CRC32 crc = new CRC32();
+        for (Pendiente p : escritos) {
+            int inicio = buffer.position();
+            buffer.putInt(8 + 1 + p.cuerpo.length);
+            buffer.putInt(0); // se completa con el CRC
+            buffer.putLong(p.lsn);
+            buffer.put(p.tipo.getCodigo());
+            buffer.put(p.cuerpo);
+
+            crc.reset();
+            crc.update(buffer.array(), inicio + 8, buffer.position() - inicio - 8);
+            buffer.putInt(inicio + 4, (int) crc.getValue());
+        }
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            segmento.write(buffer);
+        }
+        segmento.force(false);
+        registrosEnSegmento += escritos.size();
+
+        for (Pendiente p : escritos) p.futuro.complete(p.lsn);
+        escritos.clear();
+    }
+
+    private FileChannel abrirSegmento(long primerLsn) throws IOException {
+        FileChannel canal = FileChannel.open(directorio.resolve(nombreSegmento(primerLsn)),
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        ByteBuffer cabecera = ByteBuffer.allocate(8).putInt(MAGICO).putInt(VERSION);
+        cabecera.flip();
+        canal.write(cabecera);
+        canal.force(true);
+        registrosEnSegmento = 0;
+        return canal;
+    }
+
+    // ------------------------------------------------------------ LECTURA
+
+    /**
+     * Registro leído del log.
+     */
+    static final class Registro {
+        final long lsn;
+        final TipoRegistro tipo;
+        final byte[] cuerpo;
+
+        private Registro(long lsn, TipoRegistro tipo, byte[] cuerpo) {
+            this.lsn = lsn;
+            this.tipo = tipo;
+            this.cuerpo = cuerpo;
+        }
+    }
+
+    interface Aplicador {
+        void aplicar(Registro registro) throws IOException;
+    }
+
+    /**
+     * Recorre los segmentos en orden y aplica los registros con LSN mayor que {@code desdeLsn}.
+     * En cada segmento se detiene en el primer registro incompleto o con CRC inválido.
+     *
+     * @return el mayor LSN encontrado, o {@code desdeLsn} si no hay registros posteriores.
+     */
+    static long leer(Path directorio, long desdeLsn, Aplicador aplicador) throws IOException {
+        long ultimo = desdeLsn;
+        for (Path archivo : segmentos(directorio)) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(archivo)))) {
+                if (in.readInt() != MAGICO || in.readInt() != VERSION) continue;
+
+                Registro registro;
+                while ((registro = leerRegistro(in)) != null) {
+                    if (registro.lsn <= desdeLsn) continue;
+                    aplicador.aplicar(registro);
+                    ultimo = Math.max(ultimo, registro.lsn);
+                }
+            } catch (EOFException e) {
+                // Segmento sin cabecera completa: se ignora
+            }
+        }
+        return ultimo;
+    }
+
+    private static Registro leerRegistro(DataInputStream in) throws IOException {
+        int longitud;
+        try {
+            longitud = in.readInt();
+        } catch (EOFException e) {
+            return null;
+        }
+        if (longitud < 9) return null;
+
+        try {
+            int crcEsperado = in.readInt();
+            byte[] datos = in.readNBytes(longitud);
+            if (datos.length < longitud) return null;
+
+            CRC32 crc = new CRC32();
+            crc.update(datos);
+            if ((int) crc.getValue() != crcEsperado) return null;
+
+            ByteBuffer buffer = ByteBuffer.wrap(datos);
+            long lsn = buffer.getLong();
+            TipoRegistro tipo = TipoRegistro.desdeCodigo(buffer.get());
+            byte[] cuerpo = new byte[buffer.remaining()];
+            buffer.get(cuerpo);
+            return new Registro(lsn, tipo, cuerpo);
+        } catch (EOFException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Borra los segmentos cuyos registros son todos anteriores o iguales al LSN dado.
+     */
+    static void eliminarSegmentosHasta(Path directorio, long lsn) throws IOException {
+        List<Path> archivos = segmentos(directorio);
+        for (int i = 0; i < archivos.size(); i++) {
+            // Un segmento termina donde empieza el siguiente
+            boolean haySiguiente = i + 1 < archivos.size();
+            if (haySiguiente && primerLsn(archivos.get(i + 1)) <= lsn + 1) {
+                Files.deleteIfExists(archivos.get(i));
+            }
+        }
+    }
+
+    private static List<Path> segmentos(Path directorio) throws IOException {
+        List<Path> archivos = new ArrayList<>();
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(directorio, PREFIJO + "*" + SUFIJO)) {
+            ds.forEach(archivos::add);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        archivos.sort((a, b) -> Long.compare(primerLsn(a), primerLsn(b)));
+        return archivos;
+    }
+
+    private static long primerLsn(Path archivo) {
+        String nombre = archivo.getFileName().toString();
+        return Long.parseLong(nombre.substring(PREFIJO.length(), nombre.length() - SUFIJO.length()));
+    }
+
+    private static String nombreSegmento(long primerLsn) {
+        return String.format("%s%020d%s", PREFIJO, primerLsn, SUFIJO);
+    }
+
+    // ------------------------------------------------------------ PENDIENTES
+
+    private enum Accion { REGISTRO, SINCRONIZAR, ROTAR, CERRAR }
+
+    private static final class Pendiente {
+        private final Accion accion;
+        private final TipoRegistro tipo;
+        private final byte[] cuerpo;
+        private final CompletableFuture<Long> futuro = new CompletableFuture<>();
+        private long lsn;
+
+        private Pendiente(Accion accion, TipoRegistro tipo, byte[] cuerpo) {
+            this.accion = accion;
+            this.tipo = tipo;
+            this.cuerpo = cuerpo;
+        }
+    }
+}
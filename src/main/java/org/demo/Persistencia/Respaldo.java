@@ -0,0 +1,732 @@
+package org.demo.Persistencia;
+
+import org.demo.Models.Cita;
+import org.demo.Models.EstadoCita;
+import org.demo.Models.Medico;
+import org.demo.Models.Paciente;
+import org.demo.Models.Persona;
+import org.demo.Models.TipoDocumento;
+import org.demo.Repositories.CitaRepository;
+import org.demo.Repositories.MedicoRepository;
+import org.demo.Repositories.PacienteRepository;
+import org.demo.Repositories.SegmentoCitas;
+import org.demo.Utils.GeneradorIds;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.DoubleConsumer;
+import java.util.zip.CRC32C;
+
+/**
+ * Respaldo completo de pacientes, médicos y citas en un solo archivo binario, para
+ * copias nocturnas o para llevar los datos de un equipo a otro.
+ * Los números van como varint (los IDs como diferencia con el anterior), los textos
+ * que se repiten (tipo de documento, dirección, especialidad, consultorio, motivo...)
+ * se guardan una vez en un diccionario y luego por su posición, y cada cita nombra a
+ * su médico y a su paciente por ID. El archivo se escribe y se lee por bloques de
+ * unos 64 KB con un {@link FileChannel}; cada bloque lleva su CRC32C.
+ *
+ * <pre>
+ * cabecera (36 bytes): mágico, versión, creado (long), mayor ID de persona (long), mayor ID de cita (long), CRC32C
+ * bloque:              tipo (byte), registros (int), longitud (int), CRC32C (int), contenido
+ * </pre>
+ *
+ * Los bloques van en orden: pacientes, médicos, citas y uno final con los totales,
+ * que permite reconocer un archivo cortado.
+ */
+public final class Respaldo {
+
+    private static final int MAGICO = 0x43524553; // "CRES"
+    private static final int VERSION = 1;
+    private static final int CABECERA = 36;
+    private static final int CABECERA_BLOQUE = 13;
+    private static final int TAM_BLOQUE = 64 * 1024;
+    private static final int MAX_BLOQUE = 64 * 1024 * 1024;
+    private static final int LOTE_CITAS = 10_000;
+
+    // Tipos de bloque
+    private static final byte FIN = 0;
+    private static final byte PACIENTES = 1;
+    private static final byte MEDICOS = 2;
+    private static final byte CITAS = 3;
+
+    private Respaldo() {}
+
+    /**
+     * Totales de una exportación o importación.
+     */
+    public static final class Resultado {
+        private final int pacientes;
+        private final int medicos;
+        private final int citas;
+        private final int existentes;
+        private final int omitidos;
+        private final long bytes;
+
+        private Resultado(int pacientes, int medicos, int citas, int existentes, int omitidos, long bytes) {
+            this.pacientes = pacientes;
+            this.medicos = medicos;
+            this.citas = citas;
+            this.existentes = existentes;
+            this.omitidos = omitidos;
+            this.bytes = bytes;
+        }
+
+        public int getPacientes() {
+            return pacientes;
+        }
+
+        public int getMedicos() {
+            return medicos;
+        }
+
+        public int getCitas() {
+            return citas;
+        }
+
+        /**
+         * Personas del archivo que ya estaban registradas (mismo documento) y se reutilizaron.
+         */
+        public int getExistentes() {
+            return existentes;
+        }
+
+        /**
+         * Personas y citas del archivo que no se pudieron importar.
+         */
+        public int getOmitidos() {
+            return omitidos;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+    }
+
+    // ------------------------------------------------------------ EXPORTACIÓN
+
+    /**
+     * Escribe todos los datos de los repositorios. El archivo se arma aparte y
+     * reemplaza al anterior al final, así nunca queda uno a medias.
+     *
+     * @param avance recibe la fracción escrita, entre 0 y 1.
+     */
+    public static Resultado exportar(Path archivo, DoubleConsumer avance) throws IOException {
+        // Las citas primero: toda persona que aparezca en una cita entra en el respaldo
+        List<Cita> citas = new ArrayList<>(CitaRepository.getInstancia().listarCitas());
+        List<SegmentoCitas> historico = CitaRepository.getInstancia().getHistorico();
+        // Si alguna se archivó entre las dos listas, se escribe solo desde el histórico
+        if (!historico.isEmpty()) citas.removeIf(c -> archivada(historico, c.getId()));
+        List<Paciente> pacientes = new ArrayList<>(PacienteRepository.getInstancia().listarPacientes());
+        List<Medico> medicos = new ArrayList<>(MedicoRepository.getInstancia().listarMedicos());
+        completarPersonas(citas, pacientes, medicos);
+
+        pacientes.sort(Comparator.comparingLong(Persona::getId));
+        medicos.sort(Comparator.comparingLong(Persona::getId));
+        citas.sort(Comparator.comparingLong(Cita::getId));
+
+        long mayorPersona = 0;
+        for (Paciente p : pacientes) mayorPersona = Math.max(mayorPersona, p.getId());
+        for (Medico m : medicos) mayorPersona = Math.max(mayorPersona, m.getId());
+        long mayorCita = citas.isEmpty() ? 0 : citas.get(citas.size() - 1).getId();
+
+        // Las archivadas se leen del segmento sin reconstruirlas; las de personas que ya no existen quedan fuera
+        Set<Long> idsPacientes = new HashSet<>();
+        Set<Long> idsMedicos = new HashSet<>();
+        for (Paciente p : pacientes) idsPacientes.add(p.getId());
+        for (Medico m : medicos) idsMedicos.add(m.getId());
+        int archivadas = 0;
+        for (SegmentoCitas segmento : historico) {
+            for (int fila = 0; fila < segmento.getFilas(); fila++) {
+                if (idsMedicos.contains(segmento.getMedicoId(fila)) && idsPacientes.contains(segmento.getPacienteId(fila))) {
+                    archivadas++;
+                }
+            }
+            mayorCita = Math.max(mayorCita, segmento.getMayorId());
+        }
+
+        Path temporal = archivo.resolveSibling(archivo.getFileName() + ".tmp");
+        long bytes;
+        try (FileChannel canal = FileChannel.open(temporal, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer cabecera = ByteBuffer.allocate(CABECERA);
+            cabecera.putInt(MAGICO).putInt(VERSION).putLong(System.currentTimeMillis())
+                    .putLong(mayorPersona).putLong(mayorCita);
+            cabecera.putInt(crc(cabecera.array(), 0, CABECERA - 4)).flip();
+            escribirTodo(canal, cabecera);
+
+            Escritor escritor = new Escritor(canal);
+            double total = Math.max(1, pacientes.size() + medicos.size() + archivadas + citas.size());
+            int hechos = 0;
+
+            escritor.empezar(PACIENTES);
+            for (Paciente p : pacientes) {
+                escritor.paciente(p);
+                hechos++;
+                if (escritor.registroTerminado()) avance.accept(hechos / total);
+            }
+            escritor.empezar(MEDICOS);
+            for (Medico m : medicos) {
+                escritor.medico(m);
+                hechos++;
+                if (escritor.registroTerminado()) avance.accept(hechos / total);
+            }
+            escritor.empezar(CITAS);
+            for (SegmentoCitas segmento : historico) {
+                for (int fila = 0; fila < segmento.getFilas(); fila++) {
+                    if (!idsMedicos.contains(segmento.getMedicoId(fila))
+                            || !idsPacientes.contains(segmento.getPacienteId(fila))) continue;
+                    escritor.citaHistorica(segmento, fila);
+                    hechos++;
+                    if (escritor.registroTerminado()) avance.accept(hechos / total);
+                }
+            }
+            for (Cita c : citas) {
+                escritor.cita(c);
+                hechos++;
+                if (escritor.registroTerminado()) avance.accept(hechos / total);
+            }
+
+            escritor.empezar(FIN);
+            escritor.salida.varint(pacientes.size());
+            escritor.salida.varint(medicos.size());
+            escritor.salida.varint(archivadas + citas.size());
+            escritor.terminarBloque();
+
+            canal.force(true);
+            bytes = canal.position();
+        }
+        Files.move(temporal, archivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        avance.accept(1.0);
+        return new Resultado(pacientes.size(), medicos.size(), archivadas + citas.size(), 0, 0, bytes);
+    }
+
+    private static boolean archivada(List<SegmentoCitas> historico, long idCita) {
+        for (SegmentoCitas segmento : historico) {
+            if (segmento.buscarFila(idCita) >= 0) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Agrega las personas que tienen citas pero se eliminaron entre una lista y otra.
+     */
+    private static void completarPersonas(List<Cita> citas, List<Paciente> pacientes, List<Medico> medicos) {
+        Set<Long> ids = new HashSet<>();
+        for (Paciente p : pacientes) ids.add(p.getId());
+        for (Medico m : medicos) ids.add(m.getId());
+        for (Cita c : citas) {
+            if (ids.add(c.getPaciente().getId())) pacientes.add(c.getPaciente());
+            if (ids.add(c.getMedico().getId())) medicos.add(c.getMedico());
+        }
+    }
+
+    /**
+     * Arma los bloques de un tipo y los escribe cuando pasan de {@link #TAM_BLOQUE}.
+     */
+    private static final class Escritor {
+        private final FileChannel canal;
+        private final Salida salida = new Salida();
+        private final Map<String, Integer> diccionario = new HashMap<>();
+        private final ByteBuffer cabecera = ByteBuffer.allocate(CABECERA_BLOQUE);
+        private byte tipo;
+        private int registros;
+        private long idAnterior;
+
+        private Escritor(FileChannel canal) {
+            this.canal = canal;
+        }
+
+        void empezar(byte tipo) throws IOException {
+            if (registros > 0) terminarBloque();
+            this.tipo = tipo;
+        }
+
+        /**
+         * Cuenta el registro recién escrito y cierra el bloque si se llenó.
+         *
+         * @return true si se escribió un bloque.
+         */
+        boolean registroTerminado() throws IOException {
+            registros++;
+            if (salida.tamano() < TAM_BLOQUE) return false;
+            terminarBloque();
+            return true;
+        }
+
+        void terminarBloque() throws IOException {
+            ByteBuffer contenido = salida.contenido();
+            cabecera.clear();
+            cabecera.put(tipo).putInt(registros).putInt(contenido.remaining())
+                    .putInt(crc(contenido.array(), 0, contenido.remaining())).flip();
+            escribirTodo(canal, cabecera, contenido);
+
+            salida.limpiar();
+            registros = 0;
+            // Cada bloque se puede decodificar sin conocer el anterior, salvo el diccionario
+            idAnterior = 0;
+        }
+
+        void paciente(Paciente p) {
+            id(p.getId());
+            salida.texto(p.getNombre());
+            repetido(p.getTipoDocumento() == null ? null : p.getTipoDocumento().name());
+            salida.texto(p.getNumDocumento());
+            salida.texto(p.getTelefono());
+            repetido(p.getDireccion());
+            salida.texto(p.getCorreo());
+            repetido(p.getFechaNacimiento());
+            repetido(p.getEnfermedad());
+        }
+
+        void medico(Medico m) {
+            id(m.getId());
+            salida.texto(m.getNombre());
+            repetido(m.getTipoDocumento() == null ? null : m.getTipoDocumento().name());
+            salida.texto(m.getNumDocumento());
+            salida.texto(m.getTelefono());
+            repetido(m.getDireccion());
+            salida.texto(m.getCorreo());
+            repetido(m.getEspecialidad());
+            repetido(m.getConsultorio());
+            repetido(m.getHorario());
+        }
+
+        void cita(Cita c) {
+            id(c.getId());
+            salida.varint(c.getMedico().getId());
+            salida.varint(c.getPaciente().getId());
+            salida.zigzag(c.getFecha().toEpochDay());
+            salida.varint(c.getHora().toSecondOfDay());
+            salida.varint(c.getDuracionMinutos());
+            salida.zigzag(c.getPrecioCentavos());
+            repetido(c.getEstado().name());
+            repetido(c.getMotivo());
+            salida.texto(c.getObservaciones());
+        }
+
+        /**
+         * Igual que {@link #cita}, leyendo los campos directamente del segmento.
+         */
+        void citaHistorica(SegmentoCitas s, int fila) {
+            id(s.getId(fila));
+            salida.varint(s.getMedicoId(fila));
+            salida.varint(s.getPacienteId(fila));
+            salida.zigzag(s.getDia(fila));
+            salida.varint(s.getSegundoDelDia(fila));
+            salida.varint(s.getDuracionMinutos(fila));
+            salida.zigzag(s.getPrecioCentavos(fila));
+            repetido(s.getEstado(fila).name());
+            repetido(s.getMotivo(fila));
+            salida.texto(s.getObservaciones(fila));
+        }
+
+        private void id(long id) {
+            salida.zigzag(id - idAnterior);
+            idAnterior = id;
+        }
+
+        /**
+         * 0 es null, 1..n un texto ya visto y n+1 uno nuevo, que va a continuación.
+         */
+        private void repetido(String texto) {
+            if (texto == null) {
+                salida.varint(0);
+                return;
+            }
+            Integer posicion = diccionario.get(texto);
+            if (posicion != null) {
+                salida.varint(posicion + 1);
+                return;
+            }
+            int nueva = diccionario.size();
+            diccionario.put(texto, nueva);
+            salida.varint(nueva + 1);
+            salida.texto(texto);
+        }
+    }
+
+    // ------------------------------------------------------------ IMPORTACIÓN
+
+    /**
+     * Agrega al sistema los datos del respaldo. Los IDs del archivo se conservan salvo
+     * que ya estén en uso; una persona cuyo documento ya existe se reemplaza por la
+     * registrada. Las citas de médicos que ya existían se reservan comprobando cruces;
+     * las de médicos nuevos se guardan por lotes.
+     *
+     * @param avance recibe la fracción leída, entre 0 y 1.
+     */
+    public static Resultado importar(Path archivo, DoubleConsumer avance) throws IOException {
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            Importacion importacion = new Importacion(canal, canal.size());
+            importacion.leer(avance);
+            avance.accept(1.0);
+            return importacion.resultado();
+        }
+    }
+
+    private static final class Importacion {
+        private final PacienteRepository pacienteRepository = PacienteRepository.getInstancia();
+        private final MedicoRepository medicoRepository = MedicoRepository.getInstancia();
+        private final CitaRepository citaRepository = CitaRepository.getInstancia();
+
+        private final FileChannel canal;
+        private final long tamano;
+        private final ByteBuffer cabecera = ByteBuffer.allocate(CABECERA_BLOQUE);
+        private final Entrada entrada = new Entrada();
+        private final List<String> diccionario = new ArrayList<>();
+
+        // ID en el archivo -> persona en el sistema (importada o ya existente)
+        private final Map<Long, Persona> personas = new HashMap<>();
+        private final Set<Medico> medicosNuevos = Collections.newSetFromMap(new IdentityHashMap<>());
+        private final List<Cita> loteCitas = new ArrayList<>(LOTE_CITAS);
+
+        private int pacientes;
+        private int medicos;
+        private int citas;
+        private int existentes;
+        private int omitidos;
+        private long leidos;
+
+        private Importacion(FileChannel canal, long tamano) {
+            this.canal = canal;
+            this.tamano = tamano;
+        }
+
+        void leer(DoubleConsumer avance) throws IOException {
+            ByteBuffer inicio = ByteBuffer.allocate(CABECERA);
+            if (!leerTodo(canal, inicio) || inicio.getInt(0) != MAGICO) throw new IOException("El archivo no es un respaldo");
+            int version = inicio.getInt(4);
+            if (version > VERSION) throw new IOException("Versión de respaldo no soportada: " + version);
+            if (inicio.getInt(CABECERA - 4) != crc(inicio.array(), 0, CABECERA - 4)) {
+                throw new IOException("La cabecera del respaldo está dañada");
+            }
+
+            // Los IDs nuevos quedan por encima de los del archivo y no chocan con ellos
+            GeneradorIds.PERSONAS.avanzarHasta(inicio.getLong(16) + 1);
+            GeneradorIds.CITAS.avanzarHasta(inicio.getLong(24) + 1);
+
+            byte anterior = PACIENTES;
+            while (true) {
+                byte tipo = leerBloque();
+                if (tipo != FIN && tipo < anterior) throw new IOException("Bloques fuera de orden en el respaldo");
+                anterior = tipo;
+                if (tipo != FIN) leidos += entrada.registros;
+
+                try {
+                    switch (tipo) {
+                        case PACIENTES -> importarPacientes();
+                        case MEDICOS -> importarMedicos();
+                        case CITAS -> importarCitas();
+                        case FIN -> {
+                            guardarCitas();
+                            comprobarTotales();
+                            return;
+                        }
+                        default -> throw new IOException("Bloque desconocido en el respaldo: " + tipo);
+                    }
+                } catch (BufferUnderflowException | IllegalArgumentException | IndexOutOfBoundsException | DateTimeException e) {
+                    throw new IOException("Bloque mal formado en la posición " + canal.position(), e);
+                }
+                avance.accept((double) canal.position() / tamano);
+            }
+        }
+
+        /**
+         * Lee el siguiente bloque, comprueba su CRC y lo deja en {@link #entrada}.
+         */
+        private byte leerBloque() throws IOException {
+            cabecera.clear();
+            if (!leerTodo(canal, cabecera)) throw new IOException("El respaldo está incompleto");
+            byte tipo = cabecera.get(0);
+            int registros = cabecera.getInt(1);
+            int longitud = cabecera.getInt(5);
+            int esperado = cabecera.getInt(9);
+            if (longitud < 0 || longitud > MAX_BLOQUE || registros < 0) {
+                throw new IOException("Bloque mal formado en la posición " + canal.position());
+            }
+
+            ByteBuffer contenido = entrada.preparar(longitud, registros);
+            if (!leerTodo(canal, contenido)) throw new IOException("El respaldo está incompleto");
+            if (crc(contenido.array(), 0, longitud) != esperado) {
+                throw new IOException("Bloque dañado en la posición " + (canal.position() - longitud));
+            }
+            contenido.flip();
+            return tipo;
+        }
+
+        private void importarPacientes() throws IOException {
+            Map<Paciente, Long> origen = new IdentityHashMap<>();
+            List<Paciente> lote = new ArrayList<>();
+            for (int i = 0; i < entrada.registros; i++) {
+                long id = entrada.id();
+                Paciente p = new Paciente(idPersona(id), entrada.texto(), tipoDocumento(), entrada.texto(),
+                        entrada.texto(), repetido(), entrada.texto(), repetido(), repetido());
+                origen.put(p, id);
+                lote.add(p);
+            }
+
+            List<Paciente> rechazados = new ArrayList<>();
+            pacientes += pacienteRepository.guardarPacientes(lote, (p, motivo) -> rechazados.add(p));
+            for (Paciente p : lote) personas.put(origen.get(p), p);
+            for (Paciente p : rechazados) {
+                Paciente registrado = pacienteRepository.buscarPorDocumento(p.getNumDocumento()).orElse(null);
+                personaExistente(origen.get(p), registrado);
+            }
+        }
+
+        private void importarMedicos() throws IOException {
+            Map<Medico, Long> origen = new IdentityHashMap<>();
+            List<Medico> lote = new ArrayList<>();
+            for (int i = 0; i < entrada.registros; i++) {
+                long id = entrada.id();
+                Medico m = new Medico(idPersona(id), entrada.texto(), tipoDocumento(), entrada.texto(),
+                        entrada.texto(), repetido(), entrada.texto(), repetido(), repetido(), repetido());
+                origen.put(m, id);
+                lote.add(m);
+            }
+
+            List<Medico> rechazados = new ArrayList<>();
+            medicos += medicoRepository.guardarMedicos(lote, (m, motivo) -> rechazados.add(m));
+            for (Medico m : lote) personas.put(origen.get(m), m);
+            medicosNuevos.addAll(lote);
+            rechazados.forEach(medicosNuevos::remove);
+            for (Medico m : rechazados) {
+                Medico registrado = medicoRepository.buscarPorDocumento(m.getNumDocumento()).orElse(null);
+                personaExistente(origen.get(m), registrado);
+            }
+        }
+
+        private void importarCitas() throws IOException {
+            for (int i = 0; i < entrada.registros; i++) {
+                long id = entrada.id();
+                Persona medico = personas.get(entrada.varint());
+                Persona paciente = personas.get(entrada.varint());
+                LocalDate fecha = LocalDate.ofEpochDay(entrada.zigzag());
+                LocalTime hora = LocalTime.ofSecondOfDay(entrada.varint());
+                int duracion = (int) entrada.varint();
+                long centavos = entrada.zigzag();
+                String estado = repetido();
+                String motivo = repetido();
+                String observaciones = entrada.texto();
+
+                if (!(medico instanceof Medico m) || !(paciente instanceof Paciente p)) {
+                    omitidos++;
+                    continue;
+                }
+                long idCita = citaRepository.existeCita(id) ? GeneradorIds.CITAS.siguiente() : id;
+                Cita cita = new Cita(idCita, m, p, fecha, hora, duracion, centavos, EstadoCita.valueOf(estado),
+                        motivo, observaciones);
+
+                // Un médico recién importado no tiene otras citas con las que cruzarse
+                if (medicosNuevos.contains(m)) {
+                    loteCitas.add(cita);
+                    if (loteCitas.size() == LOTE_CITAS) guardarCitas();
+                } else if (citaRepository.reservarCita(cita)) {
+                    citas++;
+                } else {
+                    omitidos++;
+                }
+            }
+        }
+
+        private void guardarCitas() {
+            if (loteCitas.isEmpty()) return;
+            citaRepository.guardarCitas(loteCitas);
+            citas += loteCitas.size();
+            loteCitas.clear();
+        }
+
+        private void comprobarTotales() throws IOException {
+            long escritos = entrada.varint() + entrada.varint() + entrada.varint();
+            if (leidos != escritos) {
+                throw new IOException("El respaldo está incompleto");
+            }
+        }
+
+        private void personaExistente(long id, Persona registrada) {
+            if (registrada == null) {
+                personas.remove(id);
+                omitidos++;
+            } else {
+                personas.put(id, registrada);
+                existentes++;
+            }
+        }
+
+        // El ID del archivo se conserva salvo que ya esté en uso; solo entonces se pide uno nuevo
+        private long idPersona(long id) {
+            boolean enUso = pacienteRepository.buscarPacientePorId(id).isPresent()
+                    || medicoRepository.buscarMedicoPorId(id).isPresent();
+            return enUso ? GeneradorIds.PERSONAS.siguiente() : id;
+        }
+
+        private TipoDocumento tipoDocumento() throws IOException {
+            String nombre = repetido();
+            return nombre == null ? null : TipoDocumento.valueOf(nombre);
+        }
+
+        private String repetido() throws IOException {
+            long posicion = entrada.varint();
+            if (posicion == 0) return null;
+            if (posicion <= diccionario.size()) return diccionario.get((int) posicion - 1);
+            if (posicion != diccionario.size() + 1) throw new IOException("Referencia al diccionario inválida");
+            String texto = entrada.texto();
+            diccionario.add(texto);
+            return texto;
+        }
+
+        Resultado resultado() {
+            return new Resultado(pacientes, medicos, citas, existentes, omitidos, tamano);
+        }
+    }
+
+    // ------------------------------------------------------------ CODIFICACIÓN
+
+    /**
+     * Búfer que crece según haga falta, con escritura de varints y textos.
+     */
+    private static final class Salida {
+        private ByteBuffer buffer = ByteBuffer.allocate(TAM_BLOQUE * 2);
+
+        void varint(long valor) {
+            asegurar(10);
+            while ((valor & ~0x7FL) != 0) {
+                buffer.put((byte) ((valor & 0x7F) | 0x80));
+                valor >>>= 7;
+            }
+            buffer.put((byte) valor);
+        }
+
+        void zigzag(long valor) {
+            varint((valor << 1) ^ (valor >> 63));
+        }
+
+        /**
+         * Longitud + 1 y los bytes UTF-8; 0 es null.
+         */
+        void texto(String texto) {
+            if (texto == null) {
+                varint(0);
+                return;
+            }
+            byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+            varint(bytes.length + 1L);
+            asegurar(bytes.length);
+            buffer.put(bytes);
+        }
+
+        int tamano() {
+            return buffer.position();
+        }
+
+        ByteBuffer contenido() {
+            return ByteBuffer.wrap(buffer.array(), 0, buffer.position());
+        }
+
+        void limpiar() {
+            buffer.clear();
+        }
+
+        private void asegurar(int bytes) {
+            if (buffer.remaining() >= bytes) return;
+            ByteBuffer mayor = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes));
+            buffer.flip();
+            mayor.put(buffer);
+            buffer = mayor;
+        }
+    }
+
+    /**
+     * Contenido del bloque actual; el búfer se reutiliza entre bloques.
+     */
+    private static final class Entrada {
+        private ByteBuffer buffer = ByteBuffer.allocate(TAM_BLOQUE * 2);
+        private long idAnterior;
+        private int registros;
+
+        ByteBuffer preparar(int longitud, int registros) {
+            if (buffer.capacity() < longitud) buffer = ByteBuffer.allocate(longitud);
+            buffer.clear().limit(longitud);
+            idAnterior = 0;
+            this.registros = registros;
+            return buffer;
+        }
+
+        long varint() throws IOException {
+            long valor = 0;
+            for (int desplazamiento = 0; desplazamiento < 64; desplazamiento += 7) {
+                byte b = buffer.get();
+                valor |= (long) (b & 0x7F) << desplazamiento;
+                if (b >= 0) return valor;
+            }
+            throw new IOException("Número mal formado en el respaldo");
+        }
+
+        long zigzag() throws IOException {
+            long valor = varint();
+            return (valor >>> 1) ^ -(valor & 1);
+        }
+
+        long id() throws IOException {
+            idAnterior += zigzag();
+            return idAnterior;
+        }
+
+        String texto() throws IOException {
+            long longitud = varint() - 1;
+            if (longitud < 0) return null;
+            if (longitud > buffer.remaining()) throw new IOException("Texto mal formado en el respaldo");
+            String texto = new String(buffer.array(), buffer.position(), (int) longitud, StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + (int) longitud);
+            return texto;
+        }
+    }
+
+    // ------------------------------------------------------------ AUXILIARES
+
+    private static int crc(byte[] datos, int desde, int longitud) {
+        CRC32C crc = new CRC32C();
+        crc.update(datos, desde, longitud);
+        return (int) crc.getValue();
+    }
+
+    private static void escribirTodo(FileChannel canal, ByteBuffer... buffers) throws IOException {
+        long pendiente = 0;
+        for (ByteBuffer b : buffers) pendiente += b.remaining();
+        while (pendiente > 0) {
+            pendiente -= canal.write(buffers);
+        }
+    }
+
+    /**
+     * Llena el búfer hasta su límite.
+     *
+     * @return false si el archivo terminó antes.
+     */
+    private static boolean leerTodo(FileChannel canal, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (canal.read(buffer) < 0) return false;
+        }
+        return true;
+    }
+}
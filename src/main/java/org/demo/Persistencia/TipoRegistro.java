@@ -0,0 +1,32 @@
+package org.demo.Persistencia;
+
+/**
+ * Tipos de registro del log de transacciones.
+ * Guardar y actualizar se registran igual (estado completo de la entidad),
+ * así volver a aplicar un registro no cambia el resultado.
+ */
+enum TipoRegistro {
+    PACIENTE_GUARDADO(1),
+    PACIENTE_ELIMINADO(2),
+    MEDICO_GUARDADO(3),
+    MEDICO_ELIMINADO(4),
+    CITA_GUARDADA(5),
+    CITA_ELIMINADA(6);
+
+    private final byte codigo;
+
+    TipoRegistro(int codigo) {
+        this.codigo = (byte) codigo;
+    }
+
+    byte getCodigo() {
+        return codigo;
+    }
+
+    static TipoRegistro desdeCodigo(byte codigo) {
+        for (TipoRegistro tipo : values()) {
+            if (tipo.codigo == codigo) return tipo;
+        }
+        throw new IllegalArgumentException("Tipo de registro desconocido: " + codigo);
+    }
+}
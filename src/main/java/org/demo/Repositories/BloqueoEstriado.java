@@ -0,0 +1,96 @@
+package org.demo.Repositories;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Conjunto fijo de candados de lectura/escritura repartidos por clave.
+ * Dos operaciones sobre claves distintas casi nunca comparten candado, así que
+ * los hilos avanzan en paralelo sin un candado global. Cuando se toman varias
+ * claves a la vez se bloquean en orden de franja para evitar interbloqueos.
+ *
+ * <p>Así lo usan los repositorios: sus mapas e índices admiten lecturas concurrentes,
+ * de modo que consultar no toma ningún candado, y cada escritura bloquea solo las
+ * franjas de la entidad y de las claves únicas que toca. Verificar y registrar van
+ * dentro del mismo candado para que dos hilos no pasen la verificación a la vez.
+ * Un repositorio con dos conjuntos de franjas siempre los toma en el mismo orden.</p>
+ */
+class BloqueoEstriado {
+
+    private final ReentrantReadWriteLock[] franjas;
+    private final int mascara;
+
+    /**
+     * @param cantidad número de franjas; se redondea a la siguiente potencia de dos.
+     */
+    BloqueoEstriado(int cantidad) {
+        int tamano = Integer.highestOneBit(Math.max(1, cantidad - 1)) << 1;
+        franjas = new ReentrantReadWriteLock[tamano];
+        for (int i = 0; i < tamano; i++) {
+            franjas[i] = new ReentrantReadWriteLock();
+        }
+        mascara = tamano - 1;
+    }
+
+    /**
+     * Ejecuta la acción con el candado de lectura de la franja de la clave.
+     */
+    <T> T leer(Object clave, Supplier<T> accion) {
+        ReentrantReadWriteLock.ReadLock candado = franjas[franja(clave)].readLock();
+        candado.lock();
+        try {
+            return accion.get();
+        } finally {
+            candado.unlock();
+        }
+    }
+
+    /**
+     * Ejecuta la acción con el candado de escritura de las franjas de todas las claves (se ignoran las nulas).
+     */
+    <T> T escribir(Supplier<T> accion, Object... claves) {
+        int[] orden = franjasOrdenadas(claves);
+        for (int f : orden) {
+            franjas[f].writeLock().lock();
+        }
+        try {
+            return accion.get();
+        } finally {
+            for (int i = orden.length - 1; i >= 0; i--) {
+                franjas[orden[i]].writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Igual que {@link #escribir(Supplier, Object...)} para acciones sin resultado.
+     */
+    void ejecutar(Runnable accion, Object... claves) {
+        escribir(() -> {
+            accion.run();
+            return null;
+        }, claves);
+    }
+
+    private int[] franjasOrdenadas(Object[] claves) {
+        int[] orden = new int[claves.length];
+        int n = 0;
+        for (Object clave : claves) {
+            if (clave != null) orden[n++] = franja(clave);
+        }
+        Arrays.sort(orden, 0, n);
+
+        // Quitar repetidas: el candado es reentrante, pero así cada franja se suelta una vez
+        int unicas = 0;
+        for (int i = 0; i < n; i++) {
+            if (unicas == 0 || orden[unicas - 1] != orden[i]) orden[unicas++] = orden[i];
+        }
+        return Arrays.copyOf(orden, unicas);
+    }
+
+    private int franja(Object clave) {
+        int h = clave == null ? 0 : clave.hashCode();
+        return (h ^ (h >>> 16)) & mascara;
+    }
+}
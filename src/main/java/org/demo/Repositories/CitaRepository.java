@@ -1,119 +1,1092 @@
 package org.demo.Repositories;
 
-import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import org.demo.Metricas.MetricaOperacion;
+import org.demo.Metricas.RegistroMetricas;
 import org.demo.Models.Cita;
+import org.demo.Models.CupoLibre;
 import org.demo.Models.Medico;
 import org.demo.Models.Paciente;
 import org.demo.Models.TipoDocumento;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Repositorio encargado de gestionar las citas del sistema.
  * Implementa un patrón Singleton para garantizar una única instancia compartida.
- * Utiliza una lista observable para sincronización con la interfaz gráfica.
+ * Utiliza una lista observable para sincronización con la interfaz gráfica;
+ * las búsquedas por ID se resuelven con un mapa y la posición de cada cita en la lista.
+ * Es seguro usarlo desde varios hilos (ver {@link BloqueoEstriado}).
+ *
+ * <p>Las citas pasadas pueden archivarse con {@link #archivarAnterioresA}: salen de la memoria
+ * y quedan en segmentos por columnas fuera del heap ({@link SegmentoCitas}). Las citas archivadas
+ * se siguen contando, buscando por ID y listando en la tabla paginada, pero son de solo lectura
+ * y no aparecen en {@link #getCitas()} ni en {@link #listarCitas()}.</p>
  */
 public class CitaRepository {
 
-    private static CitaRepository instancia;
-    private final ObservableList<Cita> citas;
+    private final VistaObservable<Cita> citas = new VistaObservable<>(Cita::getId);
+    private final IndiceDisponibilidad disponibilidad = new IndiceDisponibilidad();
+
+    // Candados por cita y por agenda de médico; siempre se toma primero el de la cita
+    private final BloqueoEstriado bloqueoCitas = new BloqueoEstriado(64);
+    private final BloqueoEstriado bloqueoMedicos = new BloqueoEstriado(64);
+
+    // idCita -> cita
+    private final Map<Long, Cita> porId = new ConcurrentHashMap<>();
+
+    // Citas ordenadas por fecha y hora para la tabla paginada; la clave se guarda aparte
+    // porque la cita puede llegar ya modificada a actualizarCita
+    private final ConcurrentSkipListMap<ClaveFecha, Cita> porFecha = new ConcurrentSkipListMap<>();
+    private final Map<Long, ClaveFecha> clavesFecha = new ConcurrentHashMap<>();
+
+    // idMedico / idPaciente -> sus citas en memoria ordenadas por fecha y hora
+    private final Map<Long, ConcurrentSkipListMap<ClaveFecha, Cita>> porMedico = new ConcurrentHashMap<>();
+    private final Map<Long, ConcurrentSkipListMap<ClaveFecha, Cita>> porPaciente = new ConcurrentHashMap<>();
+
+    private final List<OyenteRepositorio<Cita>> oyentes = new CopyOnWriteArrayList<>();
+
+    // Citas archivadas, de la más antigua a la más reciente. Los conteos y la paginación leen
+    // con el candado de lectura para no ver una cita en memoria y archivada a la vez
+    private final List<SegmentoCitas> historico = new CopyOnWriteArrayList<>();
+    private final ReentrantReadWriteLock bloqueoHistorico = new ReentrantReadWriteLock();
+    private final List<Consumer<SegmentoCitas>> oyentesHistorico = new CopyOnWriteArrayList<>();
+    private volatile AlmacenHistorico almacen = nuevo -> nuevo;
+
+    // IDs de las citas que se están archivando; mientras tanto no se pueden modificar
+    private final Set<Long> archivando = ConcurrentHashMap.newKeySet();
+
+    // Llamadas y latencias de las operaciones que hacen trabajo; las que solo devuelven un campo
+    // o delegan en otra sobrecarga no se miden, para no contar dos veces la misma llamada
+    private final MetricaOperacion metricaListarCitas = metrica("listarCitas");
+    private final MetricaOperacion metricaGuardarCita = metrica("guardarCita");
+    private final MetricaOperacion metricaGuardarCitas = metrica("guardarCitas");
+    private final MetricaOperacion metricaReservarCita = metrica("reservarCita");
+    private final MetricaOperacion metricaEliminarCita = metrica("eliminarCita");
+    private final MetricaOperacion metricaActualizarCita = metrica("actualizarCita");
+    private final MetricaOperacion metricaBuscarCitaPorId = metrica("buscarCitaPorId");
+    private final MetricaOperacion metricaContarCitas = metrica("contarCitas");
+    private final MetricaOperacion metricaListarPaginaDespuesDe = metrica("listarPaginaDespuesDe");
+    private final MetricaOperacion metricaListarPaginaAntesDe = metrica("listarPaginaAntesDe");
+    private final MetricaOperacion metricaListarCitasDeMedico = metrica("listarCitasDeMedico");
+    private final MetricaOperacion metricaListarCitasDePaciente = metrica("listarCitasDePaciente");
+    private final MetricaOperacion metricaContarCitasDeMedico = metrica("contarCitasDeMedico");
+    private final MetricaOperacion metricaContarCitasDePaciente = metrica("contarCitasDePaciente");
+    private final MetricaOperacion metricaExisteCitaEnHorario = metrica("existeCitaEnHorario");
+    private final MetricaOperacion metricaBuscarCitasSolapadas = metrica("buscarCitasSolapadas");
+    private final MetricaOperacion metricaBuscarCuposLibres = metrica("buscarCuposLibres");
+    private final MetricaOperacion metricaCargarDatosEjemplo = metrica("cargarDatosEjemplo");
+    private final MetricaOperacion metricaCargarHistorico = metrica("cargarHistorico");
+    private final MetricaOperacion metricaArchivarAnterioresA = metrica("archivarAnterioresA");
+
+    /** Días hacia adelante que revisa {@link #buscarCuposLibres}. */
+    public static final int DIAS_BUSQUEDA_CUPOS = 90;
+    // Los cupos empiezan en múltiplos de estos minutos
+    private static final int PASO_CUPOS_MINUTOS = 5;
 
     /**
-     * Constructor privado que inicializa la lista de citas.
+     * Constructor privado.
+     * El repositorio nace vacío; los datos se restauran del disco o se cargan los de ejemplo.
      */
     private CitaRepository() {
-        citas = FXCollections.observableArrayList();
-        cargarDatosEjemplo();
+    }
+
+    // La JVM inicializa la clase contenedora una sola vez y de forma segura entre hilos
+    private static final class Contenedor {
+        private static final CitaRepository INSTANCIA = new CitaRepository();
     }
 
     /**
      * Devuelve la instancia única del repositorio.
      */
     public static CitaRepository getInstancia() {
-        if (instancia == null) {
-            instancia = new CitaRepository();
-        }
-        return instancia;
+        return Contenedor.INSTANCIA;
+    }
+
+    private static MetricaOperacion metrica(String metodo) {
+        return RegistroMetricas.getInstancia().operacion("CitaRepository." + metodo);
     }
 
     /**
      * Retorna la lista observable de citas.
      */
     public ObservableList<Cita> getCitas() {
-        return citas;
+        return citas.getLista();
+    }
+
+    /**
+     * Copia de las citas en memoria (sin las archivadas); se puede usar desde cualquier hilo.
+     */
+    public List<Cita> listarCitas() {
+        return metricaListarCitas.medir(() -> List.copyOf(porId.values()));
+    }
+
+    /**
+     * Registra un oyente que será avisado de cada alta, actualización y eliminación.
+     */
+    public void agregarOyente(OyenteRepositorio<Cita> oyente) {
+        oyentes.add(oyente);
+    }
+
+    /**
+     * Deja de avisar al oyente.
+     */
+    public void quitarOyente(OyenteRepositorio<Cita> oyente) {
+        oyentes.remove(oyente);
     }
 
     /**
      * Guarda una nueva cita en el repositorio.
+     * Si ya existe una cita con el mismo ID se trata como una actualización;
+     * si ya está archivada no se hace nada.
      */
     public void guardarCita(Cita cita) {
-        citas.add(cita);
+        long inicio = metricaGuardarCita.iniciar();
+        try {
+            bloqueoCitas.ejecutar(() -> {
+                if (porId.containsKey(cita.getId())) {
+                    reemplazar(cita, false);
+                    return;
+                }
+                if (enHistorico(cita.getId())) return;
+                bloqueoMedicos.ejecutar(() -> disponibilidad.agregar(cita), cita.getMedico().getId());
+                porId.put(cita.getId(), cita);
+                ordenarPorFecha(cita);
+                citas.agregar(cita);
+                oyentes.forEach(o -> o.alAgregar(cita));
+            }, cita.getId());
+        } finally {
+            metricaGuardarCita.terminar(inicio);
+        }
+    }
+
+    /**
+     * Guarda varias citas y las publica en la lista observable con un solo evento.
+     * Las que ya existen (mismo ID) se actualizan como en {@link #guardarCita} y las que
+     * ya están archivadas se ignoran. Sirve para restaurar datos desde otro hilo sin encolar un evento por cita.
+     */
+    public void guardarCitas(List<Cita> lote) {
+        long inicio = metricaGuardarCitas.iniciar();
+        try {
+            List<Cita> nuevas = new ArrayList<>(lote.size());
+            for (Cita cita : lote) {
+                bloqueoCitas.ejecutar(() -> {
+                    if (porId.containsKey(cita.getId())) {
+                        reemplazar(cita, false);
+                        return;
+                    }
+                    if (enHistorico(cita.getId())) return;
+                    bloqueoMedicos.ejecutar(() -> disponibilidad.agregar(cita), cita.getMedico().getId());
+                    porId.put(cita.getId(), cita);
+                    ordenarPorFecha(cita);
+                    nuevas.add(cita);
+                    oyentes.forEach(o -> o.alAgregar(cita));
+                }, cita.getId());
+            }
+            // Si otro hilo eliminó alguna mientras tanto, no se publica
+            nuevas.removeIf(c -> porId.get(c.getId()) != c);
+            citas.agregarTodos(nuevas);
+        } finally {
+            metricaGuardarCitas.terminar(inicio);
+        }
+    }
+
+    /**
+     * Guarda la cita solo si el médico no tiene otra que se cruce con ella y si el médico y el
+     * paciente siguen registrados. La verificación y el registro ocurren bajo el mismo candado del
+     * médico, y con los candados que usan {@link MedicoRepository#eliminarMedico} y
+     * {@link PacienteRepository#eliminarPaciente}, así que no puede quedar una cita sin su persona.
+     *
+     * @return true si la cita quedó registrada.
+     */
+    public boolean reservarCita(Cita cita) {
+        long inicio = metricaReservarCita.iniciar();
+        try {
+            return bloqueoCitas.escribir(() -> {
+                if (porId.containsKey(cita.getId()) || enHistorico(cita.getId())) return false;
+
+                long medicoId = cita.getMedico().getId();
+                // La cita queda indexada antes de soltar los candados de las personas, así que una
+                // eliminación que llegue después la encuentra
+                return MedicoRepository.getInstancia().siSigueRegistrado(medicoId,
+                        () -> PacienteRepository.getInstancia().siSigueRegistrado(cita.getPaciente().getId(), () -> {
+                            boolean libre = bloqueoMedicos.escribir(() -> {
+                                if (disponibilidad.estaOcupado(medicoId, cita.getFecha(), cita.getHora(),
+                                        cita.getDuracionMinutos(), null)) {
+                                    return false;
+                                }
+                                disponibilidad.agregar(cita);
+                                return true;
+                            }, medicoId);
+
+                            if (libre) {
+                                porId.put(cita.getId(), cita);
+                                ordenarPorFecha(cita);
+                                citas.agregar(cita);
+                                oyentes.forEach(o -> o.alAgregar(cita));
+                            }
+                            return libre;
+                        }));
+            }, cita.getId());
+        } finally {
+            metricaReservarCita.terminar(inicio);
+        }
     }
 
     /**
      * Elimina una cita según su ID.
+     * La última cita de la lista ocupa el lugar de la eliminada, así no se desplaza el resto.
+     * Las citas archivadas (o que se están archivando) no se eliminan.
      */
     public void eliminarCita(Cita cita) {
-        citas.remove(cita);
+        long inicio = metricaEliminarCita.iniciar();
+        try {
+            bloqueoCitas.ejecutar(() -> {
+                if (archivando.contains(cita.getId())) return;
+                Cita eliminada = porId.remove(cita.getId());
+                if (eliminada == null) return;
+
+                bloqueoMedicos.ejecutar(() -> disponibilidad.quitar(cita.getId()),
+                        disponibilidad.medicoIndexado(cita.getId()));
+                desordenar(cita.getId());
+                citas.quitar(eliminada);
+                oyentes.forEach(o -> o.alEliminar(eliminada));
+            }, cita.getId());
+        } finally {
+            metricaEliminarCita.terminar(inicio);
+        }
+    }
+
+    /**
+     * Reemplaza la cita con el mismo ID por {@code citaActualizada}, que trae los datos nuevos,
+     * en su posición de la lista observable. El cruce con otras citas del médico se verifica
+     * bajo el mismo candado que el cambio, y el médico y el paciente nuevos deben seguir
+     * registrados, como en {@link #reservarCita}. Conviene pasar una instancia nueva con el mismo
+     * ID en lugar de modificar la guardada: la anterior no se toca, así que quien la esté leyendo
+     * en otro hilo sigue viendo sus datos completos.
+     *
+     * @return false si la cita ya no está en memoria, está archivada (o archivándose), se cruza
+     * con otra del médico o su médico o paciente ya no está registrado; en ese caso no se cambia nada.
+     */
+    public boolean actualizarCita(Cita citaActualizada) {
+        long inicio = metricaActualizarCita.iniciar();
+        try {
+            return reemplazar(citaActualizada, true);
+        } finally {
+            metricaActualizarCita.terminar(inicio);
+        }
+    }
+
+    // guardarCita y guardarCitas reemplazan sin verificar cruces ni personas, igual que cuando agregan
+    private boolean reemplazar(Cita citaActualizada, boolean verificar) {
+        long id = citaActualizada.getId();
+        long medicoId = citaActualizada.getMedico().getId();
+        long pacienteId = citaActualizada.getPaciente().getId();
+        return bloqueoCitas.escribir(() -> {
+            if (!porId.containsKey(id) || archivando.contains(id)) return false;
+
+            BooleanSupplier cambio = () -> {
+                // La cita pudo cambiar de médico: se bloquean la agenda anterior y la nueva
+                boolean libre = bloqueoMedicos.escribir(() -> {
+                    if (verificar && disponibilidad.estaOcupado(medicoId, citaActualizada.getFecha(),
+                            citaActualizada.getHora(), citaActualizada.getDuracionMinutos(), id)) {
+                        return false;
+                    }
+                    disponibilidad.actualizar(citaActualizada);
+                    return true;
+                }, disponibilidad.medicoIndexado(id), medicoId);
+                if (!libre) return false;
+
+                porId.put(id, citaActualizada);
+                ordenarPorFecha(citaActualizada);
+                citas.reemplazar(citaActualizada); // reemplazar en la lista observable
+                oyentes.forEach(o -> o.alActualizar(citaActualizada));
+                return true;
+            };
+            if (!verificar) return cambio.getAsBoolean();
+            // Igual que al reservar: la cita queda reindexada antes de soltar los candados de las personas
+            return MedicoRepository.getInstancia().siSigueRegistrado(medicoId,
+                    () -> PacienteRepository.getInstancia().siSigueRegistrado(pacienteId, cambio));
+        }, id);
+    }
+
+    /**
+     * Verifica si existe una cita con el ID dado, en memoria o archivada.
+     */
+    public boolean existeCita(Long idCita) {
+        // Al archivar, el segmento se agrega antes de quitar las citas de memoria
+        return idCita != null && (porId.containsKey(idCita) || enHistorico(idCita));
+    }
+
+    /**
+     * Busca una cita por su ID. Si está archivada se devuelve una copia de solo lectura.
+     */
+    public Optional<Cita> buscarCitaPorId(Long idCita) {
+        long inicio = metricaBuscarCitaPorId.iniciar();
+        try {
+            if (idCita == null) return Optional.empty();
+            Cita cita = porId.get(idCita);
+            if (cita != null) return Optional.of(cita);
+            for (SegmentoCitas segmento : historico) {
+                int fila = segmento.buscarFila(idCita);
+                if (fila >= 0) return Optional.ofNullable(materializar(segmento, fila));
+            }
+            return Optional.empty();
+        } finally {
+            metricaBuscarCitaPorId.terminar(inicio);
+        }
+    }
+
+    /**
+     * Cantidad total de citas registradas, contando las archivadas.
+     */
+    public int contarCitas() {
+        bloqueoHistorico.readLock().lock();
+        try {
+            int cantidad = porId.size();
+            for (SegmentoCitas segmento : historico) cantidad += segmento.getFilas();
+            return cantidad;
+        } finally {
+            bloqueoHistorico.readLock().unlock();
+        }
+    }
+
+    /**
+     * Cantidad de citas que cumplen el filtro, contando las archivadas; sin filtro no recorre nada.
+     * En las archivadas el filtro se prueba con los IDs de médico y paciente, sin reconstruirlas.
+     */
+    public int contarCitas(FiltroCitas filtro) {
+        long inicio = metricaContarCitas.iniciar();
+        bloqueoHistorico.readLock().lock();
+        try {
+            if (filtro == null) {
+                int cantidad = porId.size();
+                for (SegmentoCitas segmento : historico) cantidad += segmento.getFilas();
+                return cantidad;
+            }
+            Seleccion seleccion = new Seleccion(filtro);
+            int cantidad = 0;
+            for (SegmentoCitas segmento : historico) {
+                for (int fila = 0; fila < segmento.getFilas(); fila++) {
+                    if (seleccion.acepta(segmento.getMedicoId(fila), segmento.getPacienteId(fila))) cantidad++;
+                }
+            }
+            for (ClaveFecha clave : porFecha.keySet()) {
+                if (seleccion.acepta(clave.medicoId, clave.pacienteId)) cantidad++;
+            }
+            return cantidad;
+        } finally {
+            bloqueoHistorico.readLock().unlock();
+            metricaContarCitas.terminar(inicio);
+        }
+    }
+
+    /**
+     * Hasta {@code cantidad} citas que cumplen el filtro y van después de {@code referencia} en el
+     * orden de fecha, hora e ID (desde la primera si es null), saltando antes las {@code saltar}
+     * siguientes. Cada fuente empieza buscando la posición de la referencia, así que pedir la
+     * página que sigue a otra no recorre las anteriores. Las archivadas se intercalan por fecha
+     * con las de memoria y van como copias de solo lectura; solo se reconstruyen las de la página.
+     */
+    public List<Cita> listarPaginaDespuesDe(Cita referencia, int saltar, int cantidad, FiltroCitas filtro) {
+        return metricaListarPaginaDespuesDe.medir(() -> listarPagina(referencia, false, saltar, cantidad, filtro));
+    }
+
+    /**
+     * Como {@link #listarPaginaDespuesDe} pero hacia atrás: las citas que van antes de
+     * {@code referencia} (desde la última si es null). La página se devuelve en orden ascendente.
+     */
+    public List<Cita> listarPaginaAntesDe(Cita referencia, int saltar, int cantidad, FiltroCitas filtro) {
+        return metricaListarPaginaAntesDe.medir(() -> {
+            List<Cita> pagina = listarPagina(referencia, true, saltar, cantidad, filtro);
+            Collections.reverse(pagina);
+            return pagina;
+        });
+    }
+
+    private List<Cita> listarPagina(Cita referencia, boolean haciaAtras, int saltar, int cantidad, FiltroCitas filtro) {
+        ClaveFecha desde = referencia == null ? null : new ClaveFecha(
+                referencia.getFecha().toEpochDay(), referencia.getHora().toSecondOfDay(), referencia.getId());
+        bloqueoHistorico.readLock().lock();
+        try {
+            Seleccion seleccion = filtro == null ? null : new Seleccion(filtro);
+            RecorridoFecha recorrido = new RecorridoFecha(historico, porFecha, desde, haciaAtras);
+            List<Cita> pagina = new ArrayList<>(cantidad);
+            int saltadas = 0;
+            while (pagina.size() < cantidad && recorrido.siguiente()) {
+                if (seleccion != null && !seleccion.acepta(recorrido.medicoId(), recorrido.pacienteId())) continue;
+                if (saltadas++ < saltar) continue;
+                Cita c = recorrido.cita();
+                if (c != null) pagina.add(c);
+            }
+            return pagina;
+        } finally {
+            bloqueoHistorico.readLock().unlock();
+        }
+    }
+
+    /**
+     * Citas del médico con fecha entre {@code desde} y {@code hasta} (inclusive; null es sin límite),
+     * ordenadas por fecha y hora. Solo recorre las citas del médico; las archivadas van como
+     * copias de solo lectura.
+     */
+    public List<Cita> listarCitasDeMedico(long medicoId, LocalDate desde, LocalDate hasta) {
+        return metricaListarCitasDeMedico.medir(
+                () -> listarDePersona(porMedico, medicoId, desde, hasta, SegmentoCitas::recorrerMedico));
+    }
+
+    /**
+     * Citas del paciente con fecha entre {@code desde} y {@code hasta} (inclusive; null es sin límite),
+     * ordenadas por fecha y hora. Solo recorre las citas del paciente; las archivadas van como
+     * copias de solo lectura.
+     */
+    public List<Cita> listarCitasDePaciente(long pacienteId, LocalDate desde, LocalDate hasta) {
+        return metricaListarCitasDePaciente.medir(
+                () -> listarDePersona(porPaciente, pacienteId, desde, hasta, SegmentoCitas::recorrerPaciente));
+    }
+
+    /**
+     * Cantidad de citas del médico, contando las archivadas.
+     */
+    public int contarCitasDeMedico(long medicoId) {
+        long inicio = metricaContarCitasDeMedico.iniciar();
+        bloqueoHistorico.readLock().lock();
+        try {
+            int cantidad = contarEnMemoria(porMedico, medicoId);
+            for (SegmentoCitas segmento : historico) cantidad += segmento.contarMedico(medicoId);
+            return cantidad;
+        } finally {
+            bloqueoHistorico.readLock().unlock();
+            metricaContarCitasDeMedico.terminar(inicio);
+        }
+    }
+
+    /**
+     * Cantidad de citas del paciente, contando las archivadas.
+     */
+    public int contarCitasDePaciente(long pacienteId) {
+        long inicio = metricaContarCitasDePaciente.iniciar();
+        bloqueoHistorico.readLock().lock();
+        try {
+            int cantidad = contarEnMemoria(porPaciente, pacienteId);
+            for (SegmentoCitas segmento : historico) cantidad += segmento.contarPaciente(pacienteId);
+            return cantidad;
+        } finally {
+            bloqueoHistorico.readLock().unlock();
+            metricaContarCitasDePaciente.terminar(inicio);
+        }
     }
 
-    public void actualizarCita(Cita citaActualizada) {
-        for (int i = 0; i < citas.size(); i++) {
-            if (citas.get(i).getId().equals(citaActualizada.getId())) {
-                citas.set(i, citaActualizada); // reemplazar en la lista observable
-                return;
+    /**
+     * Recorrido de las filas de una persona dentro de un segmento.
+     */
+    private interface RecorridoPersona {
+        void recorrer(SegmentoCitas segmento, long personaId, IntConsumer consumidor);
+    }
+
+    private List<Cita> listarDePersona(Map<Long, ConcurrentSkipListMap<ClaveFecha, Cita>> indice, long personaId,
+                                       LocalDate desde, LocalDate hasta, RecorridoPersona recorrido) {
+        long primerDia = desde == null ? Long.MIN_VALUE : desde.toEpochDay();
+        long ultimoDia = hasta == null ? Long.MAX_VALUE : hasta.toEpochDay();
+        List<Cita> resultado = new ArrayList<>();
+
+        bloqueoHistorico.readLock().lock();
+        try {
+            for (SegmentoCitas segmento : historico) {
+                // Un segmento con corte anterior al inicio del rango no tiene nada que aportar
+                if (segmento.getCorte().toEpochDay() <= primerDia) continue;
+                recorrido.recorrer(segmento, personaId, fila -> {
+                    long dia = segmento.getDia(fila);
+                    if (dia < primerDia || dia > ultimoDia) return;
+                    Cita c = materializar(segmento, fila);
+                    if (c != null) resultado.add(c);
+                });
+            }
+            boolean conArchivadas = !resultado.isEmpty();
+
+            ConcurrentSkipListMap<ClaveFecha, Cita> citasPersona = indice.get(personaId);
+            if (citasPersona != null) {
+                Map<ClaveFecha, Cita> rango = citasPersona;
+                if (desde != null && hasta != null) rango = citasPersona.subMap(ClaveFecha.inicioDe(desde), true, ClaveFecha.finDe(hasta), true);
+                else if (desde != null) rango = citasPersona.tailMap(ClaveFecha.inicioDe(desde), true);
+                else if (hasta != null) rango = citasPersona.headMap(ClaveFecha.finDe(hasta), true);
+                resultado.addAll(rango.values());
             }
+            // Las citas que llegaron tarde a un segmento pueden caer entre las de otro
+            if (conArchivadas) {
+                resultado.sort(Comparator.comparing(Cita::getFecha).thenComparing(Cita::getHora)
+                        .thenComparingLong(Cita::getId));
+            }
+            return resultado;
+        } finally {
+            bloqueoHistorico.readLock().unlock();
         }
     }
 
+    private static int contarEnMemoria(Map<Long, ConcurrentSkipListMap<ClaveFecha, Cita>> indice, long personaId) {
+        ConcurrentSkipListMap<ClaveFecha, Cita> citasPersona = indice.get(personaId);
+        return citasPersona == null ? 0 : citasPersona.size();
+    }
+
+    // ------------------------------------------------------------ ELIMINACIÓN EN CASCADA
+
+    /**
+     * Cantidad de citas archivadas del médico; mientras tenga alguna no se puede eliminar.
+     */
+    int contarArchivadasDeMedico(long medicoId) {
+        int cantidad = 0;
+        for (SegmentoCitas segmento : historico) cantidad += segmento.contarMedico(medicoId);
+        return cantidad;
+    }
+
     /**
-     * Busca una cita por su ID.
+     * Cantidad de citas archivadas del paciente; mientras tenga alguna no se puede eliminar.
      */
-    public boolean existeCita(String idCita) {
-        return citas.stream()
-                .anyMatch(cita ->  cita.getId().equals(idCita));
+    int contarArchivadasDePaciente(long pacienteId) {
+        int cantidad = 0;
+        for (SegmentoCitas segmento : historico) cantidad += segmento.contarPaciente(pacienteId);
+        return cantidad;
+    }
+
+    /**
+     * Ejecuta la acción sin que se archive nada mientras tanto: usa el mismo monitor que
+     * {@link #archivarAnterioresA}. Las eliminaciones de personas lo usan para que entre contar
+     * sus citas archivadas y eliminarlas no llegue ninguna al histórico.
+     */
+    synchronized boolean sinArchivar(BooleanSupplier accion) {
+        return accion.getAsBoolean();
+    }
+
+    /**
+     * Elimina las citas en memoria del médico, una por una como {@link #eliminarCita}.
+     *
+     * @return la cantidad de citas eliminadas.
+     */
+    int eliminarCitasDeMedico(long medicoId) {
+        return eliminarDePersona(porMedico, medicoId);
+    }
+
+    /**
+     * Elimina las citas en memoria del paciente, una por una como {@link #eliminarCita}.
+     *
+     * @return la cantidad de citas eliminadas.
+     */
+    int eliminarCitasDePaciente(long pacienteId) {
+        return eliminarDePersona(porPaciente, pacienteId);
+    }
+
+    private int eliminarDePersona(Map<Long, ConcurrentSkipListMap<ClaveFecha, Cita>> indice, long personaId) {
+        ConcurrentSkipListMap<ClaveFecha, Cita> citasPersona = indice.get(personaId);
+        if (citasPersona == null) return 0;
+        List<Cita> aEliminar = List.copyOf(citasPersona.values());
+        aEliminar.forEach(this::eliminarCita);
+        return aEliminar.size();
     }
 
     /**
      * Verifica horario pero ignorando una cita por ID (útil para actualizar).
+     * Supone una cita de duración predeterminada que empieza a la hora dada.
+     */
+    public boolean existeCitaEnHorario(Medico medico, LocalDate fecha, LocalTime hora, Long idIgnorar) {
+        return existeCitaEnHorario(medico, fecha, hora, Cita.DURACION_PREDETERMINADA, idIgnorar);
+    }
+
+    /**
+     * Verifica si el intervalo [hora, hora + duración) se cruza con otra cita del médico.
+     * Consulta el índice de disponibilidad, sin recorrer la lista de citas.
+     */
+    public boolean existeCitaEnHorario(Medico medico, LocalDate fecha, LocalTime hora, int duracionMinutos, Long idIgnorar) {
+        return metricaExisteCitaEnHorario.medir(() -> bloqueoMedicos.leer(medico.getId(),
+                () -> disponibilidad.estaOcupado(medico.getId(), fecha, hora, duracionMinutos, idIgnorar)));
+    }
+
+    /**
+     * Citas del médico que se cruzan con el intervalo [hora, hora + duración), ordenadas por hora de inicio.
+     */
+    public List<Cita> buscarCitasSolapadas(Medico medico, LocalDate fecha, LocalTime hora, int duracionMinutos, Long idIgnorar) {
+        return metricaBuscarCitasSolapadas.medir(() -> bloqueoMedicos.leer(medico.getId(),
+                () -> disponibilidad.solapadas(medico.getId(), fecha, hora, duracionMinutos, idIgnorar)));
+    }
+
+    /**
+     * Los {@code cantidad} primeros horarios libres, desde {@code desde}, en los que alguno de los
+     * médicos puede atender una cita de la duración dada dentro de su jornada. Se ordenan por fecha
+     * y hora; los médicos se revisan en paralelo y cada uno salta sus tramos ocupados sin probar
+     * minuto a minuto. Se buscan como máximo {@link #DIAS_BUSQUEDA_CUPOS} días hacia adelante.
+     */
+    public List<CupoLibre> buscarCuposLibres(Collection<Medico> medicos, LocalDateTime desde,
+                                             int duracionMinutos, int cantidad) {
+        long inicio = metricaBuscarCuposLibres.iniciar();
+        try {
+            if (cantidad <= 0 || medicos.isEmpty()) return List.of();
+            int duracion = Math.max(1, duracionMinutos);
+
+            Stream<Medico> revisados = medicos.size() > 1 ? medicos.parallelStream() : medicos.stream();
+            return revisados
+                    .flatMap(m -> cuposDeMedico(m, desde, duracion, cantidad).stream())
+                    .sorted(Comparator.comparing(CupoLibre::getFecha)
+                            .thenComparing(CupoLibre::getHora)
+                            .thenComparingLong(c -> c.getMedico().getId()))
+                    .limit(cantidad)
+                    .collect(Collectors.toList());
+        } finally {
+            metricaBuscarCuposLibres.terminar(inicio);
+        }
+    }
+
+    private List<CupoLibre> cuposDeMedico(Medico medico, LocalDateTime desde, int duracion, int cantidad) {
+        Jornada jornada = Jornada.de(medico);
+        List<CupoLibre> cupos = new ArrayList<>(cantidad);
+        int minutoInicial = desde.getHour() * 60 + desde.getMinute() + (desde.getSecond() > 0 ? 1 : 0);
+
+        LocalDate fecha = desde.toLocalDate();
+        for (int d = 0; d < DIAS_BUSQUEDA_CUPOS && cupos.size() < cantidad; d++, fecha = fecha.plusDays(1)) {
+            LocalDate dia = fecha;
+            int inicio = d == 0 ? Math.max(jornada.inicio, minutoInicial) : jornada.inicio;
+            // Un día a la vez, para no retener el candado del médico durante toda la búsqueda
+            bloqueoMedicos.leer(medico.getId(), () -> disponibilidad.huecosLibres(
+                    medico.getId(), dia, inicio, jornada.fin, duracion, PASO_CUPOS_MINUTOS, cantidad - cupos.size(),
+                    minuto -> cupos.add(new CupoLibre(medico, dia, LocalTime.of(minuto / 60, minuto % 60), duracion))));
+        }
+        return cupos;
+    }
+
+    // ------------------------------------------------------------ HISTÓRICO
+
+    /**
+     * Guarda de forma durable un segmento recién armado antes de que sus citas salgan de memoria.
+     */
+    public interface AlmacenHistorico {
+        /**
+         * @return el segmento que queda en uso; puede ser el mismo o uno leído del archivo escrito.
+         * @throws java.io.UncheckedIOException si no se pudo guardar; las citas quedan en memoria.
+         */
+        SegmentoCitas guardar(SegmentoCitas nuevo);
+    }
+
+    /**
+     * Cambia dónde se guardan los segmentos nuevos; por omisión solo quedan en memoria directa.
+     */
+    public void usarAlmacenHistorico(AlmacenHistorico almacen) {
+        this.almacen = almacen;
+    }
+
+    /**
+     * Avisa cada segmento que se agrega al histórico, después de que sus citas dejaron la memoria.
+     */
+    public void agregarOyenteHistorico(Consumer<SegmentoCitas> oyente) {
+        oyentesHistorico.add(oyente);
+    }
+
+    /**
+     * Segmentos del histórico, del más antiguo al más reciente.
+     */
+    public List<SegmentoCitas> getHistorico() {
+        return List.copyOf(historico);
+    }
+
+    /**
+     * Indica si la cita está archivada o se está archivando, es decir, si ya no se puede modificar.
+     */
+    public boolean esHistorica(Long idCita) {
+        return idCita != null && (archivando.contains(idCita) || enHistorico(idCita));
+    }
+
+    /**
+     * Agrega segmentos ya guardados, por ejemplo al restaurar los datos.
+     * Si alguna de sus citas estaba en memoria, se quita de ahí como eliminada.
+     */
+    public void cargarHistorico(Collection<SegmentoCitas> segmentos) {
+        long inicio = metricaCargarHistorico.iniciar();
+        try {
+            if (segmentos.isEmpty()) return;
+            bloqueoHistorico.writeLock().lock();
+            try {
+                historico.addAll(segmentos);
+            } finally {
+                bloqueoHistorico.writeLock().unlock();
+            }
+            segmentos.forEach(s -> oyentesHistorico.forEach(o -> o.accept(s)));
+
+            for (Cita cita : List.copyOf(porId.values())) {
+                if (enHistorico(cita.getId())) bloqueoCitas.ejecutar(() -> quitarDeMemoria(cita, false), cita.getId());
+            }
+        } finally {
+            metricaCargarHistorico.terminar(inicio);
+        }
+    }
+
+    /**
+     * Pasa al histórico las citas con fecha anterior a {@code corte}. Cada cita se copia con su
+     * candado tomado y desde ese momento no se puede modificar; cuando el segmento quedó guardado
+     * en el {@link AlmacenHistorico}, las citas salen de memoria y los oyentes reciben
+     * {@link OyenteRepositorio#alArchivar}. Si hay menos de {@code minimo} citas no se hace nada.
+     *
+     * @return la cantidad de citas archivadas.
+     * @throws java.io.UncheckedIOException si el segmento no se pudo guardar; las citas siguen en memoria.
+     */
+    public synchronized int archivarAnterioresA(LocalDate corte, int minimo) {
+        long inicio = metricaArchivarAnterioresA.iniciar();
+        try {
+            List<Cita> candidatas = new ArrayList<>(porFecha.headMap(ClaveFecha.inicioDe(corte)).values());
+            if (candidatas.size() < Math.max(1, minimo)) return 0;
+
+            int archivadas = 0;
+            for (int desde = 0; desde < candidatas.size(); desde += SegmentoCitas.MAX_FILAS) {
+                List<Cita> tramo = candidatas.subList(desde, Math.min(candidatas.size(), desde + SegmentoCitas.MAX_FILAS));
+                archivadas += archivar(tramo, corte);
+            }
+            return archivadas;
+        } finally {
+            metricaArchivarAnterioresA.terminar(inicio);
+        }
+    }
+
+    private int archivar(List<Cita> candidatas, LocalDate corte) {
+        SegmentoCitas.Constructor constructor = new SegmentoCitas.Constructor(corte);
+        List<Cita> congeladas = new ArrayList<>(candidatas.size());
+        try {
+            for (Cita cita : candidatas) {
+                bloqueoCitas.ejecutar(() -> {
+                    // Pudo eliminarse o cambiar de fecha desde que se listó
+                    if (porId.get(cita.getId()) != cita || !cita.getFecha().isBefore(corte)) return;
+                    constructor.agregar(cita);
+                    archivando.add(cita.getId());
+                    congeladas.add(cita);
+                }, cita.getId());
+            }
+            if (congeladas.isEmpty()) return 0;
+
+            SegmentoCitas segmento = almacen.guardar(constructor.construir());
+
+            bloqueoHistorico.writeLock().lock();
+            try {
+                historico.add(segmento);
+                // Nadie más toca las citas congeladas, así que no hace falta su candado
+                congeladas.forEach(c -> quitarDeMemoria(c, true));
+            } finally {
+                bloqueoHistorico.writeLock().unlock();
+            }
+            citas.quitarTodos(congeladas);
+            oyentesHistorico.forEach(o -> o.accept(segmento));
+            return congeladas.size();
+        } finally {
+            congeladas.forEach(c -> archivando.remove(c.getId()));
+        }
+    }
+
+    private void quitarDeMemoria(Cita cita, boolean archivada) {
+        if (!porId.remove(cita.getId(), cita)) return;
+        bloqueoMedicos.ejecutar(() -> disponibilidad.quitar(cita.getId()),
+                disponibilidad.medicoIndexado(cita.getId()));
+        desordenar(cita.getId());
+        if (archivada) {
+            oyentes.forEach(o -> o.alArchivar(cita));
+        } else {
+            citas.quitar(cita);
+            oyentes.forEach(o -> o.alEliminar(cita));
+        }
+    }
+
+    private boolean enHistorico(long idCita) {
+        for (SegmentoCitas segmento : historico) {
+            if (segmento.buscarFila(idCita) >= 0) return true;
+        }
+        return false;
+    }
+
+    private static Cita materializar(SegmentoCitas segmento, int fila) {
+        return segmento.materializar(fila,
+                id -> MedicoRepository.getInstancia().buscarMedicoPorId(id).orElse(null),
+                id -> PacienteRepository.getInstancia().buscarPacientePorId(id).orElse(null));
+    }
+
+    // Se llama con el candado de la cita tomado
+    private void ordenarPorFecha(Cita cita) {
+        ClaveFecha nueva = new ClaveFecha(cita);
+        ClaveFecha anterior = clavesFecha.put(cita.getId(), nueva);
+        if (anterior != null) {
+            porFecha.remove(anterior);
+            quitarDePersona(porMedico, anterior.medicoId, anterior);
+            quitarDePersona(porPaciente, anterior.pacienteId, anterior);
+        }
+        porFecha.put(nueva, cita);
+        // La cita pudo cambiar de médico o de paciente: se indexa con los de ahora
+        porMedico.computeIfAbsent(nueva.medicoId, id -> new ConcurrentSkipListMap<>()).put(nueva, cita);
+        porPaciente.computeIfAbsent(nueva.pacienteId, id -> new ConcurrentSkipListMap<>()).put(nueva, cita);
+    }
+
+    // Se llama con el candado de la cita tomado
+    private void desordenar(long idCita) {
+        ClaveFecha clave = clavesFecha.remove(idCita);
+        if (clave == null) return;
+        porFecha.remove(clave);
+        quitarDePersona(porMedico, clave.medicoId, clave);
+        quitarDePersona(porPaciente, clave.pacienteId, clave);
+    }
+
+    // La agenda vacía se descarta dentro del mismo compute, así no se pierde un alta simultánea
+    private static void quitarDePersona(Map<Long, ConcurrentSkipListMap<ClaveFecha, Cita>> indice,
+                                        long personaId, ClaveFecha clave) {
+        indice.computeIfPresent(personaId, (id, citasPersona) -> {
+            citasPersona.remove(clave);
+            return citasPersona.isEmpty() ? null : citasPersona;
+        });
+    }
+
+    /**
+     * Fecha, hora e ID de una cita en el momento en que se indexó, junto con su médico y
+     * su paciente de ese momento; el orden solo usa fecha, hora e ID.
+     */
+    private static final class ClaveFecha implements Comparable<ClaveFecha> {
+        private final long dia;
+        private final int segundo;
+        private final long id;
+        private final long medicoId;
+        private final long pacienteId;
+
+        private ClaveFecha(Cita cita) {
+            this.dia = cita.getFecha().toEpochDay();
+            this.segundo = cita.getHora().toSecondOfDay();
+            this.id = cita.getId();
+            this.medicoId = cita.getMedico().getId();
+            this.pacienteId = cita.getPaciente().getId();
+        }
+
+        private ClaveFecha(long dia, int segundo, long id) {
+            this.dia = dia;
+            this.segundo = segundo;
+            this.id = id;
+            this.medicoId = 0;
+            this.pacienteId = 0;
+        }
+
+        // Límite para subMap: antes o después de todas las citas del día
+        private static ClaveFecha inicioDe(LocalDate dia) {
+            return new ClaveFecha(dia.toEpochDay(), 0, Long.MIN_VALUE);
+        }
+
+        private static ClaveFecha finDe(LocalDate dia) {
+            return new ClaveFecha(dia.toEpochDay(), Integer.MAX_VALUE, Long.MAX_VALUE);
+        }
+
+        @Override
+        public int compareTo(ClaveFecha otra) {
+            int c = Long.compare(dia, otra.dia);
+            if (c == 0) c = Integer.compare(segundo, otra.segundo);
+            return c != 0 ? c : Long.compare(id, otra.id);
+        }
+    }
+
+    /**
+     * Resultado del filtro para cada persona, calculado una sola vez durante una consulta.
      */
-    public boolean existeCitaEnHorario(Medico medico, LocalDate fecha, LocalTime hora, String idIgnorar) {
-        return citas.stream().anyMatch(c ->
-                (!c.getId().equals(idIgnorar)) &&
-                        c.getMedico().getId() == medico.getId() &&
-                        c.getFecha().equals(fecha) &&
-                        c.getHora().equals(hora)
-        );
+    private static final class Seleccion {
+        private final FiltroCitas filtro;
+        private final Map<Long, Boolean> medicos = new HashMap<>();
+        private final Map<Long, Boolean> pacientes = new HashMap<>();
+
+        private Seleccion(FiltroCitas filtro) {
+            this.filtro = filtro;
+        }
+
+        private boolean acepta(long medicoId, long pacienteId) {
+            return medicos.computeIfAbsent(medicoId, id -> MedicoRepository.getInstancia().buscarMedicoPorId(id)
+                            .map(filtro::aceptaMedico).orElse(false))
+                    || pacientes.computeIfAbsent(pacienteId, id -> PacienteRepository.getInstancia().buscarPacientePorId(id)
+                            .map(filtro::aceptaPaciente).orElse(false));
+        }
     }
 
     /**
-     * Carga datos de ejemplo usando Médicos y Pacientes.
+     * Recorre juntas, en orden de fecha, hora e ID, las citas de todos los segmentos y las de
+     * memoria, a partir de una clave (sin incluirla) y hacia adelante o hacia atrás. Cada fuente
+     * ya está ordenada y empieza buscando la clave; en cada paso sale la primera de las fuentes.
      */
-    private void cargarDatosEjemplo() {
+    private static final class RecorridoFecha {
+        private static final Comparator<Fuente> ORDEN =
+                Comparator.<Fuente>comparingLong(f -> f.dia).thenComparingInt(f -> f.segundo).thenComparingLong(f -> f.id);
+
+        private final PriorityQueue<Fuente> pendientes;
+        private Fuente actual;
+
+        private RecorridoFecha(List<SegmentoCitas> segmentos, ConcurrentSkipListMap<ClaveFecha, Cita> enMemoria,
+                               ClaveFecha desde, boolean haciaAtras) {
+            pendientes = new PriorityQueue<>(haciaAtras ? ORDEN.reversed() : ORDEN);
+            for (SegmentoCitas segmento : segmentos) empezar(new FuenteSegmento(segmento, desde, haciaAtras));
+            NavigableMap<ClaveFecha, Cita> tramo = desde == null ? enMemoria
+                    : haciaAtras ? enMemoria.headMap(desde, false) : enMemoria.tailMap(desde, false);
+            empezar(new FuenteMemoria((haciaAtras ? tramo.descendingMap() : tramo).entrySet().iterator()));
+        }
+
+        private void empezar(Fuente fuente) {
+            if (fuente.avanzar()) pendientes.add(fuente);
+        }
+
+        /**
+         * Pasa a la siguiente cita; false cuando ya no quedan.
+         */
+        private boolean siguiente() {
+            if (actual != null && actual.avanzar()) pendientes.add(actual);
+            actual = pendientes.poll();
+            return actual != null;
+        }
 
-        // Pacientes de ejemplo
-        Paciente pa1 = new Paciente("Julian Casablancas", TipoDocumento.CC ,"2131231", "312312", "Armenia", "julian@gmail.com", "08/30/2000", "Dolor de Cabeza");
-        Paciente pa2 = new Paciente("Jonathan Davis",TipoDocumento.CC, "213532", "31253212", "Armenia", "jonathan@gmail.com", "08/30/2001", "Dolor de Rodilla");
-        PacienteRepository.getInstancia().guardarPaciente(pa1);
-        PacienteRepository.getInstancia().guardarPaciente(pa2);
+        private long medicoId() {
+            return actual.medicoId;
+        }
+
+        private long pacienteId() {
+            return actual.pacienteId;
+        }
+
+        /**
+         * La cita actual; las archivadas se reconstruyen y son null si su persona ya no existe.
+         */
+        private Cita cita() {
+            return actual.cita();
+        }
+    }
+
+    private abstract static class Fuente {
+        long dia;
+        int segundo;
+        long id;
+        long medicoId;
+        long pacienteId;
+
+        abstract boolean avanzar();
+
+        abstract Cita cita();
+
+        int compararCon(ClaveFecha clave) {
+            int c = Long.compare(dia, clave.dia);
+            if (c == 0) c = Integer.compare(segundo, clave.segundo);
+            return c != 0 ? c : Long.compare(id, clave.id);
+        }
+    }
+
+    private static final class FuenteSegmento extends Fuente {
+        private final SegmentoCitas segmento;
+        private final ClaveFecha desde;
+        private final boolean haciaAtras;
+        private int fila;
+
+        private FuenteSegmento(SegmentoCitas segmento, ClaveFecha desde, boolean haciaAtras) {
+            this.segmento = segmento;
+            this.desde = desde;
+            this.haciaAtras = haciaAtras;
+            if (desde == null) {
+                fila = haciaAtras ? segmento.getFilas() : -1;
+            } else {
+                // Las filas con la misma fecha y hora que la clave se revisan una por una al avanzar
+                fila = haciaAtras ? segmento.primeraFilaDesde(desde.dia, desde.segundo + 1)
+                        : segmento.primeraFilaDesde(desde.dia, desde.segundo) - 1;
+            }
+        }
+
+        @Override
+        boolean avanzar() {
+            while (true) {
+                fila += haciaAtras ? -1 : 1;
+                if (fila < 0 || fila >= segmento.getFilas()) return false;
+                dia = segmento.getDia(fila);
+                segundo = segmento.getSegundoDelDia(fila);
+                id = segmento.getId(fila);
+                if (desde != null && (haciaAtras ? compararCon(desde) >= 0 : compararCon(desde) <= 0)) continue;
+                medicoId = segmento.getMedicoId(fila);
+                pacienteId = segmento.getPacienteId(fila);
+                return true;
+            }
+        }
 
-        // Médicos de ejemplo
-        Medico m1 = new Medico("Dr. Carlos Ramírez",TipoDocumento.CC ,"108654", "3101234967", "Armenia",
-                "carlosR@hospital.com", "Cardiología", "Consultorio 12");
+        @Override
+        Cita cita() {
+            return materializar(segmento, fila);
+        }
+    }
 
-        Medico m2 = new Medico("Dra. Lola Mento", TipoDocumento.CC ,"2023458", "3111876543", "Armenia",
-                "lola@hospital.com", "Pediatría", "Consultorio 5");
+    private static final class FuenteMemoria extends Fuente {
+        private final Iterator<Map.Entry<ClaveFecha, Cita>> iterador;
+        private Cita cita;
 
-        MedicoRepository.getInstancia().guardarMedico(m1);
-        MedicoRepository.getInstancia().guardarMedico(m2);
+        private FuenteMemoria(Iterator<Map.Entry<ClaveFecha, Cita>> iterador) {
+            this.iterador = iterador;
+        }
 
-        // Citas de ejemplo
-        Cita c1 = new Cita(m1, pa1, LocalDate.of(2025, 11, 19), LocalTime.of(14, 5), 2000, "El paciente presenta dolor de cabeza", "");
-        Cita c2 = new Cita(m2, pa2, LocalDate.of(2025, 11, 19), LocalTime.of(14, 5), 2000, "El paciente presenta dolor de rodilla", "");
+        @Override
+        boolean avanzar() {
+            if (!iterador.hasNext()) return false;
+            Map.Entry<ClaveFecha, Cita> entrada = iterador.next();
+            ClaveFecha clave = entrada.getKey();
+            dia = clave.dia;
+            segundo = clave.segundo;
+            id = clave.id;
+            medicoId = clave.medicoId;
+            pacienteId = clave.pacienteId;
+            cita = entrada.getValue();
+            return true;
+        }
+
+        @Override
+        Cita cita() {
+            return cita;
+        }
+    }
 
-        guardarCita(c1);
-        guardarCita(c2);
+    /**
+     * Carga datos de ejemplo usando Médicos y Pacientes (solo cuando no hay datos guardados).
+     */
+    public void cargarDatosEjemplo() {
+        long inicio = metricaCargarDatosEjemplo.iniciar();
+        try {
+            // Pacientes de ejemplo
+            Paciente pa1 = new Paciente("Julian Casablancas", TipoDocumento.CC ,"2131231", "312312", "Armenia", "julian@gmail.com", "08/30/2000", "Dolor de Cabeza");
+            Paciente pa2 = new Paciente("Jonathan Davis",TipoDocumento.CC, "213532", "31253212", "Armenia", "jonathan@gmail.com", "08/30/2001", "Dolor de Rodilla");
+            PacienteRepository.getInstancia().guardarPaciente(pa1);
+            PacienteRepository.getInstancia().guardarPaciente(pa2);
+
+            // Médicos de ejemplo
+            Medico m1 = new Medico("Dr. Carlos Ramírez",TipoDocumento.CC ,"108654", "3101234967", "Armenia",
+                    "carlosR@hospital.com", "Cardiología", "Consultorio 12");
+
+            Medico m2 = new Medico("Dra. Lola Mento", TipoDocumento.CC ,"2023458", "3111876543", "Armenia",
+                    "lola@hospital.com", "Pediatría", "Consultorio 5");
+
+            MedicoRepository.getInstancia().guardarMedico(m1);
+            MedicoRepository.getInstancia().guardarMedico(m2);
+
+            // Citas de ejemplo
+            Cita c1 = new Cita(m1, pa1, LocalDate.of(2025, 11, 19), LocalTime.of(14, 5), 2000, "El paciente presenta dolor de cabeza", "");
+            Cita c2 = new Cita(m2, pa2, LocalDate.of(2025, 11, 19), LocalTime.of(14, 5), 2000, "El paciente presenta dolor de rodilla", "");
+
+            guardarCita(c1);
+            guardarCita(c2);
+        } finally {
+            metricaCargarDatosEjemplo.terminar(inicio);
+        }
     }
 }
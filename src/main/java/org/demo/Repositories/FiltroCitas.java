@@ -0,0 +1,16 @@
+package org.demo.Repositories;
+
+import org.demo.Models.Medico;
+import org.demo.Models.Paciente;
+
+/**
+ * Filtro de la tabla de citas que solo mira al médico y al paciente: una cita pasa si pasa
+ * alguno de los dos. Como no necesita la cita completa, en las archivadas se prueba con los
+ * IDs de sus columnas sin reconstruirlas, y cada persona se prueba una sola vez por consulta.
+ */
+public interface FiltroCitas {
+
+    boolean aceptaMedico(Medico medico);
+
+    boolean aceptaPaciente(Paciente paciente);
+}
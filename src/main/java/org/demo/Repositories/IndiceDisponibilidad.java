@@ -0,0 +1,302 @@
+package org.demo.Repositories;
+
+import org.demo.Models.Cita;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntConsumer;
+
+/**
+ * Índice de disponibilidad de los médicos.
+ * Guarda, por cada médico y cada día, un mapa de bits con los minutos ocupados
+ * y las citas ordenadas por minuto de inicio. El mapa de bits descarta en una
+ * sola pasada los horarios libres; el árbol responde qué citas se cruzan con
+ * un intervalo [inicio, fin) en O(log n) más las citas encontradas.
+ * Una cita que pasa de la medianoche solo ocupa hasta el final de su día.
+ * Concurrencia: los mapas externos admiten varios hilos, pero la agenda de un médico
+ * solo debe leerse o modificarse con el candado de ese médico tomado.
+ */
+class IndiceDisponibilidad {
+
+    private static final int MINUTOS_DIA = 24 * 60;
+    private static final int PALABRAS_DIA = (MINUTOS_DIA + 63) / 64;
+
+    // medicoId -> (fecha -> ocupación del día)
+    private final Map<Long, Map<LocalDate, OcupacionDia>> ocupacion = new ConcurrentHashMap<>();
+
+    // idCita -> posición en la que quedó indexada (la cita puede cambiar antes de actualizarse)
+    private final Map<Long, Posicion> posiciones = new ConcurrentHashMap<>();
+
+    /**
+     * Médico con el que quedó indexada la cita, o null si no está en el índice.
+     */
+    Long medicoIndexado(long idCita) {
+        Posicion posicion = posiciones.get(idCita);
+        return posicion == null ? null : posicion.medicoId;
+    }
+
+    /**
+     * Registra la cita en el índice.
+     */
+    void agregar(Cita cita) {
+        int inicio = minutoDelDia(cita.getHora());
+        Posicion posicion = new Posicion(cita.getMedico().getId(), cita.getFecha(), inicio,
+                finDelDia(inicio, cita.getDuracionMinutos()));
+        posiciones.put(cita.getId(), posicion);
+
+        ocupacion.computeIfAbsent(posicion.medicoId, k -> new HashMap<>())
+                .computeIfAbsent(posicion.fecha, k -> new OcupacionDia())
+                .ocupar(cita, posicion.inicio, posicion.fin);
+    }
+
+    /**
+     * Quita la cita del índice usando la posición con la que fue registrada.
+     */
+    void quitar(long idCita) {
+        Posicion posicion = posiciones.remove(idCita);
+        if (posicion == null) return;
+
+        Map<LocalDate, OcupacionDia> dias = ocupacion.get(posicion.medicoId);
+        if (dias == null) return;
+
+        OcupacionDia dia = dias.get(posicion.fecha);
+        if (dia == null) return;
+
+        dia.liberar(idCita, posicion.inicio, posicion.fin);
+        if (dia.estaVacio()) {
+            dias.remove(posicion.fecha);
+            if (dias.isEmpty()) {
+                ocupacion.remove(posicion.medicoId);
+            }
+        }
+    }
+
+    /**
+     * Vuelve a indexar una cita cuyos datos cambiaron.
+     */
+    void actualizar(Cita cita) {
+        quitar(cita.getId());
+        agregar(cita);
+    }
+
+    /**
+     * Indica si el intervalo [hora, hora + duración) del médico se cruza con alguna cita,
+     * ignorando la cita con el ID indicado (puede ser null).
+     */
+    boolean estaOcupado(long medicoId, LocalDate fecha, LocalTime hora, int duracionMinutos, Long idIgnorar) {
+        OcupacionDia dia = buscarDia(medicoId, fecha);
+        if (dia == null) return false;
+
+        int inicio = minutoDelDia(hora);
+        int fin = finDelDia(inicio, duracionMinutos);
+        if (!dia.hayBitsEncendidos(inicio, fin)) return false;
+
+        // Hay minutos ocupados: solo falta descartar la cita que se está editando
+        return !dia.solapadas(inicio, fin, idIgnorar, true).isEmpty();
+    }
+
+    /**
+     * Citas del médico que se cruzan con el intervalo [hora, hora + duración), ordenadas por inicio.
+     */
+    List<Cita> solapadas(long medicoId, LocalDate fecha, LocalTime hora, int duracionMinutos, Long idIgnorar) {
+        OcupacionDia dia = buscarDia(medicoId, fecha);
+        if (dia == null) return List.of();
+
+        int inicio = minutoDelDia(hora);
+        int fin = finDelDia(inicio, duracionMinutos);
+        if (!dia.hayBitsEncendidos(inicio, fin)) return List.of();
+
+        return dia.solapadas(inicio, fin, idIgnorar, false);
+    }
+
+    /**
+     * Entrega, en orden, hasta {@code maximo} inicios libres del médico ese día en los que cabe
+     * una cita de {@code duracion} minutos dentro de [desde, hasta). Los inicios caen en múltiplos
+     * de {@code paso} y se saltan los tramos ocupados completos en lugar de probar minuto a minuto.
+     *
+     * @return cantidad de inicios entregados.
+     */
+    int huecosLibres(long medicoId, LocalDate fecha, int desde, int hasta, int duracion, int paso,
+                     int maximo, IntConsumer alEncontrar) {
+        OcupacionDia dia = buscarDia(medicoId, fecha);
+        int encontrados = 0;
+        int minuto = redondear(desde, paso);
+        hasta = Math.min(hasta, MINUTOS_DIA);
+
+        while (encontrados < maximo && minuto + duracion <= hasta) {
+            int libre = dia == null ? minuto : dia.primerHueco(minuto, hasta, duracion, paso);
+            if (libre < 0) break;
+            alEncontrar.accept(libre);
+            encontrados++;
+            minuto = redondear(libre + duracion, paso);
+        }
+        return encontrados;
+    }
+
+    private static int redondear(int minuto, int paso) {
+        return (minuto + paso - 1) / paso * paso;
+    }
+
+    private OcupacionDia buscarDia(long medicoId, LocalDate fecha) {
+        Map<LocalDate, OcupacionDia> dias = ocupacion.get(medicoId);
+        return dias == null ? null : dias.get(fecha);
+    }
+
+    private static int minutoDelDia(LocalTime hora) {
+        return hora.getHour() * 60 + hora.getMinute();
+    }
+
+    private static int finDelDia(int inicio, int duracionMinutos) {
+        return Math.min(MINUTOS_DIA, inicio + Math.max(1, duracionMinutos));
+    }
+
+    private static final class Posicion {
+        private final long medicoId;
+        private final LocalDate fecha;
+        private final int inicio;
+        private final int fin;
+
+        private Posicion(long medicoId, LocalDate fecha, int inicio, int fin) {
+            this.medicoId = medicoId;
+            this.fecha = fecha;
+            this.inicio = inicio;
+            this.fin = fin;
+        }
+    }
+
+    /**
+     * Agenda de un médico en un día: 1440 bits en 23 palabras con los minutos ocupados,
+     * y las citas agrupadas por minuto de inicio con el fin con el que se indexaron.
+     */
+    private static final class OcupacionDia {
+        private final long[] bits = new long[PALABRAS_DIA];
+        private final TreeMap<Integer, List<Tramo>> porInicio = new TreeMap<>();
+
+        // Duración más larga vista en el día: acota hacia atrás la búsqueda de cruces
+        private int duracionMaxima;
+
+        void ocupar(Cita cita, int inicio, int fin) {
+            porInicio.computeIfAbsent(inicio, k -> new ArrayList<>(1)).add(new Tramo(cita, inicio, fin));
+            duracionMaxima = Math.max(duracionMaxima, fin - inicio);
+            encender(inicio, fin);
+        }
+
+        void liberar(long idCita, int inicio, int fin) {
+            List<Tramo> tramos = porInicio.get(inicio);
+            if (tramos == null) return;
+
+            tramos.removeIf(t -> t.cita.getId() == idCita);
+            if (tramos.isEmpty()) {
+                porInicio.remove(inicio);
+            }
+
+            // Apagar el intervalo y volver a encender lo que otras citas aún cubren
+            apagar(inicio, fin);
+            for (Tramo t : candidatos(inicio, fin)) {
+                int desde = Math.max(inicio, t.inicio);
+                int hasta = Math.min(fin, t.fin);
+                if (desde < hasta) encender(desde, hasta);
+            }
+        }
+
+        /**
+         * Primer minuto m (múltiplo de paso, m >= desde) con [m, m + duracion) libre y dentro de hasta, o -1.
+         */
+        int primerHueco(int desde, int hasta, int duracion, int paso) {
+            int m = desde;
+            while (m + duracion <= hasta) {
+                int ocupado = siguiente(m, m + duracion, false);
+                if (ocupado < 0) return m;
+                // Saltar todo el tramo ocupado de una vez
+                int libre = siguiente(ocupado + 1, hasta, true);
+                if (libre < 0) return -1;
+                m = redondear(libre, paso);
+            }
+            return -1;
+        }
+
+        /**
+         * Primer minuto en [desde, hasta) con el bit encendido (o apagado), o -1; avanza de a 64 minutos.
+         */
+        private int siguiente(int desde, int hasta, boolean apagado) {
+            if (desde >= hasta) return -1;
+            for (int w = desde >>> 6; w <= (hasta - 1) >>> 6; w++) {
+                long palabra = apagado ? ~bits[w] : bits[w];
+                if (w == desde >>> 6) palabra &= -1L << desde;
+                if (palabra != 0) {
+                    int m = (w << 6) + Long.numberOfTrailingZeros(palabra);
+                    return m < hasta ? m : -1;
+                }
+            }
+            return -1;
+        }
+
+        boolean hayBitsEncendidos(int inicio, int fin) {
+            int primera = inicio >>> 6;
+            int ultima = (fin - 1) >>> 6;
+            for (int w = primera; w <= ultima; w++) {
+                long mascara = -1L;
+                if (w == primera) mascara &= -1L << inicio;
+                if (w == ultima) mascara &= -1L >>> (63 - ((fin - 1) & 63));
+                if ((bits[w] & mascara) != 0) return true;
+            }
+            return false;
+        }
+
+        List<Cita> solapadas(int inicio, int fin, Long idIgnorar, boolean soloPrimera) {
+            List<Cita> resultado = new ArrayList<>();
+            for (Tramo t : candidatos(inicio, fin)) {
+                if (t.fin > inicio && (idIgnorar == null || t.cita.getId() != idIgnorar)) {
+                    resultado.add(t.cita);
+                    if (soloPrimera) break;
+                }
+            }
+            return resultado;
+        }
+
+        /**
+         * Tramos que empiezan en (inicio - duracionMaxima, fin): los únicos que pueden cruzarse.
+         */
+        private List<Tramo> candidatos(int inicio, int fin) {
+            List<Tramo> resultado = new ArrayList<>();
+            for (List<Tramo> tramos : porInicio.subMap(inicio - duracionMaxima, false, fin, false).values()) {
+                resultado.addAll(tramos);
+            }
+            return resultado;
+        }
+
+        private void encender(int inicio, int fin) {
+            for (int m = inicio; m < fin; m++) {
+                bits[m >>> 6] |= 1L << m;
+            }
+        }
+
+        private void apagar(int inicio, int fin) {
+            for (int m = inicio; m < fin; m++) {
+                bits[m >>> 6] &= ~(1L << m);
+            }
+        }
+
+        boolean estaVacio() {
+            return porInicio.isEmpty();
+        }
+    }
+
+    private static final class Tramo {
+        private final Cita cita;
+        private final int inicio;
+        private final int fin;
+
+        private Tramo(Cita cita, int inicio, int fin) {
+            this.cita = cita;
+            this.inicio = inicio;
+            this.fin = fin;
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package org.demo.Repositories;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * Índice de búsqueda por prefijo sobre las palabras de uno o varios campos de texto.
+ * Las palabras se guardan sin tildes y en minúsculas en un árbol de prefijos, así que
+ * "rami" encuentra a "Ramírez". Una búsqueda baja por el árbol hasta el prefijo y recorre
+ * solo lo necesario para juntar las primeras coincidencias, sin importar cuántas entidades haya.
+ * Como {@link IndiceSecundario}, recuerda las palabras con las que se indexó cada entidad.
+ * Las lecturas comparten un candado y las escrituras, que son cortas, lo toman en exclusiva.
+ *
+ * @param <V> tipo de la entidad indexada.
+ */
+class IndicePrefijos<V> {
+
+    private static final Pattern TILDES = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARADORES = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final Function<V, List<String>> campos;
+    private final Nodo<V> raiz = new Nodo<>();
+    private final ConcurrentHashMap<V, String[]> palabrasPorEntidad = new ConcurrentHashMap<>();
+    private final ReentrantReadWriteLock candado = new ReentrantReadWriteLock();
+
+    /**
+     * @param campos textos de la entidad que se separan en palabras; se ignoran los null.
+     */
+    IndicePrefijos(Function<V, List<String>> campos) {
+        this.campos = campos;
+    }
+
+    /**
+     * Separa un texto en palabras sin tildes y en minúsculas.
+     */
+    static String[] palabras(String texto) {
+        if (texto == null || texto.isBlank()) return new String[0];
+        String plano = TILDES.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("");
+        return Arrays.stream(SEPARADORES.split(plano.toLowerCase(Locale.ROOT)))
+                .filter(p -> !p.isEmpty())
+                .distinct()
+                .toArray(String[]::new);
+    }
+
+    void indexar(V entidad) {
+        List<String> palabras = new ArrayList<>();
+        for (String campo : campos.apply(entidad)) {
+            for (String p : palabras(campo)) {
+                if (!palabras.contains(p)) palabras.add(p);
+            }
+        }
+        String[] indexadas = palabras.toArray(new String[0]);
+
+        candado.writeLock().lock();
+        try {
+            if (palabrasPorEntidad.putIfAbsent(entidad, indexadas) != null) return;
+            for (String p : indexadas) {
+                raiz.agregar(p, 0, entidad);
+            }
+        } finally {
+            candado.writeLock().unlock();
+        }
+    }
+
+    void desindexar(V entidad) {
+        candado.writeLock().lock();
+        try {
+            String[] indexadas = palabrasPorEntidad.remove(entidad);
+            if (indexadas == null) return;
+            for (String p : indexadas) {
+                raiz.quitar(p, 0, entidad);
+            }
+        } finally {
+            candado.writeLock().unlock();
+        }
+    }
+
+    void reindexar(V entidad) {
+        desindexar(entidad);
+        indexar(entidad);
+    }
+
+    /**
+     * Primeras {@code limite} entidades que tienen, para cada palabra de la consulta,
+     * alguna palabra que empieza con ella. Las coincidencias exactas van antes que las
+     * más largas y, entre palabras distintas, se sigue el orden alfabético.
+     */
+    List<V> buscar(String consulta, int limite) {
+        String[] buscadas = palabras(consulta);
+        if (buscadas.length == 0 || limite <= 0) return List.of();
+
+        // Se recorre el árbol con la palabra más larga, que suele ser la más selectiva
+        String guia = buscadas[0];
+        for (String b : buscadas) {
+            if (b.length() > guia.length()) guia = b;
+        }
+
+        List<V> resultado = new ArrayList<>(Math.min(limite, 64));
+        Set<V> vistos = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        candado.readLock().lock();
+        try {
+            Nodo<V> nodo = raiz.buscar(guia, 0);
+            if (nodo != null) nodo.recorrer(buscadas, guia, limite, resultado, vistos, palabrasPorEntidad);
+        } finally {
+            candado.readLock().unlock();
+        }
+        return resultado;
+    }
+
+    /**
+     * Cantidad de nodos del árbol, contando la raíz; deja ver que los vacíos se podan.
+     */
+    int contarNodos() {
+        candado.readLock().lock();
+        try {
+            return raiz.contar();
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    /**
+     * Nodo del árbol: hijos ordenados por carácter (búsqueda binaria) y las entidades
+     * cuya palabra termina exactamente aquí. Los nodos sin entidades ni hijos se podan.
+     */
+    private static final class Nodo<V> {
+        private char[] letras = new char[0];
+        @SuppressWarnings("unchecked")
+        private Nodo<V>[] hijos = (Nodo<V>[]) new Nodo<?>[0];
+        private List<V> entidades;
+
+        private Nodo<V> buscar(String palabra, int pos) {
+            Nodo<V> nodo = this;
+            for (int i = pos; i < palabra.length() && nodo != null; i++) {
+                int j = Arrays.binarySearch(nodo.letras, palabra.charAt(i));
+                nodo = j >= 0 ? nodo.hijos[j] : null;
+            }
+            return nodo;
+        }
+
+        private void agregar(String palabra, int pos, V entidad) {
+            if (pos == palabra.length()) {
+                if (entidades == null) entidades = new ArrayList<>(1);
+                entidades.add(entidad);
+                return;
+            }
+            char c = palabra.charAt(pos);
+            int j = Arrays.binarySearch(letras, c);
+            if (j < 0) {
+                j = -j - 1;
+                letras = insertar(letras, j, c);
+                hijos = insertar(hijos, j, new Nodo<>());
+            }
+            hijos[j].agregar(palabra, pos + 1, entidad);
+        }
+
+        /**
+         * @return true si el nodo quedó vacío y el padre puede soltarlo.
+         */
+        private boolean quitar(String palabra, int pos, V entidad) {
+            if (pos == palabra.length()) {
+                if (entidades != null) {
+                    entidades.removeIf(v -> v == entidad);
+                    if (entidades.isEmpty()) entidades = null;
+                }
+            } else {
+                int j = Arrays.binarySearch(letras, palabra.charAt(pos));
+                if (j >= 0 && hijos[j].quitar(palabra, pos + 1, entidad)) {
+                    letras = eliminar(letras, j);
+                    hijos = eliminar(hijos, j);
+                }
+            }
+            return entidades == null && letras.length == 0;
+        }
+
+        private int contar() {
+            int total = 1;
+            for (Nodo<V> hijo : hijos) total += hijo.contar();
+            return total;
+        }
+
+        private boolean recorrer(String[] buscadas, String guia, int limite, List<V> resultado,
+                                 Set<V> vistos, ConcurrentHashMap<V, String[]> palabrasPorEntidad) {
+            if (entidades != null) {
+                for (V v : entidades) {
+                    if (vistos.add(v) && coincide(palabrasPorEntidad.get(v), buscadas, guia)) {
+                        resultado.add(v);
+                        if (resultado.size() >= limite) return true;
+                    }
+                }
+            }
+            for (Nodo<V> hijo : hijos) {
+                if (hijo.recorrer(buscadas, guia, limite, resultado, vistos, palabrasPorEntidad)) return true;
+            }
+            return false;
+        }
+
+        private static boolean coincide(String[] palabras, String[] buscadas, String guia) {
+            for (String b : buscadas) {
+                if (b.equals(guia)) continue;
+                boolean alguna = false;
+                for (String p : palabras) {
+                    if (p.startsWith(b)) {
+                        alguna = true;
+                        break;
+                    }
+                }
+                if (!alguna) return false;
+            }
+            return true;
+        }
+
+        private static char[] insertar(char[] arreglo, int pos, char valor) {
+            char[] nuevo = new char[arreglo.length + 1];
+            System.arraycopy(arreglo, 0, nuevo, 0, pos);
+            nuevo[pos] = valor;
+            System.arraycopy(arreglo, pos, nuevo, pos + 1, arreglo.length - pos);
+            return nuevo;
+        }
+
+        private static <T> T[] insertar(T[] arreglo, int pos, T valor) {
+            T[] nuevo = Arrays.copyOf(arreglo, arreglo.length + 1);
+            System.arraycopy(arreglo, pos, nuevo, pos + 1, arreglo.length - pos);
+            nuevo[pos] = valor;
+            return nuevo;
+        }
+
+        private static char[] eliminar(char[] arreglo, int pos) {
+            char[] nuevo = new char[arreglo.length - 1];
+            System.arraycopy(arreglo, 0, nuevo, 0, pos);
+            System.arraycopy(arreglo, pos + 1, nuevo, pos, nuevo.length - pos);
+            return nuevo;
+        }
+
+        private static <T> T[] eliminar(T[] arreglo, int pos) {
+            T[] nuevo = Arrays.copyOf(arreglo, arreglo.length - 1);
+            System.arraycopy(arreglo, pos + 1, nuevo, pos, nuevo.length - pos);
+            return nuevo;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package org.demo.Repositories;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Índice hash sobre un campo de una entidad.
+ * Recuerda la clave con la que se indexó cada entidad, porque los controladores
+ * modifican el objeto antes de llamar a actualizar y la clave anterior ya no se puede leer de él.
+ * Admite lecturas y escrituras concurrentes: cada clave guarda una lista inmutable
+ * que se reemplaza de forma atómica. Las entidades se comparan por identidad.
+ *
+ * @param <K> tipo de la clave.
+ * @param <V> tipo de la entidad indexada.
+ */
+class IndiceSecundario<K, V> {
+
+    private final Function<V, K> extractor;
+    private final ConcurrentHashMap<K, List<V>> porClave = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<V, K> clavePorEntidad = new ConcurrentHashMap<>();
+
+    /**
+     * @param extractor función que obtiene la clave de la entidad; si devuelve null la entidad no se indexa.
+     */
+    IndiceSecundario(Function<V, K> extractor) {
+        this.extractor = extractor;
+    }
+
+    /**
+     * Normaliza un texto para usarlo como clave: sin espacios a los lados y en minúsculas.
+     */
+    static String normalizar(String texto) {
+        return texto == null ? null : texto.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Clave que la entidad tendría en este índice según sus datos actuales.
+     */
+    K claveActual(V entidad) {
+        return extractor.apply(entidad);
+    }
+
+    /**
+     * Clave con la que la entidad quedó indexada, o null si no está en el índice.
+     */
+    K claveIndexada(V entidad) {
+        return clavePorEntidad.get(entidad);
+    }
+
+    void indexar(V entidad) {
+        K clave = extractor.apply(entidad);
+        if (clave == null) return;
+
+        porClave.compute(clave, (k, actuales) -> {
+            if (actuales == null) return List.of(entidad);
+            List<V> nuevas = new ArrayList<>(actuales.size() + 1);
+            nuevas.addAll(actuales);
+            nuevas.add(entidad);
+            return List.copyOf(nuevas);
+        });
+        clavePorEntidad.put(entidad, clave);
+    }
+
+    void desindexar(V entidad) {
+        K clave = clavePorEntidad.remove(entidad);
+        if (clave == null) return;
+
+        porClave.computeIfPresent(clave, (k, actuales) -> {
+            List<V> nuevas = new ArrayList<>(actuales.size());
+            for (V v : actuales) {
+                if (v != entidad) nuevas.add(v);
+            }
+            return nuevas.isEmpty() ? null : List.copyOf(nuevas);
+        });
+    }
+
+    void reindexar(V entidad) {
+        desindexar(entidad);
+        indexar(entidad);
+    }
+
+    boolean contiene(K clave) {
+        return clave != null && porClave.containsKey(clave);
+    }
+
+    Optional<V> buscar(K clave) {
+        List<V> entidades = clave == null ? null : porClave.get(clave);
+        return entidades == null ? Optional.empty() : Optional.of(entidades.get(0));
+    }
+
+    List<V> buscarTodos(K clave) {
+        List<V> entidades = clave == null ? null : porClave.get(clave);
+        return entidades == null ? List.of() : entidades;
+    }
+}
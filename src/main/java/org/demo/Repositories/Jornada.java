@@ -0,0 +1,46 @@
+package org.demo.Repositories;
+
+import org.demo.Models.Medico;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Horario de atención de un médico en minutos del día, [inicio, fin).
+ * Se lee del campo {@code horario} con la forma {@code HH:mm-HH:mm} (por ejemplo "07:30-15:00");
+ * si está vacío o no se entiende se usa la jornada predeterminada de 08:00 a 16:00.
+ */
+final class Jornada {
+
+    static final Jornada PREDETERMINADA = new Jornada(8 * 60, 16 * 60);
+
+    private static final Pattern FORMATO = Pattern.compile("\\s*(\\d{1,2}):(\\d{2})\\s*-\\s*(\\d{1,2}):(\\d{2})\\s*");
+
+    final int inicio;
+    final int fin;
+
+    private Jornada(int inicio, int fin) {
+        this.inicio = inicio;
+        this.fin = fin;
+    }
+
+    static Jornada de(Medico medico) {
+        String horario = medico.getHorario();
+        if (horario == null) return PREDETERMINADA;
+
+        Matcher m = FORMATO.matcher(horario);
+        if (!m.matches()) return PREDETERMINADA;
+
+        int inicio = minuto(m.group(1), m.group(2));
+        int fin = minuto(m.group(3), m.group(4));
+        if (inicio < 0 || fin < 0 || inicio >= fin) return PREDETERMINADA;
+        return new Jornada(inicio, fin);
+    }
+
+    private static int minuto(String horas, String minutos) {
+        int h = Integer.parseInt(horas);
+        int min = Integer.parseInt(minutos);
+        if (h > 24 || min > 59 || (h == 24 && min > 0)) return -1;
+        return h * 60 + min;
+    }
+}
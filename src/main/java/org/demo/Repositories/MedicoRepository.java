@@ -1,47 +1,103 @@
 package org.demo.Repositories;
 
-import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import org.demo.Metricas.MetricaOperacion;
+import org.demo.Metricas.RegistroMetricas;
+import org.demo.Models.CupoLibre;
 import org.demo.Models.Medico;
 import org.demo.Models.TipoDocumento;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiConsumer;
+import java.util.function.BooleanSupplier;
 
 /**
  * Repositorio encargado de gestionar los médicos registrados en el sistema.
  * Implementa el patrón Singleton para garantizar una única instancia compartida.
  * Utiliza una lista observable para permitir la sincronización con la interfaz gráfica.
+ * Es seguro usarlo desde varios hilos (ver {@link BloqueoEstriado}).
  */
 public class MedicoRepository {
-    private static MedicoRepository instancia;
-    private final ObservableList<Medico> medicos;
+    private final VistaObservable<Medico> medicos = new VistaObservable<>(Medico::getId);
+
+    // Candados por médico y por clave única; siempre se toma primero el del médico
+    private final BloqueoEstriado bloqueoMedicos = new BloqueoEstriado(64);
+    private final BloqueoEstriado bloqueoClaves = new BloqueoEstriado(64);
+
+    // Índices mantenidos junto con la lista observable (claves de texto en minúsculas)
+    private final Map<Long, Medico> porId = new ConcurrentHashMap<>();
+    private final IndiceSecundario<String, Medico> porDocumento =
+            new IndiceSecundario<>(m -> IndiceSecundario.normalizar(m.getNumDocumento()));
+    private final IndiceSecundario<String, Medico> porCorreo =
+            new IndiceSecundario<>(m -> IndiceSecundario.normalizar(m.getCorreo()));
+    private final IndiceSecundario<String, Medico> porEspecialidad =
+            new IndiceSecundario<>(m -> IndiceSecundario.normalizar(m.getEspecialidad()));
+
+    private final List<OyenteRepositorio<Medico>> oyentes = new CopyOnWriteArrayList<>();
+
+    // Llamadas y latencias de las operaciones que hacen trabajo; las que solo devuelven un campo
+    // o delegan en otra sobrecarga no se miden, para no contar dos veces la misma llamada
+    private final MetricaOperacion metricaListarMedicos = metrica("listarMedicos");
+    private final MetricaOperacion metricaGuardarMedico = metrica("guardarMedico");
+    private final MetricaOperacion metricaGuardarMedicos = metrica("guardarMedicos");
+    private final MetricaOperacion metricaEliminarMedico = metrica("eliminarMedico");
+    private final MetricaOperacion metricaActualizarMedico = metrica("actualizarMedico");
+    private final MetricaOperacion metricaGetMedicosPorEspecialidad = metrica("getMedicosPorEspecialidad");
+    private final MetricaOperacion metricaListarMedicosDisponibles = metrica("listarMedicosDisponibles");
+    private final MetricaOperacion metricaBuscarCuposLibres = metrica("buscarCuposLibres");
+    private final MetricaOperacion metricaCargarDatosEjemplo = metrica("cargarDatosEjemplo");
 
     /**
      * Constructor privado.
-     * Inicializa la lista de médicos y carga datos de ejemplo.
+     * El repositorio nace vacío; los datos se restauran del disco o se cargan los de ejemplo.
      */
     private MedicoRepository(){
-        medicos = FXCollections.observableArrayList();
-        cargarDatosEjemplo();
+    }
+
+    // La JVM inicializa la clase contenedora una sola vez y de forma segura entre hilos
+    private static final class Contenedor {
+        private static final MedicoRepository INSTANCIA = new MedicoRepository();
     }
 
     /**
      * Devuelve la instancia única del repositorio.
      */
     public static MedicoRepository getInstancia(){
-        if(instancia == null){
-            instancia = new MedicoRepository();
-        }
-        return instancia;
+        return Contenedor.INSTANCIA;
+    }
+
+    private static MetricaOperacion metrica(String metodo) {
+        return RegistroMetricas.getInstancia().operacion("MedicoRepository." + metodo);
     }
 
     /**
      * Retorna la lista observable de médicos.
      */
     public ObservableList<Medico> getMedicos(){
-        return medicos;
+        return medicos.getLista();
+    }
+
+    /**
+     * Copia de los médicos registrados; se puede usar desde cualquier hilo.
+     */
+    public List<Medico> listarMedicos(){
+        return metricaListarMedicos.medir(() -> List.copyOf(porId.values()));
+    }
+
+    /**
+     * Registra un oyente que será avisado de cada alta, actualización y eliminación.
+     */
+    public void agregarOyente(OyenteRepositorio<Medico> oyente){
+        oyentes.add(oyente);
     }
 
     /**
@@ -49,110 +105,285 @@ public class MedicoRepository {
      * Lanza excepción si documento o correo ya existen.
      */
     public void guardarMedico(Medico medico){
-        if(existeMedicoConDocumento(medico.getNumDocumento()) ||
-                existeMedicoConCorreo(medico.getCorreo())) {
+        long inicio = metricaGuardarMedico.iniciar();
+        try {
+            String documento = porDocumento.claveActual(medico);
+            String correo = porCorreo.claveActual(medico);
+
+            bloqueoClaves.ejecutar(() -> {
+                if(porDocumento.contiene(documento) || porCorreo.contiene(correo)) {
+
+                    throw new RuntimeException("Ya existe un médico registrado con este documento o correo");
+                }
+                indexar(medico);
+                medicos.agregar(medico);
+                oyentes.forEach(o -> o.alAgregar(medico));
+            }, documento, correo);
+        } finally {
+            metricaGuardarMedico.terminar(inicio);
+        }
+    }
+
+    /**
+     * Guarda varios médicos y los publica en la lista observable con un solo evento.
+     * Los que repiten documento o correo (con el repositorio o dentro del mismo lote)
+     * se entregan a {@code alRechazar} con el motivo.
+     *
+     * @return cantidad de médicos registrados.
+     */
+    public int guardarMedicos(List<Medico> lote, BiConsumer<Medico, String> alRechazar){
+        long inicio = metricaGuardarMedicos.iniciar();
+        try {
+            List<Medico> aceptados = new ArrayList<>(lote.size());
+            for (Medico medico : lote) {
+                String documento = porDocumento.claveActual(medico);
+                String correo = porCorreo.claveActual(medico);
+
+                String motivo = bloqueoClaves.escribir(() -> {
+                    if (porDocumento.contiene(documento)) return "Documento ya registrado";
+                    if (porCorreo.contiene(correo)) return "Correo ya registrado";
+                    indexar(medico);
+                    oyentes.forEach(o -> o.alAgregar(medico));
+                    return null;
+                }, documento, correo);
+
+                if (motivo == null) {
+                    aceptados.add(medico);
+                } else {
+                    alRechazar.accept(medico, motivo);
+                }
+            }
+
+            int registrados = aceptados.size();
+            // Si otro hilo eliminó alguno mientras tanto, no se publica
+            aceptados.removeIf(x -> porId.get(x.getId()) != x);
+            medicos.agregarTodos(aceptados);
+            return registrados;
+        } finally {
+            metricaGuardarMedicos.terminar(inicio);
+        }
+    }
 
-            throw new RuntimeException("Ya existe un médico registrado con este documento o correo");
+    /**
+     * Elimina un médico según su correo, junto con sus citas en memoria.
+     * Si tiene citas archivadas no se elimina nada: el histórico no se modifica.
+     *
+     * @return false si no se eliminó porque tiene citas archivadas.
+     */
+    public boolean eliminarMedico(Medico medico){
+        long inicio = metricaEliminarMedico.iniciar();
+        try {
+            List<Medico> conCorreo = List.copyOf(porCorreo.buscarTodos(IndiceSecundario.normalizar(medico.getCorreo())));
+            CitaRepository citaRepository = CitaRepository.getInstancia();
+            // Sin archivar nada mientras tanto: si no, una cita podría llegar al histórico después
+            // de contar las archivadas y quedar sin su médico
+            return citaRepository.sinArchivar(() -> {
+                for (Medico m : conCorreo) {
+                    if (citaRepository.contarArchivadasDeMedico(m.getId()) > 0) return false;
+                }
+                for (Medico m : conCorreo) {
+                    bloqueoMedicos.ejecutar(() -> bloqueoClaves.ejecutar(() -> {
+                        desindexar(m);
+                        medicos.quitar(m);
+                        oyentes.forEach(o -> o.alEliminar(m));
+                    }, porDocumento.claveIndexada(m), porCorreo.claveIndexada(m)), m.getId());
+                    // reservarCita revisa con este mismo candado que el médico siga registrado,
+                    // así que después de sacarlo ya no se le agregan citas y estas son todas
+                    citaRepository.eliminarCitasDeMedico(m.getId());
+                }
+                return true;
+            });
+        } finally {
+            metricaEliminarMedico.terminar(inicio);
         }
-        medicos.add(medico);
     }
 
     /**
-     * Elimina un médico según su correo.
+     * Ejecuta la acción con el candado del médico tomado en modo compartido, solo si sigue
+     * registrado. {@link #eliminarMedico} lo saca con ese mismo candado, así que mientras dura
+     * la acción no puede eliminarse.
+     *
+     * @return false si el médico ya no está registrado; si no, lo que devuelva la acción.
      */
-    public void eliminarMedico(Medico medico){
-        medicos.removeIf(m -> m.getCorreo().equalsIgnoreCase(medico.getCorreo()));
+    boolean siSigueRegistrado(long medicoId, BooleanSupplier accion) {
+        return bloqueoMedicos.leer(medicoId, () -> porId.containsKey(medicoId) && accion.getAsBoolean());
     }
 
     /**
      * Actualiza un médico existente basado en su ID.
      */
     public void actualizarMedico(Medico medico){
-        Optional<Medico> medicoExistenteOpt = buscarMedicoPorId(medico.getId());
-        if(medicoExistenteOpt.isPresent()){
-            Medico existente = medicoExistenteOpt.get();
-
-            existente.setNombre(medico.getNombre());
-            existente.setNumDocumento(medico.getNumDocumento());
-            existente.setTelefono(medico.getTelefono());
-            existente.setDireccion(medico.getDireccion());
-            existente.setCorreo(medico.getCorreo());
-            existente.setEspecialidad(medico.getEspecialidad());
-            existente.setConsultorio(medico.getConsultorio());
-            existente.setHorario(medico.getHorario());
+        long inicio = metricaActualizarMedico.iniciar();
+        try {
+            Optional<Medico> medicoExistenteOpt = buscarMedicoPorId(medico.getId());
+            if(medicoExistenteOpt.isPresent()){
+                Medico existente = medicoExistenteOpt.get();
+
+                bloqueoMedicos.ejecutar(() -> {
+                    Object[] claves = {
+                            porDocumento.claveIndexada(existente), porCorreo.claveIndexada(existente),
+                            porDocumento.claveActual(medico), porCorreo.claveActual(medico)
+                    };
+                    bloqueoClaves.ejecutar(() -> {
+                        existente.setNombre(medico.getNombre());
+                        existente.setTipoDocumento(medico.getTipoDocumento());
+                        existente.setNumDocumento(medico.getNumDocumento());
+                        existente.setTelefono(medico.getTelefono());
+                        existente.setDireccion(medico.getDireccion());
+                        existente.setCorreo(medico.getCorreo());
+                        existente.setEspecialidad(medico.getEspecialidad());
+                        existente.setConsultorio(medico.getConsultorio());
+                        existente.setHorario(medico.getHorario());
+
+                        porDocumento.reindexar(existente);
+                        porCorreo.reindexar(existente);
+                        porEspecialidad.reindexar(existente);
+                        oyentes.forEach(o -> o.alActualizar(existente));
+                    }, claves);
+                }, existente.getId());
+            }
+        } finally {
+            metricaActualizarMedico.terminar(inicio);
         }
     }
 
+    /**
+     * Busca un médico por su número de documento (sin distinguir mayúsculas).
+     */
+    public Optional<Medico> buscarPorDocumento(String documento){
+        return porDocumento.buscar(IndiceSecundario.normalizar(documento));
+    }
+
     /**
      * Verifica si existe un médico con un documento determinado.
      */
     public boolean existeMedicoConDocumento(String documento){
-        return medicos.stream()
-                .anyMatch(m -> m.getNumDocumento().equalsIgnoreCase(documento.trim()));
+        return porDocumento.contiene(IndiceSecundario.normalizar(documento));
     }
 
     /**
      * Verifica si existe un médico con un correo determinado.
      */
     public boolean existeMedicoConCorreo(String correo){
-        return medicos.stream()
-                .anyMatch(m -> m.getCorreo().equalsIgnoreCase(correo.trim()));
+        return porCorreo.contiene(IndiceSecundario.normalizar(correo));
     }
 
     /**
      * Busca un médico por ID.
      */
-    public Optional<Medico> buscarMedicoPorId(int id){
-        return medicos.stream()
-                .filter(m -> m.getId() == id)
-                .findFirst();
+    public Optional<Medico> buscarMedicoPorId(long id){
+        return Optional.ofNullable(porId.get(id));
+    }
+
+    /**
+     * Médicos de una especialidad (sin distinguir mayúsculas).
+     */
+    public List<Medico> getMedicosPorEspecialidad(String especialidad){
+        return metricaGetMedicosPorEspecialidad.medir(
+                () -> porEspecialidad.buscarTodos(IndiceSecundario.normalizar(especialidad)));
     }
 
     /**
      * Cantidad total de médicos registrados.
      */
     public int contarMedicos(){
-        return medicos.size();
+        return porId.size();
     }
 
     /**
      * MÉDICOS DISPONIBLES (SIN CITA EN EL MISMO HORARIO)
+     * Médicos sin ninguna cita que se cruce con [hora, hora + duración), en el orden en que se
+     * registraron. Devuelve una copia y se puede usar desde cualquier hilo; cada verificación
+     * es una consulta al índice de disponibilidad. Sin fecha u hora devuelve todos los médicos.
      */
-    public ObservableList<Medico> getMedicosDisponibles(LocalDate fecha, LocalTime hora){
-        if (fecha == null || hora == null) {
-            // Si no hay fecha/hora seleccionada, devolvemos todos
-            return FXCollections.unmodifiableObservableList(medicos);
+    public List<Medico> listarMedicosDisponibles(LocalDate fecha, LocalTime hora, int duracionMinutos){
+        long inicio = metricaListarMedicosDisponibles.iniciar();
+        try {
+            CitaRepository citaRepository = CitaRepository.getInstancia();
+            List<Medico> disponibles = new ArrayList<>(porId.size());
+            for (Medico m : porId.values()) {
+                if (fecha == null || hora == null
+                        || !citaRepository.existeCitaEnHorario(m, fecha, hora, duracionMinutos, null)) {
+                    disponibles.add(m);
+                }
+            }
+            // Los IDs crecen con cada alta
+            disponibles.sort(Comparator.comparingLong(Medico::getId));
+            return disponibles;
+        } finally {
+            metricaListarMedicosDisponibles.terminar(inicio);
         }
+    }
 
-        return medicos.filtered(m ->
-                !CitaRepository.getInstancia().existeCitaEnHorario(m, fecha, hora, null)
-        );
+    /**
+     * Próximos horarios libres para una especialidad (o para todos los médicos si es null o vacía).
+     *
+     * @see CitaRepository#buscarCuposLibres
+     */
+    public List<CupoLibre> buscarCuposLibres(String especialidad, LocalDateTime desde, int duracionMinutos, int cantidad){
+        long inicio = metricaBuscarCuposLibres.iniciar();
+        try {
+            List<Medico> candidatos = especialidad == null || especialidad.isBlank()
+                    ? listarMedicos()
+                    : getMedicosPorEspecialidad(especialidad);
+            return CitaRepository.getInstancia().buscarCuposLibres(candidatos, desde, duracionMinutos, cantidad);
+        } finally {
+            metricaBuscarCuposLibres.terminar(inicio);
+        }
     }
 
     /**
-     * Carga médicos de ejemplo.
+     * Próximos horarios libres de un médico.
+     *
+     * @see CitaRepository#buscarCuposLibres
      */
-    private void cargarDatosEjemplo(){
-        Medico m1 = new Medico(
-                "Carlos López", TipoDocumento.CC, "101234", "3101234567",
-                "Armenia", "carlos@hospital.com",
-                "Cardiología", "Consultorio 12"
-        );
+    public List<CupoLibre> buscarCuposLibresDeMedico(Medico medico, LocalDateTime desde, int duracionMinutos, int cantidad){
+        return CitaRepository.getInstancia().buscarCuposLibres(List.of(medico), desde, duracionMinutos, cantidad);
+    }
 
-        Medico m2 = new Medico(
-                "María Pérez", TipoDocumento.CC,"202345", "3119876543",
-                "Armenia", "maria@hospital.com",
-                "Pediatría", "Consultorio 5"
-        );
+    private void indexar(Medico medico){
+        porId.put(medico.getId(), medico);
+        porDocumento.indexar(medico);
+        porCorreo.indexar(medico);
+        porEspecialidad.indexar(medico);
+    }
 
-        Medico m3 = new Medico(
-                "Juan Gómez", TipoDocumento.CC, "303456", "3107654321",
-                "Armenia", "juan@hospital.com",
-                "Neurología", "Consultorio 8"
-        );
+    private void desindexar(Medico medico){
+        porId.remove(medico.getId());
+        porDocumento.desindexar(medico);
+        porCorreo.desindexar(medico);
+        porEspecialidad.desindexar(medico);
+    }
 
-        guardarMedico(m1);
-        guardarMedico(m2);
-        guardarMedico(m3);
+    /**
+     * Carga médicos de ejemplo (solo cuando no hay datos guardados).
+     */
+    public void cargarDatosEjemplo(){
+        long inicio = metricaCargarDatosEjemplo.iniciar();
+        try {
+            Medico m1 = new Medico(
+                    "Carlos López", TipoDocumento.CC, "101234", "3101234567",
+                    "Armenia", "carlos@hospital.com",
+                    "Cardiología", "Consultorio 12"
+            );
+
+            Medico m2 = new Medico(
+                    "María Pérez", TipoDocumento.CC,"202345", "3119876543",
+                    "Armenia", "maria@hospital.com",
+                    "Pediatría", "Consultorio 5"
+            );
+
+            Medico m3 = new Medico(
+                    "Juan Gómez", TipoDocumento.CC, "303456", "3107654321",
+                    "Armenia", "juan@hospital.com",
+                    "Neurología", "Consultorio 8"
+            );
+
+            guardarMedico(m1);
+            guardarMedico(m2);
+            guardarMedico(m3);
+        } finally {
+            metricaCargarDatosEjemplo.terminar(inicio);
+        }
     }
 }
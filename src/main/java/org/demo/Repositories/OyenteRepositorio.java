@@ -0,0 +1,23 @@
+package org.demo.Repositories;
+
+/**
+ * Recibe los cambios que ocurren en un repositorio.
+ * Los métodos se llaman en el hilo que hizo el cambio, mientras el repositorio
+ * aún tiene tomado el candado de la entidad, así que dos cambios sobre la misma
+ * entidad llegan en el orden en que ocurrieron. Deben ser rápidos y no bloquear.
+ *
+ * @param <T> tipo de entidad del repositorio.
+ */
+public interface OyenteRepositorio<T> {
+
+    default void alAgregar(T entidad) {}
+
+    default void alActualizar(T entidad) {}
+
+    default void alEliminar(T entidad) {}
+
+    /**
+     * La entidad dejó la memoria para quedar en el histórico; sigue existiendo pero ya no cambia.
+     */
+    default void alArchivar(T entidad) {}
+}
@@ -1,28 +1,69 @@
 package org.demo.Repositories;
 
-import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import org.demo.Metricas.MetricaOperacion;
+import org.demo.Metricas.RegistroMetricas;
 import org.demo.Models.Paciente;
 import org.demo.Models.TipoDocumento;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiConsumer;
+import java.util.function.BooleanSupplier;
 
 /**
  * Repositorio encargado de gestionar los datos de los pacientes registrados en el sistema.
  * Implementa el patrón Singleton para mantener una única instancia compartida
  * y utiliza una lista observable para permitir la sincronización con la interfaz gráfica.
+ * Es seguro usarlo desde varios hilos (ver {@link BloqueoEstriado}).
  */
 public class PacienteRepository {
-    private static PacienteRepository instancia;
-    private final ObservableList<Paciente> pacientes;
+    private final VistaObservable<Paciente> pacientes = new VistaObservable<>(Paciente::getId);
+
+    // Candados por paciente y por clave única; siempre se toma primero el del paciente
+    private final BloqueoEstriado bloqueoPacientes = new BloqueoEstriado(64);
+    private final BloqueoEstriado bloqueoClaves = new BloqueoEstriado(64);
+
+    // Índices hash mantenidos por guardar, actualizar y eliminar (claves en minúsculas)
+    private final Map<Long, Paciente> porId = new ConcurrentHashMap<>();
+    private final IndiceSecundario<String, Paciente> porDocumento =
+            new IndiceSecundario<>(p -> IndiceSecundario.normalizar(p.getNumDocumento()));
+    private final IndiceSecundario<String, Paciente> porCorreo =
+            new IndiceSecundario<>(p -> IndiceSecundario.normalizar(p.getCorreo()));
+    private final IndiceSecundario<String, Paciente> porTelefono =
+            new IndiceSecundario<>(p -> IndiceSecundario.normalizar(p.getTelefono()));
+
+    // Búsqueda mientras se escribe: documento y palabras del nombre
+    private final IndicePrefijos<Paciente> porPrefijo =
+            new IndicePrefijos<>(p -> Arrays.asList(p.getNumDocumento(), p.getNombre()));
+
+    private final List<OyenteRepositorio<Paciente>> oyentes = new CopyOnWriteArrayList<>();
+
+    // Llamadas y latencias de las operaciones que hacen trabajo; las que solo devuelven un campo
+    // o delegan en otra sobrecarga no se miden, para no contar dos veces la misma llamada
+    private final MetricaOperacion metricaListarPacientes = metrica("listarPacientes");
+    private final MetricaOperacion metricaGuardarPaciente = metrica("guardarPaciente");
+    private final MetricaOperacion metricaGuardarPacientes = metrica("guardarPacientes");
+    private final MetricaOperacion metricaEliminarPaciente = metrica("eliminarPaciente");
+    private final MetricaOperacion metricaActualizarPaciente = metrica("actualizarPaciente");
+    private final MetricaOperacion metricaBuscarPacientes = metrica("buscarPacientes");
+    private final MetricaOperacion metricaCargarDatosEjemplo = metrica("cargarDatosEjemplo");
 
     /**
      * Constructor privado.
-     * Inicializa la lista de pacientes y carga datos de ejemplo.
+     * El repositorio nace vacío; los datos se restauran del disco o se cargan los de ejemplo.
      */
     private PacienteRepository() {
-        pacientes = FXCollections.observableArrayList();
-        cargarDatosEjemplo();
+    }
+
+    // La JVM inicializa la clase contenedora una sola vez y de forma segura entre hilos
+    private static final class Contenedor {
+        private static final PacienteRepository INSTANCIA = new PacienteRepository();
     }
 
     /**
@@ -31,10 +72,11 @@ public class PacienteRepository {
      * @return instancia única de {@code PacienteRepository}.
      */
     public static PacienteRepository getInstancia(){
-        if(instancia == null){
-            instancia = new PacienteRepository();
-        }
-        return instancia;
+        return Contenedor.INSTANCIA;
+    }
+
+    private static MetricaOperacion metrica(String metodo) {
+        return RegistroMetricas.getInstancia().operacion("PacienteRepository." + metodo);
     }
 
     /**
@@ -43,7 +85,21 @@ public class PacienteRepository {
      * @return lista observable de pacientes.
      */
     public ObservableList<Paciente> getPacientes() {
-        return pacientes;
+        return pacientes.getLista();
+    }
+
+    /**
+     * Copia de los pacientes registrados; se puede usar desde cualquier hilo.
+     */
+    public List<Paciente> listarPacientes() {
+        return metricaListarPacientes.medir(() -> List.copyOf(porId.values()));
+    }
+
+    /**
+     * Registra un oyente que será avisado de cada alta, actualización y eliminación.
+     */
+    public void agregarOyente(OyenteRepositorio<Paciente> oyente) {
+        oyentes.add(oyente);
     }
 
     /**
@@ -53,20 +109,108 @@ public class PacienteRepository {
      * @param paciente paciente a registrar.
      */
     public void guardarPaciente(Paciente paciente){
-        if(existePacienteConDocumento(paciente.getNumDocumento()) ||
-                existePacienteConCorreo(paciente.getCorreo())){
-            throw new RuntimeException("Este paciente ya se encuentra registrado");
+        long inicio = metricaGuardarPaciente.iniciar();
+        try {
+            String documento = porDocumento.claveActual(paciente);
+            String correo = porCorreo.claveActual(paciente);
+
+            bloqueoClaves.ejecutar(() -> {
+                if(porDocumento.contiene(documento) || porCorreo.contiene(correo)){
+                    throw new RuntimeException("Este paciente ya se encuentra registrado");
+                }
+                indexar(paciente);
+                pacientes.agregar(paciente);
+                oyentes.forEach(o -> o.alAgregar(paciente));
+            }, documento, correo);
+        } finally {
+            metricaGuardarPaciente.terminar(inicio);
         }
-        pacientes.add(paciente);
     }
 
     /**
-     * Elimina un paciente existente identificado por su correo electrónico.
+     * Guarda varios pacientes y los publica en la lista observable con un solo evento.
+     * Los que repiten documento o correo (con el repositorio o dentro del mismo lote)
+     * se entregan a {@code alRechazar} con el motivo.
+     *
+     * @return cantidad de pacientes registrados.
+     */
+    public int guardarPacientes(List<Paciente> lote, BiConsumer<Paciente, String> alRechazar){
+        long inicio = metricaGuardarPacientes.iniciar();
+        try {
+            List<Paciente> aceptados = new ArrayList<>(lote.size());
+            for (Paciente paciente : lote) {
+                String documento = porDocumento.claveActual(paciente);
+                String correo = porCorreo.claveActual(paciente);
+
+                String motivo = bloqueoClaves.escribir(() -> {
+                    if (porDocumento.contiene(documento)) return "Documento ya registrado";
+                    if (porCorreo.contiene(correo)) return "Correo ya registrado";
+                    indexar(paciente);
+                    oyentes.forEach(o -> o.alAgregar(paciente));
+                    return null;
+                }, documento, correo);
+
+                if (motivo == null) {
+                    aceptados.add(paciente);
+                } else {
+                    alRechazar.accept(paciente, motivo);
+                }
+            }
+
+            int registrados = aceptados.size();
+            // Si otro hilo eliminó alguno mientras tanto, no se publica
+            aceptados.removeIf(x -> porId.get(x.getId()) != x);
+            pacientes.agregarTodos(aceptados);
+            return registrados;
+        } finally {
+            metricaGuardarPacientes.terminar(inicio);
+        }
+    }
+
+    /**
+     * Elimina un paciente existente identificado por su correo electrónico, junto con sus
+     * citas en memoria. Si tiene citas archivadas no se elimina nada: el histórico no se modifica.
      *
      * @param paciente paciente a eliminar.
+     * @return false si no se eliminó porque tiene citas archivadas.
+     */
+    public boolean eliminarPaciente(Paciente paciente){
+        long inicio = metricaEliminarPaciente.iniciar();
+        try {
+            List<Paciente> conCorreo = List.copyOf(porCorreo.buscarTodos(IndiceSecundario.normalizar(paciente.getCorreo())));
+            CitaRepository citaRepository = CitaRepository.getInstancia();
+            // Sin archivar nada mientras tanto: si no, una cita podría llegar al histórico después
+            // de contar las archivadas y quedar sin su paciente
+            return citaRepository.sinArchivar(() -> {
+                for (Paciente p : conCorreo) {
+                    if (citaRepository.contarArchivadasDePaciente(p.getId()) > 0) return false;
+                }
+                for (Paciente p : conCorreo) {
+                    bloqueoPacientes.ejecutar(() -> bloqueoClaves.ejecutar(() -> {
+                        desindexar(p);
+                        pacientes.quitar(p);
+                        oyentes.forEach(o -> o.alEliminar(p));
+                    }, porDocumento.claveIndexada(p), porCorreo.claveIndexada(p)), p.getId());
+                    // reservarCita revisa con este mismo candado que el paciente siga registrado,
+                    // así que después de sacarlo ya no se le agregan citas y estas son todas
+                    citaRepository.eliminarCitasDePaciente(p.getId());
+                }
+                return true;
+            });
+        } finally {
+            metricaEliminarPaciente.terminar(inicio);
+        }
+    }
+
+    /**
+     * Ejecuta la acción con el candado del paciente tomado en modo compartido, solo si sigue
+     * registrado. {@link #eliminarPaciente} lo saca con ese mismo candado, así que mientras dura
+     * la acción no puede eliminarse.
+     *
+     * @return false si el paciente ya no está registrado; si no, lo que devuelva la acción.
      */
-    public void eliminarPaciente(Paciente paciente){
-        pacientes.removeIf(p -> p.getCorreo().equalsIgnoreCase(paciente.getCorreo()));
+    boolean siSigueRegistrado(long pacienteId, BooleanSupplier accion) {
+        return bloqueoPacientes.leer(pacienteId, () -> porId.containsKey(pacienteId) && accion.getAsBoolean());
     }
 
     /**
@@ -75,15 +219,38 @@ public class PacienteRepository {
      * @param paciente paciente con información actualizada.
      */
     public void actualizarPaciente(Paciente paciente){
-        Optional<Paciente> pacienteExistenteOpt = buscarPacientePorId(paciente.getId());
-        if(pacienteExistenteOpt.isPresent()){
-            Paciente existente = pacienteExistenteOpt.get();
-
-            existente.setNumDocumento(paciente.getNumDocumento());
-            existente.setCorreo(paciente.getCorreo());
-            existente.setNombre(paciente.getNombre());
-            existente.setTelefono(paciente.getTelefono());
-            existente.setDireccion(paciente.getDireccion());
+        long inicio = metricaActualizarPaciente.iniciar();
+        try {
+            Optional<Paciente> pacienteExistenteOpt = buscarPacientePorId(paciente.getId());
+            if(pacienteExistenteOpt.isPresent()){
+                Paciente existente = pacienteExistenteOpt.get();
+
+                bloqueoPacientes.ejecutar(() -> {
+                    // La clave anterior se conoce por el índice, aunque el objeto ya venga modificado
+                    Object[] claves = {
+                            porDocumento.claveIndexada(existente), porCorreo.claveIndexada(existente),
+                            porDocumento.claveActual(paciente), porCorreo.claveActual(paciente)
+                    };
+                    bloqueoClaves.ejecutar(() -> {
+                        existente.setNumDocumento(paciente.getNumDocumento());
+                        existente.setTipoDocumento(paciente.getTipoDocumento());
+                        existente.setCorreo(paciente.getCorreo());
+                        existente.setNombre(paciente.getNombre());
+                        existente.setTelefono(paciente.getTelefono());
+                        existente.setDireccion(paciente.getDireccion());
+                        existente.setFechaNacimiento(paciente.getFechaNacimiento());
+                        existente.setEnfermedad(paciente.getEnfermedad());
+
+                        porDocumento.reindexar(existente);
+                        porCorreo.reindexar(existente);
+                        porTelefono.reindexar(existente);
+                        porPrefijo.reindexar(existente);
+                        oyentes.forEach(o -> o.alActualizar(existente));
+                    }, claves);
+                }, existente.getId());
+            }
+        } finally {
+            metricaActualizarPaciente.terminar(inicio);
         }
     }
 
@@ -91,48 +258,75 @@ public class PacienteRepository {
      * Verifica si existe un paciente registrado con un documento determinado.
      */
     public boolean existePacienteConDocumento(String documento){
-        return pacientes.stream()
-                .anyMatch(p -> p.getNumDocumento().equalsIgnoreCase(documento.trim()));
+        return porDocumento.contiene(IndiceSecundario.normalizar(documento));
     }
 
     /**
      * Verifica si existe un paciente registrado con un correo determinado.
      */
     public boolean existePacienteConCorreo(String correo){
-        return pacientes.stream()
-                .anyMatch(p -> p.getCorreo().equalsIgnoreCase(correo.trim()));
+        return porCorreo.contiene(IndiceSecundario.normalizar(correo));
     }
 
     /**
      * Verifica si existe un paciente registrado con un teléfono determinado.
      */
     public boolean existePacienteConTelefono(String telefono){
-        return pacientes.stream()
-                .anyMatch(p -> p.getTelefono().equalsIgnoreCase(telefono.trim()));
+        return porTelefono.contiene(IndiceSecundario.normalizar(telefono));
     }
 
     /**
      * Busca un paciente por su ID.
      */
-    public Optional<Paciente> buscarPacientePorId(int id) {
-        return pacientes.stream()
-                .filter(p -> p.getId() == id)
-                .findFirst();
+    public Optional<Paciente> buscarPacientePorId(long id) {
+        return Optional.ofNullable(porId.get(id));
     }
 
+    /**
+     * Busca un paciente por su número de documento (sin distinguir mayúsculas).
+     */
     public Optional<Paciente> buscarPorDocumento(String documento){
-        return pacientes.stream()
-                .filter(p -> p.getNumDocumento().equalsIgnoreCase(documento))
-                .findFirst();
+        return porDocumento.buscar(IndiceSecundario.normalizar(documento));
     }
 
     /**
-     * Carga datos de ejemplo al iniciar el repositorio.
+     * Pacientes cuyo documento o palabras del nombre empiezan con lo escrito, sin distinguir
+     * tildes ni mayúsculas. Con varias palabras deben coincidir todas ("ram and" encuentra
+     * a "Andrés Ramírez").
+     *
+     * @param limite cantidad máxima de resultados.
      */
-    private void cargarDatosEjemplo(){
+    public List<Paciente> buscarPacientes(String texto, int limite){
+        return metricaBuscarPacientes.medir(() -> porPrefijo.buscar(texto, limite));
+    }
 
-        Paciente p3 = new Paciente("Chino Moreno", TipoDocumento.CC,"42142132", "31241241", "Armenia", "chino@gmail.com", "08/06/2004", "Dolor de cabeza");
+    private void indexar(Paciente paciente) {
+        porId.put(paciente.getId(), paciente);
+        porDocumento.indexar(paciente);
+        porCorreo.indexar(paciente);
+        porTelefono.indexar(paciente);
+        porPrefijo.indexar(paciente);
+    }
 
-        guardarPaciente(p3);
+    private void desindexar(Paciente paciente) {
+        porId.remove(paciente.getId());
+        porDocumento.desindexar(paciente);
+        porCorreo.desindexar(paciente);
+        porTelefono.desindexar(paciente);
+        porPrefijo.desindexar(paciente);
+    }
+
+    /**
+     * Carga datos de ejemplo (solo cuando no hay datos guardados).
+     */
+    public void cargarDatosEjemplo(){
+        long inicio = metricaCargarDatosEjemplo.iniciar();
+        try {
+            Paciente p3 = new Paciente("Chino Moreno", TipoDocumento.CC,"42142132", "31241241", "Armenia", "chino@gmail.com", "08/06/2004", "Dolor de cabeza");
+
+            guardarPaciente(p3);
+        } finally {
+            metricaCargarDatosEjemplo.terminar(inicio);
+        }
     }
 }
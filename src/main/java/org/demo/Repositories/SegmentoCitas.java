@@ -0,0 +1,686 @@
+package org.demo.Repositories;
+
+import org.demo.Models.Cita;
+import org.demo.Models.EstadoCita;
+import org.demo.Models.Medico;
+import org.demo.Models.Paciente;
+import org.demo.Utils.ReservaTextos;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntConsumer;
+import java.util.function.LongFunction;
+import java.util.zip.CRC32C;
+
+/**
+ * Citas pasadas guardadas por columnas fuera del heap, de solo lectura.
+ * Las filas van ordenadas por fecha, hora e ID. Cada columna numérica se guarda como la
+ * diferencia con su mínimo empaquetada en los bits justos (un precio entre 0 y 500.000
+ * centavos ocupa 19 bits, un estado 2); las fechas se guardan una vez por día con la fila
+ * donde empieza, y los textos (motivo, observaciones, especialidad y consultorio del
+ * médico al archivarla) se guardan una vez en un diccionario y cada fila tiene su posición.
+ * Tres columnas extra tienen las filas en orden de ID, de médico y de paciente: con ellas se
+ * busca por ID, y se encuentran las citas de una persona, con búsqueda binaria.
+ * Cualquier campo de cualquier fila se lee directamente, sin descomprimir nada más.
+ *
+ * <p>El segmento vive en un {@link ByteBuffer} directo o mapeado desde un archivo, así que
+ * el heap solo guarda unos pocos números por segmento. Los métodos de lectura se pueden
+ * usar desde varios hilos.</p>
+ *
+ * <pre>
+ * cabecera: mágico, versión, filas, días, textos, corte, menor y mayor ID, posiciones, tamaño, CRC32C
+ *           y por cada columna: posición, bits y mínimo
+ * días:     [día, primera fila] por cada día con citas
+ * columnas: valores empaquetados, con 8 bytes de relleno al final
+ * textos:   [inicio] por cada texto más uno final, y los bytes UTF-8
+ * </pre>
+ */
+public final class SegmentoCitas {
+
+    /** Máximo de citas por segmento; el número de fila se empaqueta en 22 bits al ordenar. */
+    public static final int MAX_FILAS = 1 << 22;
+
+    private static final int MAGICO = 0x43534547; // "CSEG"
+    private static final int VERSION = 2;
+    // La versión 1 no tenía las columnas por médico y por paciente
+    private static final int COLUMNAS_VERSION_1 = 12;
+    private static final int BITS_FILA = 22;
+    private static final int TEXTOS_EN_CACHE = 256;
+
+    // Columnas empaquetadas
+    private static final int ID = 0;
+    private static final int MEDICO = 1;
+    private static final int PACIENTE = 2;
+    private static final int SEGUNDO = 3;
+    private static final int DURACION = 4;
+    private static final int CENTAVOS = 5;
+    private static final int ESTADO = 6;
+    private static final int ESPECIALIDAD = 7;
+    private static final int CONSULTORIO = 8;
+    private static final int MOTIVO = 9;
+    private static final int OBSERVACIONES = 10;
+    private static final int POR_ID = 11;
+    private static final int POR_MEDICO = 12;
+    private static final int POR_PACIENTE = 13;
+    private static final int COLUMNAS = 14;
+
+    // Posiciones dentro de la cabecera
+    private static final int C_FILAS = 8;
+    private static final int C_DIAS = 12;
+    private static final int C_TEXTOS = 16;
+    private static final int C_CORTE = 20;
+    private static final int C_MENOR_ID = 24;
+    private static final int C_MAYOR_ID = 32;
+    private static final int C_POS_DIAS = 40;
+    private static final int C_POS_TEXTOS = 44;
+    private static final int C_POS_BYTES = 48;
+    private static final int C_TAMANO = 52;
+    private static final int C_CRC = 56;
+    private static final int C_COLUMNAS = 64;
+    private static final int CABECERA = C_COLUMNAS + COLUMNAS * 16;
+
+    private final ByteBuffer datos;
+    private final int filas;
+    private final int dias;
+    private final LocalDate corte;
+    private final long menorId;
+    private final long mayorId;
+    private final int posDias;
+    private final int posTextos;
+    private final int posBytes;
+    private final int[] posiciones = new int[COLUMNAS];
+    private final int[] bits = new int[COLUMNAS];
+    private final long[] minimos = new long[COLUMNAS];
+    private final boolean porPersona;
+
+    // Los primeros textos del diccionario son los más repetidos (estado, especialidad...)
+    private final String[] cacheTextos;
+
+    private SegmentoCitas(ByteBuffer datos) {
+        this.datos = datos;
+        this.filas = datos.getInt(C_FILAS);
+        this.dias = datos.getInt(C_DIAS);
+        this.corte = LocalDate.ofEpochDay(datos.getInt(C_CORTE));
+        this.menorId = datos.getLong(C_MENOR_ID);
+        this.mayorId = datos.getLong(C_MAYOR_ID);
+        this.posDias = datos.getInt(C_POS_DIAS);
+        this.posTextos = datos.getInt(C_POS_TEXTOS);
+        this.posBytes = datos.getInt(C_POS_BYTES);
+        this.porPersona = datos.getInt(4) > 1;
+        int guardadas = porPersona ? COLUMNAS : COLUMNAS_VERSION_1;
+        for (int c = 0; c < guardadas; c++) {
+            posiciones[c] = datos.getInt(C_COLUMNAS + c * 16);
+            bits[c] = datos.getInt(C_COLUMNAS + c * 16 + 4);
+            minimos[c] = datos.getLong(C_COLUMNAS + c * 16 + 8);
+        }
+        this.cacheTextos = new String[Math.min(TEXTOS_EN_CACHE, datos.getInt(C_TEXTOS))];
+    }
+
+    // ------------------------------------------------------------ ARCHIVOS
+
+    /**
+     * Escribe el segmento en un archivo; se arma aparte y se renombra al terminar.
+     */
+    public void escribir(Path archivo) throws IOException {
+        Path temporal = archivo.resolveSibling(archivo.getFileName() + ".tmp");
+        try (FileChannel canal = FileChannel.open(temporal, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer copia = datos.duplicate().clear();
+            while (copia.hasRemaining()) canal.write(copia);
+            canal.force(true);
+        }
+        Files.move(temporal, archivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Mapea en memoria un segmento escrito con {@link #escribir} y comprueba su CRC.
+     */
+    public static SegmentoCitas abrir(Path archivo) throws IOException {
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            long tamano = canal.size();
+            if (tamano < C_COLUMNAS + COLUMNAS_VERSION_1 * 16 || tamano > Integer.MAX_VALUE) {
+                throw new IOException("No es un segmento de citas: " + archivo);
+            }
+            // El mapa sigue válido después de cerrar el canal
+            ByteBuffer datos = canal.map(FileChannel.MapMode.READ_ONLY, 0, tamano);
+            int version = datos.getInt(4);
+            if (datos.getInt(0) != MAGICO || version < 1 || version > VERSION || datos.getInt(C_TAMANO) != tamano) {
+                throw new IOException("No es un segmento de citas: " + archivo);
+            }
+            if (datos.getInt(C_CRC) != crc(datos)) {
+                throw new IOException("Segmento de citas dañado: " + archivo);
+            }
+            return new SegmentoCitas(datos);
+        }
+    }
+
+    // ------------------------------------------------------------ CONSULTAS
+
+    public int getFilas() {
+        return filas;
+    }
+
+    /**
+     * Todas las citas del segmento son anteriores a esta fecha.
+     */
+    public LocalDate getCorte() {
+        return corte;
+    }
+
+    public long getMenorId() {
+        return menorId;
+    }
+
+    public long getMayorId() {
+        return mayorId;
+    }
+
+    /**
+     * Bytes que ocupa el segmento fuera del heap.
+     */
+    public int getTamano() {
+        return datos.capacity();
+    }
+
+    /**
+     * Fila de la cita con ese ID, o -1 si no está en el segmento.
+     */
+    public int buscarFila(long id) {
+        if (filas == 0 || id < menorId || id > mayorId) return -1;
+        int bajo = 0;
+        int alto = filas - 1;
+        while (bajo <= alto) {
+            int medio = (bajo + alto) >>> 1;
+            int fila = (int) valor(POR_ID, medio);
+            long actual = valor(ID, fila);
+            if (actual < id) bajo = medio + 1;
+            else if (actual > id) alto = medio - 1;
+            else return fila;
+        }
+        return -1;
+    }
+
+    /**
+     * Cantidad de citas del médico en el segmento.
+     */
+    public int contarMedico(long medicoId) {
+        return contarIguales(POR_MEDICO, MEDICO, medicoId);
+    }
+
+    /**
+     * Recorre en orden de fecha y hora las filas del médico.
+     */
+    public void recorrerMedico(long medicoId, IntConsumer consumidor) {
+        recorrerIguales(POR_MEDICO, MEDICO, medicoId, consumidor);
+    }
+
+    /**
+     * Cantidad de citas del paciente en el segmento.
+     */
+    public int contarPaciente(long pacienteId) {
+        return contarIguales(POR_PACIENTE, PACIENTE, pacienteId);
+    }
+
+    /**
+     * Recorre en orden de fecha y hora las filas del paciente.
+     */
+    public void recorrerPaciente(long pacienteId, IntConsumer consumidor) {
+        recorrerIguales(POR_PACIENTE, PACIENTE, pacienteId, consumidor);
+    }
+
+    /**
+     * Recorre en orden las filas con fecha entre {@code desde} y {@code hasta} (inclusive).
+     * No crea objetos: el consumidor lee los campos que necesite con los métodos {@code get*}.
+     */
+    public void recorrer(LocalDate desde, LocalDate hasta, IntConsumer consumidor) {
+        long ultimoDia = hasta.toEpochDay();
+        int d = primerDiaDesde(desde.toEpochDay());
+        if (d == dias) return;
+        int fin = d;
+        while (fin < dias && diaDeTramo(fin) <= ultimoDia) fin++;
+        int hastaFila = fin == dias ? filas : filaDeTramo(fin);
+        for (int fila = filaDeTramo(d); fila < hastaFila; fila++) {
+            consumidor.accept(fila);
+        }
+    }
+
+    /**
+     * Primera fila con fecha y hora iguales o posteriores a las dadas, o {@link #getFilas()} si no hay.
+     * Busca el día entre los tramos y la hora dentro del día, sin recorrer filas.
+     */
+    public int primeraFilaDesde(long epochDay, int segundoDelDia) {
+        int d = primerDiaDesde(epochDay);
+        if (d == dias) return filas;
+        int bajo = filaDeTramo(d);
+        if (diaDeTramo(d) > epochDay) return bajo;
+        int alto = d + 1 == dias ? filas : filaDeTramo(d + 1);
+        while (bajo < alto) {
+            int medio = (bajo + alto) >>> 1;
+            if (valor(SEGUNDO, medio) < segundoDelDia) bajo = medio + 1;
+            else alto = medio;
+        }
+        return bajo;
+    }
+
+    /**
+     * Recorre todas las filas en orden de fecha y hora.
+     */
+    public void recorrer(IntConsumer consumidor) {
+        for (int fila = 0; fila < filas; fila++) {
+            consumidor.accept(fila);
+        }
+    }
+
+    public long getId(int fila) {
+        return valor(ID, fila);
+    }
+
+    public long getMedicoId(int fila) {
+        return valor(MEDICO, fila);
+    }
+
+    public long getPacienteId(int fila) {
+        return valor(PACIENTE, fila);
+    }
+
+    /**
+     * Día de la cita (epoch day); se busca entre los días del segmento.
+     */
+    public long getDia(int fila) {
+        int bajo = 0;
+        int alto = dias - 1;
+        while (bajo < alto) {
+            int medio = (bajo + alto + 1) >>> 1;
+            if (filaDeTramo(medio) <= fila) bajo = medio;
+            else alto = medio - 1;
+        }
+        return diaDeTramo(bajo);
+    }
+
+    public int getSegundoDelDia(int fila) {
+        return (int) valor(SEGUNDO, fila);
+    }
+
+    public int getDuracionMinutos(int fila) {
+        return (int) valor(DURACION, fila);
+    }
+
+    public long getPrecioCentavos(int fila) {
+        return valor(CENTAVOS, fila);
+    }
+
+    public EstadoCita getEstado(int fila) {
+        return EstadoCita.values()[(int) valor(ESTADO, fila)];
+    }
+
+    /**
+     * Especialidad que tenía el médico cuando se archivó la cita.
+     */
+    public String getEspecialidad(int fila) {
+        return texto(valor(ESPECIALIDAD, fila));
+    }
+
+    /**
+     * Consultorio que tenía el médico cuando se archivó la cita.
+     */
+    public String getConsultorio(int fila) {
+        return texto(valor(CONSULTORIO, fila));
+    }
+
+    public String getMotivo(int fila) {
+        return texto(valor(MOTIVO, fila));
+    }
+
+    public String getObservaciones(int fila) {
+        return texto(valor(OBSERVACIONES, fila));
+    }
+
+    /**
+     * Construye una {@link Cita} con los datos de la fila, resolviendo médico y paciente por ID.
+     * La cita es una copia: modificarla no cambia el segmento.
+     *
+     * @return la cita, o null si el médico o el paciente ya no existen.
+     */
+    public Cita materializar(int fila, LongFunction<Medico> medicos, LongFunction<Paciente> pacientes) {
+        Medico medico = medicos.apply(getMedicoId(fila));
+        Paciente paciente = pacientes.apply(getPacienteId(fila));
+        if (medico == null || paciente == null) return null;
+
+        return new Cita(getId(fila), medico, paciente, LocalDate.ofEpochDay(getDia(fila)),
+                LocalTime.ofSecondOfDay(getSegundoDelDia(fila)), getDuracionMinutos(fila),
+                getPrecioCentavos(fila), getEstado(fila), getMotivo(fila), getObservaciones(fila));
+    }
+
+    private long valor(int columna, int fila) {
+        int b = bits[columna];
+        if (b == 0) return minimos[columna];
+        if (b == 64) return datos.getLong(posiciones[columna] + fila * 8);
+        long bit = (long) fila * b;
+        long palabra = datos.getLong(posiciones[columna] + (int) (bit >>> 3));
+        return minimos[columna] + ((palabra << (bit & 7)) >>> (64 - b));
+    }
+
+    private int contarIguales(int orden, int columna, long valor) {
+        if (!porPersona) {
+            int cantidad = 0;
+            for (int fila = 0; fila < filas; fila++) {
+                if (valor(columna, fila) == valor) cantidad++;
+            }
+            return cantidad;
+        }
+        return primeraPosicion(orden, columna, valor + 1) - primeraPosicion(orden, columna, valor);
+    }
+
+    private void recorrerIguales(int orden, int columna, long valor, IntConsumer consumidor) {
+        if (!porPersona) {
+            // Segmentos de la versión 1: se revisan todas las filas
+            for (int fila = 0; fila < filas; fila++) {
+                if (valor(columna, fila) == valor) consumidor.accept(fila);
+            }
+            return;
+        }
+        // Los iguales quedaron en orden de fila, es decir, de fecha y hora
+        for (int i = primeraPosicion(orden, columna, valor); i < filas; i++) {
+            int fila = (int) valor(orden, i);
+            if (valor(columna, fila) != valor) return;
+            consumidor.accept(fila);
+        }
+    }
+
+    /**
+     * Primera posición de la columna de orden cuya fila tiene un valor mayor o igual al dado.
+     */
+    private int primeraPosicion(int orden, int columna, long valor) {
+        int bajo = 0;
+        int alto = filas;
+        while (bajo < alto) {
+            int medio = (bajo + alto) >>> 1;
+            if (valor(columna, (int) valor(orden, medio)) < valor) bajo = medio + 1;
+            else alto = medio;
+        }
+        return bajo;
+    }
+
+    private int primerDiaDesde(long epochDay) {
+        int bajo = 0;
+        int alto = dias;
+        while (bajo < alto) {
+            int medio = (bajo + alto) >>> 1;
+            if (diaDeTramo(medio) < epochDay) bajo = medio + 1;
+            else alto = medio;
+        }
+        return bajo;
+    }
+
+    private long diaDeTramo(int d) {
+        return datos.getInt(posDias + d * 8);
+    }
+
+    private int filaDeTramo(int d) {
+        return datos.getInt(posDias + d * 8 + 4);
+    }
+
+    private String texto(long codigo) {
+        if (codigo == 0) return null;
+        int i = (int) codigo - 1;
+        if (i < cacheTextos.length) {
+            String guardado = cacheTextos[i];
+            if (guardado != null) return guardado;
+        }
+        int inicio = datos.getInt(posTextos + i * 4);
+        int fin = datos.getInt(posTextos + i * 4 + 4);
+        byte[] bytes = new byte[fin - inicio];
+        datos.get(posBytes + inicio, bytes);
+        String texto = ReservaTextos.canonico(new String(bytes, StandardCharsets.UTF_8));
+        if (i < cacheTextos.length) cacheTextos[i] = texto;
+        return texto;
+    }
+
+    private static int crc(ByteBuffer datos) {
+        CRC32C crc = new CRC32C();
+        crc.update(datos.duplicate().clear().limit(C_CRC));
+        crc.update(datos.duplicate().clear().position(C_CRC + 4));
+        return (int) crc.getValue();
+    }
+
+    // ------------------------------------------------------------ CONSTRUCCIÓN
+
+    /**
+     * Junta citas y arma con ellas un segmento. Mientras tanto los campos se guardan en
+     * arreglos de primitivos; la memoria se libera al terminar.
+     */
+    static final class Constructor {
+        private final LocalDate corte;
+        private int filas;
+        private long[][] numeros = new long[COLUMNAS][64];
+        private int[] dias = new int[64];
+        private final Map<String, Integer> diccionario = new HashMap<>();
+        private final List<byte[]> textos = new ArrayList<>();
+        private int bytesTextos;
+
+        Constructor(LocalDate corte) {
+            this.corte = corte;
+        }
+
+        int getFilas() {
+            return filas;
+        }
+
+        /**
+         * Copia los campos de la cita; se llama con el candado de la cita tomado.
+         */
+        void agregar(Cita cita) {
+            if (filas == MAX_FILAS) throw new IllegalStateException("El segmento ya tiene " + MAX_FILAS + " citas");
+            if (filas == dias.length) crecer();
+
+            dias[filas] = (int) cita.getFecha().toEpochDay();
+            numeros[ID][filas] = cita.getId();
+            numeros[MEDICO][filas] = cita.getMedico().getId();
+            numeros[PACIENTE][filas] = cita.getPaciente().getId();
+            numeros[SEGUNDO][filas] = cita.getHora().toSecondOfDay();
+            numeros[DURACION][filas] = cita.getDuracionMinutos();
+            numeros[CENTAVOS][filas] = cita.getPrecioCentavos();
+            numeros[ESTADO][filas] = cita.getEstado().ordinal();
+            numeros[ESPECIALIDAD][filas] = codigo(cita.getMedico().getEspecialidad());
+            numeros[CONSULTORIO][filas] = codigo(cita.getMedico().getConsultorio());
+            numeros[MOTIVO][filas] = codigo(cita.getMotivo());
+            numeros[OBSERVACIONES][filas] = codigo(cita.getObservaciones());
+            filas++;
+        }
+
+        /**
+         * Arma el segmento en un {@link ByteBuffer} directo.
+         */
+        SegmentoCitas construir() {
+            int[] orden = ordenarPorFecha();
+            long[][] columnas = new long[COLUMNAS][];
+            for (int c = 0; c < POR_ID; c++) {
+                long[] ordenada = new long[filas];
+                for (int i = 0; i < filas; i++) ordenada[i] = numeros[c][orden[i]];
+                columnas[c] = ordenada;
+            }
+            columnas[POR_ID] = ordenarPor(columnas[ID]);
+            columnas[POR_MEDICO] = ordenarPor(columnas[MEDICO]);
+            columnas[POR_PACIENTE] = ordenarPor(columnas[PACIENTE]);
+            numeros = null;
+
+            // Un tramo por cada día distinto
+            int[] tramos = new int[filas * 2];
+            int cantidadDias = 0;
+            for (int i = 0; i < filas; i++) {
+                int dia = dias[orden[i]];
+                if (cantidadDias == 0 || tramos[(cantidadDias - 1) * 2] != dia) {
+                    tramos[cantidadDias * 2] = dia;
+                    tramos[cantidadDias * 2 + 1] = i;
+                    cantidadDias++;
+                }
+            }
+
+            long[] minimos = new long[COLUMNAS];
+            int[] bits = new int[COLUMNAS];
+            long tamano = CABECERA + cantidadDias * 8L;
+            for (int c = 0; c < COLUMNAS; c++) {
+                long minimo = Long.MAX_VALUE;
+                long maximo = Long.MIN_VALUE;
+                for (long v : columnas[c]) {
+                    minimo = Math.min(minimo, v);
+                    maximo = Math.max(maximo, v);
+                }
+                minimos[c] = filas == 0 ? 0 : minimo;
+                bits[c] = filas == 0 ? 0 : bitsPara(maximo - minimo);
+                tamano += ((long) filas * bits[c] + 7) / 8 + 8;
+            }
+            tamano += (textos.size() + 1) * 4L + bytesTextos;
+            if (tamano > Integer.MAX_VALUE) throw new IllegalStateException("El segmento no cabe en un solo búfer");
+
+            ByteBuffer datos = ByteBuffer.allocateDirect((int) tamano);
+            int posicion = CABECERA;
+
+            int posDias = posicion;
+            for (int d = 0; d < cantidadDias * 2; d++) datos.putInt(posicion + d * 4, tramos[d]);
+            posicion += cantidadDias * 8;
+
+            for (int c = 0; c < COLUMNAS; c++) {
+                datos.putInt(C_COLUMNAS + c * 16, posicion);
+                datos.putInt(C_COLUMNAS + c * 16 + 4, bits[c]);
+                datos.putLong(C_COLUMNAS + c * 16 + 8, minimos[c]);
+                empaquetar(datos, posicion, columnas[c], minimos[c], bits[c]);
+                posicion += (int) (((long) filas * bits[c] + 7) / 8 + 8);
+            }
+
+            int posTextos = posicion;
+            int posBytes = posTextos + (textos.size() + 1) * 4;
+            int inicio = 0;
+            for (int t = 0; t < textos.size(); t++) {
+                byte[] bytes = textos.get(t);
+                datos.putInt(posTextos + t * 4, inicio);
+                datos.put(posBytes + inicio, bytes);
+                inicio += bytes.length;
+            }
+            datos.putInt(posTextos + textos.size() * 4, inicio);
+
+            datos.putInt(0, MAGICO);
+            datos.putInt(4, VERSION);
+            datos.putInt(C_FILAS, filas);
+            datos.putInt(C_DIAS, cantidadDias);
+            datos.putInt(C_TEXTOS, textos.size());
+            datos.putInt(C_CORTE, (int) corte.toEpochDay());
+            datos.putLong(C_MENOR_ID, filas == 0 ? 0 : minimos[ID]);
+            datos.putLong(C_MAYOR_ID, filas == 0 ? 0 : minimos[ID] + maximoSinSigno(columnas[ID], minimos[ID]));
+            datos.putInt(C_POS_DIAS, posDias);
+            datos.putInt(C_POS_TEXTOS, posTextos);
+            datos.putInt(C_POS_BYTES, posBytes);
+            datos.putInt(C_TAMANO, (int) tamano);
+            datos.putInt(C_CRC, crc(datos));
+            return new SegmentoCitas(datos);
+        }
+
+        private int codigo(String texto) {
+            if (texto == null) return 0;
+            Integer existente = diccionario.get(texto);
+            if (existente != null) return existente;
+
+            byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+            textos.add(bytes);
+            bytesTextos += bytes.length;
+            int nuevo = textos.size();
+            diccionario.put(texto, nuevo);
+            return nuevo;
+        }
+
+        private void crecer() {
+            int capacidad = Math.min(MAX_FILAS, dias.length * 2);
+            dias = Arrays.copyOf(dias, capacidad);
+            for (int c = 0; c < POR_ID; c++) numeros[c] = Arrays.copyOf(numeros[c], capacidad);
+        }
+
+        /**
+         * Orden de las filas por día, segundo y orden de llegada, con una sola clave {@code long} por fila.
+         */
+        private int[] ordenarPorFecha() {
+            int menorDia = Integer.MAX_VALUE;
+            for (int i = 0; i < filas; i++) menorDia = Math.min(menorDia, dias[i]);
+
+            long[] claves = new long[filas];
+            for (int i = 0; i < filas; i++) {
+                claves[i] = ((long) (dias[i] - menorDia) << (17 + BITS_FILA))
+                        | (numeros[SEGUNDO][i] << BITS_FILA)
+                        | i;
+            }
+            Arrays.sort(claves);
+            int[] orden = new int[filas];
+            for (int i = 0; i < filas; i++) orden[i] = (int) (claves[i] & (MAX_FILAS - 1));
+            return orden;
+        }
+
+        /**
+         * Filas ordenadas por el valor y, entre iguales, por número de fila. Si los valores están
+         * cerca, la diferencia con el menor cabe junto al número de fila en un {@code long}.
+         */
+        private long[] ordenarPor(long[] valores) {
+            long menor = Long.MAX_VALUE;
+            long mayor = Long.MIN_VALUE;
+            for (long v : valores) {
+                menor = Math.min(menor, v);
+                mayor = Math.max(mayor, v);
+            }
+
+            long[] claves = new long[filas];
+            if (filas > 0 && (mayor - menor < 0 || mayor - menor >= 1L << (63 - BITS_FILA))) {
+                Integer[] orden = new Integer[filas];
+                for (int i = 0; i < filas; i++) orden[i] = i;
+                Arrays.sort(orden, (a, b) -> Long.compare(valores[a], valores[b]));
+                for (int i = 0; i < filas; i++) claves[i] = orden[i];
+                return claves;
+            }
+            for (int i = 0; i < filas; i++) {
+                claves[i] = ((valores[i] - menor) << BITS_FILA) | i;
+            }
+            Arrays.sort(claves);
+            for (int i = 0; i < filas; i++) claves[i] &= MAX_FILAS - 1;
+            return claves;
+        }
+
+        private static long maximoSinSigno(long[] valores, long minimo) {
+            long mayor = 0;
+            for (long v : valores) mayor = Math.max(mayor, v - minimo);
+            return mayor;
+        }
+
+        /**
+         * Bits necesarios para el valor; pasado 56 se guarda el {@code long} completo.
+         */
+        private static int bitsPara(long rango) {
+            if (rango < 0) return 64;
+            int b = 64 - Long.numberOfLeadingZeros(rango);
+            return b > 56 ? 64 : b;
+        }
+
+        private static void empaquetar(ByteBuffer datos, int posicion, long[] valores, long minimo, int b) {
+            if (b == 0) return;
+            for (int i = 0; i < valores.length; i++) {
+                if (b == 64) {
+                    datos.putLong(posicion + i * 8, valores[i]);
+                    continue;
+                }
+                long bit = (long) i * b;
+                int p = posicion + (int) (bit >>> 3);
+                long v = valores[i] - minimo;
+                datos.putLong(p, datos.getLong(p) | (v << (64 - b - (bit & 7))));
+            }
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package org.demo.Repositories;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import org.demo.Utils.HiloFx;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Lista observable que un repositorio expone a la interfaz gráfica.
+ * Los cambios pueden pedirse desde cualquier hilo, pero solo se aplican en el hilo de JavaFX.
+ * Mantiene la posición de cada elemento según su clave para reemplazar y quitar sin recorrer la lista,
+ * incluso si una tabla la reordena.
+ *
+ * @param <T> tipo de los elementos.
+ */
+class VistaObservable<T> {
+
+    private final ObservableList<T> lista = FXCollections.observableArrayList();
+    private final Function<T, Object> clave;
+
+    // clave -> posición en la lista; solo se toca dentro de los cambios de la lista
+    private final Map<Object, Integer> posiciones = new HashMap<>();
+
+    VistaObservable(Function<T, Object> clave) {
+        this.clave = clave;
+        lista.addListener(this::sincronizarPosiciones);
+    }
+
+    ObservableList<T> getLista() {
+        return lista;
+    }
+
+    void agregar(T elemento) {
+        HiloFx.ejecutar(() -> {
+            synchronized (this) {
+                lista.add(elemento);
+            }
+        });
+    }
+
+    /**
+     * Agrega varios elementos con un solo evento de cambio.
+     */
+    void agregarTodos(Collection<? extends T> elementos) {
+        if (elementos.isEmpty()) return;
+        List<T> copia = List.copyOf(elementos);
+        HiloFx.ejecutar(() -> {
+            synchronized (this) {
+                lista.addAll(copia);
+            }
+        });
+    }
+
+    /**
+     * Pone el elemento en la posición del que tiene su misma clave.
+     */
+    void reemplazar(T elemento) {
+        HiloFx.ejecutar(() -> {
+            synchronized (this) {
+                Integer posicion = posiciones.get(clave.apply(elemento));
+                if (posicion != null) lista.set(posicion, elemento);
+            }
+        });
+    }
+
+    /**
+     * Quita el elemento con la misma clave; el último de la lista ocupa su lugar.
+     */
+    void quitar(T elemento) {
+        Object k = clave.apply(elemento);
+        HiloFx.ejecutar(() -> {
+            synchronized (this) {
+                Integer posicion = posiciones.get(k);
+                if (posicion == null) return;
+
+                int ultima = lista.size() - 1;
+                if (posicion != ultima) {
+                    lista.set(posicion, lista.get(ultima));
+                }
+                lista.remove(ultima);
+            }
+        });
+    }
+
+    /**
+     * Quita de una vez todos los elementos con alguna de esas claves, con un solo evento de cambio.
+     */
+    void quitarTodos(Collection<? extends T> elementos) {
+        if (elementos.isEmpty()) return;
+        Set<Object> claves = new HashSet<>();
+        for (T elemento : elementos) claves.add(clave.apply(elemento));
+        HiloFx.ejecutar(() -> {
+            synchronized (this) {
+                List<T> quedan = new ArrayList<>(Math.max(0, lista.size() - claves.size()));
+                for (T elemento : lista) {
+                    if (!claves.contains(clave.apply(elemento))) quedan.add(elemento);
+                }
+                lista.setAll(quedan);
+            }
+        });
+    }
+
+    private void sincronizarPosiciones(ListChangeListener.Change<? extends T> cambio) {
+        while (cambio.next()) {
+            if (cambio.wasPermutated()) {
+                reindexarDesde(cambio.getFrom(), cambio.getTo());
+                continue;
+            }
+            List<? extends T> quitados = cambio.getRemoved();
+            for (int i = 0; i < quitados.size(); i++) {
+                // Solo si la clave aún apunta aquí: al quitar, el último ya se movió a otra posición
+                posiciones.remove(clave.apply(quitados.get(i)), cambio.getFrom() + i);
+            }
+            // Si el cambio no fue al final, las posiciones siguientes se corrieron
+            int hasta = cambio.getRemovedSize() == cambio.getAddedSize() ? cambio.getTo() : lista.size();
+            reindexarDesde(cambio.getFrom(), hasta);
+        }
+    }
+
+    private void reindexarDesde(int desde, int hasta) {
+        for (int i = desde; i < hasta; i++) {
+            posiciones.put(clave.apply(lista.get(i)), i);
+        }
+    }
+}
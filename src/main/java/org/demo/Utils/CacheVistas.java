@@ -0,0 +1,104 @@
+package org.demo.Utils;
+
+import javafx.fxml.FXMLLoader;
+import javafx.scene.Parent;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Vistas FXML construidas una sola vez y reutilizadas.
+ * Cada archivo se lee y su controlador se inicializa la primera vez que se pide; después se
+ * entrega el mismo nodo y el mismo controlador, así que mostrar de nuevo una vista no vuelve
+ * a leer el FXML ni a registrar oyentes.
+ *
+ * <p>Se usa solo desde el hilo de JavaFX. La precarga también corre en ese hilo, porque los
+ * controladores se enlazan a listas observables que solo él modifica, pero construye una vista
+ * por turno: entre una y otra se atienden los eventos pendientes y la ventana no se congela.</p>
+ */
+public final class CacheVistas {
+
+    /**
+     * Nodo raíz de una vista y su controlador.
+     */
+    public static final class Vista {
+        private final Parent nodo;
+        private final Object controlador;
+
+        private Vista(Parent nodo, Object controlador) {
+            this.nodo = nodo;
+            this.controlador = controlador;
+        }
+
+        public Parent getNodo() {
+            return nodo;
+        }
+
+        public Object getControlador() {
+            return controlador;
+        }
+    }
+
+    private final Map<String, Vista> vistas = new HashMap<>();
+    private final Consumer<Object> alCrear;
+
+    /**
+     * @param alCrear recibe cada controlador recién creado, una sola vez por vista.
+     */
+    public CacheVistas(Consumer<Object> alCrear) {
+        this.alCrear = alCrear;
+    }
+
+    /**
+     * Vista del archivo FXML indicado; se construye si todavía no existe.
+     *
+     * @param ruta ruta del recurso, por ejemplo {@code /org/demo/Cita.fxml}.
+     */
+    public Vista obtener(String ruta) {
+        Vista vista = vistas.get(ruta);
+        if (vista != null) return vista;
+
+        try {
+            FXMLLoader loader = new FXMLLoader(CacheVistas.class.getResource(ruta));
+            Parent nodo = loader.load();
+            vista = new Vista(nodo, loader.getController());
+        } catch (IOException e) {
+            throw new RuntimeException("Error al cargar la vista: " + e.getMessage(), e);
+        }
+        vistas.put(ruta, vista);
+        alCrear.accept(vista.getControlador());
+        return vista;
+    }
+
+    public boolean estaCargada(String ruta) {
+        return vistas.containsKey(ruta);
+    }
+
+    /**
+     * Construye las vistas que falten, una por turno del hilo de JavaFX.
+     * Si alguna falla se deja sin cargar: el error se verá cuando se pida con {@link #obtener}.
+     */
+    public void precargar(Collection<String> rutas) {
+        precargarSiguiente(new ArrayDeque<>(rutas));
+    }
+
+    private void precargarSiguiente(Deque<String> pendientes) {
+        String ruta = pendientes.poll();
+        if (ruta == null) return;
+        HiloFx.despues(() -> {
+            if (!estaCargada(ruta)) {
+                try {
+                    obtener(ruta);
+                } catch (RuntimeException ignorada) {
+                    // Se reintenta y se informa al abrir la vista
+                }
+            }
+            precargarSiguiente(pendientes);
+        });
+    }
+}
@@ -0,0 +1,162 @@
+package org.demo.Utils;
+
+import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.SimpleObjectProperty;
+import javafx.geometry.Bounds;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.control.TextField;
+import javafx.scene.input.KeyEvent;
+import javafx.scene.input.MouseButton;
+import javafx.stage.Popup;
+
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Campo de texto que sugiere elementos mientras se escribe.
+ * Reemplaza a un {@code ComboBox} cuando hay demasiados elementos para cargarlos todos:
+ * en cada cambio del texto se piden al buscador solo las primeras coincidencias y se muestran
+ * en una lista desplegable (que, como toda {@code ListView}, solo crea las celdas visibles).
+ * Se elige con el ratón o con las flechas y Enter; Escape cierra la lista.
+ *
+ * @param <T> tipo de los elementos.
+ */
+public class CampoAutocompletar<T> extends TextField {
+
+    private static final int FILAS_VISIBLES = 8;
+    private static final double ALTO_FILA = 26;
+
+    private final ObjectProperty<T> valor = new SimpleObjectProperty<>(this, "valor");
+    private final ListView<T> sugerencias = new ListView<>();
+    private final Popup desplegable = new Popup();
+
+    private BiFunction<String, Integer, List<T>> buscador = (texto, limite) -> List.of();
+    private Function<T, String> convertidor = String::valueOf;
+    private int limite = 50;
+
+    // Evita buscar cuando el texto lo cambia el propio campo al elegir
+    private boolean escribiendo = false;
+
+    public CampoAutocompletar() {
+        sugerencias.setFixedCellSize(ALTO_FILA);
+        sugerencias.setCellFactory(lista -> new ListCell<>() {
+            @Override
+            protected void updateItem(T item, boolean vacio) {
+                super.updateItem(item, vacio);
+                setText(vacio || item == null ? null : convertidor.apply(item));
+            }
+        });
+        sugerencias.setOnMouseClicked(e -> {
+            if (e.getButton() == MouseButton.PRIMARY) elegir(sugerencias.getSelectionModel().getSelectedItem());
+        });
+        desplegable.getContent().add(sugerencias);
+        desplegable.setAutoHide(true);
+
+        textProperty().addListener((obs, anterior, nuevo) -> {
+            if (!escribiendo) buscar(nuevo);
+        });
+        focusedProperty().addListener((obs, antes, ahora) -> {
+            if (!ahora) desplegable.hide();
+        });
+        addEventFilter(KeyEvent.KEY_PRESSED, this::teclaPresionada);
+    }
+
+    /**
+     * Función que recibe el texto escrito y la cantidad máxima de resultados.
+     */
+    public void setBuscador(BiFunction<String, Integer, List<T>> buscador) {
+        this.buscador = buscador;
+    }
+
+    /**
+     * Texto con el que se muestra cada elemento en la lista y en el campo al elegirlo.
+     */
+    public void setConvertidor(Function<T, String> convertidor) {
+        this.convertidor = convertidor;
+    }
+
+    public void setLimite(int limite) {
+        this.limite = limite;
+    }
+
+    public ObjectProperty<T> valueProperty() {
+        return valor;
+    }
+
+    public T getValue() {
+        return valor.get();
+    }
+
+    /**
+     * Elige un elemento (o ninguno, con null) y muestra su texto en el campo.
+     */
+    public void setValue(T elemento) {
+        desplegable.hide();
+        escribiendo = true;
+        try {
+            setText(elemento == null ? "" : convertidor.apply(elemento));
+            positionCaret(getText().length());
+        } finally {
+            escribiendo = false;
+        }
+        valor.set(elemento);
+    }
+
+    private void buscar(String texto) {
+        // Al escribir se pierde la elección anterior hasta que se elija otra
+        valor.set(null);
+
+        List<T> encontrados = texto == null || texto.isBlank() ? List.of() : buscador.apply(texto, limite);
+        sugerencias.getItems().setAll(encontrados);
+        if (encontrados.isEmpty()) {
+            desplegable.hide();
+            return;
+        }
+
+        sugerencias.getSelectionModel().clearSelection();
+        sugerencias.scrollTo(0);
+        sugerencias.setPrefWidth(getWidth());
+        sugerencias.setPrefHeight(Math.min(encontrados.size(), FILAS_VISIBLES) * ALTO_FILA + 2);
+
+        if (!desplegable.isShowing() && getScene() != null) {
+            Bounds limites = localToScreen(getBoundsInLocal());
+            if (limites != null) desplegable.show(this, limites.getMinX(), limites.getMaxY());
+        }
+    }
+
+    private void teclaPresionada(KeyEvent e) {
+        if (!desplegable.isShowing()) return;
+
+        switch (e.getCode()) {
+            case DOWN -> {
+                int siguiente = Math.min(sugerencias.getSelectionModel().getSelectedIndex() + 1,
+                        sugerencias.getItems().size() - 1);
+                sugerencias.getSelectionModel().select(siguiente);
+                sugerencias.scrollTo(Math.max(0, siguiente - FILAS_VISIBLES + 1));
+                e.consume();
+            }
+            case UP -> {
+                int anterior = Math.max(sugerencias.getSelectionModel().getSelectedIndex() - 1, 0);
+                sugerencias.getSelectionModel().select(anterior);
+                sugerencias.scrollTo(Math.max(0, anterior - FILAS_VISIBLES + 1));
+                e.consume();
+            }
+            case ENTER -> {
+                T elegido = sugerencias.getSelectionModel().getSelectedItem();
+                elegir(elegido != null ? elegido : sugerencias.getItems().get(0));
+                e.consume();
+            }
+            case ESCAPE -> {
+                desplegable.hide();
+                e.consume();
+            }
+            default -> { }
+        }
+    }
+
+    private void elegir(T elemento) {
+        if (elemento != null) setValue(elemento);
+    }
+}
@@ -0,0 +1,44 @@
+package org.demo.Utils;
+
+import javafx.beans.value.ObservableValueBase;
+import javafx.scene.control.TableColumn;
+
+import java.util.function.Function;
+
+/**
+ * Fábricas de valores de celda con tipos, sin reflexión.
+ * A diferencia de {@code PropertyValueFactory}, el valor se obtiene llamando directamente
+ * al getter indicado (por ejemplo {@code Cita::getFechaFormateada}), así que un cambio de
+ * nombre se detecta al compilar y cada celda no pasa por un método reflexivo.
+ * Las filas no son observables, por eso el valor se entrega como una constante.
+ */
+public final class Columnas {
+
+    private Columnas() {}
+
+    /**
+     * Configura la columna para que muestre lo que devuelve {@code getter} para cada fila.
+     */
+    public static <S, T> void mostrar(TableColumn<S, T> columna, Function<? super S, ? extends T> getter) {
+        columna.setCellValueFactory(celda -> {
+            S fila = celda.getValue();
+            return new Constante<>(fila == null ? null : getter.apply(fila));
+        });
+    }
+
+    /**
+     * Valor que no cambia; no guarda oyentes porque nunca avisa.
+     */
+    private static final class Constante<T> extends ObservableValueBase<T> {
+        private final T valor;
+
+        private Constante(T valor) {
+            this.valor = valor;
+        }
+
+        @Override
+        public T getValue() {
+            return valor;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package org.demo.Utils;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Ejecuta una consulta fuera del hilo de JavaFX cuando los pedidos dejan de llegar.
+ * Cada pedido reemplaza al anterior: si llega otro antes de que pase la espera, el anterior
+ * se cancela; si una consulta ya en curso queda vieja, su resultado se descarta. Solo el
+ * resultado del último pedido se entrega, en el hilo de JavaFX.
+ * Los pedidos deben hacerse desde el hilo de JavaFX.
+ *
+ * @param <R> tipo del resultado.
+ */
+public class ConsultaDiferida<R> {
+
+    // Un solo hilo compartido: las consultas son cortas y así nunca corren dos a la vez
+    private static final ScheduledExecutorService HILO = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread hilo = new Thread(r, "consultas-diferidas");
+        hilo.setDaemon(true);
+        return hilo;
+    });
+
+    private final long esperaMillis;
+    private final Consumer<R> alTerminar;
+    private final AtomicLong ultimoPedido = new AtomicLong();
+    private ScheduledFuture<?> pendiente;
+
+    /**
+     * @param esperaMillis tiempo sin pedidos nuevos antes de consultar.
+     * @param alTerminar   recibe el resultado en el hilo de JavaFX.
+     */
+    public ConsultaDiferida(long esperaMillis, Consumer<R> alTerminar) {
+        this.esperaMillis = esperaMillis;
+        this.alTerminar = alTerminar;
+    }
+
+    /**
+     * Programa la consulta; la consulta no debe leer controles, solo los valores que ya captura.
+     */
+    public void pedir(Supplier<R> consulta) {
+        long pedido = ultimoPedido.incrementAndGet();
+        if (pendiente != null) pendiente.cancel(false);
+
+        pendiente = HILO.schedule(() -> {
+            if (ultimoPedido.get() != pedido) return;
+            R resultado;
+            try {
+                resultado = consulta.get();
+            } catch (RuntimeException e) {
+                // Se informa en el hilo de JavaFX, como cualquier otro error de la interfaz
+                HiloFx.despues(() -> {
+                    throw e;
+                });
+                return;
+            }
+            HiloFx.despues(() -> {
+                if (ultimoPedido.get() == pedido) alTerminar.accept(resultado);
+            });
+        }, esperaMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Descarta el pedido pendiente y cualquier resultado que aún no se haya entregado.
+     */
+    public void cancelar() {
+        ultimoPedido.incrementAndGet();
+        if (pendiente != null) pendiente.cancel(false);
+        pendiente = null;
+    }
+}
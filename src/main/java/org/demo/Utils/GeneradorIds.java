@@ -0,0 +1,97 @@
+package org.demo.Utils;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Entrega IDs de 64 bits crecientes y únicos, sin candados en el caso común.
+ * Los IDs se reservan por bloques: antes de entregar uno que pasa el límite reservado
+ * se guarda un nuevo límite (la marca) y solo después se publica. Al reiniciar se
+ * continúa desde la marca guardada, así que ningún ID se repite aunque la aplicación
+ * se cierre de golpe; a lo sumo quedan huecos.
+ */
+public final class GeneradorIds {
+
+    public static final GeneradorIds CITAS = new GeneradorIds("C");
+    public static final GeneradorIds PERSONAS = new GeneradorIds("P");
+
+    private static final long BLOQUE = 1024;
+
+    /**
+     * Guarda de forma durable el nuevo límite de un generador.
+     */
+    public interface Marca {
+        void guardar(GeneradorIds generador, long limite);
+    }
+
+    // Sin persistencia (herramientas sin interfaz) los límites solo viven en memoria
+    private static volatile Marca marca = (generador, limite) -> {};
+
+    private final String prefijo;
+    private final AtomicLong siguiente = new AtomicLong(1);
+    private volatile long limite = 1;
+
+    private GeneradorIds(String prefijo) {
+        this.prefijo = prefijo;
+    }
+
+    /**
+     * Define dónde se guardan las marcas y reserva un bloque nuevo en cada generador,
+     * para que ningún ID entregado antes quede fuera de lo guardado.
+     */
+    public static void usarMarca(Marca nueva) {
+        marca = nueva;
+        CITAS.reservarBloque();
+        PERSONAS.reservarBloque();
+    }
+
+    /**
+     * Próximo ID.
+     */
+    public long siguiente() {
+        long id = siguiente.getAndIncrement();
+        if (id >= limite) {
+            reservarHasta(id);
+        }
+        return id;
+    }
+
+    /**
+     * Hace que los próximos IDs sean mayores o iguales al valor dado
+     * (por ejemplo, después de restaurar datos guardados).
+     */
+    public void avanzarHasta(long minimo) {
+        siguiente.accumulateAndGet(minimo, Math::max);
+    }
+
+    /**
+     * Límite reservado actual: ningún ID entregado lo alcanza.
+     */
+    public long getLimite() {
+        return limite;
+    }
+
+    /**
+     * Forma corta para mostrar: prefijo y el número en base 36, por ejemplo {@code C-2S}.
+     */
+    public String formatear(long id) {
+        return prefijo + "-" + Long.toString(id, 36).toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * Reserva un bloque a partir del próximo ID, aunque el actual no se haya agotado.
+     */
+    public synchronized void reservarBloque() {
+        long nuevo = siguiente.get() + BLOQUE;
+        marca.guardar(this, nuevo);
+        limite = nuevo;
+    }
+
+    // Solo se entra aquí una vez por bloque
+    private synchronized void reservarHasta(long id) {
+        if (id < limite) return;
+        long nuevo = Math.max(id + 1, siguiente.get()) + BLOQUE;
+        marca.guardar(this, nuevo);
+        limite = nuevo;
+    }
+}
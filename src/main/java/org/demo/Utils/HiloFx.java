@@ -0,0 +1,51 @@
+package org.demo.Utils;
+
+import javafx.application.Platform;
+
+/**
+ * Ejecuta código en el hilo de JavaFX.
+ * Si quien llama ya está en el hilo de JavaFX la acción corre de inmediato;
+ * si está en otro hilo se encola con {@link Platform#runLater(Runnable)}.
+ * Mientras la aplicación no haya marcado el toolkit como iniciado (herramientas sin interfaz)
+ * la acción corre en el hilo actual y no se toca ninguna clase del toolkit.
+ */
+public class HiloFx {
+
+    private static volatile boolean toolkitIniciado = false;
+
+    private HiloFx() {}
+
+    /**
+     * Lo llama la aplicación desde {@code start}, cuando el hilo de JavaFX ya existe.
+     */
+    public static void marcarToolkitIniciado() {
+        toolkitIniciado = true;
+    }
+
+    /**
+     * Indica si hay un hilo de JavaFX al que se delegan las acciones.
+     */
+    public static boolean hayToolkit() {
+        return toolkitIniciado;
+    }
+
+    public static void ejecutar(Runnable accion) {
+        if (!toolkitIniciado || Platform.isFxApplicationThread()) {
+            accion.run();
+        } else {
+            Platform.runLater(accion);
+        }
+    }
+
+    /**
+     * Encola la acción en el hilo de JavaFX aunque quien llama ya esté en él,
+     * para que corra cuando termine el evento actual.
+     */
+    public static void despues(Runnable accion) {
+        if (toolkitIniciado) {
+            Platform.runLater(accion);
+        } else {
+            accion.run();
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package org.demo.Utils;
+
+import javafx.collections.ObservableListBase;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Lista observable de solo lectura que pide los datos por páginas.
+ * Una {@code TableView} solo consulta las filas visibles, así que solo se traen esas
+ * páginas más la vecina cuando la fila está cerca del borde. Se guardan unas pocas
+ * páginas recientes; el resto no se materializa.
+ * Una página nueva se pide a partir del borde de la página guardada más cercana (o del
+ * principio o el final), así la fuente puede buscar por clave en lugar de saltar filas.
+ * Debe usarse desde el hilo de JavaFX, salvo {@link #invalidar()}.
+ *
+ * @param <T> tipo de las filas.
+ */
+public class ListaPaginada<T> extends ObservableListBase<T> {
+
+    /**
+     * Origen de los datos, ya ordenado y filtrado.
+     */
+    public interface Fuente<T> {
+        int contar();
+
+        /**
+         * Hasta {@code cantidad} filas que siguen a {@code referencia} (desde la primera si es null),
+         * saltando antes las {@code saltar} siguientes.
+         */
+        List<T> leerDespuesDe(T referencia, int saltar, int cantidad);
+
+        /**
+         * Hasta {@code cantidad} filas que preceden a {@code referencia} (desde la última si es null),
+         * saltando antes las {@code saltar} anteriores. Se devuelven en orden ascendente.
+         */
+        List<T> leerAntesDe(T referencia, int saltar, int cantidad);
+    }
+
+    private final Fuente<T> fuente;
+    private final int tamPagina;
+    private final int margen;
+    private final Map<Integer, List<T>> paginas;
+    // Páginas de antes del último refresco; solo se usan sus bordes como punto de partida
+    private final Map<Integer, List<T>> anclas = new HashMap<>();
+    private final AtomicBoolean invalidada = new AtomicBoolean(false);
+
+    private int tamano;
+
+    /**
+     * @param tamPagina  filas por página.
+     * @param maxPaginas páginas que se conservan a la vez (al menos 3: la actual y sus vecinas).
+     */
+    public ListaPaginada(Fuente<T> fuente, int tamPagina, int maxPaginas) {
+        this.fuente = fuente;
+        this.tamPagina = tamPagina;
+        this.margen = Math.max(1, tamPagina / 5);
+        int limite = Math.max(3, maxPaginas);
+        this.paginas = new LinkedHashMap<>(limite * 2, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, List<T>> mayor) {
+                return size() > limite;
+            }
+        };
+        this.tamano = fuente.contar();
+    }
+
+    @Override
+    public T get(int indice) {
+        Objects.checkIndex(indice, tamano);
+        int numero = indice / tamPagina;
+        int posicion = indice % tamPagina;
+
+        List<T> pagina = pagina(numero);
+
+        // Adelantar la página vecina si la fila está cerca del borde
+        if (posicion >= tamPagina - margen && (numero + 1) * tamPagina < tamano) {
+            pagina(numero + 1);
+        } else if (posicion < margen && numero > 0) {
+            pagina(numero - 1);
+        }
+
+        // La fuente pudo achicarse después de contar; la próxima invalidación lo corrige
+        return posicion < pagina.size() ? pagina.get(posicion) : null;
+    }
+
+    @Override
+    public int size() {
+        return tamano;
+    }
+
+    /**
+     * Vuelve a contar y descarta las páginas guardadas. Las tablas reciben solo las filas
+     * agregadas o quitadas al final y la actualización de las filas que ya habían pedido, así
+     * que conservan el desplazamiento y la selección.
+     * Si la cantidad no cambió, los bordes de las páginas anteriores siguen sirviendo para
+     * ubicar las nuevas; una fila que cambió de lugar se corrige en el siguiente refresco.
+     */
+    public void refrescar() {
+        invalidada.set(false);
+        int anterior = tamano;
+        tamano = fuente.contar();
+
+        anclas.clear();
+        if (tamano == anterior) anclas.putAll(paginas);
+        List<Integer> pedidas = new ArrayList<>(paginas.keySet());
+        paginas.clear();
+
+        beginChange();
+        for (int numero : pedidas) {
+            int hasta = Math.min(Math.min(anterior, tamano), (numero + 1) * tamPagina);
+            for (int i = numero * tamPagina; i < hasta; i++) nextUpdate(i);
+        }
+        if (tamano > anterior) nextAdd(anterior, tamano);
+        else if (tamano < anterior) nextRemove(tamano, Collections.nCopies(anterior - tamano, null));
+        endChange();
+    }
+
+    /**
+     * Como {@link #refrescar()}, pero para cuando cambió lo que la fuente devuelve (otro filtro u
+     * otro orden): no aprovecha las páginas anteriores y reemplaza todo el contenido.
+     */
+    public void reiniciar() {
+        invalidada.set(false);
+        int anterior = tamano;
+        anclas.clear();
+        paginas.clear();
+        tamano = fuente.contar();
+
+        beginChange();
+        if (anterior > 0) nextRemove(0, Collections.nCopies(anterior, null));
+        if (tamano > 0) nextAdd(0, tamano);
+        endChange();
+    }
+
+    /**
+     * Pide un refresco desde cualquier hilo. Varios avisos seguidos producen un solo refresco.
+     */
+    public void invalidar() {
+        if (invalidada.compareAndSet(false, true)) {
+            HiloFx.despues(this::refrescar);
+        }
+    }
+
+    private List<T> pagina(int numero) {
+        List<T> pagina = paginas.get(numero);
+        if (pagina == null) {
+            pagina = leer(numero);
+            paginas.put(numero, pagina);
+        }
+        return pagina;
+    }
+
+    /**
+     * Lee la página partiendo del punto conocido que obligue a saltar menos filas: el borde de
+     * una página guardada, el principio o el final.
+     */
+    private List<T> leer(int numero) {
+        int inicio = numero * tamPagina;
+        int fin = Math.min(tamano, inicio + tamPagina);
+
+        int menor = inicio;
+        T referencia = null;
+        boolean haciaAtras = false;
+        if (tamano - fin < menor) {
+            menor = tamano - fin;
+            haciaAtras = true;
+        }
+        for (Map<Integer, List<T>> conocidas : List.of(paginas, anclas)) {
+            for (Map.Entry<Integer, List<T>> entrada : conocidas.entrySet()) {
+                int otra = entrada.getKey();
+                List<T> filas = entrada.getValue();
+                // Solo una página completa deja saber en qué posición está su borde
+                if (filas.size() != tamPagina) continue;
+                int saltar = otra < numero ? inicio - (otra + 1) * tamPagina : otra * tamPagina - fin;
+                if (otra == numero || saltar >= menor) continue;
+                menor = saltar;
+                referencia = otra < numero ? filas.get(tamPagina - 1) : filas.get(0);
+                haciaAtras = otra > numero;
+            }
+        }
+        return haciaAtras ? fuente.leerAntesDe(referencia, menor, fin - inicio)
+                : fuente.leerDespuesDe(referencia, menor, fin - inicio);
+    }
+}
@@ -0,0 +1,49 @@
+package org.demo.Utils;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Una sola instancia por cada texto repetido de los modelos (dirección, especialidad,
+ * consultorio, motivo...). Casi todos los pacientes viven en "Armenia" y los médicos se
+ * reparten unas pocas especialidades; sin esto cada registro guarda su propia copia.
+ *
+ * <p>La reserva solo tiene referencias débiles: cuando ningún registro usa un texto, el
+ * recolector lo libera y su entrada desaparece. Está repartida en franjas según el hash
+ * para que la carga en paralelo no se detenga en un solo candado.</p>
+ */
+public final class ReservaTextos {
+
+    // Los textos largos casi nunca se repiten y no vale la pena guardarlos
+    private static final int LARGO_MAXIMO = 256;
+    private static final int FRANJAS = 16;
+
+    private static final List<Map<String, WeakReference<String>>> franjas = new ArrayList<>(FRANJAS);
+
+    static {
+        for (int i = 0; i < FRANJAS; i++) franjas.add(new WeakHashMap<>());
+    }
+
+    private ReservaTextos() {
+    }
+
+    /**
+     * Devuelve la instancia compartida igual al texto; la primera vez, el mismo texto queda como compartido.
+     * Con null o textos muy largos devuelve el mismo valor.
+     */
+    public static String canonico(String texto) {
+        if (texto == null || texto.length() > LARGO_MAXIMO) return texto;
+
+        Map<String, WeakReference<String>> franja = franjas.get((texto.hashCode() & 0x7fffffff) % FRANJAS);
+        synchronized (franja) {
+            WeakReference<String> referencia = franja.get(texto);
+            String existente = referencia == null ? null : referencia.get();
+            if (existente != null) return existente;
+            franja.put(texto, new WeakReference<>(texto));
+            return texto;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package org.demo.Estadisticas;
+
+import org.demo.Models.Cita;
+import org.demo.Models.EstadoCita;
+import org.demo.Models.Medico;
+import org.demo.Models.Paciente;
+import org.demo.Models.TipoDocumento;
+import org.demo.Repositories.CitaRepository;
+import org.demo.Repositories.MedicoRepository;
+import org.demo.Repositories.PacienteRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Cada clase de prueba corre en su propia JVM: el motor y los repositorios empiezan vacíos,
+ * así que los totales se comparan con valores exactos.
+ */
+class MotorEstadisticasTest {
+
+    private static final LocalDate LUNES = LocalDate.of(2016, 3, 7);
+    private static final LocalDate MARTES = LUNES.plusDays(1);
+    private static final double JORNADA = MotorEstadisticas.MINUTOS_JORNADA;
+
+    private final MotorEstadisticas motor = MotorEstadisticas.getInstancia();
+    private final CitaRepository citas = CitaRepository.getInstancia();
+    private final MedicoRepository medicos = MedicoRepository.getInstancia();
+    private final PacienteRepository pacientes = PacienteRepository.getInstancia();
+
+    @Test
+    void losTotalesSiguenCadaCambioDeLasCitas() {
+        motor.iniciar();
+        Medico ana = medico("Dra. Ana Ruiz", "100", "Cardiología", "Consultorio 1");
+        Medico luis = medico("Dr. Luis Mora", "101", "Pediatría", "Consultorio 2");
+        Paciente julia = new Paciente("Julia Pérez", TipoDocumento.CC, "200", "310", "Armenia",
+                "julia@correo.com", "01/01/1990", "Ninguna");
+        pacientes.guardarPaciente(julia);
+
+        Cita a = reservar(ana, julia, LUNES, LocalTime.of(9, 0), 60, 100_000);
+        Cita b = reservar(ana, julia, LUNES, LocalTime.of(10, 0), 30, 50_000);
+        Cita c = reservar(luis, julia, LUNES, LocalTime.of(9, 0), 30, 40_000);
+        Cita d = reservar(ana, julia, MARTES, LocalTime.of(9, 0), 30, 30_000);
+
+        assertEquals(220_000, motor.getIngresosCentavos());
+        assertEquals(180_000, motor.getIngresosMedicoCentavos(ana.getId()));
+        assertEquals(180_000, motor.getIngresosEspecialidadCentavos("Cardiología"));
+        assertEquals(190_000, motor.getIngresosDiaCentavos(LUNES));
+        assertEquals(90 / JORNADA, motor.getUsoConsultorio("Consultorio 1", LUNES));
+        assertEquals(120 / (2 * JORNADA), motor.getUsoConsultorio("Consultorio 1"));
+
+        // Cambian el precio y el estado: se resta lo anterior y se suma lo nuevo
+        assertTrue(citas.actualizarCita(editada(a, 120_000, EstadoCita.ATENDIDA)));
+        assertTrue(citas.actualizarCita(editada(b, b.getPrecioCentavos(), EstadoCita.NO_ASISTIO)));
+        assertEquals(190_000, motor.getIngresosCentavos());
+        assertEquals(150_000, motor.getIngresosMedicoCentavos(ana.getId()));
+        assertEquals(0.5, motor.getTasaInasistencia());
+        assertEquals(0.5, motor.getTasaInasistencia(ana.getId()));
+        assertEquals(0, motor.getTasaInasistencia(luis.getId()));
+        // La inasistencia sigue ocupando el consultorio
+        assertEquals(90 / JORNADA, motor.getUsoConsultorio("Consultorio 1", LUNES));
+
+        // El médico cambia de especialidad y consultorio: sus citas pasan a sumar allá
+        medicos.actualizarMedico(new Medico(ana.getId(), ana.getNombre(), ana.getTipoDocumento(), ana.getNumDocumento(),
+                ana.getTelefono(), ana.getDireccion(), ana.getCorreo(), "Cardiología pediátrica", "Consultorio 3",
+                ana.getHorario()));
+        assertEquals(0, motor.getIngresosEspecialidadCentavos("Cardiología"));
+        assertEquals(150_000, motor.getIngresosEspecialidadCentavos("Cardiología pediátrica"));
+        assertEquals(0, motor.getUsoConsultorio("Consultorio 1"));
+        assertEquals(120 / (2 * JORNADA), motor.getUsoConsultorio("Consultorio 3"));
+
+        // Sin la cita del martes el consultorio vuelve a contar un solo día
+        citas.eliminarCita(d);
+        assertEquals(0, motor.getIngresosDiaCentavos(MARTES));
+        assertEquals(90 / JORNADA, motor.getUsoConsultorio("Consultorio 3"));
+
+        citas.eliminarCita(c);
+        assertEquals(120_000, motor.getIngresosCentavos());
+        assertEquals(0, motor.getIngresosMedicoCentavos(luis.getId()));
+        assertEquals(0, motor.getIngresosEspecialidadCentavos("Pediatría"));
+        assertEquals(0, motor.getUsoConsultorio("Consultorio 2"));
+        assertFalse(motor.getIngresosPorMedico().containsKey(luis.getId()));
+
+        // Al archivar, las citas dejan de sumar en memoria y su segmento suma lo mismo
+        assertEquals(2, citas.archivarAnterioresA(LUNES.withDayOfMonth(1).plusMonths(1), 1));
+        assertTrue(citas.listarCitas().isEmpty());
+        assertEquals(120_000, motor.getIngresosCentavos());
+        assertEquals(120_000, motor.getIngresosMedicoCentavos(ana.getId()));
+        assertEquals(120_000, motor.getIngresosEspecialidadCentavos("Cardiología pediátrica"));
+        assertEquals(120_000, motor.getIngresosDiaCentavos(LUNES));
+        assertEquals(0.5, motor.getTasaInasistencia(ana.getId()));
+        assertEquals(90 / JORNADA, motor.getUsoConsultorio("Consultorio 3"));
+
+        // Lo archivado queda con la especialidad que tenía el médico al archivarlo
+        medicos.actualizarMedico(new Medico(ana.getId(), ana.getNombre(), ana.getTipoDocumento(), ana.getNumDocumento(),
+                ana.getTelefono(), ana.getDireccion(), ana.getCorreo(), "Cardiología", "Consultorio 1",
+                ana.getHorario()));
+        assertEquals(120_000, motor.getIngresosEspecialidadCentavos("Cardiología pediátrica"));
+        assertEquals(0, motor.getIngresosEspecialidadCentavos("Cardiología"));
+    }
+
+    // ------------------------------------------------------------ AUXILIARES
+
+    private Medico medico(String nombre, String documento, String especialidad, String consultorio) {
+        Medico m = new Medico(nombre, TipoDocumento.CC, documento, "30" + documento, "Armenia",
+                "m" + documento + "@hospital.com", especialidad, consultorio);
+        medicos.guardarMedico(m);
+        return m;
+    }
+
+    private Cita reservar(Medico medico, Paciente paciente, LocalDate fecha, LocalTime hora, int duracion,
+                          long centavos) {
+        Cita cita = new Cita(medico, paciente, fecha, hora, duracion, centavos / 100.0, "Control", "");
+        assertTrue(citas.reservarCita(cita));
+        return cita;
+    }
+
+    private static Cita editada(Cita cita, long centavos, EstadoCita estado) {
+        return new Cita(cita.getId(), cita.getMedico(), cita.getPaciente(), cita.getFecha(), cita.getHora(),
+                cita.getDuracionMinutos(), centavos, estado, cita.getMotivo(), cita.getObservaciones());
+    }
+}
@@ -0,0 +1,82 @@
+package org.demo.Persistencia;
+
+import org.demo.Utils.GeneradorIds;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ArchivoIdsTest {
+
+    @TempDir
+    Path directorio;
+
+    @Test
+    void ningunIdEntregadoPasaLaMarcaGuardada() throws IOException {
+        GeneradorIds.usarMarca(ArchivoIds.abrir(directorio));
+        try {
+            long mayor = 0;
+            for (int i = 0; i < 5000; i++) {
+                mayor = GeneradorIds.CITAS.siguiente();
+                assertTrue(mayor < ArchivoIds.abrir(directorio).getMarcaCitas());
+            }
+            assertEquals(GeneradorIds.CITAS.getLimite(), ArchivoIds.abrir(directorio).getMarcaCitas());
+
+            // Al reiniciar se continúa desde la marca: ningún ID se repite aunque queden huecos
+            GeneradorIds.CITAS.avanzarHasta(ArchivoIds.abrir(directorio).getMarcaCitas());
+            assertTrue(GeneradorIds.CITAS.siguiente() > mayor);
+        } finally {
+            // El directorio se borra al terminar la prueba
+            GeneradorIds.usarMarca((generador, limite) -> {});
+        }
+    }
+
+    @Test
+    void cadaGeneradorGuardaSuPropiaMarca() throws IOException {
+        ArchivoIds archivo = ArchivoIds.abrir(directorio);
+        archivo.guardar(GeneradorIds.CITAS, 5000);
+        archivo.guardar(GeneradorIds.PERSONAS, 7000);
+        archivo.guardar(GeneradorIds.CITAS, 6000);
+
+        ArchivoIds leido = ArchivoIds.abrir(directorio);
+        assertEquals(6000, leido.getMarcaCitas());
+        assertEquals(7000, leido.getMarcaPersonas());
+    }
+
+    @Test
+    void unArchivoDanadoSeTrataComoAusente() throws IOException {
+        ArchivoIds.abrir(directorio).guardar(GeneradorIds.PERSONAS, 9000);
+        Path archivo = directorio.resolve("ids.dat");
+        byte[] bytes = Files.readAllBytes(archivo);
+        bytes[10] ^= 0x01;
+        Files.write(archivo, bytes);
+
+        ArchivoIds leido = ArchivoIds.abrir(directorio);
+        assertEquals(0, leido.getMarcaCitas());
+        assertEquals(0, leido.getMarcaPersonas());
+    }
+
+    @Test
+    void losIdsNoSeRepitenEntreHilos() throws InterruptedException {
+        Set<Long> vistos = ConcurrentHashMap.newKeySet();
+        Thread[] hilos = new Thread[4];
+        for (int h = 0; h < hilos.length; h++) {
+            hilos[h] = new Thread(() -> {
+                Set<Long> propios = new HashSet<>();
+                for (int i = 0; i < 10_000; i++) propios.add(GeneradorIds.PERSONAS.siguiente());
+                vistos.addAll(propios);
+            });
+            hilos[h].start();
+        }
+        for (Thread hilo : hilos) hilo.join();
+
+        assertEquals(40_000, vistos.size());
+    }
+}
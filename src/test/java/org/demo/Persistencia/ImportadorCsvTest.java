@@ -0,0 +1,83 @@
+package org.demo.Persistencia;
+
+import org.demo.Models.Medico;
+import org.demo.Models.Paciente;
+import org.demo.Models.TipoDocumento;
+import org.demo.Repositories.MedicoRepository;
+import org.demo.Repositories.PacienteRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImportadorCsvTest {
+
+    @TempDir
+    Path directorio;
+
+    @Test
+    void separaCamposConComillas() {
+        assertEquals(List.of("a", "b, c", "d \"e\"", ""), ImportadorCsv.separar("a,\"b, c\",\"d \"\"e\"\"\","));
+    }
+
+    @Test
+    void importaLasFilasValidasYGuardaLasRechazadas() throws IOException {
+        Path archivo = escribir("pacientes.csv",
+                "\uFEFFnombre,tipo,documento,telefono,direccion,correo,nacimiento,enfermedad",
+                "Julia Pérez,Cédula de Ciudadanía,10001,3100,\"Calle 5, Armenia\",julia@correo.com,01/01/1990,Ninguna",
+                "Mario Gil,PASAPORTE,10002,3101,Armenia,mario@correo.com,02/02/1985,Asma",
+                "",
+                "Sin Documento,CC,12,3102,Armenia,sin@correo.com,03/03/1980,Ninguna",
+                "Tipo Raro,XYZ,10003,3103,Armenia,raro@correo.com,03/03/1980,Ninguna",
+                "Corta,CC,10004",
+                // Repite el documento de Julia: lo rechaza el repositorio
+                "Julia Copia,CC,10001,3104,Armenia,otra@correo.com,04/04/1970,Ninguna");
+        List<ImportadorCsv.Progreso> avances = new ArrayList<>();
+
+        ImportadorCsv.Resultado resultado = ImportadorCsv.importarPacientes(archivo, avances::add);
+
+        assertEquals(2, resultado.getAceptados());
+        assertEquals(4, resultado.getRechazados());
+        Paciente julia = PacienteRepository.getInstancia().buscarPorDocumento("10001").orElseThrow();
+        assertEquals("Calle 5, Armenia", julia.getDireccion());
+        assertEquals(TipoDocumento.CC, julia.getTipoDocumento());
+        assertEquals(TipoDocumento.PASAPORTE,
+                PacienteRepository.getInstancia().buscarPorDocumento("10002").orElseThrow().getTipoDocumento());
+
+        List<String> rechazadas = Files.readAllLines(resultado.getArchivoRechazos(), StandardCharsets.UTF_8);
+        assertTrue(rechazadas.stream().anyMatch(l -> l.contains("Sin Documento")));
+        assertTrue(rechazadas.stream().anyMatch(l -> l.contains("Julia Copia")));
+        assertEquals(1.0, avances.get(avances.size() - 1).getFraccion());
+    }
+
+    @Test
+    void losMedicosLeenElHorarioOpcional() throws IOException {
+        Path archivo = escribir("medicos.csv",
+                "Dra. Ana Ruiz,CC,20001,3000,Armenia,ana@hospital.com,Cardiología,Consultorio 1,Lunes a viernes",
+                "Dr. Luis Mora,CC,20002,3001,Armenia,luis@hospital.com,Pediatría,Consultorio 2");
+
+        ImportadorCsv.Resultado resultado = ImportadorCsv.importarMedicos(archivo, p -> {});
+
+        assertEquals(2, resultado.getAceptados());
+        assertEquals(0, resultado.getRechazados());
+        assertNull(resultado.getArchivoRechazos());
+        assertFalse(Files.exists(directorio.resolve("medicos.csv.rechazados.csv")));
+        List<Medico> medicos = MedicoRepository.getInstancia().listarMedicos();
+        Medico ana = medicos.stream().filter(m -> m.getNumDocumento().equals("20001")).findFirst().orElseThrow();
+        assertEquals("Lunes a viernes", ana.getHorario());
+        assertEquals("Cardiología", ana.getEspecialidad());
+    }
+
+    private Path escribir(String nombre, String... lineas) throws IOException {
+        Path archivo = directorio.resolve(nombre);
+        Files.write(archivo, List.of(lineas), StandardCharsets.UTF_8);
+        return archivo;
+    }
+}
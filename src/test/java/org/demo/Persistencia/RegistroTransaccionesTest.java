@@ -0,0 +1,182 @@
+package org.demo.Persistencia;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RegistroTransaccionesTest {
+
+    @TempDir
+    Path directorio;
+
+    @Test
+    void leeLosRegistrosEnOrden() throws IOException {
+        try (RegistroTransacciones registro = new RegistroTransacciones(directorio, 1)) {
+            for (int i = 1; i <= 3; i++) {
+                assertEquals(i, registro.agregar(TipoRegistro.CITA_GUARDADA, cuerpo("cita " + i)).join());
+            }
+        }
+
+        List<RegistroTransacciones.Registro> leidos = leerTodo(0);
+        assertEquals(3, leidos.size());
+        for (int i = 0; i < 3; i++) {
+            assertEquals(i + 1, leidos.get(i).lsn);
+            assertEquals(TipoRegistro.CITA_GUARDADA, leidos.get(i).tipo);
+            assertEquals("cita " + (i + 1), texto(leidos.get(i)));
+        }
+    }
+
+    @Test
+    void descartaLaColaEscritaAMedias() throws IOException {
+        try (RegistroTransacciones registro = new RegistroTransacciones(directorio, 1)) {
+            registro.agregar(TipoRegistro.PACIENTE_GUARDADO, cuerpo("uno"));
+            registro.agregar(TipoRegistro.PACIENTE_GUARDADO, cuerpo("dos")).join();
+        }
+        // Un corte a mitad del último registro
+        Path segmento = unicoSegmento();
+        try (FileChannel canal = FileChannel.open(segmento, StandardOpenOption.WRITE)) {
+            canal.truncate(canal.size() - 2);
+        }
+
+        List<RegistroTransacciones.Registro> leidos = leerTodo(0);
+        assertEquals(1, leidos.size());
+        assertEquals("uno", texto(leidos.get(0)));
+    }
+
+    @Test
+    void seDetieneEnUnRegistroConCrcInvalido() throws IOException {
+        try (RegistroTransacciones registro = new RegistroTransacciones(directorio, 1)) {
+            registro.agregar(TipoRegistro.MEDICO_GUARDADO, cuerpo("uno"));
+            registro.agregar(TipoRegistro.MEDICO_GUARDADO, cuerpo("dos"));
+            registro.agregar(TipoRegistro.MEDICO_GUARDADO, cuerpo("tres")).join();
+        }
+        // Se daña el último byte del cuerpo del segundo registro
+        Path segmento = unicoSegmento();
+        byte[] bytes = Files.readAllBytes(segmento);
+        int segundo = 8 + (17 + 3);
+        bytes[segundo + 17 + 2] ^= 0x5A;
+        Files.write(segmento, bytes);
+
+        List<RegistroTransacciones.Registro> leidos = leerTodo(0);
+        assertEquals(1, leidos.size());
+        assertEquals("uno", texto(leidos.get(0)));
+    }
+
+    @Test
+    void laRotacionSeparaLoQueCubreLaInstantanea() throws IOException {
+        long cubierto;
+        try (RegistroTransacciones registro = new RegistroTransacciones(directorio, 1)) {
+            registro.agregar(TipoRegistro.CITA_GUARDADA, cuerpo("antes 1"));
+            registro.agregar(TipoRegistro.CITA_GUARDADA, cuerpo("antes 2"));
+            cubierto = registro.rotar().join();
+            registro.agregar(TipoRegistro.CITA_ELIMINADA, cuerpo("despues 1"));
+            registro.agregar(TipoRegistro.CITA_GUARDADA, cuerpo("despues 2")).join();
+        }
+        assertEquals(2, cubierto);
+
+        // Al restaurar desde la instantánea solo se reaplica lo posterior
+        List<RegistroTransacciones.Registro> posteriores = leerTodo(cubierto);
+        assertEquals(List.of("despues 1", "despues 2"), posteriores.stream().map(RegistroTransaccionesTest::texto).toList());
+        assertEquals(TipoRegistro.CITA_ELIMINADA, posteriores.get(0).tipo);
+
+        RegistroTransacciones.eliminarSegmentosHasta(directorio, cubierto);
+        assertEquals(List.of(3L, 4L), leerTodo(0).stream().map(r -> r.lsn).toList());
+    }
+
+    @Test
+    void continuaDesdeElLsnIndicado() throws IOException {
+        try (RegistroTransacciones registro = new RegistroTransacciones(directorio, 1)) {
+            registro.agregar(TipoRegistro.CITA_GUARDADA, cuerpo("primera sesion")).join();
+        }
+        long ultimo = RegistroTransacciones.leer(directorio, 0, r -> {});
+        try (RegistroTransacciones registro = new RegistroTransacciones(directorio, ultimo + 1)) {
+            assertEquals(2, registro.agregar(TipoRegistro.CITA_GUARDADA, cuerpo("segunda sesion")).join());
+        }
+
+        assertEquals(List.of("primera sesion", "segunda sesion"), leerTodo(0).stream().map(RegistroTransaccionesTest::texto).toList());
+    }
+
+    @Test
+    void unaFallaDeEscrituraTerminaTodoElLoteYSigueEnOtroSegmento() throws Exception {
+        try (RegistroTransacciones registro = new RegistroTransacciones(directorio, 1)) {
+            registro.agregar(TipoRegistro.CITA_GUARDADA, cuerpo("bien")).join();
+
+            // El segmento actual deja de aceptar escrituras
+            segmentoActual(registro).close();
+
+            CompletableFuture<Long> perdido = registro.agregar(TipoRegistro.CITA_GUARDADA, cuerpo("perdido"));
+            CompletableFuture<Long> rotacion = registro.rotar();
+            CompletableFuture<Long> sincronizacion = registro.sincronizar();
+            for (CompletableFuture<Long> futuro : List.of(perdido, rotacion, sincronizacion)) {
+                // Sin importar en qué lote cayeron, ninguno queda esperando para siempre
+                try {
+                    futuro.get(10, TimeUnit.SECONDS);
+                } catch (ExecutionException e) {
+                    // Lo que estaba en el lote que falló
+                }
+            }
+            assertThrows(CompletionException.class, perdido::join);
+
+            long lsn = registro.agregar(TipoRegistro.CITA_GUARDADA, cuerpo("despues")).get(10, TimeUnit.SECONDS);
+            assertTrue(lsn > 2);
+        }
+
+        assertEquals(List.of("bien", "despues"), leerTodo(0).stream().map(RegistroTransaccionesTest::texto).toList());
+    }
+
+    @Test
+    void despuesDeCerrarFallaEnseguida() throws IOException {
+        RegistroTransacciones registro = new RegistroTransacciones(directorio, 1);
+        registro.close();
+
+        CompletableFuture<Long> futuro = registro.agregar(TipoRegistro.CITA_GUARDADA, cuerpo("tarde"));
+        assertTrue(futuro.isCompletedExceptionally());
+        assertDoesNotThrow(registro::close);
+    }
+
+    // ------------------------------------------------------------ AUXILIARES
+
+    private List<RegistroTransacciones.Registro> leerTodo(long desdeLsn) throws IOException {
+        List<RegistroTransacciones.Registro> leidos = new ArrayList<>();
+        RegistroTransacciones.leer(directorio, desdeLsn, leidos::add);
+        return leidos;
+    }
+
+    private Path unicoSegmento() throws IOException {
+        try (Stream<Path> archivos = Files.list(directorio)) {
+            List<Path> segmentos = archivos.filter(a -> a.getFileName().toString().startsWith("wal-")).toList();
+            assertEquals(1, segmentos.size());
+            return segmentos.get(0);
+        }
+    }
+
+    private static FileChannel segmentoActual(RegistroTransacciones registro) throws ReflectiveOperationException {
+        Field campo = RegistroTransacciones.class.getDeclaredField("segmento");
+        campo.setAccessible(true);
+        return (FileChannel) campo.get(registro);
+    }
+
+    private static byte[] cuerpo(String texto) {
+        return texto.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String texto(RegistroTransacciones.Registro registro) {
+        return new String(registro.cuerpo, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,181 @@
+package org.demo.Persistencia;
+
+import org.demo.Models.Cita;
+import org.demo.Models.EstadoCita;
+import org.demo.Models.Medico;
+import org.demo.Models.Paciente;
+import org.demo.Models.TipoDocumento;
+import org.demo.Repositories.CitaRepository;
+import org.demo.Repositories.MedicoRepository;
+import org.demo.Repositories.PacienteRepository;
+import org.demo.Utils.GeneradorIds;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Cada clase de prueba corre en su propia JVM, así que los repositorios empiezan vacíos;
+ * solo una prueba les agrega datos.
+ */
+class RespaldoTest {
+
+    @TempDir
+    Path directorio;
+
+    private final PacienteRepository pacientes = PacienteRepository.getInstancia();
+    private final MedicoRepository medicos = MedicoRepository.getInstancia();
+    private final CitaRepository citas = CitaRepository.getInstancia();
+
+    @Test
+    void elCodecConservaCadaCampo() throws IOException {
+        Medico medico = new Medico("Dra. Ana Ruiz", TipoDocumento.CE, "100", "300", "Armenia",
+                "ana@hospital.com", "Cardiología", "Consultorio 1");
+        medico.setHorario("Lunes a viernes");
+        Paciente paciente = new Paciente("Julia Pérez", TipoDocumento.PASAPORTE, "200", "310", "Calle 5",
+                "julia@correo.com", "01/01/1990", null);
+        // Centavos que no caben exactos en un double: no deben pasar por uno
+        Cita cita = new Cita(GeneradorIds.CITAS.siguiente(), medico, paciente, LocalDate.of(2024, 2, 29),
+                LocalTime.of(16, 40), 45, (1L << 53) + 1, EstadoCita.ATENDIDA, "Control", "Trae exámenes");
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            CodecEntidades.escribirMedico(out, medico);
+            CodecEntidades.escribirPaciente(out, paciente);
+            CodecEntidades.escribirCita(out, cita);
+        }
+        long siguientePersona = GeneradorIds.PERSONAS.siguiente() + 1;
+        long siguienteCita = GeneradorIds.CITAS.siguiente() + 1;
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        Medico m = CodecEntidades.leerMedico(in);
+        Paciente p = CodecEntidades.leerPaciente(in);
+        Cita c = CodecEntidades.leerCita(in, id -> id == m.getId() ? m : null, id -> id == p.getId() ? p : null);
+
+        // Reconstruir no gasta IDs nuevos
+        assertEquals(siguientePersona, GeneradorIds.PERSONAS.siguiente());
+        assertEquals(siguienteCita, GeneradorIds.CITAS.siguiente());
+
+        assertEquals(medico.getId(), m.getId());
+        assertEquals(TipoDocumento.CE, m.getTipoDocumento());
+        assertEquals("Lunes a viernes", m.getHorario());
+        assertEquals("Consultorio 1", m.getConsultorio());
+        assertEquals(paciente.getId(), p.getId());
+        assertEquals(TipoDocumento.PASAPORTE, p.getTipoDocumento());
+        assertNull(p.getEnfermedad());
+        assertEquals(cita.getId(), c.getId());
+        assertSame(m, c.getMedico());
+        assertSame(p, c.getPaciente());
+        assertEquals(cita.getFecha(), c.getFecha());
+        assertEquals(cita.getHora(), c.getHora());
+        assertEquals(45, c.getDuracionMinutos());
+        assertEquals((1L << 53) + 1, c.getPrecioCentavos());
+        assertEquals(cita.getEstado(), c.getEstado());
+        assertEquals("Trae exámenes", c.getObservaciones());
+
+        // Sin su médico la cita no se puede reconstruir
+        DataInputStream otra = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        CodecEntidades.leerMedico(otra);
+        CodecEntidades.leerPaciente(otra);
+        assertNull(CodecEntidades.leerCita(otra, id -> null, id -> p));
+    }
+
+    @Test
+    void exportarEImportarRecuperaLosDatos() throws IOException {
+        Medico ana = medico("Dra. Ana Ruiz", "100");
+        Medico luis = medico("Dr. Luis Mora", "101");
+        Paciente julia = paciente("Julia Pérez", "200");
+        Paciente mario = paciente("Mario Gil", "201");
+        cita(ana, julia, LocalDate.of(2031, 3, 10), LocalTime.of(9, 0), "Control");
+        cita(ana, mario, LocalDate.of(2031, 3, 10), LocalTime.of(10, 0), "Control");
+        Cita especial = cita(luis, julia, LocalDate.of(2031, 4, 1), LocalTime.of(15, 30), "Chequeo anual");
+        especial.setEstado(EstadoCita.ATENDIDA);
+        citas.actualizarCita(especial);
+
+        Path archivo = directorio.resolve("respaldo.bin");
+        Respaldo.Resultado exportado = Respaldo.exportar(archivo, f -> {});
+        assertEquals(2, exportado.getPacientes());
+        assertEquals(2, exportado.getMedicos());
+        assertEquals(3, exportado.getCitas());
+        assertEquals(Files.size(archivo), exportado.getBytes());
+
+        // Se vacían los repositorios y se restaura desde el archivo
+        assertTrue(medicos.eliminarMedico(ana) && medicos.eliminarMedico(luis));
+        assertTrue(pacientes.eliminarPaciente(julia) && pacientes.eliminarPaciente(mario));
+        assertEquals(0, citas.contarCitas());
+
+        Respaldo.Resultado importado = Respaldo.importar(archivo, f -> {});
+        assertEquals(2, importado.getPacientes());
+        assertEquals(2, importado.getMedicos());
+        assertEquals(3, importado.getCitas());
+        assertEquals(0, importado.getOmitidos());
+
+        Paciente juliaDeNuevo = pacientes.buscarPorDocumento("200").orElseThrow();
+        assertEquals(julia.getId(), juliaDeNuevo.getId());
+        assertEquals("p200@correo.com", juliaDeNuevo.getCorreo());
+        List<Cita> restauradas = citas.listarCitas().stream()
+                .sorted(Comparator.comparing(Cita::getFecha).thenComparing(Cita::getHora)).toList();
+        assertEquals(3, restauradas.size());
+        Cita ultima = restauradas.get(2);
+        assertEquals(especial.getId(), ultima.getId());
+        assertEquals("Dr. Luis Mora", ultima.getMedico().getNombre());
+        assertSame(juliaDeNuevo, ultima.getPaciente());
+        assertEquals(especial.getEstado(), ultima.getEstado());
+        assertEquals("Chequeo anual", ultima.getMotivo());
+        assertEquals(especial.getPrecioCentavos(), ultima.getPrecioCentavos());
+
+        // Importar otra vez reutiliza a las personas y no duplica citas que se cruzan
+        Respaldo.Resultado repetido = Respaldo.importar(archivo, f -> {});
+        assertEquals(4, repetido.getExistentes());
+        assertEquals(0, repetido.getCitas());
+        assertEquals(3, repetido.getOmitidos());
+        assertEquals(3, citas.contarCitas());
+    }
+
+    @Test
+    void unRespaldoCortadoNoSeImporta() throws IOException {
+        // Con o sin datos, el archivo lleva al menos la cabecera y el bloque final
+        Path archivo = directorio.resolve("cortado.bin");
+        Respaldo.exportar(archivo, f -> {});
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.WRITE)) {
+            canal.truncate(canal.size() - 10);
+        }
+
+        assertThrows(IOException.class, () -> Respaldo.importar(archivo, f -> {}));
+    }
+
+    // ------------------------------------------------------------ AUXILIARES
+
+    private Medico medico(String nombre, String documento) {
+        Medico m = new Medico(nombre, TipoDocumento.CC, documento, "30" + documento, "Armenia",
+                "m" + documento + "@hospital.com", "Medicina general", "Consultorio " + documento);
+        medicos.guardarMedico(m);
+        return m;
+    }
+
+    private Paciente paciente(String nombre, String documento) {
+        Paciente p = new Paciente(nombre, TipoDocumento.CC, documento, "31" + documento, "Armenia",
+                "p" + documento + "@correo.com", "01/01/1990", "Ninguna");
+        pacientes.guardarPaciente(p);
+        return p;
+    }
+
+    private Cita cita(Medico medico, Paciente paciente, LocalDate fecha, LocalTime hora, String motivo) {
+        Cita c = new Cita(medico, paciente, fecha, hora, 30000, motivo, "");
+        assertTrue(citas.reservarCita(c));
+        return c;
+    }
+}
@@ -0,0 +1,361 @@
+package org.demo.Repositories;
+
+import org.demo.Models.Cita;
+import org.demo.Models.CupoLibre;
+import org.demo.Models.Medico;
+import org.demo.Models.Paciente;
+import org.demo.Models.TipoDocumento;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Los repositorios son únicos por proceso; cada prueba usa sus propias personas y citas.
+ */
+class CitaRepositoryTest {
+
+    private final CitaRepository citas = CitaRepository.getInstancia();
+    private final MedicoRepository medicos = MedicoRepository.getInstancia();
+    private final PacienteRepository pacientes = PacienteRepository.getInstancia();
+
+    @Test
+    void lasArchivadasTardeQuedanEnOrdenDeFecha() {
+        Medico ana = medico("Dra. Ana Ruiz (orden)");
+        Medico luis = medico("Dr. Luis Mora (orden)");
+        Paciente julia = paciente("Julia Pérez");
+        Paciente mario = paciente("Mario Gil");
+        int antes = citas.contarCitas();
+        int segmentosAntes = citas.getHistorico().size();
+
+        Cita c1 = guardar(ana, julia, LocalDate.of(2024, 3, 10));
+        Cita c2 = guardar(luis, mario, LocalDate.of(2024, 3, 5));
+        Cita c3 = guardar(ana, mario, LocalDate.of(2024, 4, 1));
+        assertEquals(3, citas.archivarAnterioresA(LocalDate.of(2024, 5, 1), 1));
+
+        // Llega tarde una cita anterior a las ya archivadas y va a otro segmento
+        Cita c4 = guardar(luis, julia, LocalDate.of(2024, 3, 7));
+        Cita c5 = guardar(ana, julia, LocalDate.of(2030, 1, 1));
+        assertEquals(1, citas.archivarAnterioresA(LocalDate.of(2024, 6, 1), 1));
+        assertEquals(segmentosAntes + 2, citas.getHistorico().size());
+
+        FiltroCitas deEstaPrueba = filtro("(orden)");
+        assertEquals(ids(c2, c4, c1, c3, c5), ids(citas.listarPaginaDespuesDe(null, 0, 10, deEstaPrueba)));
+        assertEquals(ids(c4, c1), ids(citas.listarPaginaDespuesDe(null, 1, 2, deEstaPrueba)));
+        assertEquals(5, citas.contarCitas(deEstaPrueba));
+        assertEquals(antes + 5, citas.contarCitas(null));
+        assertEquals(antes + 5, citas.contarCitas());
+
+        // Sin filtro, todo el recorrido sigue en orden de fecha aunque mezcle segmentos y memoria
+        List<Cita> todas = citas.listarPaginaDespuesDe(null, 0, antes + 5, null);
+        assertEquals(antes + 5, todas.size());
+        for (int i = 1; i < todas.size(); i++) {
+            assertFalse(todas.get(i).getFecha().isBefore(todas.get(i - 1).getFecha()));
+        }
+    }
+
+    @Test
+    void lasPaginasSiguenDesdeUnaCitaDeReferencia() {
+        Medico eva = medico("Dra. Eva Soto (referencia)");
+        Paciente raul = paciente("Raúl Díaz");
+        List<Cita> guardadas = new ArrayList<>();
+        for (int i = 1; i <= 4; i++) guardadas.add(guardar(eva, raul, LocalDate.of(2022, 6, i)));
+        citas.archivarAnterioresA(LocalDate.of(2022, 7, 1), 1);
+        for (int i = 5; i <= 8; i++) guardadas.add(guardar(eva, raul, LocalDate.of(2032, 6, i)));
+        // Dos a la misma hora del mismo día: las desempata el ID
+        guardadas.add(guardar(eva, raul, LocalDate.of(2032, 6, 8)));
+        FiltroCitas deEstaPrueba = filtro("(referencia)");
+
+        List<Cita> todas = citas.listarPaginaDespuesDe(null, 0, 20, deEstaPrueba);
+        assertEquals(ids(guardadas), ids(todas));
+
+        // Hacia adelante desde una archivada y desde una de memoria, saltando algunas
+        assertEquals(ids(todas.subList(2, 5)), ids(citas.listarPaginaDespuesDe(todas.get(1), 0, 3, deEstaPrueba)));
+        assertEquals(ids(todas.subList(5, 8)), ids(citas.listarPaginaDespuesDe(todas.get(1), 3, 3, deEstaPrueba)));
+        assertEquals(ids(todas.subList(8, 9)), ids(citas.listarPaginaDespuesDe(todas.get(7), 0, 3, deEstaPrueba)));
+
+        // Hacia atrás devuelve la página en orden ascendente
+        assertEquals(ids(todas.subList(4, 7)), ids(citas.listarPaginaAntesDe(todas.get(7), 0, 3, deEstaPrueba)));
+        assertEquals(ids(todas.subList(0, 2)), ids(citas.listarPaginaAntesDe(todas.get(4), 2, 3, deEstaPrueba)));
+        assertEquals(ids(todas.subList(6, 9)), ids(citas.listarPaginaAntesDe(null, 0, 3, deEstaPrueba)));
+    }
+
+    @Test
+    void elFiltroSePruebaSobreMedicoYPaciente() {
+        Medico sofia = medico("Dra. Sofía Quintero (filtro)");
+        Medico pablo = medico("Dr. Pablo Arango (filtro)");
+        Paciente lucia = paciente("Lucía Henao");
+        Paciente tomas = paciente("Tomás Villa");
+
+        Cita archivada1 = guardar(sofia, lucia, LocalDate.of(2023, 2, 1));
+        Cita archivada2 = guardar(pablo, tomas, LocalDate.of(2023, 2, 2));
+        citas.archivarAnterioresA(LocalDate.of(2023, 3, 1), 1);
+        Cita viva1 = guardar(pablo, lucia, LocalDate.of(2031, 5, 5));
+        Cita viva2 = guardar(sofia, tomas, LocalDate.of(2031, 5, 6));
+
+        FiltroCitas porQuintero = filtro("quintero");
+        assertEquals(2, citas.contarCitas(porQuintero));
+        List<Cita> deSofia = citas.listarPaginaDespuesDe(null, 0, 10, porQuintero);
+        assertEquals(ids(archivada1, viva2), ids(deSofia));
+        assertNotSame(archivada1, deSofia.get(0));
+        assertSame(sofia, deSofia.get(0).getMedico());
+
+        // El documento del paciente también cuenta, y una cita pasa si pasa cualquiera de los dos
+        FiltroCitas porDocumento = filtro(lucia.getNumDocumento());
+        assertEquals(ids(archivada1, viva1), ids(citas.listarPaginaDespuesDe(null, 0, 10, porDocumento)));
+
+        FiltroCitas ninguno = filtro("no existe nadie así");
+        assertEquals(0, citas.contarCitas(ninguno));
+        assertTrue(citas.listarPaginaDespuesDe(null, 0, 10, ninguno).isEmpty());
+        assertEquals(ids(archivada2, viva2), ids(citas.listarPaginaDespuesDe(null, 0, 10, filtro("tomás villa"))));
+    }
+
+    @Test
+    void losCuposSiguenLaJornadaDelMedicoYRedondeanElInicio() {
+        Medico medico = medico("Dra. Paula Roa (cupos)");
+        medico.setHorario("07:30-09:00");
+        LocalDate dia = LocalDate.of(2036, 5, 5);
+        assertTrue(citas.reservarCita(new Cita(medico, paciente("Andrea Mesa (cupos)"), dia, LocalTime.of(8, 0), 30,
+                20000, "Control", "")));
+
+        // Desde las 07:31:20 el primer inicio posible es 07:32, que se redondea a 07:35
+        List<CupoLibre> cupos = citas.buscarCuposLibres(List.of(medico), dia.atTime(7, 31, 20), 20, 4);
+
+        assertEquals(List.of(dia.atTime(7, 35), dia.atTime(8, 30), dia.plusDays(1).atTime(7, 30),
+                dia.plusDays(1).atTime(7, 50)), inicios(cupos));
+        assertTrue(cupos.stream().allMatch(c -> c.getMedico() == medico && c.getDuracionMinutos() == 20));
+    }
+
+    @Test
+    void unaMananaLlenaPasaAlDiaSiguiente() {
+        Medico medico = medico("Dr. Raúl Pinto (cupos)");
+        medico.setHorario("08:00-12:00");
+        Paciente paciente = paciente("Sara Mejía (cupos)");
+        LocalDate dia = LocalDate.of(2036, 6, 2);
+        for (int hora = 8; hora < 12; hora++) {
+            assertTrue(citas.reservarCita(new Cita(medico, paciente, dia, LocalTime.of(hora, 0), 60, 20000, "Control", "")));
+        }
+
+        assertEquals(List.of(dia.plusDays(1).atTime(8, 0), dia.plusDays(1).atTime(8, 45)),
+                inicios(citas.buscarCuposLibres(List.of(medico), dia.atStartOfDay(), 45, 2)));
+    }
+
+    @Test
+    void soloUnaReservaGanaElMismoHorario() throws Exception {
+        Medico nora = medico("Dra. Nora Pineda (horario)");
+        List<Paciente> interesados = new ArrayList<>();
+        for (int i = 0; i < 8; i++) interesados.add(paciente("Interesado " + i));
+
+        List<Boolean> resultados = enParalelo(interesados.size(), i -> citas.reservarCita(
+                new Cita(nora, interesados.get(i), LocalDate.of(2033, 1, 10), LocalTime.of(10, 0), 20000, "Control", "")));
+
+        assertEquals(1, resultados.stream().filter(r -> r).count());
+        assertEquals(1, citas.contarCitasDeMedico(nora.getId()));
+    }
+
+    @Test
+    void soloUnaEdicionGanaElMismoHorario() throws Exception {
+        Medico medico = medico("Dr. Hugo Salas (edición)");
+        LocalDate fecha = LocalDate.of(2033, 2, 14);
+        List<Cita> originales = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            Cita cita = new Cita(medico, paciente("Editado " + i), fecha, LocalTime.of(8 + i, 0), 20000, "Control", "");
+            assertTrue(citas.reservarCita(cita));
+            originales.add(cita);
+        }
+
+        // Todas intentan pasar a las 15:00 con una instancia nueva
+        List<Boolean> resultados = enParalelo(originales.size(), i -> citas.actualizarCita(movida(originales.get(i),
+                LocalTime.of(15, 0))));
+
+        assertEquals(1, resultados.stream().filter(r -> r).count());
+        assertEquals(1, citas.buscarCitasSolapadas(medico, fecha, LocalTime.of(15, 0), 30, null).size());
+        for (int i = 0; i < originales.size(); i++) {
+            Cita guardada = citas.buscarCitaPorId(originales.get(i).getId()).orElseThrow();
+            assertEquals(resultados.get(i) ? LocalTime.of(15, 0) : LocalTime.of(8 + i, 0), guardada.getHora());
+            // La instancia que se mostraba no se tocó
+            assertEquals(LocalTime.of(8 + i, 0), originales.get(i).getHora());
+        }
+    }
+
+    @Test
+    void noSeActualizaUnaCitaEliminada() {
+        Cita cita = guardar(medico("Dra. Laura Gil (eliminada)"), paciente("Pablo Ríos (eliminada)"),
+                LocalDate.of(2033, 3, 1));
+        citas.eliminarCita(cita);
+
+        assertFalse(citas.actualizarCita(movida(cita, LocalTime.of(11, 0))));
+        assertFalse(citas.existeCita(cita.getId()));
+    }
+
+    @Test
+    void unaReservaSimultaneaNoQuedaSinSuMedicoNiSuPaciente() throws Exception {
+        for (int vuelta = 0; vuelta < 20; vuelta++) {
+            Medico medico = medico("Dr. Simón Reyes (carrera)");
+            Paciente paciente = paciente("Elena Cano (carrera)");
+            boolean conMedico = vuelta % 2 == 0;
+
+            enParalelo(2, tarea -> {
+                if (tarea == 0) {
+                    for (int i = 0; i < 50; i++) {
+                        citas.reservarCita(new Cita(medico, paciente, LocalDate.of(2034, 1, 1).plusDays(i),
+                                LocalTime.of(8, 0), 20000, "Control", ""));
+                    }
+                    return true;
+                }
+                return conMedico ? medicos.eliminarMedico(medico) : pacientes.eliminarPaciente(paciente);
+            });
+
+            // Lo que se reservó antes de la eliminación se fue con ella; después ya no se pudo reservar
+            if (conMedico) assertEquals(0, citas.contarCitasDeMedico(medico.getId()));
+            else assertEquals(0, citas.contarCitasDePaciente(paciente.getId()));
+        }
+    }
+
+    @Test
+    void unaEdicionSimultaneaNoPasaLaCitaAUnMedicoEliminado() throws Exception {
+        for (int vuelta = 0; vuelta < 20; vuelta++) {
+            Medico origen = medico("Dra. Clara Ortiz (traslado)");
+            Medico destino = medico("Dr. Tomás Vega (traslado)");
+            Paciente paciente = paciente("Luis Pardo (traslado)");
+            List<Cita> guardadas = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                guardadas.add(guardar(origen, paciente, LocalDate.of(2035, 1, 1).plusDays(i)));
+            }
+
+            enParalelo(2, tarea -> {
+                if (tarea == 0) {
+                    for (Cita cita : guardadas) {
+                        citas.actualizarCita(new Cita(cita.getId(), destino, paciente, cita.getFecha(), cita.getHora(),
+                                cita.getDuracionMinutos(), cita.getPrecioCentavos(), cita.getEstado(),
+                                cita.getMotivo(), cita.getObservaciones()));
+                    }
+                    return true;
+                }
+                return medicos.eliminarMedico(destino);
+            });
+
+            // Las que se movieron antes de la eliminación se fueron con ella; las demás siguen con su médico
+            assertEquals(0, citas.contarCitasDeMedico(destino.getId()));
+            long restantes = guardadas.stream().filter(c -> citas.existeCita(c.getId())).count();
+            assertEquals(restantes, citas.contarCitasDeMedico(origen.getId()));
+        }
+    }
+
+    @Test
+    void archivarMientrasSeEliminaNoDejaCitasArchivadasHuerfanas() throws Exception {
+        for (int vuelta = 0; vuelta < 20; vuelta++) {
+            Medico medico = medico("Dr. Iván Mejía (archivo)");
+            Paciente paciente = paciente("Rosa Luna (archivo)");
+            LocalDate fecha = LocalDate.of(2020, 1, 1).plusDays(vuelta);
+            for (int i = 0; i < 5; i++) {
+                citas.guardarCita(new Cita(medico, paciente, fecha, LocalTime.of(8 + i, 0), 20000, "Control", ""));
+            }
+
+            List<Boolean> resultados = enParalelo(2, tarea -> tarea == 0
+                    ? citas.archivarAnterioresA(fecha.plusDays(1), 1) > 0
+                    : pacientes.eliminarPaciente(paciente));
+
+            // O se archivó primero y el paciente se queda, o se eliminó con todas sus citas
+            boolean eliminado = resultados.get(1);
+            assertEquals(!eliminado, pacientes.buscarPacientePorId(paciente.getId()).isPresent());
+            assertEquals(eliminado ? 0 : 5, citas.contarCitasDePaciente(paciente.getId()));
+        }
+    }
+
+    // ------------------------------------------------------------ AUXILIARES
+
+    /**
+     * Corre las tareas a la vez, empezando juntas, y devuelve sus resultados en orden.
+     */
+    private static List<Boolean> enParalelo(int tareas, IntFunction<Boolean> tarea) throws Exception {
+        ExecutorService hilos = Executors.newFixedThreadPool(tareas);
+        try {
+            CountDownLatch salida = new CountDownLatch(1);
+            List<Future<Boolean>> futuros = new ArrayList<>();
+            for (int i = 0; i < tareas; i++) {
+                int n = i;
+                futuros.add(hilos.submit(() -> {
+                    salida.await();
+                    return tarea.apply(n);
+                }));
+            }
+            salida.countDown();
+            List<Boolean> resultados = new ArrayList<>();
+            for (Future<Boolean> futuro : futuros) resultados.add(futuro.get(30, TimeUnit.SECONDS));
+            return resultados;
+        } finally {
+            hilos.shutdownNow();
+        }
+    }
+
+    private static int siguiente = 0;
+
+    private Medico medico(String nombre) {
+        int n = ++siguiente;
+        Medico m = new Medico(nombre, TipoDocumento.CC, "M" + n, "30" + n, "Armenia",
+                "medico" + n + "@hospital.com", "Medicina general", "Consultorio " + n);
+        medicos.guardarMedico(m);
+        return m;
+    }
+
+    private Paciente paciente(String nombre) {
+        int n = ++siguiente;
+        Paciente p = new Paciente(nombre, TipoDocumento.CC, "P" + n, "31" + n, "Armenia",
+                "paciente" + n + "@correo.com", "01/01/1990", "Ninguna");
+        pacientes.guardarPaciente(p);
+        return p;
+    }
+
+    private Cita guardar(Medico medico, Paciente paciente, LocalDate fecha) {
+        Cita cita = new Cita(medico, paciente, fecha, LocalTime.of(9, 0), 20000, "Control", "");
+        citas.guardarCita(cita);
+        return cita;
+    }
+
+    private static Cita movida(Cita cita, LocalTime hora) {
+        return new Cita(cita.getId(), cita.getMedico(), cita.getPaciente(), cita.getFecha(), hora,
+                cita.getDuracionMinutos(), cita.getPrecioCentavos(), cita.getEstado(), cita.getMotivo(),
+                cita.getObservaciones());
+    }
+
+    private static FiltroCitas filtro(String texto) {
+        String buscado = texto.toLowerCase();
+        return new FiltroCitas() {
+            @Override
+            public boolean aceptaMedico(Medico medico) {
+                return medico.getNombre().toLowerCase().contains(buscado);
+            }
+
+            @Override
+            public boolean aceptaPaciente(Paciente paciente) {
+                return paciente.getNombre().toLowerCase().contains(buscado)
+                        || paciente.getNumDocumento().toLowerCase().contains(buscado);
+            }
+        };
+    }
+
+    private static List<LocalDateTime> inicios(List<CupoLibre> cupos) {
+        return cupos.stream().map(c -> c.getFecha().atTime(c.getHora())).collect(Collectors.toList());
+    }
+
+    private static List<Long> ids(Cita... lista) {
+        return ids(List.of(lista));
+    }
+
+    private static List<Long> ids(List<Cita> lista) {
+        return lista.stream().map(Cita::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,145 @@
+package org.demo.Repositories;
+
+import org.demo.Models.Cita;
+import org.demo.Models.Medico;
+import org.demo.Models.Paciente;
+import org.demo.Models.TipoDocumento;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IndiceDisponibilidadTest {
+
+    private static final LocalDate DIA = LocalDate.of(2025, 3, 3);
+
+    private final IndiceDisponibilidad indice = new IndiceDisponibilidad();
+    private final Medico medico = new Medico("Dra. Ana Ruiz", TipoDocumento.CC, "100", "300", "Armenia",
+            "ana@hospital.com", "Cardiología", "Consultorio 1");
+    private final Paciente paciente = new Paciente("Julia Pérez", TipoDocumento.CC, "200", "310", "Armenia",
+            "julia@correo.com", "01/01/1990", "Ninguna");
+
+    @Test
+    void detectaLosCrucesDeIntervalosSemiabiertos() {
+        Cita nueve = cita(DIA, LocalTime.of(9, 0), 30);
+        indice.agregar(nueve);
+        long id = medico.getId();
+
+        assertTrue(indice.estaOcupado(id, DIA, LocalTime.of(9, 15), 30, null));
+        assertTrue(indice.estaOcupado(id, DIA, LocalTime.of(8, 45), 16, null));
+        // Termina justo cuando empieza la otra, o empieza justo cuando termina
+        assertFalse(indice.estaOcupado(id, DIA, LocalTime.of(8, 30), 30, null));
+        assertFalse(indice.estaOcupado(id, DIA, LocalTime.of(9, 30), 30, null));
+        // Otro día u otro médico no cuentan
+        assertFalse(indice.estaOcupado(id, DIA.plusDays(1), LocalTime.of(9, 0), 30, null));
+        assertFalse(indice.estaOcupado(id + 1, DIA, LocalTime.of(9, 0), 30, null));
+        // La cita que se está editando no choca consigo misma
+        assertFalse(indice.estaOcupado(id, DIA, LocalTime.of(9, 10), 30, nueve.getId()));
+    }
+
+    @Test
+    void devuelveLasSolapadasOrdenadasPorInicio() {
+        Cita diez = cita(DIA, LocalTime.of(10, 0), 60);
+        Cita nueve = cita(DIA, LocalTime.of(9, 0), 90);
+        Cita once = cita(DIA, LocalTime.of(11, 0), 30);
+        indice.agregar(diez);
+        indice.agregar(nueve);
+        indice.agregar(once);
+
+        assertEquals(List.of(nueve, diez), indice.solapadas(medico.getId(), DIA, LocalTime.of(10, 15), 30, null));
+        assertEquals(List.of(diez, once), indice.solapadas(medico.getId(), DIA, LocalTime.of(10, 45), 30, nueve.getId()));
+        assertTrue(indice.solapadas(medico.getId(), DIA, LocalTime.of(12, 0), 30, null).isEmpty());
+    }
+
+    @Test
+    void quitarYActualizarUsanLaPosicionIndexada() {
+        Cita cita = cita(DIA, LocalTime.of(9, 0), 30);
+        indice.agregar(cita);
+        assertEquals(medico.getId(), indice.medicoIndexado(cita.getId()));
+
+        // La cita se mueve antes de reindexarla: se libera el horario viejo y se ocupa el nuevo
+        cita.setHora(LocalTime.of(14, 0));
+        indice.actualizar(cita);
+        assertFalse(indice.estaOcupado(medico.getId(), DIA, LocalTime.of(9, 0), 30, null));
+        assertTrue(indice.estaOcupado(medico.getId(), DIA, LocalTime.of(14, 0), 30, null));
+
+        indice.quitar(cita.getId());
+        assertNull(indice.medicoIndexado(cita.getId()));
+        assertFalse(indice.estaOcupado(medico.getId(), DIA, LocalTime.of(14, 0), 30, null));
+        assertDoesNotThrow(() -> indice.quitar(cita.getId()));
+    }
+
+    @Test
+    void losHuecosLibresSaltanLosTramosOcupados() {
+        indice.agregar(cita(DIA, LocalTime.of(8, 0), 45));
+        indice.agregar(cita(DIA, LocalTime.of(9, 30), 30));
+
+        List<Integer> huecos = new ArrayList<>();
+        int encontrados = indice.huecosLibres(medico.getId(), DIA, 8 * 60, 11 * 60, 30, 15, 10, huecos::add);
+
+        assertEquals(List.of(8 * 60 + 45, 10 * 60, 10 * 60 + 30), huecos);
+        assertEquals(3, encontrados);
+
+        huecos.clear();
+        assertEquals(1, indice.huecosLibres(medico.getId(), DIA, 8 * 60, 11 * 60, 30, 15, 1, huecos::add));
+        assertEquals(List.of(8 * 60 + 45), huecos);
+    }
+
+    @Test
+    void unHuecoMasCortoQueLaDuracionNoSeOfrece() {
+        indice.agregar(cita(DIA, LocalTime.of(8, 0), 45));
+        indice.agregar(cita(DIA, LocalTime.of(9, 0), 60));
+
+        // Entre 08:45 y 09:00 caben 15 minutos, no 30
+        List<Integer> huecos = new ArrayList<>();
+        indice.huecosLibres(medico.getId(), DIA, 8 * 60, 12 * 60, 30, 5, 1, huecos::add);
+        assertEquals(List.of(10 * 60), huecos);
+
+        huecos.clear();
+        indice.huecosLibres(medico.getId(), DIA, 8 * 60, 12 * 60, 15, 5, 1, huecos::add);
+        assertEquals(List.of(8 * 60 + 45), huecos);
+    }
+
+    @Test
+    void unaJornadaLlenaNoTieneHuecos() {
+        indice.agregar(cita(DIA, LocalTime.of(8, 0), 120));
+        indice.agregar(cita(DIA, LocalTime.of(10, 0), 120));
+
+        List<Integer> huecos = new ArrayList<>();
+        assertEquals(0, indice.huecosLibres(medico.getId(), DIA, 8 * 60, 12 * 60, 5, 5, 10, huecos::add));
+        assertTrue(huecos.isEmpty());
+        // Al abrir la ventana aparece el primer hueco justo al terminar la última cita
+        assertEquals(1, indice.huecosLibres(medico.getId(), DIA, 8 * 60, 13 * 60, 60, 5, 10, huecos::add));
+        assertEquals(List.of(12 * 60), huecos);
+    }
+
+    @Test
+    void elInicioSeRedondeaAlPasoSiguiente() {
+        List<Integer> huecos = new ArrayList<>();
+        // Un día sin citas: los inicios siguen el paso desde el primero que no queda antes de 'desde'
+        indice.huecosLibres(medico.getId(), DIA, 8 * 60 + 7, 9 * 60, 20, 5, 3, huecos::add);
+        assertEquals(List.of(8 * 60 + 10, 8 * 60 + 30), huecos);
+
+        // Con citas, el hueco que sigue a una cita también cae en un múltiplo del paso
+        indice.agregar(cita(DIA, LocalTime.of(9, 0), 33));
+        huecos.clear();
+        indice.huecosLibres(medico.getId(), DIA, 9 * 60, 11 * 60, 30, 5, 1, huecos::add);
+        assertEquals(List.of(9 * 60 + 35), huecos);
+    }
+
+    @Test
+    void unaCitaQuePasaLaMedianocheSoloOcupaSuDia() {
+        indice.agregar(cita(DIA, LocalTime.of(23, 30), 60));
+
+        assertTrue(indice.estaOcupado(medico.getId(), DIA, LocalTime.of(23, 45), 10, null));
+        assertFalse(indice.estaOcupado(medico.getId(), DIA.plusDays(1), LocalTime.of(0, 0), 30, null));
+    }
+
+    private Cita cita(LocalDate fecha, LocalTime hora, int duracion) {
+        return new Cita(medico, paciente, fecha, hora, duracion, 20000, "Control", "");
+    }
+}
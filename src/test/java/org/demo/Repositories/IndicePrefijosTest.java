@@ -0,0 +1,96 @@
+package org.demo.Repositories;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IndicePrefijosTest {
+
+    private final IndicePrefijos<Ficha> indice = new IndicePrefijos<>(f -> List.of(f.nombre, f.documento));
+
+    @Test
+    void buscaSinTildesNiMayusculas() {
+        Ficha ramirez = agregar("Andrés Ramírez", "1094");
+
+        assertEquals(List.of(ramirez), indice.buscar("rami", 10));
+        assertEquals(List.of(ramirez), indice.buscar("RAMÍREZ", 10));
+        assertEquals(List.of(ramirez), indice.buscar("andres", 10));
+        assertEquals(List.of(ramirez), indice.buscar("109", 10));
+        assertTrue(indice.buscar("ramirezz", 10).isEmpty());
+        assertTrue(indice.buscar(" - ", 10).isEmpty());
+    }
+
+    @Test
+    void conVariasPalabrasDebenCoincidirTodas() {
+        Ficha andresRamirez = agregar("Andrés Ramírez", "1094");
+        agregar("Andrés Gómez", "2001");
+        Ficha luisRamirez = agregar("Luis Ramírez", "3002");
+
+        // En cualquier orden y aunque una palabra venga de otro campo
+        assertEquals(List.of(andresRamirez), indice.buscar("ram and", 10));
+        assertEquals(List.of(andresRamirez), indice.buscar("Andrés, Ramírez", 10));
+        assertEquals(List.of(luisRamirez), indice.buscar("ramirez 300", 10));
+        assertTrue(indice.buscar("luis gomez", 10).isEmpty());
+    }
+
+    @Test
+    void devuelveLasPrimerasEnOrden() {
+        Ficha anita = agregar("Anita", "5");
+        Ficha angela = agregar("Ángela", "4");
+        Ficha andrea = agregar("Andrea", "3");
+        Ficha anabel = agregar("Anabel", "2");
+        Ficha ana = agregar("Ana", "1");
+
+        // La coincidencia exacta primero y después en orden alfabético, sin importar el orden de alta
+        assertEquals(List.of(ana, anabel, andrea, angela, anita), indice.buscar("an", 10));
+        assertEquals(List.of(ana, anabel, andrea), indice.buscar("an", 3));
+        assertEquals(List.of(ana, anabel), indice.buscar("ana", 10));
+        assertTrue(indice.buscar("an", 0).isEmpty());
+    }
+
+    @Test
+    void losNodosSinEntidadesSePodan() {
+        int vacio = indice.contarNodos();
+        Ficha ramirez = agregar("Ramírez", "");
+        int conUno = indice.contarNodos();
+        Ficha ramon = agregar("Ramón", "");
+        assertTrue(indice.contarNodos() > conUno);
+
+        // Al cambiar de nombre se suelta la rama de "ramon", que solo compartía "ram"
+        ramon.nombre = "Ramírez";
+        indice.reindexar(ramon);
+        assertEquals(conUno, indice.contarNodos());
+        assertTrue(indice.buscar("ramo", 10).isEmpty());
+        assertEquals(List.of(ramirez, ramon), indice.buscar("rami", 10));
+
+        indice.desindexar(ramirez);
+        assertEquals(conUno, indice.contarNodos());
+        indice.desindexar(ramon);
+        assertEquals(vacio, indice.contarNodos());
+        assertTrue(indice.buscar("r", 10).isEmpty());
+    }
+
+    private Ficha agregar(String nombre, String documento) {
+        Ficha ficha = new Ficha(nombre, documento);
+        indice.indexar(ficha);
+        return ficha;
+    }
+
+    // Se compara por identidad, como las entidades de los repositorios
+    private static final class Ficha {
+        private String nombre;
+        private final String documento;
+
+        private Ficha(String nombre, String documento) {
+            this.nombre = nombre;
+            this.documento = documento;
+        }
+
+        @Override
+        public String toString() {
+            return nombre;
+        }
+    }
+}
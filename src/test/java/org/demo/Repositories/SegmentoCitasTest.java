@@ -0,0 +1,183 @@
+package org.demo.Repositories;
+
+import org.demo.Models.Cita;
+import org.demo.Models.EstadoCita;
+import org.demo.Models.Medico;
+import org.demo.Models.Paciente;
+import org.demo.Models.Persona;
+import org.demo.Models.TipoDocumento;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SegmentoCitasTest {
+
+    private static final LocalDate CORTE = LocalDate.of(2025, 1, 1);
+
+    @TempDir
+    Path directorio;
+
+    private final Medico medico1 = new Medico("Dra. Ana Ruiz", TipoDocumento.CC, "100", "300", "Armenia",
+            "ana@hospital.com", "Cardiología", "Consultorio 1");
+    private final Medico medico2 = new Medico("Dr. Luis Mora", TipoDocumento.CC, "101", "301", "Armenia",
+            "luis@hospital.com", "Pediatría", "Consultorio 2");
+    private final Paciente paciente1 = new Paciente("Julia Pérez", TipoDocumento.CC, "200", "310", "Armenia",
+            "julia@correo.com", "01/01/1990", "Ninguna");
+    private final Paciente paciente2 = new Paciente("Mario Gil", TipoDocumento.CC, "201", "311", "Armenia",
+            "mario@correo.com", "01/01/1985", "Asma");
+
+    @Test
+    void ordenaLasFilasPorFechaYHora() {
+        List<Cita> citas = List.of(
+                cita(medico1, paciente1, LocalDate.of(2024, 12, 3), LocalTime.of(9, 0)),
+                cita(medico2, paciente2, LocalDate.of(2024, 11, 20), LocalTime.of(15, 30)),
+                cita(medico1, paciente2, LocalDate.of(2024, 12, 3), LocalTime.of(8, 0)),
+                cita(medico2, paciente1, LocalDate.of(2024, 11, 20), LocalTime.of(7, 45)));
+        SegmentoCitas segmento = construir(citas);
+
+        assertEquals(4, segmento.getFilas());
+        assertEquals(CORTE, segmento.getCorte());
+        List<Long> ids = new ArrayList<>();
+        segmento.recorrer(fila -> ids.add(segmento.getId(fila)));
+        assertEquals(List.of(citas.get(3).getId(), citas.get(1).getId(), citas.get(2).getId(), citas.get(0).getId()), ids);
+        assertEquals(LocalDate.of(2024, 11, 20).toEpochDay(), segmento.getDia(0));
+        assertEquals(LocalTime.of(7, 45).toSecondOfDay(), segmento.getSegundoDelDia(0));
+    }
+
+    @Test
+    void buscaLaPrimeraFilaDesdeUnaFechaYHora() {
+        SegmentoCitas segmento = construir(List.of(
+                cita(medico1, paciente1, LocalDate.of(2024, 11, 20), LocalTime.of(7, 45)),
+                cita(medico2, paciente2, LocalDate.of(2024, 11, 20), LocalTime.of(15, 30)),
+                cita(medico1, paciente2, LocalDate.of(2024, 12, 3), LocalTime.of(8, 0)),
+                cita(medico2, paciente1, LocalDate.of(2024, 12, 3), LocalTime.of(9, 0))));
+        long dia20 = LocalDate.of(2024, 11, 20).toEpochDay();
+        long dia3 = LocalDate.of(2024, 12, 3).toEpochDay();
+
+        assertEquals(0, segmento.primeraFilaDesde(dia20 - 5, 0));
+        assertEquals(0, segmento.primeraFilaDesde(dia20, LocalTime.of(7, 45).toSecondOfDay()));
+        assertEquals(1, segmento.primeraFilaDesde(dia20, LocalTime.of(7, 46).toSecondOfDay()));
+        assertEquals(2, segmento.primeraFilaDesde(dia20, LocalTime.of(16, 0).toSecondOfDay()));
+        assertEquals(2, segmento.primeraFilaDesde(dia20 + 1, 0));
+        assertEquals(3, segmento.primeraFilaDesde(dia3, LocalTime.of(9, 0).toSecondOfDay()));
+        assertEquals(4, segmento.primeraFilaDesde(dia3, LocalTime.of(9, 1).toSecondOfDay()));
+        assertEquals(4, segmento.primeraFilaDesde(dia3 + 30, 0));
+    }
+
+    @Test
+    void conservaLosCamposDeCadaCita() {
+        Cita original = cita(medico1, paciente2, LocalDate.of(2024, 10, 5), LocalTime.of(10, 15));
+        original.setEstado(EstadoCita.ATENDIDA);
+        SegmentoCitas segmento = construir(List.of(original, cita(medico2, paciente1, LocalDate.of(2024, 10, 6), LocalTime.NOON)));
+
+        int fila = segmento.buscarFila(original.getId());
+        assertTrue(fila >= 0);
+        assertEquals(-1, segmento.buscarFila(original.getId() + 1_000_000));
+
+        Cita copia = segmento.materializar(fila, personas(medico1, medico2), personas(paciente1, paciente2));
+        assertNotSame(original, copia);
+        assertEquals(original.getId(), copia.getId());
+        assertSame(medico1, copia.getMedico());
+        assertSame(paciente2, copia.getPaciente());
+        assertEquals(original.getFecha(), copia.getFecha());
+        assertEquals(original.getHora(), copia.getHora());
+        assertEquals(original.getDuracionMinutos(), copia.getDuracionMinutos());
+        assertEquals(original.getPrecioCentavos(), copia.getPrecioCentavos());
+        assertEquals(original.getEstado(), copia.getEstado());
+        assertEquals(original.getMotivo(), copia.getMotivo());
+        assertEquals(original.getObservaciones(), copia.getObservaciones());
+        assertEquals("Cardiología", segmento.getEspecialidad(fila));
+        assertEquals("Consultorio 1", segmento.getConsultorio(fila));
+
+        // Sin su persona la cita no se puede reconstruir
+        assertNull(segmento.materializar(fila, id -> null, personas(paciente1, paciente2)));
+    }
+
+    @Test
+    void recorrePorPersonaEnOrden() {
+        SegmentoCitas segmento = construir(List.of(
+                cita(medico1, paciente1, LocalDate.of(2024, 12, 2), LocalTime.of(9, 0)),
+                cita(medico2, paciente1, LocalDate.of(2024, 12, 1), LocalTime.of(9, 0)),
+                cita(medico1, paciente2, LocalDate.of(2024, 12, 1), LocalTime.of(11, 0))));
+
+        assertEquals(2, segmento.contarMedico(medico1.getId()));
+        assertEquals(1, segmento.contarMedico(medico2.getId()));
+        assertEquals(0, segmento.contarMedico(-5));
+        assertEquals(2, segmento.contarPaciente(paciente1.getId()));
+
+        List<Long> dias = new ArrayList<>();
+        segmento.recorrerMedico(medico1.getId(), fila -> dias.add(segmento.getDia(fila)));
+        assertEquals(List.of(LocalDate.of(2024, 12, 1).toEpochDay(), LocalDate.of(2024, 12, 2).toEpochDay()), dias);
+    }
+
+    @Test
+    void seEscribeYSeVuelveAAbrir() throws IOException {
+        List<Cita> citas = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            citas.add(cita(i % 2 == 0 ? medico1 : medico2, i % 3 == 0 ? paciente1 : paciente2,
+                    LocalDate.of(2024, 1, 1).plusDays(i % 200), LocalTime.of(8, 0).plusMinutes(i % 50 * 10)));
+        }
+        SegmentoCitas original = construir(citas);
+        Path archivo = directorio.resolve("segmento.col");
+        original.escribir(archivo);
+
+        SegmentoCitas leido = SegmentoCitas.abrir(archivo);
+        assertEquals(original.getFilas(), leido.getFilas());
+        assertEquals(original.getCorte(), leido.getCorte());
+        assertEquals(original.getMenorId(), leido.getMenorId());
+        assertEquals(original.getMayorId(), leido.getMayorId());
+        for (int fila = 0; fila < original.getFilas(); fila++) {
+            assertEquals(original.getId(fila), leido.getId(fila));
+            assertEquals(original.getDia(fila), leido.getDia(fila));
+            assertEquals(original.getSegundoDelDia(fila), leido.getSegundoDelDia(fila));
+            assertEquals(original.getMedicoId(fila), leido.getMedicoId(fila));
+            assertEquals(original.getMotivo(fila), leido.getMotivo(fila));
+        }
+        assertEquals(original.contarPaciente(paciente1.getId()), leido.contarPaciente(paciente1.getId()));
+    }
+
+    @Test
+    void rechazaUnArchivoDanado() throws IOException {
+        Path archivo = directorio.resolve("segmento.col");
+        construir(List.of(cita(medico1, paciente1, LocalDate.of(2024, 5, 5), LocalTime.NOON))).escribir(archivo);
+
+        byte[] bytes = Files.readAllBytes(archivo);
+        bytes[bytes.length - 1] ^= 0x33;
+        Files.write(archivo, bytes);
+        assertThrows(IOException.class, () -> SegmentoCitas.abrir(archivo));
+
+        Files.write(archivo, new byte[]{1, 2, 3});
+        assertThrows(IOException.class, () -> SegmentoCitas.abrir(archivo));
+    }
+
+    // ------------------------------------------------------------ AUXILIARES
+
+    private static SegmentoCitas construir(List<Cita> citas) {
+        SegmentoCitas.Constructor constructor = new SegmentoCitas.Constructor(CORTE);
+        citas.forEach(constructor::agregar);
+        return constructor.construir();
+    }
+
+    private static Cita cita(Medico medico, Paciente paciente, LocalDate fecha, LocalTime hora) {
+        return new Cita(medico, paciente, fecha, hora, 30, 45000.5, "Control " + fecha, "Sin novedad");
+    }
+
+    @SafeVarargs
+    private static <T extends Persona> LongFunction<T> personas(T... lista) {
+        Map<Long, T> porId = new HashMap<>();
+        for (T persona : lista) porId.put(persona.getId(), persona);
+        return porId::get;
+    }
+}
@@ -0,0 +1,115 @@
+package org.demo.Utils;
+
+import javafx.collections.ListChangeListener;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ListaPaginadaTest {
+
+    @Test
+    void devuelveCadaFilaSinImportarElOrdenDeLectura() {
+        FuenteNumeros fuente = new FuenteNumeros(1000);
+        ListaPaginada<Integer> lista = new ListaPaginada<>(fuente, 10, 4);
+
+        assertEquals(1000, lista.size());
+        for (int i : new int[]{0, 999, 500, 13, 987, 505, 250, 251, 10, 9}) {
+            assertEquals(fuente.valores.get(i), lista.get(i));
+        }
+    }
+
+    @Test
+    void lasPaginasVecinasSeLeenDesdeElBordeDeLaAnterior() {
+        FuenteNumeros fuente = new FuenteNumeros(10_000);
+        ListaPaginada<Integer> lista = new ListaPaginada<>(fuente, 10, 4);
+
+        // Bajar por la tabla fila a fila no vuelve a saltar las páginas ya vistas
+        for (int i = 0; i < 2000; i++) assertEquals(fuente.valores.get(i), lista.get(i));
+        assertEquals(0, fuente.saltadas);
+
+        // Lejos de todo lo conocido se parte del extremo más cercano
+        assertEquals(fuente.valores.get(9005), lista.get(9005));
+        assertEquals(990, fuente.saltadas);
+    }
+
+    @Test
+    void alRefrescarSoloAvisaLoQueCambio() {
+        FuenteNumeros fuente = new FuenteNumeros(100);
+        ListaPaginada<Integer> lista = new ListaPaginada<>(fuente, 10, 4);
+        lista.get(42);
+        List<String> cambios = new ArrayList<>();
+        lista.addListener((ListChangeListener<Integer>) c -> {
+            while (c.next()) {
+                if (c.wasUpdated()) cambios.add("actualizadas " + c.getFrom() + "-" + c.getTo());
+                else if (c.wasAdded()) cambios.add("agregadas " + c.getFrom() + "-" + c.getTo());
+                else if (c.wasRemoved()) cambios.add("quitadas " + c.getFrom() + "-" + (c.getFrom() + c.getRemovedSize()));
+            }
+        });
+
+        fuente.agregar(5);
+        lista.refrescar();
+        assertEquals(Set.of("actualizadas 40-50", "agregadas 100-105"), Set.copyOf(cambios));
+        assertEquals(fuente.valores.get(42), lista.get(42));
+
+        cambios.clear();
+        fuente.quitar(10);
+        lista.refrescar();
+        assertEquals(Set.of("actualizadas 40-50", "quitadas 95-105"), Set.copyOf(cambios));
+        assertEquals(fuente.valores.get(94), lista.get(94));
+    }
+
+    /**
+     * Números pares en orden; cuenta cuántas filas tuvo que saltar.
+     */
+    private static final class FuenteNumeros implements ListaPaginada.Fuente<Integer> {
+        private final List<Integer> valores;
+        private int saltadas;
+
+        private FuenteNumeros(int cantidad) {
+            valores = IntStream.range(0, cantidad).map(i -> i * 2).boxed().collect(Collectors.toList());
+        }
+
+        private void agregar(int cantidad) {
+            // Impares entre los existentes: las filas cambian de lugar pero la cuenta es otra
+            for (int i = 0; i < cantidad; i++) valores.add(i * 2 + 1);
+            Collections.sort(valores);
+        }
+
+        private void quitar(int cantidad) {
+            valores.subList(0, cantidad).clear();
+        }
+
+        @Override
+        public int contar() {
+            return valores.size();
+        }
+
+        @Override
+        public List<Integer> leerDespuesDe(Integer referencia, int saltar, int cantidad) {
+            saltadas += saltar;
+            int desde = referencia == null ? 0 : posicionDe(referencia) + 1;
+            return List.copyOf(valores.subList(Math.min(valores.size(), desde + saltar),
+                    Math.min(valores.size(), desde + saltar + cantidad)));
+        }
+
+        @Override
+        public List<Integer> leerAntesDe(Integer referencia, int saltar, int cantidad) {
+            saltadas += saltar;
+            int hasta = (referencia == null ? valores.size() : posicionDe(referencia)) - saltar;
+            return List.copyOf(valores.subList(Math.max(0, hasta - cantidad), Math.max(0, hasta)));
+        }
+
+        // Posición del primer valor no menor que la referencia, exista o no
+        private int posicionDe(int referencia) {
+            int i = Collections.binarySearch(valores, referencia);
+            return i >= 0 ? i : -i - 1;
+        }
+    }
+}